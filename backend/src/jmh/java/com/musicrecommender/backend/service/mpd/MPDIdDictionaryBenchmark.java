@@ -0,0 +1,89 @@
+package com.musicrecommender.backend.service.mpd;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Track deduplication during import: resolving every track occurrence of a slice to an ordinal,
+ * assigning new ordinals on first sight. Compares {@link MPDIdDictionary} with a plain HashMap.
+ * Scores are track occurrences per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MPDIdDictionaryBenchmark {
+    private static final int OCCURRENCES = 100_000;
+
+    @Param({"0.0", "1.0"})
+    public double skew;
+    @Param({"100000"})
+    public int catalog;
+
+    private String[] trackIds;
+
+    @Setup
+    public void generate() throws IOException {
+        MPDSliceGenerator.Settings settings = new MPDSliceGenerator.Settings();
+        settings.setPlaylistsPerSlice(OCCURRENCES / 20);
+        settings.setTrackCount(catalog);
+        settings.setPopularitySkew(skew);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new MPDSliceGenerator(settings).writeSlice(0, out);
+        List<String> ids = new ArrayList<>();
+        new MPDSliceReader().read(new ByteArrayInputStream(out.toByteArray()), playlist ->
+            playlist.getTracks().forEach(track -> ids.add(track.getSpotifyId())));
+        trackIds = ids.subList(0, Math.min(OCCURRENCES, ids.size())).toArray(new String[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OCCURRENCES)
+    public void idDictionary(Blackhole blackhole) {
+        MPDIdDictionary dictionary = new MPDIdDictionary(0);
+        List<String> single = new ArrayList<>(1);
+        List<Integer> assigned = new ArrayList<>(1);
+        for (String trackId : trackIds) {
+            int ordinal = dictionary.ordinalOf(trackId);
+            if (ordinal < 0) {
+                ordinal = dictionary.reserveOrdinal();
+                single.clear();
+                assigned.clear();
+                single.add(trackId);
+                assigned.add(ordinal);
+                dictionary.putAll(single, assigned);
+            }
+            blackhole.consume(ordinal);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OCCURRENCES)
+    public void hashMap(Blackhole blackhole) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (String trackId : trackIds) {
+            blackhole.consume(dictionary.computeIfAbsent(trackId, key -> dictionary.size()));
+        }
+    }
+}
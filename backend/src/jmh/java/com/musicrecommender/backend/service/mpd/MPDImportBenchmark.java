@@ -0,0 +1,112 @@
+package com.musicrecommender.backend.service.mpd;
+
+import com.musicrecommender.backend.MusicRecommenderApplication;
+import com.musicrecommender.backend.service.MPDImportService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end import of generated slices into an in-memory H2 database: parsing, dictionary
+ * lookups and batched persistence together. Every invocation starts from empty MPD tables.
+ * The score is imports per second; the megabytes and playlists counters are the useful rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class MPDImportBenchmark {
+    private static final String[] MPD_TABLES = {
+        "mpd_playlist_edges", "mpd_playlists", "mpd_dict_tracks", "mpd_dict_artists", "mpd_dict_albums", "mpd_import_ledger"
+    };
+
+    @Param({"4"})
+    public int slices;
+    @Param({"1000"})
+    public int playlistsPerSlice;
+    @Param({"1.0"})
+    public double skew;
+    @Param({"4"})
+    public int parallelism;
+
+    private ConfigurableApplicationContext context;
+    private MPDImportService importService;
+    private JdbcTemplate jdbcTemplate;
+    private File slicesDir;
+    private long sliceBytes;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        MPDSliceGenerator.Settings settings = new MPDSliceGenerator.Settings();
+        settings.setSliceCount(slices);
+        settings.setPlaylistsPerSlice(playlistsPerSlice);
+        settings.setPopularitySkew(skew);
+        slicesDir = Files.createTempDirectory("mpd-bench").toFile();
+        List<File> files = new MPDSliceGenerator(settings).writeSlices(slicesDir);
+        sliceBytes = files.stream().mapToLong(File::length).sum();
+
+        context = new SpringApplicationBuilder(MusicRecommenderApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:mpdbench;DB_CLOSE_DELAY=-1",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "SPOTIFY_CLIENT_ID=benchmark",
+                "SPOTIFY_CLIENT_SECRET=benchmark",
+                "mpd.snapshot.load-on-startup=false",
+                "mpd.import.parallelism=" + parallelism,
+                "logging.level.root=WARN",
+                "logging.level.com.musicrecommender=WARN")
+            .run();
+        importService = context.getBean(MPDImportService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTables() {
+        for (String table : MPD_TABLES) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Benchmark
+    public void importAllSlices(MPDThroughputCounters counters) {
+        importService.importAllSlices(slicesDir);
+        counters.record(sliceBytes, (long) slices * playlistsPerSlice);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+        File[] files = slicesDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        slicesDir.delete();
+    }
+}
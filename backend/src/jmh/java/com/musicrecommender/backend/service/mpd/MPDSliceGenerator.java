@@ -0,0 +1,211 @@
+package com.musicrecommender.backend.service.mpd;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Writes synthetic slices in the MPD file format, for benchmarking and load testing the import
+ * without the real dataset. Output depends only on the settings, so the same seed always produces
+ * byte-identical files.
+ *
+ * Track popularity follows a Zipf distribution over the catalog: the track of popularity rank r is
+ * picked with probability proportional to 1 / r^skew. A skew around 1 resembles the real MPD,
+ * where a small head of tracks appears in a large share of playlists; 0 is uniform.
+ */
+public class MPDSliceGenerator {
+    private static final char[] BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final int MIN_PLAYLIST_LENGTH = 5;
+    private static final int MAX_PLAYLIST_LENGTH = 250;
+
+    private final Settings settings;
+    private final double[] popularityCdf;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public MPDSliceGenerator(Settings settings) {
+        this.settings = settings;
+        this.popularityCdf = zipfCdf(settings.getTrackCount(), settings.getPopularitySkew());
+    }
+
+    /**
+     * Writes settings.sliceCount slice files named like the real ones, mpd.slice.0-999.json and so on.
+     * @return The files written, in slice order
+     */
+    public List<File> writeSlices(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory.getAbsolutePath());
+        }
+        List<File> files = new ArrayList<>(settings.getSliceCount());
+        for (int slice = 0; slice < settings.getSliceCount(); slice++) {
+            File file = new File(directory, sliceName(slice));
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+                writeSlice(slice, out);
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    public String sliceName(int slice) {
+        long first = (long) slice * settings.getPlaylistsPerSlice();
+        return "mpd.slice." + first + "-" + (first + settings.getPlaylistsPerSlice() - 1) + ".json";
+    }
+
+    /**
+     * Writes one slice to the stream. The stream is not closed.
+     */
+    public void writeSlice(int slice, OutputStream out) throws IOException {
+        // One generator per slice so slices can be produced independently and in any order
+        SplittableRandom random = new SplittableRandom(settings.getSeed() * 0x9E3779B97F4A7C15L + slice);
+        long first = (long) slice * settings.getPlaylistsPerSlice();
+        try (JsonGenerator json = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartObject();
+            json.writeObjectFieldStart("info");
+            json.writeStringField("generated_on", "synthetic");
+            json.writeStringField("slice", first + "-" + (first + settings.getPlaylistsPerSlice() - 1));
+            json.writeStringField("version", "v1");
+            json.writeEndObject();
+            json.writeArrayFieldStart("playlists");
+            for (int i = 0; i < settings.getPlaylistsPerSlice(); i++) {
+                writePlaylist(json, first + i, random);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    private void writePlaylist(JsonGenerator json, long pid, SplittableRandom random) throws IOException {
+        int length = playlistLength(random);
+        json.writeStartObject();
+        json.writeStringField("name", "synthetic " + pid);
+        json.writeStringField("collaborative", "false");
+        json.writeNumberField("pid", pid);
+        json.writeNumberField("modified_at", 1500000000L + pid);
+        json.writeNumberField("num_tracks", length);
+        json.writeNumberField("num_followers", 1);
+        json.writeArrayFieldStart("tracks");
+        for (int pos = 0; pos < length; pos++) {
+            int track = nextTrack(random);
+            json.writeStartObject();
+            json.writeNumberField("pos", pos);
+            json.writeStringField("artist_name", "Artist " + artistOf(track));
+            json.writeStringField("track_uri", "spotify:track:" + spotifyId('T', track));
+            json.writeStringField("artist_uri", "spotify:artist:" + spotifyId('A', artistOf(track)));
+            json.writeStringField("track_name", "Track " + track);
+            json.writeStringField("album_uri", "spotify:album:" + spotifyId('L', albumOf(track)));
+            json.writeNumberField("duration_ms", 120000 + (track % 180) * 1000);
+            json.writeStringField("album_name", "Album " + albumOf(track));
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    private int playlistLength(SplittableRandom random) {
+        // Exponential tail above the minimum, like the real length distribution
+        double extra = -Math.log(1 - random.nextDouble()) * Math.max(0, settings.getMeanPlaylistLength() - MIN_PLAYLIST_LENGTH);
+        return (int) Math.min(MAX_PLAYLIST_LENGTH, MIN_PLAYLIST_LENGTH + Math.round(extra));
+    }
+
+    private int nextTrack(SplittableRandom random) {
+        int rank = Arrays.binarySearch(popularityCdf, random.nextDouble());
+        return rank >= 0 ? rank : Math.min(-rank - 1, popularityCdf.length - 1);
+    }
+
+    private int artistOf(int track) {
+        return (int) Long.remainderUnsigned(mix(track * 31L + 1), settings.getArtistCount());
+    }
+
+    private int albumOf(int track) {
+        return (int) Long.remainderUnsigned(mix(track * 31L + 2), settings.getAlbumCount());
+    }
+
+    /**
+     * A 22 character base62 ID, like Spotify's, derived from the kind and index alone.
+     */
+    static String spotifyId(char kind, long index) {
+        char[] id = new char[22];
+        id[0] = kind;
+        long high = mix(index * 2 + kind);
+        long low = mix(index * 2 + 1 + ((long) kind << 32));
+        for (int i = 1; i < 22; i++) {
+            long source = i < 12 ? high : low;
+            id[i] = BASE62[(int) Long.remainderUnsigned(source, 62)];
+            if (i < 12) {
+                high = Long.divideUnsigned(high, 62);
+            } else {
+                low = Long.divideUnsigned(low, 62);
+            }
+        }
+        return new String(id);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static double[] zipfCdf(int trackCount, double skew) {
+        double[] cdf = new double[trackCount];
+        double total = 0;
+        for (int rank = 0; rank < trackCount; rank++) {
+            total += 1.0 / Math.pow(rank + 1, skew);
+            cdf[rank] = total;
+        }
+        for (int rank = 0; rank < trackCount; rank++) {
+            cdf[rank] /= total;
+        }
+        return cdf;
+    }
+
+    public static class Settings {
+        private int sliceCount = 1;
+        private int playlistsPerSlice = 1000;
+        private int trackCount = 100_000;
+        private int artistCount = 10_000;
+        private int albumCount = 25_000;
+        private int meanPlaylistLength = 66;
+        private double popularitySkew = 1.0;
+        private long seed = 42;
+
+        // Getters and setters
+        public int getSliceCount() { return sliceCount; }
+        public void setSliceCount(int sliceCount) { this.sliceCount = sliceCount; }
+
+        public int getPlaylistsPerSlice() { return playlistsPerSlice; }
+        public void setPlaylistsPerSlice(int playlistsPerSlice) { this.playlistsPerSlice = playlistsPerSlice; }
+
+        public int getTrackCount() { return trackCount; }
+        public void setTrackCount(int trackCount) { this.trackCount = trackCount; }
+
+        public int getArtistCount() { return artistCount; }
+        public void setArtistCount(int artistCount) { this.artistCount = artistCount; }
+
+        public int getAlbumCount() { return albumCount; }
+        public void setAlbumCount(int albumCount) { this.albumCount = albumCount; }
+
+        public int getMeanPlaylistLength() { return meanPlaylistLength; }
+        public void setMeanPlaylistLength(int meanPlaylistLength) { this.meanPlaylistLength = meanPlaylistLength; }
+
+        public double getPopularitySkew() { return popularitySkew; }
+        public void setPopularitySkew(double popularitySkew) { this.popularitySkew = popularitySkew; }
+
+        public long getSeed() { return seed; }
+        public void setSeed(long seed) { this.seed = seed; }
+    }
+}
@@ -0,0 +1,63 @@
+package com.musicrecommender.backend.service.mpd;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing throughput of {@link MPDSliceReader} on an in-memory slice, so disk speed is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MPDSliceReaderBenchmark {
+    @Param({"1000"})
+    public int playlists;
+    @Param({"0.0", "1.0"})
+    public double skew;
+
+    private final MPDSliceReader reader = new MPDSliceReader();
+    private byte[] slice;
+
+    @Setup
+    public void generate() throws IOException {
+        MPDSliceGenerator.Settings settings = new MPDSliceGenerator.Settings();
+        settings.setPlaylistsPerSlice(playlists);
+        settings.setPopularitySkew(skew);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new MPDSliceGenerator(settings).writeSlice(0, out);
+        slice = out.toByteArray();
+    }
+
+    @Benchmark
+    public long parse(MPDThroughputCounters counters) throws IOException {
+        long[] edges = {0};
+        long count = reader.read(new ByteArrayInputStream(slice), playlist -> edges[0] += playlist.getTracks().size());
+        counters.record(slice.length, count);
+        return edges[0];
+    }
+
+    @Benchmark
+    public long skipAll(MPDThroughputCounters counters) throws IOException {
+        // Resuming a slice skips its committed playlists without materializing them
+        long count = reader.read(new ByteArrayInputStream(slice), Long.MAX_VALUE, playlist -> { });
+        counters.record(slice.length, count);
+        return count;
+    }
+}
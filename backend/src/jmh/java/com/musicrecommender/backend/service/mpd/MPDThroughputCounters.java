@@ -0,0 +1,29 @@
+package com.musicrecommender.backend.service.mpd;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary results reported next to the score of the import benchmarks: megabytes of slice JSON
+ * and playlists processed, both as rates per output time unit.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class MPDThroughputCounters {
+    public double megabytes;
+    public long playlists;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        megabytes = 0;
+        playlists = 0;
+    }
+
+    public void record(long bytes, long playlistCount) {
+        megabytes += bytes / (1024.0 * 1024.0);
+        playlists += playlistCount;
+    }
+}
@@ -0,0 +1,143 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Similar-track lookups through a written and re-opened {@link HnswIndex}, against an exact scan of all
+ * vectors. The vectors are synthetic unit vectors drawn around cluster centers, which resembles the
+ * grouping of ALS track factors by genre. Setup prints the build time and the recall@k of the index
+ * against the exact results, so the ef trade-off can be read off next to the latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrackNeighborBenchmark {
+    private static final int QUERIES = 1024;
+    private static final int RECALL_QUERIES = 200;
+
+    @Param({"100000"})
+    public int tracks;
+    @Param({"64"})
+    public int dimensions;
+    @Param({"16"})
+    public int m;
+    @Param({"200"})
+    public int efConstruction;
+    @Param({"20", "50", "100"})
+    public int efSearch;
+    @Param({"10"})
+    public int k;
+
+    private Path file;
+    private HnswIndex index;
+    private int[] queries;
+    private int next;
+
+    @Setup
+    public void build() throws IOException, InterruptedException, ExecutionException {
+        float[] vectors = HnswIndexBuilder.normalize(clusteredVectors(tracks, dimensions, 42), dimensions);
+        long start = System.currentTimeMillis();
+        HnswGraphBuilder graph = new HnswGraphBuilder(vectors, dimensions, m, efConstruction, 42);
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            graph.build(pool);
+        } finally {
+            pool.shutdownNow();
+        }
+        long buildMillis = System.currentTimeMillis() - start;
+        file = Files.createTempFile("track-hnsw", ".bin");
+        HnswIndexBuilder.write(graph, Instant.EPOCH, Instant.EPOCH, file);
+        index = HnswIndex.open(file);
+
+        SplittableRandom random = new SplittableRandom(7);
+        queries = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = random.nextInt(tracks);
+        }
+        int found = 0;
+        for (int i = 0; i < RECALL_QUERIES; i++) {
+            RankedTracks exact = index.findSimilarExact(queries[i], k);
+            RankedTracks approximate = index.findSimilar(queries[i], k, efSearch);
+            Set<Integer> expected = new HashSet<>();
+            for (int rank = 0; rank < exact.size(); rank++) {
+                expected.add(exact.getTrack(rank));
+            }
+            for (int rank = 0; rank < approximate.size(); rank++) {
+                if (expected.contains(approximate.getTrack(rank))) {
+                    found++;
+                }
+            }
+        }
+        System.out.printf("%nHNSW over %d vectors built in %d ms, recall@%d at efSearch %d: %.4f%n",
+            tracks, buildMillis, k, efSearch, (double) found / (RECALL_QUERIES * k));
+    }
+
+    @TearDown
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public RankedTracks hnsw() {
+        return index.findSimilar(nextQuery(), k, efSearch);
+    }
+
+    @Benchmark
+    public RankedTracks exact() {
+        return index.findSimilarExact(nextQuery(), k);
+    }
+
+    private int nextQuery() {
+        next = (next + 1) & (QUERIES - 1);
+        return queries[next];
+    }
+
+    /**
+     * Gaussian vectors around a few hundred random centers.
+     */
+    private static float[] clusteredVectors(int count, int dimensions, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int clusters = 256;
+        float[] centers = new float[clusters * dimensions];
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = (float) gaussian(random);
+        }
+        float[] vectors = new float[count * dimensions];
+        for (int row = 0; row < count; row++) {
+            int center = random.nextInt(clusters) * dimensions;
+            for (int i = 0; i < dimensions; i++) {
+                vectors[row * dimensions + i] = centers[center + i] + (float) gaussian(random);
+            }
+        }
+        return vectors;
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
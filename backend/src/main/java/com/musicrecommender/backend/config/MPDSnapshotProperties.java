@@ -0,0 +1,27 @@
+package com.musicrecommender.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "mpd.snapshot")
+public class MPDSnapshotProperties {
+    private String path = "./data/mpd.snapshot";
+    private boolean loadOnStartup = true;
+    private boolean preload = false;
+    // Appended segments are merged into the first file once they hold this fraction of its edges
+    private double maxAppendedFraction = 0.1;
+
+    // Getters and setters
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public boolean isLoadOnStartup() { return loadOnStartup; }
+    public void setLoadOnStartup(boolean loadOnStartup) { this.loadOnStartup = loadOnStartup; }
+
+    public boolean isPreload() { return preload; }
+    public void setPreload(boolean preload) { this.preload = preload; }
+
+    public double getMaxAppendedFraction() { return maxAppendedFraction; }
+    public void setMaxAppendedFraction(double maxAppendedFraction) { this.maxAppendedFraction = maxAppendedFraction; }
+}
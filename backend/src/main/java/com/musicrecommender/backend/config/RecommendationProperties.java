@@ -0,0 +1,312 @@
+package com.musicrecommender.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "recommendation")
+public class RecommendationProperties {
+    private int maxTracksPerRequest = 50;
+    private double similarityThreshold = 0.7;
+    private int cacheDurationMinutes = 30;
+    private int cacheMaxSizeMb = 64;
+    private ItemSimilarity itemSimilarity = new ItemSimilarity();
+    private PlaylistNeighbors playlistNeighbors = new PlaylistNeighbors();
+    private Als als = new Als();
+    private TrackNeighbors trackNeighbors = new TrackNeighbors();
+    private RandomWalk randomWalk = new RandomWalk();
+    private Popularity popularity = new Popularity();
+    private Evaluation evaluation = new Evaluation();
+    private IncrementalUpdates incrementalUpdates = new IncrementalUpdates();
+
+    // Getters and setters
+    public int getMaxTracksPerRequest() { return maxTracksPerRequest; }
+    public void setMaxTracksPerRequest(int maxTracksPerRequest) { this.maxTracksPerRequest = maxTracksPerRequest; }
+
+    public double getSimilarityThreshold() { return similarityThreshold; }
+    public void setSimilarityThreshold(double similarityThreshold) { this.similarityThreshold = similarityThreshold; }
+
+    public int getCacheDurationMinutes() { return cacheDurationMinutes; }
+    public void setCacheDurationMinutes(int cacheDurationMinutes) { this.cacheDurationMinutes = cacheDurationMinutes; }
+
+    public int getCacheMaxSizeMb() { return cacheMaxSizeMb; }
+    public void setCacheMaxSizeMb(int cacheMaxSizeMb) { this.cacheMaxSizeMb = cacheMaxSizeMb; }
+
+    public ItemSimilarity getItemSimilarity() { return itemSimilarity; }
+    public void setItemSimilarity(ItemSimilarity itemSimilarity) { this.itemSimilarity = itemSimilarity; }
+
+    public PlaylistNeighbors getPlaylistNeighbors() { return playlistNeighbors; }
+    public void setPlaylistNeighbors(PlaylistNeighbors playlistNeighbors) { this.playlistNeighbors = playlistNeighbors; }
+
+    public Als getAls() { return als; }
+    public void setAls(Als als) { this.als = als; }
+
+    public TrackNeighbors getTrackNeighbors() { return trackNeighbors; }
+    public void setTrackNeighbors(TrackNeighbors trackNeighbors) { this.trackNeighbors = trackNeighbors; }
+
+    public RandomWalk getRandomWalk() { return randomWalk; }
+    public void setRandomWalk(RandomWalk randomWalk) { this.randomWalk = randomWalk; }
+
+    public Popularity getPopularity() { return popularity; }
+    public void setPopularity(Popularity popularity) { this.popularity = popularity; }
+
+    public Evaluation getEvaluation() { return evaluation; }
+    public void setEvaluation(Evaluation evaluation) { this.evaluation = evaluation; }
+
+    public IncrementalUpdates getIncrementalUpdates() { return incrementalUpdates; }
+    public void setIncrementalUpdates(IncrementalUpdates incrementalUpdates) { this.incrementalUpdates = incrementalUpdates; }
+
+    /**
+     * Settings for the track-track co-occurrence matrix built from the MPD snapshot.
+     */
+    public static class ItemSimilarity {
+        private String path = "./data/item-similarity.bin";
+        private boolean loadOnStartup = true;
+        private int maxNeighbors = 200;
+        private int minCoOccurrence = 2;
+        private int parallelism = 0;
+
+        // Getters and setters
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        public boolean isLoadOnStartup() { return loadOnStartup; }
+        public void setLoadOnStartup(boolean loadOnStartup) { this.loadOnStartup = loadOnStartup; }
+
+        public int getMaxNeighbors() { return maxNeighbors; }
+        public void setMaxNeighbors(int maxNeighbors) { this.maxNeighbors = maxNeighbors; }
+
+        public int getMinCoOccurrence() { return minCoOccurrence; }
+        public void setMinCoOccurrence(int minCoOccurrence) { this.minCoOccurrence = minCoOccurrence; }
+
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+    }
+
+    /**
+     * Settings for the MinHash LSH index used to find similar playlists.
+     */
+    public static class PlaylistNeighbors {
+        private String path = "./data/playlist-lsh.bin";
+        private boolean loadOnStartup = true;
+        private int bands = 32;
+        private int rowsPerBand = 3;
+        private long seed = 42;
+        private int maxCandidates = 5000;
+        private int maxNeighbors = 100;
+        private int parallelism = 0;
+
+        // Getters and setters
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        public boolean isLoadOnStartup() { return loadOnStartup; }
+        public void setLoadOnStartup(boolean loadOnStartup) { this.loadOnStartup = loadOnStartup; }
+
+        public int getBands() { return bands; }
+        public void setBands(int bands) { this.bands = bands; }
+
+        public int getRowsPerBand() { return rowsPerBand; }
+        public void setRowsPerBand(int rowsPerBand) { this.rowsPerBand = rowsPerBand; }
+
+        public long getSeed() { return seed; }
+        public void setSeed(long seed) { this.seed = seed; }
+
+        public int getMaxCandidates() { return maxCandidates; }
+        public void setMaxCandidates(int maxCandidates) { this.maxCandidates = maxCandidates; }
+
+        public int getMaxNeighbors() { return maxNeighbors; }
+        public void setMaxNeighbors(int maxNeighbors) { this.maxNeighbors = maxNeighbors; }
+
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+    }
+
+    /**
+     * Settings for the implicit-feedback ALS factor model trained from the MPD snapshot.
+     */
+    public static class Als {
+        private String path = "./data/als-factors.bin";
+        private boolean loadOnStartup = true;
+        private int factors = 64;
+        private int iterations = 15;
+        private double regularization = 0.01;
+        private double alpha = 40;
+        private int cgSteps = 3;
+        private long seed = 42;
+        private int parallelism = 0;
+
+        // Getters and setters
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        public boolean isLoadOnStartup() { return loadOnStartup; }
+        public void setLoadOnStartup(boolean loadOnStartup) { this.loadOnStartup = loadOnStartup; }
+
+        public int getFactors() { return factors; }
+        public void setFactors(int factors) { this.factors = factors; }
+
+        public int getIterations() { return iterations; }
+        public void setIterations(int iterations) { this.iterations = iterations; }
+
+        public double getRegularization() { return regularization; }
+        public void setRegularization(double regularization) { this.regularization = regularization; }
+
+        public double getAlpha() { return alpha; }
+        public void setAlpha(double alpha) { this.alpha = alpha; }
+
+        public int getCgSteps() { return cgSteps; }
+        public void setCgSteps(int cgSteps) { this.cgSteps = cgSteps; }
+
+        public long getSeed() { return seed; }
+        public void setSeed(long seed) { this.seed = seed; }
+
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+    }
+
+    /**
+     * Settings for the HNSW index over the ALS track factors used to find similar tracks.
+     */
+    public static class TrackNeighbors {
+        private String path = "./data/track-hnsw.bin";
+        private boolean loadOnStartup = true;
+        private int m = 16;
+        private int efConstruction = 200;
+        private int efSearch = 100;
+        private int maxNeighbors = 100;
+        private long seed = 42;
+        private int parallelism = 0;
+
+        // Getters and setters
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        public boolean isLoadOnStartup() { return loadOnStartup; }
+        public void setLoadOnStartup(boolean loadOnStartup) { this.loadOnStartup = loadOnStartup; }
+
+        public int getM() { return m; }
+        public void setM(int m) { this.m = m; }
+
+        public int getEfConstruction() { return efConstruction; }
+        public void setEfConstruction(int efConstruction) { this.efConstruction = efConstruction; }
+
+        public int getEfSearch() { return efSearch; }
+        public void setEfSearch(int efSearch) { this.efSearch = efSearch; }
+
+        public int getMaxNeighbors() { return maxNeighbors; }
+        public void setMaxNeighbors(int maxNeighbors) { this.maxNeighbors = maxNeighbors; }
+
+        public long getSeed() { return seed; }
+        public void setSeed(long seed) { this.seed = seed; }
+
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+    }
+
+    /**
+     * Settings for the random walk recommender over the playlist-track graph.
+     */
+    public static class RandomWalk {
+        private int totalSteps = 100000;
+        private double meanWalkLength = 4;
+        private int visitThreshold = 4;
+        private int highVisitCount = 1000;
+        private long seed = 42;
+        private int parallelism = 0;
+
+        // Getters and setters
+        public int getTotalSteps() { return totalSteps; }
+        public void setTotalSteps(int totalSteps) { this.totalSteps = totalSteps; }
+
+        public double getMeanWalkLength() { return meanWalkLength; }
+        public void setMeanWalkLength(double meanWalkLength) { this.meanWalkLength = meanWalkLength; }
+
+        public int getVisitThreshold() { return visitThreshold; }
+        public void setVisitThreshold(int visitThreshold) { this.visitThreshold = visitThreshold; }
+
+        public int getHighVisitCount() { return highVisitCount; }
+        public void setHighVisitCount(int highVisitCount) { this.highVisitCount = highVisitCount; }
+
+        public long getSeed() { return seed; }
+        public void setSeed(long seed) { this.seed = seed; }
+
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+    }
+
+    /**
+     * Settings for the per-artist, per-album and global popularity lists counted from the MPD snapshot.
+     */
+    public static class Popularity {
+        private int topN = 50;
+        private int globalTopN = 500;
+        private int parallelism = 0;
+
+        // Getters and setters
+        public int getTopN() { return topN; }
+        public void setTopN(int topN) { this.topN = topN; }
+
+        public int getGlobalTopN() { return globalTopN; }
+        public void setGlobalTopN(int globalTopN) { this.globalTopN = globalTopN; }
+
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+    }
+
+    /**
+     * Settings for offline evaluation runs on held-out playlists.
+     */
+    public static class Evaluation {
+        private String outputDir = "./data/evaluations";
+        private int sampleSize = 1000;
+        private int candidates = 500;
+        private List<Integer> seedCounts = List.of(5, 10, 25, 100);
+        private long seed = 42;
+        private int parallelism = 0;
+        private String teamName = "music-recommender";
+        private String contactEmail = "";
+
+        // Getters and setters
+        public String getOutputDir() { return outputDir; }
+        public void setOutputDir(String outputDir) { this.outputDir = outputDir; }
+
+        public int getSampleSize() { return sampleSize; }
+        public void setSampleSize(int sampleSize) { this.sampleSize = sampleSize; }
+
+        public int getCandidates() { return candidates; }
+        public void setCandidates(int candidates) { this.candidates = candidates; }
+
+        public List<Integer> getSeedCounts() { return seedCounts; }
+        public void setSeedCounts(List<Integer> seedCounts) { this.seedCounts = seedCounts; }
+
+        public long getSeed() { return seed; }
+        public void setSeed(long seed) { this.seed = seed; }
+
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+
+        public String getTeamName() { return teamName; }
+        public void setTeamName(String teamName) { this.teamName = teamName; }
+
+        public String getContactEmail() { return contactEmail; }
+        public void setContactEmail(String contactEmail) { this.contactEmail = contactEmail; }
+    }
+
+    /**
+     * Settings for folding newly imported MPD playlists into the snapshot and the count-based models.
+     */
+    public static class IncrementalUpdates {
+        private boolean enabled = false;
+        private double maxFoldedFraction = 0.05;
+
+        // Getters and setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public double getMaxFoldedFraction() { return maxFoldedFraction; }
+        public void setMaxFoldedFraction(double maxFoldedFraction) { this.maxFoldedFraction = maxFoldedFraction; }
+    }
+}
@@ -11,6 +11,9 @@ public class SpotifyProperties {
     private String clientId;
     private String clientSecret;
     private String redirectUri;
+    private RateLimit rateLimit = new RateLimit();
+    private Batch batch = new Batch();
+    private Pagination pagination = new Pagination();
 
     // Getters and setters
     public String getBaseUrl() { return baseUrl; }
@@ -27,4 +30,66 @@ public class SpotifyProperties {
     
     public String getRedirectUri() { return redirectUri; }
     public void setRedirectUri(String redirectUri) { this.redirectUri = redirectUri; }
+
+    public RateLimit getRateLimit() { return rateLimit; }
+    public void setRateLimit(RateLimit rateLimit) { this.rateLimit = rateLimit; }
+
+    public Batch getBatch() { return batch; }
+    public void setBatch(Batch batch) { this.batch = batch; }
+
+    public Pagination getPagination() { return pagination; }
+    public void setPagination(Pagination pagination) { this.pagination = pagination; }
+
+    /**
+     * Settings for the token bucket every Web API request goes through, and for retrying throttled requests.
+     */
+    public static class RateLimit {
+        private double requestsPerSecond = 10;
+        private int burst = 20;
+        private int maxRetries = 3;
+        private long initialBackoffMs = 500;
+        private long maxBackoffMs = 30_000;
+        private long maxRetryAfterSeconds = 120;
+
+        // Getters and setters
+        public double getRequestsPerSecond() { return requestsPerSecond; }
+        public void setRequestsPerSecond(double requestsPerSecond) { this.requestsPerSecond = requestsPerSecond; }
+
+        public int getBurst() { return burst; }
+        public void setBurst(int burst) { this.burst = burst; }
+
+        public int getMaxRetries() { return maxRetries; }
+        public void setMaxRetries(int maxRetries) { this.maxRetries = maxRetries; }
+
+        public long getInitialBackoffMs() { return initialBackoffMs; }
+        public void setInitialBackoffMs(long initialBackoffMs) { this.initialBackoffMs = initialBackoffMs; }
+
+        public long getMaxBackoffMs() { return maxBackoffMs; }
+        public void setMaxBackoffMs(long maxBackoffMs) { this.maxBackoffMs = maxBackoffMs; }
+
+        public long getMaxRetryAfterSeconds() { return maxRetryAfterSeconds; }
+        public void setMaxRetryAfterSeconds(long maxRetryAfterSeconds) { this.maxRetryAfterSeconds = maxRetryAfterSeconds; }
+    }
+
+    /**
+     * Settings for merging single album, artist and track lookups into several-items requests.
+     */
+    public static class Batch {
+        private long windowMs = 10;
+
+        // Getters and setters
+        public long getWindowMs() { return windowMs; }
+        public void setWindowMs(long windowMs) { this.windowMs = windowMs; }
+    }
+
+    /**
+     * Settings for fetching the remaining pages of long playlists, albums and artist discographies.
+     */
+    public static class Pagination {
+        private int maxConcurrency = 8;
+
+        // Getters and setters
+        public int getMaxConcurrency() { return maxConcurrency; }
+        public void setMaxConcurrency(int maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+    }
 }
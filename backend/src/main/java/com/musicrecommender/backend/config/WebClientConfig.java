@@ -1,5 +1,7 @@
 package com.musicrecommender.backend.config;
 
+import com.musicrecommender.backend.service.spotify.SpotifyRateLimiter;
+
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -21,10 +23,12 @@ public class WebClientConfig {
     }
 
     @Bean
-    public WebClient spotifyWebClient(WebClient.Builder webClientBuilder, SpotifyProperties spotifyProperties) {
+    public WebClient spotifyWebClient(WebClient.Builder webClientBuilder, SpotifyProperties spotifyProperties,
+                                      SpotifyRateLimiter spotifyRateLimiter) {
         return webClientBuilder
                 .baseUrl(spotifyProperties.getBaseUrl())
                 .defaultHeader("Content-Type", "application/json")
+                .filter(spotifyRateLimiter)
                 .build();
     }
 }
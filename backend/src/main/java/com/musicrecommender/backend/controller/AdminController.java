@@ -2,14 +2,44 @@ package com.musicrecommender.backend.controller;
 
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.musicrecommender.backend.dto.AlsModelDTO;
+import com.musicrecommender.backend.dto.EvaluationJobDTO;
+import com.musicrecommender.backend.dto.HnswIndexDTO;
+import com.musicrecommender.backend.dto.ItemSimilarityDTO;
+import com.musicrecommender.backend.dto.MPDImportJobDTO;
+import com.musicrecommender.backend.dto.MPDSnapshotDTO;
+import com.musicrecommender.backend.dto.PlaylistLshIndexDTO;
+import com.musicrecommender.backend.dto.RecommendationCacheDTO;
+import com.musicrecommender.backend.entity.mpd.MPDImportLedgerEntry;
+import com.musicrecommender.backend.factory.DTOFactory;
+import com.musicrecommender.backend.service.AlsModelService;
+import com.musicrecommender.backend.service.EvaluationService;
+import com.musicrecommender.backend.service.ItemSimilarityService;
+import com.musicrecommender.backend.service.MPDImportJobService;
 import com.musicrecommender.backend.service.MPDImportService;
+import com.musicrecommender.backend.service.MPDSnapshotService;
+import com.musicrecommender.backend.service.PlaylistNeighborService;
+import com.musicrecommender.backend.service.RecommendationService;
+import com.musicrecommender.backend.service.TrackNeighborService;
+import com.musicrecommender.backend.service.mpd.MPDImportJob;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.recommendation.EvaluationJob;
+import com.musicrecommender.backend.service.recommendation.RecommendationCache;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Predicate;
 
 
 @RestController
@@ -18,6 +48,26 @@ import java.io.File;
 public class AdminController {
     @Autowired
     private MPDImportService mpdImportService;
+    @Autowired
+    private MPDImportJobService mpdImportJobService;
+    @Autowired
+    private MPDSnapshotService mpdSnapshotService;
+    @Autowired
+    private ItemSimilarityService itemSimilarityService;
+    @Autowired
+    private PlaylistNeighborService playlistNeighborService;
+    @Autowired
+    private AlsModelService alsModelService;
+    @Autowired
+    private TrackNeighborService trackNeighborService;
+    @Autowired
+    private RecommendationCache recommendationCache;
+    @Autowired
+    private RecommendationService recommendationService;
+    @Autowired
+    private EvaluationService evaluationService;
+    @Autowired
+    private DTOFactory dtoFactory;
     private final String mpdSlicesRoot = "C:\\Users\\twelc\\Documents\\Github\\music-recommender\\backend\\data\\data";
 
     @GetMapping("/import-mpd")
@@ -29,9 +79,187 @@ public class AdminController {
 
     @GetMapping("/import-all-mpd-slices")
     public String importAllMPDSlices() {
-        File rootDir = new File(mpdSlicesRoot);
-        mpdImportService.importAllSlices(rootDir);
-        return "Batch import started. Check logs for slice results.";
+        MPDImportJob job = mpdImportJobService.submit(new File(mpdSlicesRoot));
+        return "Batch import started as job " + job.getId() + ". Poll /admin/import-jobs/" + job.getId() + " for progress.";
+    }
+
+    @PostMapping("/import-jobs")
+    public ResponseEntity<MPDImportJobDTO> startImportJob(@RequestParam(required = false) String path) {
+        File rootDir = new File(path != null ? path : mpdSlicesRoot);
+        MPDImportJob job = mpdImportJobService.submit(rootDir);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(dtoFactory.createMPDImportJobDTO(job));
+    }
+
+    @GetMapping("/import-jobs")
+    public List<MPDImportJobDTO> getImportJobs() {
+        return mpdImportJobService.getJobs().stream()
+            .map(dtoFactory::createMPDImportJobDTO)
+            .toList();
+    }
+
+    @GetMapping("/import-jobs/{id}")
+    public ResponseEntity<MPDImportJobDTO> getImportJob(@PathVariable String id) {
+        return mpdImportJobService.getJob(id)
+            .map(job -> ResponseEntity.ok(dtoFactory.createMPDImportJobDTO(job)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/import-jobs/{id}/pause")
+    public ResponseEntity<MPDImportJobDTO> pauseImportJob(@PathVariable String id) {
+        return controlImportJob(id, MPDImportJob::pause);
+    }
+
+    @PostMapping("/import-jobs/{id}/resume")
+    public ResponseEntity<MPDImportJobDTO> resumeImportJob(@PathVariable String id) {
+        return controlImportJob(id, MPDImportJob::resume);
+    }
+
+    @PostMapping("/import-jobs/{id}/cancel")
+    public ResponseEntity<MPDImportJobDTO> cancelImportJob(@PathVariable String id) {
+        return controlImportJob(id, MPDImportJob::cancel);
+    }
+
+    // 409 when the job is not in a state the action applies to, e.g. pausing a finished job
+    private ResponseEntity<MPDImportJobDTO> controlImportJob(String id, Predicate<MPDImportJob> action) {
+        return mpdImportJobService.getJob(id)
+            .map(job -> ResponseEntity.status(action.test(job) ? HttpStatus.OK : HttpStatus.CONFLICT)
+                .body(dtoFactory.createMPDImportJobDTO(job)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/mpd-import-ledger")
+    public List<MPDImportLedgerEntry> getMPDImportLedger() {
+        return mpdImportService.getLedger();
+    }
+
+    @GetMapping("/mpd-snapshot")
+    public ResponseEntity<MPDSnapshotDTO> getMPDSnapshot() {
+        return mpdSnapshotService.getSnapshot()
+            .map(snapshot -> ResponseEntity.ok(dtoFactory.createMPDSnapshotDTO(snapshot)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Rebuilds the MPD snapshot from the database, or with source=slices straight from the slice files.
+     */
+    @PostMapping("/mpd-snapshot")
+    public MPDSnapshotDTO rebuildMPDSnapshot(
+            @RequestParam(defaultValue = "database") String source,
+            @RequestParam(required = false) String path) throws IOException {
+        MPDSnapshot snapshot;
+        if ("slices".equalsIgnoreCase(source)) {
+            snapshot = mpdSnapshotService.rebuildFromSlices(new File(path != null ? path : mpdSlicesRoot));
+        } else {
+            snapshot = mpdSnapshotService.rebuildFromDatabase();
+        }
+        return dtoFactory.createMPDSnapshotDTO(snapshot);
+    }
+
+    @GetMapping("/item-similarity")
+    public ResponseEntity<ItemSimilarityDTO> getItemSimilarity() {
+        return itemSimilarityService.getMatrix()
+            .map(matrix -> ResponseEntity.ok(dtoFactory.createItemSimilarityDTO(matrix)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Rebuilds the track-track similarity matrix from the current MPD snapshot.
+     */
+    @PostMapping("/item-similarity")
+    public ItemSimilarityDTO rebuildItemSimilarity() throws IOException {
+        return dtoFactory.createItemSimilarityDTO(itemSimilarityService.rebuild());
+    }
+
+    @GetMapping("/playlist-lsh")
+    public ResponseEntity<PlaylistLshIndexDTO> getPlaylistLshIndex() {
+        return playlistNeighborService.getIndex()
+            .map(index -> ResponseEntity.ok(dtoFactory.createPlaylistLshIndexDTO(index)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Rebuilds the MinHash LSH index of playlists from the current MPD snapshot.
+     */
+    @PostMapping("/playlist-lsh")
+    public PlaylistLshIndexDTO rebuildPlaylistLshIndex() throws IOException {
+        return dtoFactory.createPlaylistLshIndexDTO(playlistNeighborService.rebuild());
+    }
+
+    @GetMapping("/als-model")
+    public ResponseEntity<AlsModelDTO> getAlsModel() {
+        return alsModelService.getModel()
+            .map(model -> ResponseEntity.ok(dtoFactory.createAlsModelDTO(model)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Trains the ALS factor model on the current MPD snapshot. Runs in the request thread.
+     */
+    @PostMapping("/als-model")
+    public AlsModelDTO retrainAlsModel() throws IOException {
+        return dtoFactory.createAlsModelDTO(alsModelService.retrain());
+    }
+
+    @GetMapping("/track-hnsw")
+    public ResponseEntity<HnswIndexDTO> getTrackHnswIndex() {
+        return trackNeighborService.getIndex()
+            .map(index -> ResponseEntity.ok(dtoFactory.createHnswIndexDTO(index)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Rebuilds the HNSW index of track factors from the current ALS model.
+     */
+    @PostMapping("/track-hnsw")
+    public HnswIndexDTO rebuildTrackHnswIndex() throws IOException {
+        return dtoFactory.createHnswIndexDTO(trackNeighborService.rebuild());
+    }
+
+    @GetMapping("/recommendation-cache")
+    public RecommendationCacheDTO getRecommendationCache() {
+        return dtoFactory.createRecommendationCacheDTO(recommendationCache);
+    }
+
+    @DeleteMapping("/recommendation-cache")
+    public RecommendationCacheDTO clearRecommendationCache() {
+        recommendationCache.invalidateAll();
+        return dtoFactory.createRecommendationCacheDTO(recommendationCache);
+    }
+
+    /**
+     * Starts an offline evaluation of the recommenders on held-out playlists sampled from the slice files
+     * at path, or from the MPD snapshot when no path is given. Responds 400 for an unknown algorithm and
+     * 503 when a requested algorithm has no model yet.
+     * @param algorithms The algorithms to compare, every available one when omitted
+     */
+    @PostMapping("/evaluations")
+    public ResponseEntity<EvaluationJobDTO> startEvaluation(
+            @RequestParam(required = false) String path,
+            @RequestParam(required = false) Integer sampleSize,
+            @RequestParam(required = false) List<String> algorithms,
+            @RequestParam(defaultValue = "false") boolean challengeCsv) {
+        if (algorithms != null && !algorithms.stream().allMatch(recommendationService::isKnownAlgorithm)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (algorithms != null && !algorithms.stream().allMatch(recommendationService::isAvailable)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        EvaluationJob job = evaluationService.submit(path, sampleSize, algorithms, challengeCsv);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(dtoFactory.createEvaluationJobDTO(job));
+    }
+
+    @GetMapping("/evaluations")
+    public List<EvaluationJobDTO> getEvaluations() {
+        return evaluationService.getJobs().stream()
+            .map(dtoFactory::createEvaluationJobDTO)
+            .toList();
+    }
+
+    @GetMapping("/evaluations/{id}")
+    public ResponseEntity<EvaluationJobDTO> getEvaluation(@PathVariable String id) {
+        return evaluationService.getJob(id)
+            .map(job -> ResponseEntity.ok(dtoFactory.createEvaluationJobDTO(job)))
+            .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/print-all-mpd-playlists")
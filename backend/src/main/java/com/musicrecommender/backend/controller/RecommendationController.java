@@ -0,0 +1,135 @@
+package com.musicrecommender.backend.controller;
+
+import com.musicrecommender.backend.dto.PlaylistNeighborListDTO;
+import com.musicrecommender.backend.dto.PopularTrackListDTO;
+import com.musicrecommender.backend.dto.RecommendationListDTO;
+import com.musicrecommender.backend.dto.SimilarTrackListDTO;
+import com.musicrecommender.backend.service.RecommendationService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("recommendations")
+@CrossOrigin(origins = "*")
+public class RecommendationController {
+    @Autowired
+    private RecommendationService recommendationService;
+
+    /**
+     * Recommends tracks to add to an MPD playlist (numeric pid) or a Spotify playlist, with the item-item
+     * matrix (default), the ALS model, random walks or artist and album popularity. Responds 503 until the
+     * MPD snapshot and the chosen model have been built; random walks and popularity need only the snapshot.
+     */
+    @GetMapping("/playlists/{id}/continuation")
+    public Mono<ResponseEntity<RecommendationListDTO>> getPlaylistContinuation(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer k,
+            @RequestParam(defaultValue = RecommendationService.ITEM_ITEM) String algorithm,
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader) {
+        if (!recommendationService.isKnownAlgorithm(algorithm)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        if (!recommendationService.isAvailable(algorithm)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        return recommendationService.getPlaylistContinuation(id, k, algorithm, bearerToken(authorizationHeader))
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Finds the MPD playlists most similar to an MPD (numeric pid) or Spotify playlist.
+     * Responds 503 until the MPD snapshot and playlist LSH index have been built.
+     */
+    @GetMapping("/playlists/{id}/neighbors")
+    public Mono<ResponseEntity<PlaylistNeighborListDTO>> getPlaylistNeighbors(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer k,
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader) {
+        if (!recommendationService.isNeighborSearchAvailable()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        return recommendationService.getPlaylistNeighbors(id, k, bearerToken(authorizationHeader))
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Finds the tracks closest to a Spotify track in the ALS embedding.
+     * Responds 503 until the MPD snapshot, ALS model and track HNSW index have been built.
+     */
+    @GetMapping("/tracks/{id}/similar")
+    public Mono<ResponseEntity<SimilarTrackListDTO>> getSimilarTracks(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer k) {
+        if (!recommendationService.isSimilarTrackSearchAvailable()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        return recommendationService.getSimilarTracks(id, k)
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns the tracks by a Spotify artist that appear in the most MPD playlists, counted from the
+     * snapshot instead of asking Spotify. Responds 503 until the MPD snapshot has been built.
+     */
+    @GetMapping("/artists/{id}/popular-tracks")
+    public Mono<ResponseEntity<PopularTrackListDTO>> getArtistPopularTracks(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer k) {
+        if (!recommendationService.isAvailable(RecommendationService.POPULARITY)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        return recommendationService.getArtistPopularTracks(id, k)
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns the tracks on a Spotify album that appear in the most MPD playlists.
+     * Responds 503 until the MPD snapshot has been built.
+     */
+    @GetMapping("/albums/{id}/popular-tracks")
+    public Mono<ResponseEntity<PopularTrackListDTO>> getAlbumPopularTracks(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer k) {
+        if (!recommendationService.isAvailable(RecommendationService.POPULARITY)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        return recommendationService.getAlbumPopularTracks(id, k)
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns the tracks that appear in the most MPD playlists.
+     * Responds 503 until the MPD snapshot has been built.
+     */
+    @GetMapping("/tracks/popular")
+    public Mono<ResponseEntity<PopularTrackListDTO>> getPopularTracks(@RequestParam(required = false) Integer k) {
+        if (!recommendationService.isAvailable(RecommendationService.POPULARITY)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        return recommendationService.getPopularTracks(k)
+            .map(ResponseEntity::ok);
+    }
+
+    private static String bearerToken(String authorizationHeader) {
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
+            return authorizationHeader.substring(7);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+package com.musicrecommender.backend.dto;
+
+import java.time.Instant;
+
+public class AlsModelDTO {
+    private String path;
+    private int version;
+    private Instant createdAt;
+    private Instant snapshotCreatedAt;
+    private long sizeBytes;
+    private int trackCount;
+    private int playlistCount;
+    private int factors;
+    private int iterations;
+    private float regularization;
+    private float alpha;
+    private int cgSteps;
+
+    // Default constructor
+    public AlsModelDTO() {}
+
+    // Getters and setters
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getSnapshotCreatedAt() { return snapshotCreatedAt; }
+    public void setSnapshotCreatedAt(Instant snapshotCreatedAt) { this.snapshotCreatedAt = snapshotCreatedAt; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public int getTrackCount() { return trackCount; }
+    public void setTrackCount(int trackCount) { this.trackCount = trackCount; }
+
+    public int getPlaylistCount() { return playlistCount; }
+    public void setPlaylistCount(int playlistCount) { this.playlistCount = playlistCount; }
+
+    public int getFactors() { return factors; }
+    public void setFactors(int factors) { this.factors = factors; }
+
+    public int getIterations() { return iterations; }
+    public void setIterations(int iterations) { this.iterations = iterations; }
+
+    public float getRegularization() { return regularization; }
+    public void setRegularization(float regularization) { this.regularization = regularization; }
+
+    public float getAlpha() { return alpha; }
+    public void setAlpha(float alpha) { this.alpha = alpha; }
+
+    public int getCgSteps() { return cgSteps; }
+    public void setCgSteps(int cgSteps) { this.cgSteps = cgSteps; }
+}
@@ -0,0 +1,67 @@
+package com.musicrecommender.backend.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public class EvaluationJobDTO {
+    private String id;
+    private String status;
+    private String source;
+    private int sampleSize;
+    private List<String> algorithms;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private int playlistsTotal;
+    private int playlistsDone;
+    private int playlistsInSnapshot;
+    private List<EvaluationResultDTO> results;
+    private List<String> outputFiles;
+    private String error;
+
+    // Default constructor
+    public EvaluationJobDTO() {}
+
+    // Getters and setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public int getSampleSize() { return sampleSize; }
+    public void setSampleSize(int sampleSize) { this.sampleSize = sampleSize; }
+
+    public List<String> getAlgorithms() { return algorithms; }
+    public void setAlgorithms(List<String> algorithms) { this.algorithms = algorithms; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+
+    public int getPlaylistsTotal() { return playlistsTotal; }
+    public void setPlaylistsTotal(int playlistsTotal) { this.playlistsTotal = playlistsTotal; }
+
+    public int getPlaylistsDone() { return playlistsDone; }
+    public void setPlaylistsDone(int playlistsDone) { this.playlistsDone = playlistsDone; }
+
+    public int getPlaylistsInSnapshot() { return playlistsInSnapshot; }
+    public void setPlaylistsInSnapshot(int playlistsInSnapshot) { this.playlistsInSnapshot = playlistsInSnapshot; }
+
+    public List<EvaluationResultDTO> getResults() { return results; }
+    public void setResults(List<EvaluationResultDTO> results) { this.results = results; }
+
+    public List<String> getOutputFiles() { return outputFiles; }
+    public void setOutputFiles(List<String> outputFiles) { this.outputFiles = outputFiles; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,55 @@
+package com.musicrecommender.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class EvaluationResultDTO {
+    private String algorithm;
+    private Integer seedCount;
+    private int playlists;
+    private double rPrecision;
+    private double ndcg;
+    private double clicks;
+    private double meanLatencyMillis;
+    private double p50LatencyMillis;
+    private double p95LatencyMillis;
+    private double p99LatencyMillis;
+    private double maxLatencyMillis;
+
+    // Default constructor
+    public EvaluationResultDTO() {}
+
+    // Getters and setters
+    public String getAlgorithm() { return algorithm; }
+    public void setAlgorithm(String algorithm) { this.algorithm = algorithm; }
+
+    public Integer getSeedCount() { return seedCount; }
+    public void setSeedCount(Integer seedCount) { this.seedCount = seedCount; }
+
+    public int getPlaylists() { return playlists; }
+    public void setPlaylists(int playlists) { this.playlists = playlists; }
+
+    @JsonProperty("rPrecision")
+    public double getRPrecision() { return rPrecision; }
+    public void setRPrecision(double rPrecision) { this.rPrecision = rPrecision; }
+
+    public double getNdcg() { return ndcg; }
+    public void setNdcg(double ndcg) { this.ndcg = ndcg; }
+
+    public double getClicks() { return clicks; }
+    public void setClicks(double clicks) { this.clicks = clicks; }
+
+    public double getMeanLatencyMillis() { return meanLatencyMillis; }
+    public void setMeanLatencyMillis(double meanLatencyMillis) { this.meanLatencyMillis = meanLatencyMillis; }
+
+    public double getP50LatencyMillis() { return p50LatencyMillis; }
+    public void setP50LatencyMillis(double p50LatencyMillis) { this.p50LatencyMillis = p50LatencyMillis; }
+
+    public double getP95LatencyMillis() { return p95LatencyMillis; }
+    public void setP95LatencyMillis(double p95LatencyMillis) { this.p95LatencyMillis = p95LatencyMillis; }
+
+    public double getP99LatencyMillis() { return p99LatencyMillis; }
+    public void setP99LatencyMillis(double p99LatencyMillis) { this.p99LatencyMillis = p99LatencyMillis; }
+
+    public double getMaxLatencyMillis() { return maxLatencyMillis; }
+    public void setMaxLatencyMillis(double maxLatencyMillis) { this.maxLatencyMillis = maxLatencyMillis; }
+}
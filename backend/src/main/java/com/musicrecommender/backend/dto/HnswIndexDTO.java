@@ -0,0 +1,50 @@
+package com.musicrecommender.backend.dto;
+
+import java.time.Instant;
+
+public class HnswIndexDTO {
+    private String path;
+    private int version;
+    private Instant createdAt;
+    private Instant snapshotCreatedAt;
+    private Instant modelCreatedAt;
+    private long sizeBytes;
+    private int nodeCount;
+    private int dimensions;
+    private int m;
+    private int efConstruction;
+
+    // Default constructor
+    public HnswIndexDTO() {}
+
+    // Getters and setters
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getSnapshotCreatedAt() { return snapshotCreatedAt; }
+    public void setSnapshotCreatedAt(Instant snapshotCreatedAt) { this.snapshotCreatedAt = snapshotCreatedAt; }
+
+    public Instant getModelCreatedAt() { return modelCreatedAt; }
+    public void setModelCreatedAt(Instant modelCreatedAt) { this.modelCreatedAt = modelCreatedAt; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public int getNodeCount() { return nodeCount; }
+    public void setNodeCount(int nodeCount) { this.nodeCount = nodeCount; }
+
+    public int getDimensions() { return dimensions; }
+    public void setDimensions(int dimensions) { this.dimensions = dimensions; }
+
+    public int getM() { return m; }
+    public void setM(int m) { this.m = m; }
+
+    public int getEfConstruction() { return efConstruction; }
+    public void setEfConstruction(int efConstruction) { this.efConstruction = efConstruction; }
+}
@@ -0,0 +1,58 @@
+package com.musicrecommender.backend.dto;
+
+import java.time.Instant;
+
+public class ItemSimilarityDTO {
+    private String path;
+    private int version;
+    private Instant createdAt;
+    private Instant snapshotCreatedAt;
+    private long sizeBytes;
+    private int trackCount;
+    private int playlistCount;
+    private int foldedPlaylistCount;
+    private long entryCount;
+    private float threshold;
+    private int maxNeighbors;
+    private int minCoOccurrence;
+
+    // Default constructor
+    public ItemSimilarityDTO() {}
+
+    // Getters and setters
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getSnapshotCreatedAt() { return snapshotCreatedAt; }
+    public void setSnapshotCreatedAt(Instant snapshotCreatedAt) { this.snapshotCreatedAt = snapshotCreatedAt; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public int getTrackCount() { return trackCount; }
+    public void setTrackCount(int trackCount) { this.trackCount = trackCount; }
+
+    public int getPlaylistCount() { return playlistCount; }
+    public void setPlaylistCount(int playlistCount) { this.playlistCount = playlistCount; }
+
+    public int getFoldedPlaylistCount() { return foldedPlaylistCount; }
+    public void setFoldedPlaylistCount(int foldedPlaylistCount) { this.foldedPlaylistCount = foldedPlaylistCount; }
+
+    public long getEntryCount() { return entryCount; }
+    public void setEntryCount(long entryCount) { this.entryCount = entryCount; }
+
+    public float getThreshold() { return threshold; }
+    public void setThreshold(float threshold) { this.threshold = threshold; }
+
+    public int getMaxNeighbors() { return maxNeighbors; }
+    public void setMaxNeighbors(int maxNeighbors) { this.maxNeighbors = maxNeighbors; }
+
+    public int getMinCoOccurrence() { return minCoOccurrence; }
+    public void setMinCoOccurrence(int minCoOccurrence) { this.minCoOccurrence = minCoOccurrence; }
+}
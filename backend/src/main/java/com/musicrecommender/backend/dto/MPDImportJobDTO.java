@@ -0,0 +1,87 @@
+package com.musicrecommender.backend.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public class MPDImportJobDTO {
+    private String id;
+    private String status;
+    private String slicesRoot;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private int slicesTotal;
+    private int slicesDone;
+    private int slicesSkipped;
+    private int slicesFailed;
+    private long playlistsWritten;
+    private long rowsWritten;
+    private long bytesRead;
+    private long bytesTotal;
+    private double elapsedSeconds;
+    private double rowsPerSecond;
+    private double bytesPerSecond;
+    private Long etaSeconds;
+    private List<String> errors;
+
+    // Default constructor
+    public MPDImportJobDTO() {}
+
+    // Getters and setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getSlicesRoot() { return slicesRoot; }
+    public void setSlicesRoot(String slicesRoot) { this.slicesRoot = slicesRoot; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+
+    public int getSlicesTotal() { return slicesTotal; }
+    public void setSlicesTotal(int slicesTotal) { this.slicesTotal = slicesTotal; }
+
+    public int getSlicesDone() { return slicesDone; }
+    public void setSlicesDone(int slicesDone) { this.slicesDone = slicesDone; }
+
+    public int getSlicesSkipped() { return slicesSkipped; }
+    public void setSlicesSkipped(int slicesSkipped) { this.slicesSkipped = slicesSkipped; }
+
+    public int getSlicesFailed() { return slicesFailed; }
+    public void setSlicesFailed(int slicesFailed) { this.slicesFailed = slicesFailed; }
+
+    public long getPlaylistsWritten() { return playlistsWritten; }
+    public void setPlaylistsWritten(long playlistsWritten) { this.playlistsWritten = playlistsWritten; }
+
+    public long getRowsWritten() { return rowsWritten; }
+    public void setRowsWritten(long rowsWritten) { this.rowsWritten = rowsWritten; }
+
+    public long getBytesRead() { return bytesRead; }
+    public void setBytesRead(long bytesRead) { this.bytesRead = bytesRead; }
+
+    public long getBytesTotal() { return bytesTotal; }
+    public void setBytesTotal(long bytesTotal) { this.bytesTotal = bytesTotal; }
+
+    public double getElapsedSeconds() { return elapsedSeconds; }
+    public void setElapsedSeconds(double elapsedSeconds) { this.elapsedSeconds = elapsedSeconds; }
+
+    public double getRowsPerSecond() { return rowsPerSecond; }
+    public void setRowsPerSecond(double rowsPerSecond) { this.rowsPerSecond = rowsPerSecond; }
+
+    public double getBytesPerSecond() { return bytesPerSecond; }
+    public void setBytesPerSecond(double bytesPerSecond) { this.bytesPerSecond = bytesPerSecond; }
+
+    public Long getEtaSeconds() { return etaSeconds; }
+    public void setEtaSeconds(Long etaSeconds) { this.etaSeconds = etaSeconds; }
+
+    public List<String> getErrors() { return errors; }
+    public void setErrors(List<String> errors) { this.errors = errors; }
+}
@@ -0,0 +1,46 @@
+package com.musicrecommender.backend.dto;
+
+import java.time.Instant;
+
+public class MPDSnapshotDTO {
+    private String path;
+    private int version;
+    private Instant createdAt;
+    private long sizeBytes;
+    private int trackCount;
+    private int artistCount;
+    private int albumCount;
+    private int playlistCount;
+    private long edgeCount;
+
+    // Default constructor
+    public MPDSnapshotDTO() {}
+
+    // Getters and setters
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public int getTrackCount() { return trackCount; }
+    public void setTrackCount(int trackCount) { this.trackCount = trackCount; }
+
+    public int getArtistCount() { return artistCount; }
+    public void setArtistCount(int artistCount) { this.artistCount = artistCount; }
+
+    public int getAlbumCount() { return albumCount; }
+    public void setAlbumCount(int albumCount) { this.albumCount = albumCount; }
+
+    public int getPlaylistCount() { return playlistCount; }
+    public void setPlaylistCount(int playlistCount) { this.playlistCount = playlistCount; }
+
+    public long getEdgeCount() { return edgeCount; }
+    public void setEdgeCount(long edgeCount) { this.edgeCount = edgeCount; }
+}
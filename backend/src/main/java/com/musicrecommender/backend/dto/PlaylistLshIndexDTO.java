@@ -0,0 +1,46 @@
+package com.musicrecommender.backend.dto;
+
+import java.time.Instant;
+
+public class PlaylistLshIndexDTO {
+    private String path;
+    private int version;
+    private Instant createdAt;
+    private Instant snapshotCreatedAt;
+    private long sizeBytes;
+    private int playlistCount;
+    private int indexedCount;
+    private int bands;
+    private int rowsPerBand;
+
+    // Default constructor
+    public PlaylistLshIndexDTO() {}
+
+    // Getters and setters
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getSnapshotCreatedAt() { return snapshotCreatedAt; }
+    public void setSnapshotCreatedAt(Instant snapshotCreatedAt) { this.snapshotCreatedAt = snapshotCreatedAt; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public int getPlaylistCount() { return playlistCount; }
+    public void setPlaylistCount(int playlistCount) { this.playlistCount = playlistCount; }
+
+    public int getIndexedCount() { return indexedCount; }
+    public void setIndexedCount(int indexedCount) { this.indexedCount = indexedCount; }
+
+    public int getBands() { return bands; }
+    public void setBands(int bands) { this.bands = bands; }
+
+    public int getRowsPerBand() { return rowsPerBand; }
+    public void setRowsPerBand(int rowsPerBand) { this.rowsPerBand = rowsPerBand; }
+}
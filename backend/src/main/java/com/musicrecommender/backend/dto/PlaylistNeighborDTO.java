@@ -0,0 +1,24 @@
+package com.musicrecommender.backend.dto;
+
+public class PlaylistNeighborDTO {
+    private long id;
+    private String name;
+    private int trackCount;
+    private float similarity;
+
+    // Default constructor
+    public PlaylistNeighborDTO() {}
+
+    // Getters and setters
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public int getTrackCount() { return trackCount; }
+    public void setTrackCount(int trackCount) { this.trackCount = trackCount; }
+
+    public float getSimilarity() { return similarity; }
+    public void setSimilarity(float similarity) { this.similarity = similarity; }
+}
@@ -0,0 +1,34 @@
+package com.musicrecommender.backend.dto;
+
+import java.util.List;
+
+public class PlaylistNeighborListDTO {
+    private String playlistId;
+    private String source;
+    private int seedTrackCount;
+    private int matchedSeedCount;
+    private int candidateCount;
+    private List<PlaylistNeighborDTO> neighbors;
+
+    // Default constructor
+    public PlaylistNeighborListDTO() {}
+
+    // Getters and setters
+    public String getPlaylistId() { return playlistId; }
+    public void setPlaylistId(String playlistId) { this.playlistId = playlistId; }
+
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public int getSeedTrackCount() { return seedTrackCount; }
+    public void setSeedTrackCount(int seedTrackCount) { this.seedTrackCount = seedTrackCount; }
+
+    public int getMatchedSeedCount() { return matchedSeedCount; }
+    public void setMatchedSeedCount(int matchedSeedCount) { this.matchedSeedCount = matchedSeedCount; }
+
+    public int getCandidateCount() { return candidateCount; }
+    public void setCandidateCount(int candidateCount) { this.candidateCount = candidateCount; }
+
+    public List<PlaylistNeighborDTO> getNeighbors() { return neighbors; }
+    public void setNeighbors(List<PlaylistNeighborDTO> neighbors) { this.neighbors = neighbors; }
+}
@@ -0,0 +1,22 @@
+package com.musicrecommender.backend.dto;
+
+import java.util.List;
+
+public class PopularTrackListDTO {
+    private String scope;
+    private String id;
+    private List<RecommendedTrackDTO> tracks;
+
+    // Default constructor
+    public PopularTrackListDTO() {}
+
+    // Getters and setters
+    public String getScope() { return scope; }
+    public void setScope(String scope) { this.scope = scope; }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public List<RecommendedTrackDTO> getTracks() { return tracks; }
+    public void setTracks(List<RecommendedTrackDTO> tracks) { this.tracks = tracks; }
+}
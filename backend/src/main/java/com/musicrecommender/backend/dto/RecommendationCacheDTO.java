@@ -0,0 +1,44 @@
+package com.musicrecommender.backend.dto;
+
+public class RecommendationCacheDTO {
+    private long ttlMinutes;
+    private long maxSizeBytes;
+    private int entryCount;
+    private long sizeBytes;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long expirationCount;
+
+    // Default constructor
+    public RecommendationCacheDTO() {}
+
+    // Getters and setters
+    public long getTtlMinutes() { return ttlMinutes; }
+    public void setTtlMinutes(long ttlMinutes) { this.ttlMinutes = ttlMinutes; }
+
+    public long getMaxSizeBytes() { return maxSizeBytes; }
+    public void setMaxSizeBytes(long maxSizeBytes) { this.maxSizeBytes = maxSizeBytes; }
+
+    public int getEntryCount() { return entryCount; }
+    public void setEntryCount(int entryCount) { this.entryCount = entryCount; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public long getHitCount() { return hitCount; }
+    public void setHitCount(long hitCount) { this.hitCount = hitCount; }
+
+    public long getMissCount() { return missCount; }
+    public void setMissCount(long missCount) { this.missCount = missCount; }
+
+    public double getHitRate() { return hitRate; }
+    public void setHitRate(double hitRate) { this.hitRate = hitRate; }
+
+    public long getEvictionCount() { return evictionCount; }
+    public void setEvictionCount(long evictionCount) { this.evictionCount = evictionCount; }
+
+    public long getExpirationCount() { return expirationCount; }
+    public void setExpirationCount(long expirationCount) { this.expirationCount = expirationCount; }
+}
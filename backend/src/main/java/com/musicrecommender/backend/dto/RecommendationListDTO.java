@@ -0,0 +1,34 @@
+package com.musicrecommender.backend.dto;
+
+import java.util.List;
+
+public class RecommendationListDTO {
+    private String playlistId;
+    private String source;
+    private String algorithm;
+    private int seedTrackCount;
+    private int matchedSeedCount;
+    private List<RecommendedTrackDTO> tracks;
+
+    // Default constructor
+    public RecommendationListDTO() {}
+
+    // Getters and setters
+    public String getPlaylistId() { return playlistId; }
+    public void setPlaylistId(String playlistId) { this.playlistId = playlistId; }
+
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public String getAlgorithm() { return algorithm; }
+    public void setAlgorithm(String algorithm) { this.algorithm = algorithm; }
+
+    public int getSeedTrackCount() { return seedTrackCount; }
+    public void setSeedTrackCount(int seedTrackCount) { this.seedTrackCount = seedTrackCount; }
+
+    public int getMatchedSeedCount() { return matchedSeedCount; }
+    public void setMatchedSeedCount(int matchedSeedCount) { this.matchedSeedCount = matchedSeedCount; }
+
+    public List<RecommendedTrackDTO> getTracks() { return tracks; }
+    public void setTracks(List<RecommendedTrackDTO> tracks) { this.tracks = tracks; }
+}
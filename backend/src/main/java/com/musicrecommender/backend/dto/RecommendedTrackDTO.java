@@ -0,0 +1,28 @@
+package com.musicrecommender.backend.dto;
+
+public class RecommendedTrackDTO {
+    private String id;
+    private String uri;
+    private String artistId;
+    private String albumId;
+    private float score;
+
+    // Default constructor
+    public RecommendedTrackDTO() {}
+
+    // Getters and setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getUri() { return uri; }
+    public void setUri(String uri) { this.uri = uri; }
+
+    public String getArtistId() { return artistId; }
+    public void setArtistId(String artistId) { this.artistId = artistId; }
+
+    public String getAlbumId() { return albumId; }
+    public void setAlbumId(String albumId) { this.albumId = albumId; }
+
+    public float getScore() { return score; }
+    public void setScore(float score) { this.score = score; }
+}
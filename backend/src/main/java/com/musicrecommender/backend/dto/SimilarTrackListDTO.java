@@ -0,0 +1,18 @@
+package com.musicrecommender.backend.dto;
+
+import java.util.List;
+
+public class SimilarTrackListDTO {
+    private String trackId;
+    private List<RecommendedTrackDTO> tracks;
+
+    // Default constructor
+    public SimilarTrackListDTO() {}
+
+    // Getters and setters
+    public String getTrackId() { return trackId; }
+    public void setTrackId(String trackId) { this.trackId = trackId; }
+
+    public List<RecommendedTrackDTO> getTracks() { return tracks; }
+    public void setTracks(List<RecommendedTrackDTO> tracks) { this.tracks = tracks; }
+}
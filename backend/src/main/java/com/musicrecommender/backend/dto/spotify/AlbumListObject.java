@@ -0,0 +1,12 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * The albums of a several-albums request, in request order, with null for unknown ids.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record AlbumListObject(List<AlbumObject> albums) {
+}
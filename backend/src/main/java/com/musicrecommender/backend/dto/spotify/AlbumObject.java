@@ -0,0 +1,33 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * An album as returned by /albums/{id} and /albums?ids=, with the first page of its tracks.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record AlbumObject(
+    String id,
+    String name,
+    String href,
+    String uri,
+    @JsonProperty("album_type") String albumType,
+    @JsonProperty("total_tracks") int totalTracks,
+    @JsonProperty("release_date") String releaseDate,
+    @JsonProperty("release_date_precision") String releaseDatePrecision,
+    List<ImageObject> images,
+    List<SimplifiedArtistObject> artists,
+    int popularity,
+    PagingObject<SimplifiedTrackObject> tracks
+) {
+    /**
+     * Returns a copy of the album with its tracks replaced.
+     */
+    public AlbumObject withTracks(PagingObject<SimplifiedTrackObject> tracks) {
+        return new AlbumObject(id, name, href, uri, albumType, totalTracks, releaseDate, releaseDatePrecision,
+            images, artists, popularity, tracks);
+    }
+}
@@ -0,0 +1,12 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * The artists of a several-artists request, in request order, with null for unknown ids.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ArtistListObject(List<ArtistObject> artists) {
+}
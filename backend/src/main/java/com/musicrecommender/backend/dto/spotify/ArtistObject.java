@@ -0,0 +1,24 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * An artist as returned by /artists/{id} and /artists?ids=.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ArtistObject(
+    String id,
+    String name,
+    String href,
+    String uri,
+    Followers followers,
+    List<String> genres,
+    List<ImageObject> images,
+    int popularity
+) {
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Followers(int total) {
+    }
+}
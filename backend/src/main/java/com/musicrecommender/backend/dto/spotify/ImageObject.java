@@ -0,0 +1,10 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * An image of an album, artist or playlist. Width and height are null when Spotify does not know them.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ImageObject(String url, Integer width, Integer height) {
+}
@@ -0,0 +1,11 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The user who owns a playlist.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record OwnerObject(String id, @JsonProperty("display_name") String displayName) {
+}
@@ -0,0 +1,26 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * One page of a paged collection. Next is the URL of the following page, or null on the last page.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PagingObject<T>(
+    String href,
+    Integer limit,
+    String next,
+    Integer offset,
+    String previous,
+    Integer total,
+    List<T> items
+) {
+    /**
+     * Returns the collection as one page holding all of its items.
+     */
+    public PagingObject<T> withAllItems(List<T> allItems) {
+        return new PagingObject<>(href, allItems.size(), null, 0, null, allItems.size(), allItems);
+    }
+}
@@ -0,0 +1,30 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * A playlist as returned by /playlists/{id}, with the first page of its tracks.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PlaylistObject(
+    String id,
+    String name,
+    String description,
+    String href,
+    String uri,
+    Boolean collaborative,
+    @JsonProperty("public") Boolean isPublic,
+    List<ImageObject> images,
+    OwnerObject owner,
+    PagingObject<PlaylistTrackObject> tracks
+) {
+    /**
+     * Returns a copy of the playlist with its tracks replaced.
+     */
+    public PlaylistObject withTracks(PagingObject<PlaylistTrackObject> tracks) {
+        return new PlaylistObject(id, name, description, href, uri, collaborative, isPublic, images, owner, tracks);
+    }
+}
@@ -0,0 +1,10 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * An entry of a playlist's tracks. Track is null for tracks that are no longer available.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PlaylistTrackObject(TrackObject track) {
+}
@@ -0,0 +1,24 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * An album as embedded in tracks and listed by /artists/{id}/albums, without its tracks.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SimplifiedAlbumObject(
+    String id,
+    String name,
+    String href,
+    String uri,
+    @JsonProperty("album_type") String albumType,
+    @JsonProperty("total_tracks") int totalTracks,
+    @JsonProperty("release_date") String releaseDate,
+    @JsonProperty("release_date_precision") String releaseDatePrecision,
+    List<ImageObject> images,
+    List<SimplifiedArtistObject> artists
+) {
+}
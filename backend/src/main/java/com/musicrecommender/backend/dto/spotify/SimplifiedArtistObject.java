@@ -0,0 +1,10 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * An artist as embedded in albums and tracks, without followers, genres, images or popularity.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SimplifiedArtistObject(String id, String name, String href, String uri) {
+}
@@ -0,0 +1,21 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * A playlist as listed by /me/playlists, without its tracks.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SimplifiedPlaylistObject(
+    String id,
+    String name,
+    String description,
+    String href,
+    String uri,
+    Boolean collaborative,
+    List<ImageObject> images,
+    OwnerObject owner
+) {
+}
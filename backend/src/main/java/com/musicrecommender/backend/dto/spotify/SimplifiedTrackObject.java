@@ -0,0 +1,21 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * A track as listed in an album, without the album and popularity.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SimplifiedTrackObject(
+    String id,
+    String name,
+    String href,
+    String uri,
+    @JsonProperty("duration_ms") int durationMs,
+    boolean explicit,
+    List<SimplifiedArtistObject> artists
+) {
+}
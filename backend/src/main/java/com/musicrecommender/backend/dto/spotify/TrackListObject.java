@@ -0,0 +1,13 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * The tracks of a several-tracks request, in request order, with null for unknown ids.
+ * Top tracks come back in the same shape.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TrackListObject(List<TrackObject> tracks) {
+}
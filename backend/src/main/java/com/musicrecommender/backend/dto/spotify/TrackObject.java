@@ -0,0 +1,23 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * A track as returned by /tracks/{id} and /tracks?ids=, and as listed in playlists and top tracks.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TrackObject(
+    String id,
+    String name,
+    String href,
+    String uri,
+    @JsonProperty("duration_ms") int durationMs,
+    boolean explicit,
+    int popularity,
+    SimplifiedAlbumObject album,
+    List<SimplifiedArtistObject> artists
+) {
+}
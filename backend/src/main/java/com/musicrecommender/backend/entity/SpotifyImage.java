@@ -1,8 +1,9 @@
 package com.musicrecommender.backend.entity;
 
-import java.util.Map;
 import java.util.List;
 
+import com.musicrecommender.backend.dto.spotify.ImageObject;
+
 import jakarta.persistence.Embeddable;
 
 @Embeddable
@@ -21,13 +22,16 @@ public class SpotifyImage {
         this.height = height;
     }
 
-    public SpotifyImage(Map<String, Object> imageData) {
-        this.url = (String) imageData.get("url");
-        this.width = imageData.get("width") instanceof Integer ? (Integer) imageData.get("width") : -1;
-        this.height = imageData.get("height") instanceof Integer ? (Integer) imageData.get("height") : -1;
+    public SpotifyImage(ImageObject imageData) {
+        this.url = imageData.url();
+        this.width = imageData.width() != null ? imageData.width() : -1;
+        this.height = imageData.height() != null ? imageData.height() : -1;
     }
 
-    public static List<SpotifyImage> createSpotifyImageListFromJSON(List<Map<String, Object>> images) {
+    public static List<SpotifyImage> createSpotifyImageListFromJSON(List<ImageObject> images) {
+        if (images == null) {
+            return List.of();
+        }
         return images.stream()
                      .map(SpotifyImage::new)
                      .toList();
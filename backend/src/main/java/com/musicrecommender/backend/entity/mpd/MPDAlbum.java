@@ -0,0 +1,42 @@
+package com.musicrecommender.backend.entity.mpd;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Dictionary entry mapping a Spotify album ID to the dense int ordinal the MPD tables use instead.
+ */
+@Entity
+@Table(name = "mpd_dict_albums")
+public class MPDAlbum {
+    @Id
+    private int ordinal;
+    @Column(name = "spotify_id", unique = true, nullable = false)
+    private String spotifyId;
+
+    public MPDAlbum() {
+        // Default constructor for JPA
+    }
+
+    public MPDAlbum(String spotifyId) {
+        this.spotifyId = spotifyId;
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
+
+    public String getSpotifyId() {
+        return spotifyId;
+    }
+
+    public void setSpotifyId(String spotifyId) {
+        this.spotifyId = spotifyId;
+    }
+}
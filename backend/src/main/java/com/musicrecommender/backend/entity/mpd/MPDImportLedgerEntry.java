@@ -0,0 +1,107 @@
+package com.musicrecommender.backend.entity.mpd;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress record for one MPD slice. Updated in the same transaction as every chunk of
+ * playlists the slice commits, so it always matches what is actually in the database.
+ */
+@Entity
+@Table(name = "mpd_import_ledger")
+public class MPDImportLedgerEntry {
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED,
+        FAILED
+    }
+
+    // Bump when the MPD table layout changes, so slices imported under the old layout are imported again
+    public static final int CURRENT_FORMAT_VERSION = 2;
+
+    @Id
+    @Column(name = "slice_name")
+    private String sliceName;
+    @Column(name = "file_size")
+    private long fileSize;
+    @Column(name = "file_last_modified")
+    private long fileLastModified;
+    // CRC32C of the slice's bytes, known once the whole slice has been read
+    private String checksum;
+    @Column(name = "playlist_count")
+    private int playlistCount;
+    @Enumerated(EnumType.STRING)
+    private Status status;
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+    // Null for entries written before the format was recorded, which used the string-keyed layout
+    @Column(name = "format_version")
+    private Integer formatVersion;
+
+    public MPDImportLedgerEntry() {
+        // Default constructor for JPA
+    }
+
+    public MPDImportLedgerEntry(String sliceName, long fileSize, long fileLastModified) {
+        this.sliceName = sliceName;
+        this.fileSize = fileSize;
+        this.fileLastModified = fileLastModified;
+        this.status = Status.IN_PROGRESS;
+        this.formatVersion = CURRENT_FORMAT_VERSION;
+        this.startedAt = LocalDateTime.now();
+        this.updatedAt = this.startedAt;
+    }
+
+    /**
+     * True if the entry was written for this exact version of the slice file, under the current table layout.
+     */
+    public boolean matches(long fileSize, long fileLastModified) {
+        return this.fileSize == fileSize && this.fileLastModified == fileLastModified
+            && Integer.valueOf(CURRENT_FORMAT_VERSION).equals(formatVersion);
+    }
+
+    public String getSliceName() { return sliceName; }
+    public void setSliceName(String sliceName) { this.sliceName = sliceName; }
+
+    public long getFileSize() { return fileSize; }
+    public void setFileSize(long fileSize) { this.fileSize = fileSize; }
+
+    public long getFileLastModified() { return fileLastModified; }
+    public void setFileLastModified(long fileLastModified) { this.fileLastModified = fileLastModified; }
+
+    public String getChecksum() { return checksum; }
+    public void setChecksum(String checksum) { this.checksum = checksum; }
+
+    public int getPlaylistCount() { return playlistCount; }
+    public void setPlaylistCount(int playlistCount) { this.playlistCount = playlistCount; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public Integer getFormatVersion() { return formatVersion; }
+    public void setFormatVersion(Integer formatVersion) { this.formatVersion = formatVersion; }
+}
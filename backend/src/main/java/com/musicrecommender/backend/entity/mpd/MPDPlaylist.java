@@ -3,7 +3,10 @@ package com.musicrecommender.backend.entity.mpd;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.OrderColumn;
 
 import java.util.List;
 
@@ -14,6 +17,12 @@ public class MPDPlaylist {
     @Id
     private long id;
     @ManyToMany
+    @JoinTable(
+        name = "mpd_playlist_edges",
+        joinColumns = @JoinColumn(name = "playlist_id"),
+        inverseJoinColumns = @JoinColumn(name = "track_ordinal")
+    )
+    @OrderColumn(name = "pos")
     private List<MPDTrack> tracks;
 
     public MPDPlaylist() {
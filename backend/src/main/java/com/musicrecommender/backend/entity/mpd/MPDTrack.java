@@ -1,42 +1,87 @@
 package com.musicrecommender.backend.entity.mpd;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.Table;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 
+/**
+ * Dictionary entry for an MPD track. Playlists reference tracks, and tracks reference their
+ * artist and album, by dense int ordinal; the Spotify IDs are stored once, here and in
+ * {@link MPDArtist}/{@link MPDAlbum}, and only resolved when a response needs them.
+ */
 @Entity
-@Table(name = "mpd_tracks")
+@Table(name = "mpd_dict_tracks")
 public class MPDTrack {
     @Id
-    private String id;
-    private String artistId;
-    private String albumId;
+    private int ordinal;
+    @Column(name = "spotify_id", unique = true, nullable = false)
+    private String spotifyId;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "artist_ordinal")
+    private MPDArtist artist;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "album_ordinal")
+    private MPDAlbum album;
 
     public MPDTrack() {
         // Default constructor for JPA
     }
 
-    public String getId() {
-        return id;
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
+
+    public String getSpotifyId() {
+        return spotifyId;
+    }
+
+    public void setSpotifyId(String spotifyId) {
+        this.spotifyId = spotifyId;
+    }
+
+    public MPDArtist getArtist() {
+        return artist;
+    }
+
+    public void setArtist(MPDArtist artist) {
+        this.artist = artist;
+    }
+
+    public MPDAlbum getAlbum() {
+        return album;
     }
 
-    public void setId(String id) {
-        this.id = id;
+    public void setAlbum(MPDAlbum album) {
+        this.album = album;
     }
 
     public String getArtistId() {
-        return artistId;
+        return artist != null ? artist.getSpotifyId() : null;
     }
 
+    /**
+     * Sets the artist by Spotify ID only, as the slice reader does before ordinals are assigned.
+     */
     public void setArtistId(String artistId) {
-        this.artistId = artistId;
+        this.artist = artistId != null ? new MPDArtist(artistId) : null;
     }
 
     public String getAlbumId() {
-        return albumId;
+        return album != null ? album.getSpotifyId() : null;
     }
 
+    /**
+     * Sets the album by Spotify ID only, as the slice reader does before ordinals are assigned.
+     */
     public void setAlbumId(String albumId) {
-        this.albumId = albumId;
+        this.album = albumId != null ? new MPDAlbum(albumId) : null;
     }
 }
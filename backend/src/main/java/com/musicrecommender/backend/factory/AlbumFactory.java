@@ -1,12 +1,15 @@
 package com.musicrecommender.backend.factory;
 
 import java.util.List;
-import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.context.annotation.Lazy;
 
+import com.musicrecommender.backend.dto.spotify.AlbumObject;
+import com.musicrecommender.backend.dto.spotify.SimplifiedAlbumObject;
+import com.musicrecommender.backend.dto.spotify.SimplifiedArtistObject;
+import com.musicrecommender.backend.dto.spotify.SimplifiedTrackObject;
 import com.musicrecommender.backend.entity.Artist;
 import com.musicrecommender.backend.entity.Track;
 import com.musicrecommender.backend.entity.Album;
@@ -26,24 +29,24 @@ public class AlbumFactory {
     @Lazy
     private TrackService trackService;
 
-    public Mono<Album> createAlbumFromJSON(Map<String, Object> albumData) {
+    public Mono<Album> createAlbumFromJSON(AlbumObject albumData) {
         Album album = new Album();
-        album.setAlbumType((String) albumData.get("album_type"));
-        album.setTotalTracks((Integer) albumData.get("total_tracks"));
-        album.setHref((String) albumData.get("href"));
-        album.setId((String) albumData.get("id"));
-        album.setImages(SpotifyImage.createSpotifyImageListFromJSON((List<Map<String, Object>>) albumData.get("images")));
-        album.setName((String) albumData.get("name"));
-        album.setReleaseDate((String) albumData.get("release_date"));
-        album.setReleaseDatePrecision((String) albumData.get("release_date_precision"));
-        album.setUri((String) albumData.get("uri"));
-        album.setPopularity((Integer) albumData.get("popularity"));
+        album.setAlbumType(albumData.albumType());
+        album.setTotalTracks(albumData.totalTracks());
+        album.setHref(albumData.href());
+        album.setId(albumData.id());
+        album.setImages(SpotifyImage.createSpotifyImageListFromJSON(albumData.images()));
+        album.setName(albumData.name());
+        album.setReleaseDate(albumData.releaseDate());
+        album.setReleaseDatePrecision(albumData.releaseDatePrecision());
+        album.setUri(albumData.uri());
+        album.setPopularity(albumData.popularity());
 
-        List<Map<String, Object>> artistsData = (List<Map<String, Object>>) albumData.get("artists");
+        List<SimplifiedArtistObject> artistsData = albumData.artists();
         Mono<List<Artist>> artistsMono = 
             artistsData != null ? artistService.createArtistListFromJSONSimple(artistsData) : Mono.just(List.of());
 
-        List<Map<String, Object>> tracksData = (List<Map<String, Object>>) ((Map<String, Object>) albumData.get("tracks")).get("items");
+        List<SimplifiedTrackObject> tracksData = albumData.tracks() != null ? albumData.tracks().items() : null;
         if (tracksData == null || tracksData.isEmpty()) {
             return artistsMono.map(artists -> {
                 album.setArtists(artists);
@@ -54,11 +57,11 @@ public class AlbumFactory {
 
         // 1. Collect all unique artist IDs from all tracks
         java.util.Set<String> allArtistIds = new java.util.HashSet<>();
-        for (Map<String, Object> track : tracksData) {
-            List<Map<String, Object>> tArtists = (List<Map<String, Object>>) track.get("artists");
+        for (SimplifiedTrackObject track : tracksData) {
+            List<SimplifiedArtistObject> tArtists = track.artists();
             if (tArtists != null) {
-                for (Map<String, Object> a : tArtists) {
-                    String id = (String) a.get("id");
+                for (SimplifiedArtistObject a : tArtists) {
+                    String id = a.id();
                     if (id != null && !id.isEmpty()) allArtistIds.add(id);
                 }
             }
@@ -77,12 +80,12 @@ public class AlbumFactory {
                 artistMap.put(a.getId(), a);
             }
             List<List<Artist>> result = new java.util.ArrayList<>();
-            for (Map<String, Object> track : tracksData) {
-                List<Map<String, Object>> tArtists = (List<Map<String, Object>>) track.get("artists");
+            for (SimplifiedTrackObject track : tracksData) {
+                List<SimplifiedArtistObject> tArtists = track.artists();
                 List<Artist> resolved = new java.util.ArrayList<>();
                 if (tArtists != null) {
-                    for (Map<String, Object> a : tArtists) {
-                        String id = (String) a.get("id");
+                    for (SimplifiedArtistObject a : tArtists) {
+                        String id = a.id();
                         if (id != null && artistMap.containsKey(id)) {
                             resolved.add(artistMap.get(id));
                         }
@@ -107,17 +110,17 @@ public class AlbumFactory {
             });
     }
 
-    public Mono<SimplifiedAlbum> createSimplifiedAlbumFromJSON(Map<String, Object> albumData) {
+    public Mono<SimplifiedAlbum> createSimplifiedAlbumFromJSON(SimplifiedAlbumObject albumData) {
         SimplifiedAlbum simplifiedAlbum = new SimplifiedAlbum();
-        simplifiedAlbum.setId((String) albumData.get("id"));
-        simplifiedAlbum.setName((String) albumData.get("name"));
-        simplifiedAlbum.setUri((String) albumData.get("uri"));
-        simplifiedAlbum.setHref((String) albumData.get("href"));
-        simplifiedAlbum.setReleaseDate((String) albumData.get("release_date"));
-        simplifiedAlbum.setReleaseDatePrecision((String) albumData.get("release_date_precision"));
-        simplifiedAlbum.setTotalTracks((Integer) albumData.get("total_tracks"));
+        simplifiedAlbum.setId(albumData.id());
+        simplifiedAlbum.setName(albumData.name());
+        simplifiedAlbum.setUri(albumData.uri());
+        simplifiedAlbum.setHref(albumData.href());
+        simplifiedAlbum.setReleaseDate(albumData.releaseDate());
+        simplifiedAlbum.setReleaseDatePrecision(albumData.releaseDatePrecision());
+        simplifiedAlbum.setTotalTracks(albumData.totalTracks());
 
-        List<Map<String, Object>> artistsData = (List<Map<String, Object>>) albumData.get("artists");
+        List<SimplifiedArtistObject> artistsData = albumData.artists();
         if (artistsData != null) {
             // artistService.createSimplifiedArtistListFromJSON returns Mono<List<SimplifiedArtist>>
             return artistService.createSimplifiedArtistListFromJSON(artistsData)
@@ -1,6 +1,7 @@
 package com.musicrecommender.backend.factory;
 
 import java.util.stream.Collectors;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -16,8 +17,21 @@ import com.musicrecommender.backend.service.PlaylistService;
 import com.musicrecommender.backend.service.SpotifyIntegrationService;
 import com.musicrecommender.backend.dto.*;
 import com.musicrecommender.backend.dto.simplified.*;
+import com.musicrecommender.backend.dto.spotify.SimplifiedAlbumObject;
+import com.musicrecommender.backend.dto.spotify.SimplifiedArtistObject;
 import com.musicrecommender.backend.entity.*;
 import com.musicrecommender.backend.entity.simplified.*;
+import com.musicrecommender.backend.service.mpd.MPDImportJob;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.recommendation.AlsModel;
+import com.musicrecommender.backend.service.recommendation.EvaluationJob;
+import com.musicrecommender.backend.service.recommendation.EvaluationResult;
+import com.musicrecommender.backend.service.recommendation.HnswIndex;
+import com.musicrecommender.backend.service.recommendation.ItemSimilarityMatrix;
+import com.musicrecommender.backend.service.recommendation.PlaylistLshIndex;
+import com.musicrecommender.backend.service.recommendation.RankedTracks;
+import com.musicrecommender.backend.service.recommendation.RecommendationCache;
+import com.musicrecommender.backend.service.recommendation.SimilarPlaylists;
 
 @Component
 public class DTOFactory {
@@ -263,32 +277,31 @@ public class DTOFactory {
         }
     }
 
-    public Mono<SimplifiedAlbumDTO> createSimplifiedAlbumDTO(Map<String, Object> albumData) {
+    public Mono<SimplifiedAlbumDTO> createSimplifiedAlbumDTO(SimplifiedAlbumObject albumData) {
         if (albumData == null) return Mono.empty();
 
         SimplifiedAlbumDTO simplifiedAlbumDTO = new SimplifiedAlbumDTO();
-        simplifiedAlbumDTO.setId((String) albumData.get("id"));
-        simplifiedAlbumDTO.setName((String) albumData.get("name"));
-        simplifiedAlbumDTO.setTotalTracks((Integer) albumData.get("total_tracks"));
-        simplifiedAlbumDTO.setHref((String) albumData.get("href"));
-        simplifiedAlbumDTO.setReleaseDate((String) albumData.get("release_date"));
-        simplifiedAlbumDTO.setReleaseDatePrecision((String) albumData.get("release_date_precision"));
-        simplifiedAlbumDTO.setUri((String) albumData.get("uri"));
-
-        List<Map<String, Object>> imagesData = (List<Map<String, Object>>) albumData.get("images");
-        if (imagesData != null) {
-            simplifiedAlbumDTO.setImages(imagesData.stream()
-                .map(imgMap -> {
+        simplifiedAlbumDTO.setId(albumData.id());
+        simplifiedAlbumDTO.setName(albumData.name());
+        simplifiedAlbumDTO.setTotalTracks(albumData.totalTracks());
+        simplifiedAlbumDTO.setHref(albumData.href());
+        simplifiedAlbumDTO.setReleaseDate(albumData.releaseDate());
+        simplifiedAlbumDTO.setReleaseDatePrecision(albumData.releaseDatePrecision());
+        simplifiedAlbumDTO.setUri(albumData.uri());
+
+        if (albumData.images() != null) {
+            simplifiedAlbumDTO.setImages(albumData.images().stream()
+                .map(image -> {
                     SpotifyImageDTO dto = new SpotifyImageDTO();
-                    dto.setHeight(imgMap.get("height") != null ? ((Number) imgMap.get("height")).intValue() : null);
-                    dto.setWidth(imgMap.get("width") != null ? ((Number) imgMap.get("width")).intValue() : null);
-                    dto.setUrl((String) imgMap.get("url"));
+                    dto.setHeight(image.height());
+                    dto.setWidth(image.width());
+                    dto.setUrl(image.url());
                     return dto;
                 })
                 .collect(Collectors.toList()));
         }
 
-        List<Map<String, Object>> artistsData = (List<Map<String, Object>>) albumData.get("artists");
+        List<SimplifiedArtistObject> artistsData = albumData.artists();
         if (artistsData != null) {
             return reactor.core.publisher.Flux.fromIterable(artistsData)
                 .flatMap(this::createSimplifiedArtistDTO)
@@ -314,15 +327,216 @@ public class DTOFactory {
         return Mono.just(simplifiedArtistDTO);
     }
 
-    public Mono<SimplifiedArtistDTO> createSimplifiedArtistDTO(Map<String, Object> artistData) {
+    public Mono<SimplifiedArtistDTO> createSimplifiedArtistDTO(SimplifiedArtistObject artistData) {
         if (artistData == null) return Mono.empty();
 
         SimplifiedArtistDTO simplifiedArtistDTO = new SimplifiedArtistDTO();
-        simplifiedArtistDTO.setId((String) artistData.get("id"));
-        simplifiedArtistDTO.setName((String) artistData.get("name"));
-        simplifiedArtistDTO.setHref((String) artistData.get("href"));
-        simplifiedArtistDTO.setUri((String) artistData.get("uri"));
+        simplifiedArtistDTO.setId(artistData.id());
+        simplifiedArtistDTO.setName(artistData.name());
+        simplifiedArtistDTO.setHref(artistData.href());
+        simplifiedArtistDTO.setUri(artistData.uri());
 
         return Mono.just(simplifiedArtistDTO);
     }
+
+    /**
+     * Snapshots an import job's counters. Rates are averaged over the time the job has spent running,
+     * and the ETA assumes the remaining bytes are read at the same rate. Slices skipped as already
+     * imported count as done for the ETA but not for the rates.
+     */
+    public MPDImportJobDTO createMPDImportJobDTO(MPDImportJob job) {
+        MPDImportJobDTO dto = new MPDImportJobDTO();
+        dto.setId(job.getId());
+        dto.setStatus(job.getStatus().name());
+        dto.setSlicesRoot(job.getSlicesRoot().getAbsolutePath());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        dto.setSlicesTotal(job.getSlicesTotal().get());
+        dto.setSlicesDone(job.getSlicesDone().get());
+        dto.setSlicesSkipped(job.getSlicesSkipped().get());
+        dto.setSlicesFailed(job.getSlicesFailed().get());
+        dto.setPlaylistsWritten(job.getPlaylistsWritten().get());
+        dto.setRowsWritten(job.getRowsWritten().get());
+        dto.setBytesRead(job.getBytesRead().get());
+        dto.setBytesTotal(job.getBytesTotal().get());
+        dto.setErrors(job.getErrors());
+
+        double elapsedSeconds = job.getActiveSeconds();
+        dto.setElapsedSeconds(elapsedSeconds);
+        if (elapsedSeconds > 0) {
+            dto.setRowsPerSecond(dto.getRowsWritten() / elapsedSeconds);
+            dto.setBytesPerSecond(dto.getBytesRead() / elapsedSeconds);
+        }
+        if (!job.isFinished() && dto.getBytesPerSecond() > 0) {
+            long remaining = Math.max(0, dto.getBytesTotal() - dto.getBytesRead() - job.getBytesSkipped().get());
+            dto.setEtaSeconds(Math.round(remaining / dto.getBytesPerSecond()));
+        }
+        return dto;
+    }
+
+    public MPDSnapshotDTO createMPDSnapshotDTO(MPDSnapshot snapshot) {
+        MPDSnapshotDTO dto = new MPDSnapshotDTO();
+        dto.setPath(snapshot.getPath().toAbsolutePath().toString());
+        dto.setVersion(snapshot.getVersion());
+        dto.setCreatedAt(snapshot.getCreatedAt());
+        dto.setSizeBytes(snapshot.getSizeBytes());
+        dto.setTrackCount(snapshot.getTrackCount());
+        dto.setArtistCount(snapshot.getArtistCount());
+        dto.setAlbumCount(snapshot.getAlbumCount());
+        dto.setPlaylistCount(snapshot.getPlaylistCount());
+        dto.setEdgeCount(snapshot.getEdgeCount());
+        return dto;
+    }
+
+    public ItemSimilarityDTO createItemSimilarityDTO(ItemSimilarityMatrix matrix) {
+        ItemSimilarityDTO dto = new ItemSimilarityDTO();
+        dto.setPath(matrix.getPath().toAbsolutePath().toString());
+        dto.setVersion(matrix.getVersion());
+        dto.setCreatedAt(matrix.getCreatedAt());
+        dto.setSnapshotCreatedAt(matrix.getSnapshotCreatedAt());
+        dto.setSizeBytes(matrix.getSizeBytes());
+        dto.setTrackCount(matrix.getTrackCount());
+        dto.setPlaylistCount(matrix.getPlaylistCount());
+        dto.setFoldedPlaylistCount(matrix.getFoldedPlaylistCount());
+        dto.setEntryCount(matrix.getEntryCount());
+        dto.setThreshold(matrix.getThreshold());
+        dto.setMaxNeighbors(matrix.getMaxNeighbors());
+        dto.setMinCoOccurrence(matrix.getMinCoOccurrence());
+        return dto;
+    }
+
+    /**
+     * Converts ranked snapshot track ordinals into DTOs, resolving their Spotify IDs through the snapshot.
+     */
+    public List<RecommendedTrackDTO> createRecommendedTrackDTOs(RankedTracks ranked, MPDSnapshot snapshot) {
+        List<RecommendedTrackDTO> dtos = new ArrayList<>(ranked.size());
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            int track = ranked.getTrack(rank);
+            RecommendedTrackDTO dto = new RecommendedTrackDTO();
+            dto.setId(snapshot.getTrackId(track));
+            dto.setUri("spotify:track:" + dto.getId());
+            dto.setArtistId(snapshot.getArtistId(snapshot.getArtistOrdinal(track)));
+            dto.setAlbumId(snapshot.getAlbumId(snapshot.getAlbumOrdinal(track)));
+            dto.setScore(ranked.getScore(rank));
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    public PlaylistLshIndexDTO createPlaylistLshIndexDTO(PlaylistLshIndex index) {
+        PlaylistLshIndexDTO dto = new PlaylistLshIndexDTO();
+        dto.setPath(index.getPath().toAbsolutePath().toString());
+        dto.setVersion(index.getVersion());
+        dto.setCreatedAt(index.getCreatedAt());
+        dto.setSnapshotCreatedAt(index.getSnapshotCreatedAt());
+        dto.setSizeBytes(index.getSizeBytes());
+        dto.setPlaylistCount(index.getPlaylistCount());
+        dto.setIndexedCount(index.getIndexedCount());
+        dto.setBands(index.getBands());
+        dto.setRowsPerBand(index.getRowsPerBand());
+        return dto;
+    }
+
+    public AlsModelDTO createAlsModelDTO(AlsModel model) {
+        AlsModelDTO dto = new AlsModelDTO();
+        dto.setPath(model.getPath().toAbsolutePath().toString());
+        dto.setVersion(model.getVersion());
+        dto.setCreatedAt(model.getCreatedAt());
+        dto.setSnapshotCreatedAt(model.getSnapshotCreatedAt());
+        dto.setSizeBytes(model.getSizeBytes());
+        dto.setTrackCount(model.getTrackCount());
+        dto.setPlaylistCount(model.getPlaylistCount());
+        dto.setFactors(model.getFactors());
+        dto.setIterations(model.getIterations());
+        dto.setRegularization(model.getRegularization());
+        dto.setAlpha(model.getAlpha());
+        dto.setCgSteps(model.getCgSteps());
+        return dto;
+    }
+
+    public EvaluationJobDTO createEvaluationJobDTO(EvaluationJob job) {
+        EvaluationJobDTO dto = new EvaluationJobDTO();
+        dto.setId(job.getId());
+        dto.setStatus(job.getStatus().name());
+        dto.setSource(job.getSource() != null ? job.getSource() : "snapshot");
+        dto.setSampleSize(job.getSampleSize());
+        dto.setAlgorithms(job.getAlgorithms());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        dto.setPlaylistsTotal(job.getPlaylistsTotal().get());
+        dto.setPlaylistsDone(job.getPlaylistsDone().get());
+        dto.setPlaylistsInSnapshot(job.getPlaylistsInSnapshot());
+        dto.setResults(job.getResults().stream().map(this::createEvaluationResultDTO).toList());
+        dto.setOutputFiles(job.getOutputFiles());
+        dto.setError(job.getError());
+        return dto;
+    }
+
+    public EvaluationResultDTO createEvaluationResultDTO(EvaluationResult result) {
+        EvaluationResultDTO dto = new EvaluationResultDTO();
+        dto.setAlgorithm(result.getAlgorithm());
+        // Null marks the result over all playlists rather than one seed count
+        dto.setSeedCount(result.getSeedCount() > 0 ? result.getSeedCount() : null);
+        dto.setPlaylists(result.getPlaylists());
+        dto.setRPrecision(result.getRPrecision());
+        dto.setNdcg(result.getNdcg());
+        dto.setClicks(result.getClicks());
+        dto.setMeanLatencyMillis(result.getMeanLatencyMillis());
+        dto.setP50LatencyMillis(result.getP50LatencyMillis());
+        dto.setP95LatencyMillis(result.getP95LatencyMillis());
+        dto.setP99LatencyMillis(result.getP99LatencyMillis());
+        dto.setMaxLatencyMillis(result.getMaxLatencyMillis());
+        return dto;
+    }
+
+    public RecommendationCacheDTO createRecommendationCacheDTO(RecommendationCache cache) {
+        RecommendationCacheDTO dto = new RecommendationCacheDTO();
+        dto.setTtlMinutes(cache.getTtlMinutes());
+        dto.setMaxSizeBytes(cache.getMaxSizeBytes());
+        dto.setEntryCount(cache.getEntryCount());
+        dto.setSizeBytes(cache.getSizeBytes());
+        dto.setHitCount(cache.getHitCount());
+        dto.setMissCount(cache.getMissCount());
+        long requests = cache.getHitCount() + cache.getMissCount();
+        dto.setHitRate(requests == 0 ? 0 : (double) cache.getHitCount() / requests);
+        dto.setEvictionCount(cache.getEvictionCount());
+        dto.setExpirationCount(cache.getExpirationCount());
+        return dto;
+    }
+
+    public HnswIndexDTO createHnswIndexDTO(HnswIndex index) {
+        HnswIndexDTO dto = new HnswIndexDTO();
+        dto.setPath(index.getPath().toAbsolutePath().toString());
+        dto.setVersion(index.getVersion());
+        dto.setCreatedAt(index.getCreatedAt());
+        dto.setSnapshotCreatedAt(index.getSnapshotCreatedAt());
+        dto.setModelCreatedAt(index.getModelCreatedAt());
+        dto.setSizeBytes(index.getSizeBytes());
+        dto.setNodeCount(index.getNodeCount());
+        dto.setDimensions(index.getDimensions());
+        dto.setM(index.getM());
+        dto.setEfConstruction(index.getEfConstruction());
+        return dto;
+    }
+
+    /**
+     * Converts similar snapshot playlists into DTOs.
+     * @param names Playlist names by pid, for the playlists that are in the database
+     */
+    public List<PlaylistNeighborDTO> createPlaylistNeighborDTOs(SimilarPlaylists similar, MPDSnapshot snapshot,
+                                                                Map<Long, String> names) {
+        List<PlaylistNeighborDTO> dtos = new ArrayList<>(similar.size());
+        for (int rank = 0; rank < similar.size(); rank++) {
+            int playlist = similar.getPlaylist(rank);
+            PlaylistNeighborDTO dto = new PlaylistNeighborDTO();
+            dto.setId(snapshot.getPlaylistId(playlist));
+            dto.setName(names.get(dto.getId()));
+            dto.setTrackCount(snapshot.getPlaylistLength(playlist));
+            dto.setSimilarity(similar.getSimilarity(rank));
+            dtos.add(dto);
+        }
+        return dtos;
+    }
 }
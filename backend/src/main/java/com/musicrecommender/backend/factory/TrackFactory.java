@@ -1,12 +1,13 @@
 package com.musicrecommender.backend.factory;
 
 import java.util.List;
-import java.util.Map;
 
 import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 
+import com.musicrecommender.backend.dto.spotify.SimplifiedArtistObject;
+import com.musicrecommender.backend.dto.spotify.TrackObject;
 import com.musicrecommender.backend.entity.Track;
 import com.musicrecommender.backend.entity.Artist;
 import com.musicrecommender.backend.entity.Album;
@@ -32,21 +33,20 @@ public class TrackFactory {
     private SpotifyIntegrationService spotifyIntegrationService;
 
     // Create track from JSON data (works with both client credentials and user tokens)
-    @SuppressWarnings("unchecked")
-    public Mono<Track> createTrackFromJSON(Map<String, Object> trackData) {
+    public Mono<Track> createTrackFromJSON(TrackObject trackData) {
         // Create track object
         Track track = new Track();
-        track.setDuration((Integer) trackData.get("duration_ms"));
-        track.setExplicit((Boolean) trackData.get("explicit"));
-        track.setHref((String) trackData.get("href"));
-        track.setId((String) trackData.get("id"));
-        track.setName((String) trackData.get("name"));
-        track.setUri((String) trackData.get("uri"));
-        track.setPopularity((Integer) trackData.get("popularity"));
-        track.setAlbumId((String) ((Map<String, Object>) trackData.get("album")).get("id"));
+        track.setDuration(trackData.durationMs());
+        track.setExplicit(trackData.explicit());
+        track.setHref(trackData.href());
+        track.setId(trackData.id());
+        track.setName(trackData.name());
+        track.setUri(trackData.uri());
+        track.setPopularity(trackData.popularity());
+        track.setAlbumId(trackData.album().id());
 
         // Get data for relationships
-        List<Map<String, Object>> artistsData = (List<Map<String, Object>>) trackData.get("artists");
+        List<SimplifiedArtistObject> artistsData = trackData.artists();
 
         // Load artists first
         Mono<List<Artist>> artistsMono = artistsData != null ? 
@@ -66,17 +66,16 @@ public class TrackFactory {
      * @param artists The list of Artist entities to associate with the track
      * @return Mono<Track>
      */
-    @SuppressWarnings("unchecked")
-    public Mono<Track> createTrackFromJSON(Map<String, Object> trackData, List<Artist> artists) {
+    public Mono<Track> createTrackFromJSON(TrackObject trackData, List<Artist> artists) {
         Track track = new Track();
-        track.setDuration((Integer) trackData.get("duration_ms"));
-        track.setExplicit((Boolean) trackData.get("explicit"));
-        track.setHref((String) trackData.get("href"));
-        track.setId((String) trackData.get("id"));
-        track.setName((String) trackData.get("name"));
-        track.setUri((String) trackData.get("uri"));
-        track.setPopularity((Integer) trackData.get("popularity"));
-        track.setAlbumId((String) ((Map<String, Object>) trackData.get("album")).get("id"));
+        track.setDuration(trackData.durationMs());
+        track.setExplicit(trackData.explicit());
+        track.setHref(trackData.href());
+        track.setId(trackData.id());
+        track.setName(trackData.name());
+        track.setUri(trackData.uri());
+        track.setPopularity(trackData.popularity());
+        track.setAlbumId(trackData.album().id());
 
         track.setArtists(artists != null ? artists : List.of());
         return Mono.fromCallable(() -> trackRepository.save(track));
@@ -0,0 +1,12 @@
+package com.musicrecommender.backend.repository;
+
+import com.musicrecommender.backend.entity.mpd.MPDImportLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MPDImportLedgerRepository extends JpaRepository<MPDImportLedgerEntry, String> {
+    List<MPDImportLedgerEntry> findByStatus(MPDImportLedgerEntry.Status status);
+}
@@ -4,7 +4,9 @@ import com.musicrecommender.backend.entity.mpd.MPDTrack;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-@Repository
-public interface MPDTrackRepository extends JpaRepository<MPDTrack, String> {
+import java.util.Optional;
 
+@Repository
+public interface MPDTrackRepository extends JpaRepository<MPDTrack, Integer> {
+    Optional<MPDTrack> findBySpotifyId(String spotifyId);
 }
@@ -2,7 +2,6 @@ package com.musicrecommender.backend.service;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,11 +14,16 @@ import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
 
+import com.musicrecommender.backend.dto.spotify.AlbumObject;
+import com.musicrecommender.backend.dto.spotify.PagingObject;
+import com.musicrecommender.backend.dto.spotify.SimplifiedAlbumObject;
+import com.musicrecommender.backend.dto.spotify.SimplifiedTrackObject;
 import com.musicrecommender.backend.entity.Album;
 import com.musicrecommender.backend.entity.Track;
 import com.musicrecommender.backend.entity.simplified.SimplifiedAlbum;
 import com.musicrecommender.backend.repository.AlbumRepository;
 import com.musicrecommender.backend.factory.AlbumFactory;
+import com.musicrecommender.backend.service.spotify.SingleFlight;
 
 @Service
 public class AlbumService {
@@ -30,13 +34,15 @@ public class AlbumService {
     @Autowired
     @Lazy
     private SpotifyIntegrationService spotifyIntegrationService;
+    // Concurrent requests for the same album share one fetch and save
+    private final SingleFlight<String, Album> albumLoads = new SingleFlight<>();
     private static final Logger logger = LoggerFactory.getLogger(AlbumService.class);
 
     public Mono<Album> getAlbum(String id) {
         logger.info("Fetching album with ID: {}", id);
         logger.info("Album not found in repository, fetching from Spotify");
-        Mono<Album> result = spotifyIntegrationService.getAlbum(id)
-                .flatMap(albumData -> createAlbumFromJSON(albumData));
+        Mono<Album> result = albumLoads.execute(id, () -> spotifyIntegrationService.getAlbum(id)
+                .flatMap(albumData -> createAlbumFromJSON(albumData)));
         logger.info("Result: {}", result);
         return result;
     }
@@ -68,31 +74,18 @@ public class AlbumService {
         return Mono.fromCallable(() -> albumRepository.save(album));
     }
 
-    private Mono<Album> createAlbumFromJSON(Map<String, Object> albumData) {
-        logger.info("Creating album from JSON data: {}", albumData);
-        String albumId = (String) albumData.get("id");
+    private Mono<Album> createAlbumFromJSON(AlbumObject albumData) {
+        String albumId = albumData.id();
+        logger.info("Creating album {} from JSON data", albumId);
         
-        Object tracksObject = albumData.get("tracks");
-        Map<String, Object> tracksMap = (Map<String, Object>) tracksObject;
-        String nextUrl = (String) tracksMap.get("next");
-        Object itemsObject = tracksMap.get("items");
-        int currentTrackCount = 0;
-        if (itemsObject instanceof List) {
-            currentTrackCount = ((List<?>) itemsObject).size();
-        }
+        PagingObject<SimplifiedTrackObject> tracksPage = albumData.tracks();
+        String nextUrl = tracksPage != null ? tracksPage.next() : null;
         
         if (nextUrl != null) {
             // Has more pages - fetch all tracks
-            return spotifyIntegrationService.fetchAllTracksForAlbum(tracksMap)
-                .map(allTracks -> {
-                    // Replace tracks in albumData with complete set
-                    Map<String, Object> completeTracksObject = Map.of(
-                        "items", allTracks,
-                        "total", allTracks.size()
-                    );
-                    albumData.put("tracks", completeTracksObject);
-                    return albumData;
-                })
+            return spotifyIntegrationService.fetchAllTracksForAlbum(tracksPage)
+                // Replace tracks in albumData with complete set
+                .map(allTracks -> albumData.withTracks(tracksPage.withAllItems(allTracks)))
                 .flatMap(completeAlbumData -> {
                     return albumFactory.createAlbumFromJSON(completeAlbumData);
                 })
@@ -108,8 +101,8 @@ public class AlbumService {
             });
     }
 
-    public Mono<Album> createAlbumFromJSONSimple(Map<String, Object> albumData) {
-        String albumId = (String) albumData.get("id");
+    public Mono<Album> createAlbumFromJSONSimple(SimplifiedAlbumObject albumData) {
+        String albumId = albumData.id();
         
         return Mono.fromCallable(() -> albumRepository.findById(albumId))
             .flatMap(repositoryResponse -> {
@@ -122,25 +115,25 @@ public class AlbumService {
             });
     }
 
-    public Mono<List<Album>> createAlbumListFromJSON(List<Map<String, Object>> albumsData) {
+    public Mono<List<Album>> createAlbumListFromJSON(List<AlbumObject> albumsData) {
         return Flux.fromIterable(albumsData)
             .flatMap(this::createAlbumFromJSON)
             .collectList();
     }
 
-    public Mono<List<Album>> createAlbumListFromJSONSimple(List<Map<String, Object>> albumsData) {
+    public Mono<List<Album>> createAlbumListFromJSONSimple(List<SimplifiedAlbumObject> albumsData) {
         List<String> ids = albumsData.stream()
-            .map(album -> (String) album.get("id"))
+            .map(SimplifiedAlbumObject::id)
             .toList();
         String idsCommaSeparated = String.join(",", ids);
         return getSeveralAlbums(idsCommaSeparated);
     }
 
-    public Mono<SimplifiedAlbum> createSimplifiedAlbumFromJSON(Map<String, Object> albumData) {
+    public Mono<SimplifiedAlbum> createSimplifiedAlbumFromJSON(SimplifiedAlbumObject albumData) {
         return albumFactory.createSimplifiedAlbumFromJSON(albumData);
     }
 
-    public Mono<List<SimplifiedAlbum>> createSimplifiedAlbumListFromJSON(List<Map<String, Object>> albumsData) {
+    public Mono<List<SimplifiedAlbum>> createSimplifiedAlbumListFromJSON(List<SimplifiedAlbumObject> albumsData) {
         return Flux.fromIterable(albumsData)
             .flatMap(this::createSimplifiedAlbumFromJSON)
             .collectList();
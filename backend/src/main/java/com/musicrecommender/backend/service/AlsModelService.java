@@ -0,0 +1,113 @@
+package com.musicrecommender.backend.service;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.recommendation.AlsModel;
+import com.musicrecommender.backend.service.recommendation.AlsTrainer;
+import com.musicrecommender.backend.service.recommendation.RecommendationCache;
+import com.musicrecommender.backend.service.recommendation.RecommendationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Owns the current ALS factor model. The model is trained in-process on the current MPD snapshot and is
+ * only served while that snapshot is current, since its rows are the snapshot's ordinals.
+ */
+@Service
+public class AlsModelService {
+    @Autowired
+    private RecommendationProperties recommendationProperties;
+    @Autowired
+    private MPDSnapshotService snapshotService;
+    @Autowired
+    private AlsTrainer alsTrainer;
+    @Autowired
+    private RecommendationCache recommendationCache;
+    private volatile AlsModel model;
+    private static final Logger logger = LoggerFactory.getLogger(AlsModelService.class);
+
+    @PostConstruct
+    public void loadOnStartup() {
+        if (!recommendationProperties.getAls().isLoadOnStartup()) {
+            return;
+        }
+        Path path = Paths.get(recommendationProperties.getAls().getPath()).toAbsolutePath();
+        try {
+            List<Path> current = files().current();
+            if (current.isEmpty()) {
+                logger.info("No ALS model at {}, train one through /admin/als-model", path);
+                return;
+            }
+            path = current.get(0);
+            model = open(path);
+            files().deleteExcept(List.of(path));
+            if (snapshotService.getSnapshot().filter(model::isCompatibleWith).isEmpty()) {
+                logger.warn("ALS model {} was not trained on the current MPD snapshot, retrain it", path);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to load ALS model {}", path, e);
+        }
+    }
+
+    /**
+     * Returns the model if it matches the current MPD snapshot.
+     */
+    public Optional<AlsModel> getModel() {
+        return snapshotService.getSnapshot().flatMap(this::getModel);
+    }
+
+    /**
+     * Returns the model if it was trained on the given snapshot, or empty if it was not.
+     */
+    public Optional<AlsModel> getModel(MPDSnapshot snapshot) {
+        AlsModel current = model;
+        return current != null && current.isCompatibleWith(snapshot) ? Optional.of(current) : Optional.empty();
+    }
+
+    /**
+     * Trains a new model on the current MPD snapshot and makes it current.
+     */
+    public synchronized AlsModel retrain() throws IOException {
+        MPDSnapshot snapshot = snapshotService.getSnapshot()
+            .orElseThrow(() -> new RecommendationException("No MPD snapshot is loaded, build one through /admin/mpd-snapshot"));
+        Path version = files().next();
+        AlsModel trained;
+        try {
+            alsTrainer.train(snapshot, version);
+            // Open before publishing so a broken file never replaces a working one
+            trained = open(version);
+        } catch (IOException | RuntimeException e) {
+            files().discard(version);
+            throw e;
+        }
+        files().publish(version);
+        model = trained;
+        recommendationCache.invalidateAll();
+        files().deleteExcept(List.of(version));
+        return trained;
+    }
+
+    private AlsModel open(Path path) throws IOException {
+        long start = System.currentTimeMillis();
+        AlsModel opened = AlsModel.open(path);
+        logger.info("Loaded ALS model v{} with {} factors for {} tracks in {} ms",
+            opened.getVersion(), opened.getFactors(), opened.getTrackCount(), System.currentTimeMillis() - start);
+        return opened;
+    }
+
+    private VersionedFiles files() {
+        return VersionedFiles.of(Paths.get(recommendationProperties.getAls().getPath()));
+    }
+}
@@ -1,7 +1,6 @@
 package com.musicrecommender.backend.service;
 
 import java.util.List;
-import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -11,6 +10,8 @@ import org.springframework.context.annotation.Lazy;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
 
+import com.musicrecommender.backend.dto.spotify.ArtistObject;
+import com.musicrecommender.backend.dto.spotify.SimplifiedArtistObject;
 import com.musicrecommender.backend.entity.Artist;
 import com.musicrecommender.backend.entity.Album;
 import com.musicrecommender.backend.entity.Track;
@@ -18,6 +19,7 @@ import com.musicrecommender.backend.entity.simplified.SimplifiedArtist;
 import com.musicrecommender.backend.entity.simplified.SimplifiedAlbum;
 import com.musicrecommender.backend.repository.ArtistRepository;
 import com.musicrecommender.backend.factory.ArtistFactory;
+import com.musicrecommender.backend.service.spotify.SingleFlight;
 
 @Service
 public class ArtistService {
@@ -33,9 +35,11 @@ public class ArtistService {
     @Autowired
     @Lazy
     private SpotifyIntegrationService spotifyIntegrationService;
+    // Concurrent requests for the same artist share one lookup, fetch and save
+    private final SingleFlight<String, Artist> artistLoads = new SingleFlight<>();
 
     public Mono<Artist> getArtist(String id) {
-        return Mono.fromCallable(() -> artistRepository.findById(id).orElse(null))
+        return artistLoads.execute(id, () -> Mono.fromCallable(() -> artistRepository.findById(id).orElse(null))
             .flatMap(artist -> {
                 if (artist != null) {
                     return Mono.just(artist);
@@ -43,7 +47,7 @@ public class ArtistService {
                     return spotifyIntegrationService.getArtist(id)
                         .flatMap(artistData -> createArtistFromJSON(artistData));
                 }
-            });
+            }));
     }
 
     public Mono<List<Artist>> getSeveralArtists(String ids) {
@@ -58,24 +62,24 @@ public class ArtistService {
     public Mono<List<SimplifiedAlbum>> getArtistAlbums(String artistId) {
         return spotifyIntegrationService.getArtistAlbums(artistId)
             .flatMap(albums -> {
-                if((String) albums.get("next") != null) {
+                if (albums.next() != null) {
                     // If there are more pages, fetch all albums
                     return spotifyIntegrationService.fetchAllAlbumsForArtist(albums)
-                        .flatMap(allAlbums -> albumService.createSimplifiedAlbumListFromJSON((List<Map<String, Object>>) allAlbums));
+                        .flatMap(allAlbums -> albumService.createSimplifiedAlbumListFromJSON(allAlbums));
                 } else {
                     // No more pages, return the current list
-                    return albumService.createSimplifiedAlbumListFromJSON((List<Map<String, Object>>) albums.get("items"));
+                    return albumService.createSimplifiedAlbumListFromJSON(albums.items());
                 }
             });
     }
 
     public Mono<List<Track>> getArtistTopTracks(String artistId) {
         return spotifyIntegrationService.getArtistTopTracks(artistId)
-            .flatMap(tracks -> trackService.createTrackListFromJSON((List<Map<String, Object>>) tracks.get("tracks")));
+            .flatMap(tracks -> trackService.createTrackListFromJSON(tracks));
     }
 
-    public Mono<Artist> createArtistFromJSON(Map<String, Object> artistData) {
-        String artistId = (String) artistData.get("id");
+    public Mono<Artist> createArtistFromJSON(ArtistObject artistData) {
+        String artistId = artistData.id();
         return Mono.fromCallable(() -> artistRepository.findById(artistId))
             .flatMap(repositoryResponse -> {
                 if (repositoryResponse.isPresent()) {
@@ -87,8 +91,8 @@ public class ArtistService {
             });
     }
 
-    public Mono<Artist> createArtistFromJSONSimple(Map<String, Object> artistData) {
-        String artistId = (String) artistData.get("id");
+    public Mono<Artist> createArtistFromJSONSimple(SimplifiedArtistObject artistData) {
+        String artistId = artistData.id();
         return Mono.fromCallable(() -> artistRepository.findById(artistId))
             .flatMap(repositoryResponse -> {
                 if (repositoryResponse.isPresent()) {
@@ -100,25 +104,25 @@ public class ArtistService {
             });
     }
 
-    public Mono<List<Artist>> createArtistListFromJSON(List<Map<String, Object>> artistsData) {
+    public Mono<List<Artist>> createArtistListFromJSON(List<ArtistObject> artistsData) {
         return Flux.fromIterable(artistsData)
             .flatMap(this::createArtistFromJSON)
             .collectList();
     }
 
-    public Mono<List<Artist>> createArtistListFromJSONSimple(List<Map<String, Object>> artistsData) {
+    public Mono<List<Artist>> createArtistListFromJSONSimple(List<SimplifiedArtistObject> artistsData) {
         List<String> ids = artistsData.stream()
-            .map(artist -> (String) artist.get("id"))
+            .map(SimplifiedArtistObject::id)
             .toList();
         String idsCommaSeparated = String.join(",", ids);
         return getSeveralArtists(idsCommaSeparated);
     }
 
-    public Mono<SimplifiedArtist> createSimplifiedArtistFromJSON(Map<String, Object> artistData) {
+    public Mono<SimplifiedArtist> createSimplifiedArtistFromJSON(SimplifiedArtistObject artistData) {
         return artistFactory.createSimplifiedArtistFromJSON(artistData);
     }
 
-    public Mono<List<SimplifiedArtist>> createSimplifiedArtistListFromJSON(List<Map<String, Object>> artistsData) {
+    public Mono<List<SimplifiedArtist>> createSimplifiedArtistListFromJSON(List<SimplifiedArtistObject> artistsData) {
         return Flux.fromIterable(artistsData)
             .flatMap(this::createSimplifiedArtistFromJSON)
             .collectList();
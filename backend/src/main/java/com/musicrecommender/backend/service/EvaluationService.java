@@ -0,0 +1,368 @@
+package com.musicrecommender.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.entity.mpd.MPDTrack;
+import com.musicrecommender.backend.factory.DTOFactory;
+import com.musicrecommender.backend.service.mpd.MPDSliceCatalog;
+import com.musicrecommender.backend.service.mpd.MPDSliceReader;
+import com.musicrecommender.backend.service.mpd.MPDSliceSource;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.recommendation.EvaluationJob;
+import com.musicrecommender.backend.service.recommendation.EvaluationResult;
+import com.musicrecommender.backend.service.recommendation.HeldOutPlaylist;
+import com.musicrecommender.backend.service.recommendation.RankedTracks;
+import com.musicrecommender.backend.service.recommendation.RankingMetrics;
+import com.musicrecommender.backend.service.recommendation.RecommendationException;
+import com.musicrecommender.backend.service.recommendation.TrackRecommender;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Runs offline evaluations of the recommenders in the background, in the style of the RecSys Challenge
+ * 2018: a sample of playlists is split into their first n tracks, given to each recommender as seeds,
+ * and the rest, which the recommender's top candidates are scored against with {@link RankingMetrics}.
+ * The seed count n cycles through recommendation.evaluation.seed-counts, using only counts that leave
+ * at least one track held out.
+ *
+ * Playlists are sampled either from a directory of slice files or from the snapshot itself. Sampling
+ * from the snapshot is quick, but the models have seen the held-out tracks, so scores come out higher
+ * than on unseen playlists; for a fair comparison build the snapshot from a training split of the
+ * slices and evaluate on the remaining ones. The report counts how many sampled playlists the snapshot
+ * contains.
+ *
+ * Playlists are evaluated in parallel, each one by every algorithm in turn, straight through the
+ * recommenders so the recommendation cache does not skew latencies. Each run writes a JSON report and
+ * optionally a challenge-format submission CSV per algorithm to recommendation.evaluation.output-dir.
+ */
+@Service
+public class EvaluationService {
+    @Autowired
+    private RecommendationProperties recommendationProperties;
+    @Autowired
+    private MPDSnapshotService snapshotService;
+    @Autowired
+    private RecommendationService recommendationService;
+    @Autowired
+    private MPDSliceReader sliceReader;
+    @Autowired
+    private DTOFactory dtoFactory;
+    @Autowired
+    private ObjectMapper objectMapper;
+    private final Map<String, EvaluationJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("evaluation-job-"));
+    private static final Logger logger = LoggerFactory.getLogger(EvaluationService.class);
+
+    /**
+     * Queues an evaluation and returns immediately.
+     * @param source A directory or zip of slice files to sample playlists from, or null for the snapshot's playlists
+     * @param sampleSize How many playlists to evaluate, null for recommendation.evaluation.sample-size
+     * @param algorithms The algorithms to compare, null or empty for every available one
+     * @param challengeCsv Whether to also write a challenge-format CSV per algorithm
+     * @return The queued job, which can be polled for progress and results
+     */
+    public EvaluationJob submit(String source, Integer sampleSize, List<String> algorithms, boolean challengeCsv) {
+        List<String> selected = algorithms == null || algorithms.isEmpty()
+            ? RecommendationService.ALGORITHMS.stream().filter(recommendationService::isAvailable).toList()
+            : algorithms;
+        EvaluationJob job = new EvaluationJob(source,
+            sampleSize != null ? sampleSize : recommendationProperties.getEvaluation().getSampleSize(), selected, challengeCsv);
+        jobs.put(job.getId(), job);
+        executor.submit(() -> run(job));
+        return job;
+    }
+
+    public Optional<EvaluationJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Returns all jobs, newest first.
+     */
+    public List<EvaluationJob> getJobs() {
+        return jobs.values().stream()
+            .sorted(Comparator.comparing(EvaluationJob::getCreatedAt).reversed())
+            .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(EvaluationJob job) {
+        job.markRunning();
+        logger.info("Evaluation job {} started for {} on {}", job.getId(), job.getAlgorithms(),
+            job.getSource() != null ? job.getSource() : "the MPD snapshot");
+        try {
+            evaluate(job);
+            logger.info("Evaluation job {} finished", job.getId());
+        } catch (Exception e) {
+            logger.error("Evaluation job {} failed", job.getId(), e);
+            job.markFailed(e.toString());
+        }
+    }
+
+    private void evaluate(EvaluationJob job) throws IOException {
+        RecommendationProperties.Evaluation settings = recommendationProperties.getEvaluation();
+        MPDSnapshot snapshot = snapshotService.getSnapshot()
+            .orElseThrow(() -> new RecommendationException("No MPD snapshot is loaded"));
+        List<String> algorithms = job.getAlgorithms();
+        List<TrackRecommender> recommenders = new ArrayList<>();
+        for (String algorithm : algorithms) {
+            TrackRecommender recommender = recommendationService.getRecommender(algorithm);
+            if (recommender == null || !recommender.isAvailable()) {
+                throw new RecommendationException("Algorithm " + algorithm + " is unknown or has no model");
+            }
+            recommenders.add(recommender);
+        }
+
+        long start = System.currentTimeMillis();
+        SplittableRandom random = new SplittableRandom(settings.getSeed());
+        List<HeldOutPlaylist> playlists = job.getSource() != null
+            ? sampleSlices(snapshot, new File(job.getSource()), job.getSampleSize(), random)
+            : sampleSnapshot(snapshot, job.getSampleSize(), random);
+        int inSnapshot = (int) playlists.stream().filter(HeldOutPlaylist::isInSnapshot).count();
+        job.getPlaylistsTotal().set(playlists.size());
+        logger.info("Sampled {} held-out playlists, {} of them in the snapshot, in {} ms",
+            playlists.size(), inSnapshot, System.currentTimeMillis() - start);
+
+        int n = playlists.size();
+        int candidates = settings.getCandidates();
+        double[][] rPrecisions = new double[algorithms.size()][n];
+        double[][] ndcgs = new double[algorithms.size()][n];
+        int[][] clicks = new int[algorithms.size()][n];
+        long[][] latencies = new long[algorithms.size()][n];
+        RankedTracks[][] rankings = job.isChallengeCsv() ? new RankedTracks[algorithms.size()][n] : null;
+        int parallelism = settings.getParallelism() > 0 ? settings.getParallelism() : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+                HeldOutPlaylist playlist = playlists.get(i);
+                for (int a = 0; a < recommenders.size(); a++) {
+                    long queryStart = System.nanoTime();
+                    RankedTracks ranked = recommenders.get(a).recommend(snapshot, playlist.getSeeds(), candidates);
+                    latencies[a][i] = System.nanoTime() - queryStart;
+                    rPrecisions[a][i] = RankingMetrics.rPrecision(ranked, playlist.getTruth(), playlist.getTruthSize());
+                    ndcgs[a][i] = RankingMetrics.ndcg(ranked, playlist.getTruth());
+                    clicks[a][i] = RankingMetrics.clicks(ranked, playlist.getTruth(), candidates);
+                    if (rankings != null) {
+                        rankings[a][i] = ranked;
+                    }
+                }
+                job.getPlaylistsDone().incrementAndGet();
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RecommendationException("Interrupted while evaluating recommenders", e);
+        } catch (ExecutionException e) {
+            throw new RecommendationException("Evaluation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        // Appending playlists or merging segments keeps the ordinals the evaluation used; a rebuild does not
+        MPDSnapshot current = snapshotService.getSnapshot().orElse(null);
+        if (current == null || !current.startsWith(snapshot.getLineage(), snapshot.getTrackCount(), snapshot.getPlaylistCount())) {
+            throw new RecommendationException("The MPD snapshot was rebuilt during the evaluation");
+        }
+
+        List<EvaluationResult> results = new ArrayList<>();
+        int[] seedCounts = playlists.stream().mapToInt(HeldOutPlaylist::getSeedCount).distinct().sorted().toArray();
+        for (int a = 0; a < algorithms.size(); a++) {
+            results.add(EvaluationResult.of(algorithms.get(a), 0, IntStream.range(0, n).toArray(),
+                rPrecisions[a], ndcgs[a], clicks[a], latencies[a]));
+            for (int seedCount : seedCounts) {
+                int[] selected = IntStream.range(0, n).filter(i -> playlists.get(i).getSeedCount() == seedCount).toArray();
+                results.add(EvaluationResult.of(algorithms.get(a), seedCount, selected,
+                    rPrecisions[a], ndcgs[a], clicks[a], latencies[a]));
+            }
+        }
+
+        Path outputDir = Paths.get(settings.getOutputDir()).toAbsolutePath();
+        Files.createDirectories(outputDir);
+        List<String> outputFiles = new ArrayList<>();
+        if (rankings != null) {
+            for (int a = 0; a < algorithms.size(); a++) {
+                Path csv = outputDir.resolve("evaluation-" + job.getId() + "-" + algorithms.get(a) + ".csv");
+                writeChallengeCsv(csv, snapshot, playlists, rankings[a], settings);
+                outputFiles.add(csv.toString());
+            }
+        }
+        Path report = outputDir.resolve("evaluation-" + job.getId() + ".json");
+        outputFiles.add(0, report.toString());
+        job.markCompleted(results, outputFiles, inSnapshot);
+        objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), dtoFactory.createEvaluationJobDTO(job));
+        for (EvaluationResult result : results) {
+            if (result.getSeedCount() == 0) {
+                logger.info("{}: R-precision {}, NDCG {}, clicks {}, p50 {} ms, p99 {} ms over {} playlists",
+                    result.getAlgorithm(), String.format("%.4f", result.getRPrecision()), String.format("%.4f", result.getNdcg()),
+                    String.format("%.2f", result.getClicks()), String.format("%.2f", result.getP50LatencyMillis()),
+                    String.format("%.2f", result.getP99LatencyMillis()), result.getPlaylists());
+            }
+        }
+    }
+
+    /**
+     * Samples playlists uniformly from the snapshot by drawing playlist indexes without replacement.
+     */
+    private List<HeldOutPlaylist> sampleSnapshot(MPDSnapshot snapshot, int sampleSize, SplittableRandom random) {
+        int[] order = new int[snapshot.getPlaylistCount()];
+        Arrays.setAll(order, i -> i);
+        List<HeldOutPlaylist> sample = new ArrayList<>();
+        for (int i = 0; i < order.length && sample.size() < sampleSize; i++) {
+            int swap = i + random.nextInt(order.length - i);
+            int playlistIndex = order[swap];
+            order[swap] = order[i];
+            HeldOutPlaylist playlist = split(snapshot.getPlaylistId(playlistIndex), snapshot.getPlaylistTracks(playlistIndex),
+                sample.size(), true);
+            if (playlist != null) {
+                sample.add(playlist);
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * Samples playlists uniformly from slice files with a reservoir, so only the sample is kept in memory.
+     * Tracks the snapshot does not know cannot be recommended but still count as held out.
+     */
+    private List<HeldOutPlaylist> sampleSlices(MPDSnapshot snapshot, File slicesRootDir, int sampleSize,
+                                               SplittableRandom random) throws IOException {
+        int minTracks = recommendationProperties.getEvaluation().getSeedCounts().stream()
+            .mapToInt(Integer::intValue).min().orElse(0) + 1;
+        List<HeldOutPlaylist> sample = new ArrayList<>();
+        long[] seen = {0};
+        try (MPDSliceCatalog catalog = MPDSliceCatalog.open(slicesRootDir)) {
+            if (catalog.isEmpty()) {
+                throw new IOException("No MPD slice files found in: " + slicesRootDir.getAbsolutePath());
+            }
+            for (MPDSliceSource slice : catalog.getSources()) {
+                try (InputStream in = slice.openStream()) {
+                    sliceReader.read(in, mpdPlaylist -> {
+                        if (mpdPlaylist.getTracks() == null || mpdPlaylist.getTracks().size() < minTracks) {
+                            return;
+                        }
+                        long index = seen[0]++;
+                        int slot = sample.size() < sampleSize ? sample.size() : (int) Math.min(sampleSize, random.nextLong(index + 1));
+                        if (slot < sampleSize) {
+                            HeldOutPlaylist playlist = split(mpdPlaylist.getId(), ordinals(snapshot, mpdPlaylist),
+                                (int) index, snapshot.getPlaylistIndex(mpdPlaylist.getId()) >= 0);
+                            if (playlist != null) {
+                                if (slot == sample.size()) {
+                                    sample.add(playlist);
+                                } else {
+                                    sample.set(slot, playlist);
+                                }
+                            }
+                        }
+                    });
+                }
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * Maps a playlist's tracks to snapshot ordinals. Tracks the snapshot does not know get distinct
+     * negative placeholders, so they still count once each as held out.
+     */
+    private static int[] ordinals(MPDSnapshot snapshot, MPDPlaylist playlist) {
+        List<MPDTrack> tracks = playlist.getTracks();
+        Map<String, Integer> unknown = new HashMap<>();
+        int[] ordinals = new int[tracks.size()];
+        for (int i = 0; i < ordinals.length; i++) {
+            String id = tracks.get(i).getSpotifyId();
+            int ordinal = id != null ? snapshot.getTrackOrdinal(id) : -1;
+            ordinals[i] = ordinal >= 0 ? ordinal : unknown.computeIfAbsent(String.valueOf(id), key -> -unknown.size() - 1);
+        }
+        return ordinals;
+    }
+
+    /**
+     * Splits a playlist into its first n tracks and the rest.
+     * @param tracks Ordinals in playlist order, negative for tracks the snapshot does not know
+     * @param index Picks the seed count from those that leave tracks held out
+     * @return The split, or null if no seed count leaves a track held out
+     */
+    private HeldOutPlaylist split(long pid, int[] tracks, int index, boolean inSnapshot) {
+        int[] seedCounts = recommendationProperties.getEvaluation().getSeedCounts().stream()
+            .mapToInt(Integer::intValue).filter(count -> count > 0 && count < tracks.length).toArray();
+        if (seedCounts.length == 0) {
+            return null;
+        }
+        int seedCount = seedCounts[index % seedCounts.length];
+        Set<Integer> seeds = new HashSet<>();
+        for (int i = 0; i < seedCount; i++) {
+            seeds.add(tracks[i]);
+        }
+        Set<Integer> heldOut = new HashSet<>();
+        for (int i = seedCount; i < tracks.length; i++) {
+            // A repeat of a seed can never be recommended, so it is not held out
+            if (!seeds.contains(tracks[i])) {
+                heldOut.add(tracks[i]);
+            }
+        }
+        if (heldOut.isEmpty()) {
+            return null;
+        }
+        int[] knownSeeds = Arrays.stream(tracks, 0, seedCount).filter(track -> track >= 0).toArray();
+        int[] truth = heldOut.stream().mapToInt(Integer::intValue).filter(track -> track >= 0).sorted().toArray();
+        return new HeldOutPlaylist(pid, seedCount, knownSeeds, truth, heldOut.size(), inSnapshot);
+    }
+
+    /**
+     * Writes the rankings in the RecSys Challenge 2018 submission format: a team_info line, then one line
+     * per playlist with its pid and recommended track URIs.
+     */
+    private static void writeChallengeCsv(Path path, MPDSnapshot snapshot, List<HeldOutPlaylist> playlists,
+                                          RankedTracks[] rankings, RecommendationProperties.Evaluation settings)
+            throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("team_info," + settings.getTeamName() + "," + settings.getContactEmail());
+            writer.newLine();
+            for (int i = 0; i < playlists.size(); i++) {
+                writer.write(Long.toString(playlists.get(i).getPid()));
+                RankedTracks ranked = rankings[i];
+                for (int rank = 0; rank < ranked.size(); rank++) {
+                    writer.write(", spotify:track:");
+                    writer.write(snapshot.getTrackId(ranked.getTrack(rank)));
+                }
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.musicrecommender.backend.service;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.recommendation.ItemSimilarityMatrix;
+import com.musicrecommender.backend.service.recommendation.PopularityRecommender;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the MPD snapshot and the count-based models current while playlists are imported, at a cost that
+ * follows the new playlists rather than the whole corpus. The import hands over every chunk of playlists it
+ * commits; a background thread appends whatever has accumulated to the snapshot, folds the new
+ * playlist-track edges into the item similarity matrix and the popularity index, and publishes the new
+ * versions. Chunks that arrive while an update runs are folded by the next one.
+ *
+ * Existing tracks and playlists keep their ordinals and the snapshot keeps its lineage, so trained models
+ * (ALS and the nearest-neighbor indexes) keep serving the part of the snapshot they were built from; the
+ * new tracks and playlists reach them at the next retrain. Playlists the snapshot already holds are not
+ * updated; a full rebuild picks up changes to them.
+ */
+@Service
+public class IncrementalUpdateService {
+    @Autowired
+    private RecommendationProperties recommendationProperties;
+    @Autowired
+    private MPDSnapshotService snapshotService;
+    @Autowired
+    private ItemSimilarityService itemSimilarityService;
+    @Autowired
+    private PopularityRecommender popularityRecommender;
+    private final List<MPDPlaylist> pending = new ArrayList<>();
+    private boolean scheduled;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("model-update-"));
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalUpdateService.class);
+
+    /**
+     * Queues committed playlists to be folded into the snapshot and models, and returns immediately.
+     */
+    public void submit(List<MPDPlaylist> playlists) {
+        if (!recommendationProperties.getIncrementalUpdates().isEnabled() || playlists.isEmpty()) {
+            return;
+        }
+        synchronized (pending) {
+            pending.addAll(playlists);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        executor.submit(this::run);
+    }
+
+    private void run() {
+        List<MPDPlaylist> playlists;
+        synchronized (pending) {
+            playlists = new ArrayList<>(pending);
+            pending.clear();
+            scheduled = false;
+        }
+        try {
+            update(playlists);
+        } catch (Exception e) {
+            logger.error("Failed to fold {} imported playlists into the MPD snapshot, rebuild it to include them",
+                playlists.size(), e);
+        }
+    }
+
+    private void update(List<MPDPlaylist> playlists) throws IOException {
+        MPDSnapshot base = snapshotService.getSnapshot().orElse(null);
+        if (base == null) {
+            logger.debug("No MPD snapshot is loaded, {} imported playlists are left for the next rebuild", playlists.size());
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Optional<MPDSnapshot> appended = snapshotService.writeAppended(base, playlists);
+        if (appended.isEmpty()) {
+            return;
+        }
+        Optional<ItemSimilarityMatrix> folded = Optional.empty();
+        try {
+            folded = itemSimilarityService.fold(base, appended.get());
+            // Before publishing, so no request for the appended snapshot counts its popularity from scratch
+            popularityRecommender.fold(base, appended.get());
+        } catch (IOException | RuntimeException e) {
+            if (folded.isPresent()) {
+                itemSimilarityService.discardFolded(folded.get());
+            }
+            snapshotService.discardAppended(appended.get());
+            throw e;
+        }
+        // The folded models only go live once the snapshot they were folded for has
+        Optional<MPDSnapshot> published = snapshotService.publishAppended(base, appended.get());
+        if (published.isEmpty()) {
+            if (folded.isPresent()) {
+                itemSimilarityService.discardFolded(folded.get());
+            }
+            popularityRecommender.discardFolded(appended.get());
+            logger.warn("The MPD snapshot was rebuilt during an incremental update, dropped the update");
+            return;
+        }
+        MPDSnapshot next = published.get();
+        if (folded.isPresent()) {
+            itemSimilarityService.publishFolded(folded.get(), next);
+        }
+        popularityRecommender.publishFolded(next);
+        // After the models went live; merged files hold the same data, so nothing built on them changes
+        try {
+            snapshotService.compact();
+            itemSimilarityService.compact();
+        } catch (IOException | RuntimeException e) {
+            // The update is published either way; the next one tries again
+            logger.warn("Failed to merge the files appended by incremental updates", e);
+        }
+        logger.info("Appended {} playlists and {} tracks to the MPD snapshot{} in {} ms",
+            next.getPlaylistCount() - base.getPlaylistCount(), next.getTrackCount() - base.getTrackCount(),
+            folded.isPresent() ? " and the item similarity matrix" : "", System.currentTimeMillis() - start);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,248 @@
+package com.musicrecommender.backend.service;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.recommendation.ItemSimilarityBuilder;
+import com.musicrecommender.backend.service.recommendation.ItemSimilarityMatrix;
+import com.musicrecommender.backend.service.recommendation.RecommendationCache;
+import com.musicrecommender.backend.service.recommendation.RecommendationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Owns the current track-track similarity matrix. The matrix is built from the current MPD snapshot and
+ * is only served while that snapshot is current, since both number tracks by the same ordinals.
+ */
+@Service
+public class ItemSimilarityService {
+    @Autowired
+    private RecommendationProperties recommendationProperties;
+    @Autowired
+    private MPDSnapshotService snapshotService;
+    @Autowired
+    private ItemSimilarityBuilder similarityBuilder;
+    @Autowired
+    private RecommendationCache recommendationCache;
+    private volatile ItemSimilarityMatrix matrix;
+    // The matrix a fold replaced, still served until the snapshot it was built from is replaced too
+    private volatile ItemSimilarityMatrix previous;
+    private static final Logger logger = LoggerFactory.getLogger(ItemSimilarityService.class);
+
+    @PostConstruct
+    public void loadOnStartup() {
+        if (!recommendationProperties.getItemSimilarity().isLoadOnStartup()) {
+            return;
+        }
+        Path path = Paths.get(recommendationProperties.getItemSimilarity().getPath()).toAbsolutePath();
+        try {
+            List<Path> current = files().current();
+            if (current.isEmpty()) {
+                logger.info("No item similarity matrix at {}, build one through /admin/item-similarity", path);
+                return;
+            }
+            long start = System.currentTimeMillis();
+            path = current.get(0);
+            ItemSimilarityMatrix opened = ItemSimilarityMatrix.open(path);
+            for (Path delta : current.subList(1, current.size())) {
+                path = delta;
+                opened = ItemSimilarityMatrix.openAppended(opened, delta);
+            }
+            matrix = loaded(opened, start);
+            files().deleteExcept(matrix.getPaths());
+            if (snapshotService.getSnapshot().filter(matrix::isCompatibleWith).isEmpty()) {
+                logger.warn("Item similarity matrix {} was not built from the current MPD snapshot, rebuild it", path);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to load item similarity matrix {}", path, e);
+        }
+    }
+
+    /**
+     * Returns the matrix if it matches the current MPD snapshot.
+     */
+    public Optional<ItemSimilarityMatrix> getMatrix() {
+        return snapshotService.getSnapshot().flatMap(this::getMatrix);
+    }
+
+    /**
+     * Returns the matrix built for the given snapshot, or empty if neither the current nor the replaced
+     * matrix matches it.
+     */
+    public Optional<ItemSimilarityMatrix> getMatrix(MPDSnapshot snapshot) {
+        ItemSimilarityMatrix current = matrix;
+        if (current != null && current.isCompatibleWith(snapshot)) {
+            return Optional.of(current);
+        }
+        ItemSimilarityMatrix replaced = previous;
+        return Optional.ofNullable(replaced).filter(candidate -> candidate.isCompatibleWith(snapshot));
+    }
+
+    /**
+     * Rebuilds the matrix from the current MPD snapshot and makes it current.
+     */
+    public synchronized ItemSimilarityMatrix rebuild() throws IOException {
+        MPDSnapshot snapshot = snapshotService.getSnapshot()
+            .orElseThrow(() -> new RecommendationException("No MPD snapshot is loaded, build one through /admin/mpd-snapshot"));
+        Path version = files().next();
+        ItemSimilarityMatrix rebuilt;
+        try {
+            long start = System.currentTimeMillis();
+            similarityBuilder.build(snapshot, version);
+            logger.info("Wrote item similarity matrix in {} ms", System.currentTimeMillis() - start);
+            // Open before publishing so a broken file never replaces a working one
+            rebuilt = open(version);
+        } catch (IOException | RuntimeException e) {
+            files().discard(version);
+            throw e;
+        }
+        files().publish(version);
+        matrix = rebuilt;
+        previous = null;
+        recommendationCache.invalidateAll();
+        deleteUnused();
+        return rebuilt;
+    }
+
+    /**
+     * Folds the playlists next appends to base into the current matrix, written to a new version of the file
+     * that holds only the changed rows and is stacked on the files of the current matrix. Folded rows are
+     * approximate, so once more than recommendation.incremental-updates.max-folded-fraction
+     * of next's playlists were folded in, the matrix is built from next in full instead. The folded matrix
+     * serves next right away while the replaced one keeps serving base. Once the snapshot service has
+     * published next, {@link #publishFolded} makes the version current; if it discarded next,
+     * {@link #discardFolded} puts the replaced matrix back.
+     * @return The folded matrix, or empty if there is no matrix built from base to fold into
+     */
+    public synchronized Optional<ItemSimilarityMatrix> fold(MPDSnapshot base, MPDSnapshot next) throws IOException {
+        ItemSimilarityMatrix current = matrix;
+        if (current == null || !current.isCompatibleWith(base)) {
+            return Optional.empty();
+        }
+        Path version = files().next();
+        ItemSimilarityMatrix result;
+        try {
+            long folded = (long) current.getFoldedPlaylistCount() + next.getPlaylistCount() - base.getPlaylistCount();
+            if (folded > recommendationProperties.getIncrementalUpdates().getMaxFoldedFraction() * next.getPlaylistCount()) {
+                logger.info("{} of {} playlists would be folded into the item similarity matrix, rebuilding it in full",
+                    folded, next.getPlaylistCount());
+                similarityBuilder.build(next, version);
+                result = open(version);
+            } else {
+                similarityBuilder.fold(current, base, next, version);
+                long start = System.currentTimeMillis();
+                result = loaded(ItemSimilarityMatrix.openAppended(current, version), start);
+            }
+        } catch (IOException | RuntimeException e) {
+            files().discard(version);
+            throw e;
+        }
+        previous = current;
+        matrix = result;
+        return Optional.of(result);
+    }
+
+    /**
+     * Makes a matrix returned by {@link #fold} current after the snapshot it was folded for was published,
+     * and stops serving the matrix it replaced. A matrix a rebuild made for that snapshot meanwhile is kept.
+     */
+    public synchronized void publishFolded(ItemSimilarityMatrix folded, MPDSnapshot published) throws IOException {
+        ItemSimilarityMatrix current = matrix;
+        previous = null;
+        if (current != folded && current != null && current.isCompatibleWith(published)) {
+            files().discard(folded.getPath());
+            return;
+        }
+        files().publish(folded.getPaths());
+        matrix = folded;
+        deleteUnused();
+    }
+
+    /**
+     * Merges trailing delta files of the current matrix so a long run of folds neither leaves one file per
+     * fold nor makes each row lookup search them all. Deltas are merged size-tiered, the newest ones being
+     * rewritten together once they add up to about the size of the one before, so each row is rewritten a
+     * logarithmic number of times; the full file itself is only replaced by a rebuild. The merged matrix holds
+     * the same rows under the same creation time, so cached recommendations stay valid.
+     */
+    public synchronized void compact() throws IOException {
+        ItemSimilarityMatrix current = matrix;
+        if (current == null || previous != null || current.getSegmentCount() < 3) {
+            return;
+        }
+        int last = current.getSegmentCount() - 1;
+        int from = last;
+        long merged = current.getSegmentEntryCount(last);
+        while (from > 1 && current.getSegmentEntryCount(from - 1) <= 2 * merged) {
+            from--;
+            merged += current.getSegmentEntryCount(from);
+        }
+        if (from == last) {
+            return;
+        }
+        Path version = files().next();
+        ItemSimilarityMatrix result;
+        try {
+            long start = System.currentTimeMillis();
+            similarityBuilder.merge(current, from, version);
+            logger.info("Merged item similarity matrix files {} to {} in {} ms", from, last, System.currentTimeMillis() - start);
+            start = System.currentTimeMillis();
+            result = loaded(ItemSimilarityMatrix.openAppended(current.firstSegments(from), version), start);
+        } catch (IOException | RuntimeException e) {
+            files().discard(version);
+            throw e;
+        }
+        files().publish(result.getPaths());
+        matrix = result;
+        deleteUnused();
+    }
+
+    /**
+     * Drops a matrix returned by {@link #fold} whose snapshot was not published, and serves the matrix it
+     * replaced again unless a rebuild replaced both meanwhile.
+     */
+    public synchronized void discardFolded(ItemSimilarityMatrix folded) {
+        if (matrix == folded) {
+            matrix = previous;
+        }
+        previous = null;
+        files().discard(folded.getPath());
+    }
+
+    private ItemSimilarityMatrix open(Path path) throws IOException {
+        long start = System.currentTimeMillis();
+        return loaded(ItemSimilarityMatrix.open(path), start);
+    }
+
+    private ItemSimilarityMatrix loaded(ItemSimilarityMatrix opened, long start) {
+        logger.info("Loaded item similarity matrix v{} with {} tracks and {} entries in {} ms",
+            opened.getVersion(), opened.getTrackCount(), opened.getEntryCount(), System.currentTimeMillis() - start);
+        return opened;
+    }
+
+    private void deleteUnused() throws IOException {
+        List<Path> inUse = new ArrayList<>();
+        for (ItemSimilarityMatrix served : new ItemSimilarityMatrix[] {matrix, previous}) {
+            if (served != null) {
+                inUse.addAll(served.getPaths());
+            }
+        }
+        files().deleteExcept(inUse);
+    }
+
+    private VersionedFiles files() {
+        return VersionedFiles.of(Paths.get(recommendationProperties.getItemSimilarity().getPath()));
+    }
+}
@@ -0,0 +1,84 @@
+package com.musicrecommender.backend.service;
+
+import com.musicrecommender.backend.service.mpd.MPDImportJob;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.File;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs MPD imports in the background so no request thread is held for the length of an import.
+ * Jobs run one at a time in submission order; each import still writes its slices in parallel.
+ */
+@Service
+public class MPDImportJobService {
+    @Autowired
+    private MPDImportService mpdImportService;
+    private final Map<String, MPDImportJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("mpd-import-job-"));
+    private static final Logger logger = LoggerFactory.getLogger(MPDImportJobService.class);
+
+    /**
+     * Queues an import of every slice in the directory and returns immediately.
+     * @param slicesRootDir The root directory containing MPD slice files
+     * @return The queued job, which can be polled for progress
+     */
+    public MPDImportJob submit(File slicesRootDir) {
+        MPDImportJob job = new MPDImportJob(slicesRootDir);
+        jobs.put(job.getId(), job);
+        executor.submit(() -> run(job));
+        return job;
+    }
+
+    private void run(MPDImportJob job) {
+        if (job.isCancelRequested()) {
+            job.markFinished();
+            return;
+        }
+        job.markRunning();
+        logger.info("Import job {} started for {}", job.getId(), job.getSlicesRoot().getAbsolutePath());
+        try {
+            mpdImportService.importAllSlices(job.getSlicesRoot(), job);
+        } catch (Exception e) {
+            logger.error("Import job {} failed", job.getId(), e);
+            job.addError(e.toString());
+            job.getSlicesFailed().incrementAndGet();
+        } finally {
+            job.markFinished();
+            logger.info("Import job {} finished with status {}", job.getId(), job.getStatus());
+        }
+    }
+
+    public Optional<MPDImportJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Returns all jobs, newest first.
+     */
+    public List<MPDImportJob> getJobs() {
+        return jobs.values().stream()
+            .sorted(Comparator.comparing(MPDImportJob::getCreatedAt).reversed())
+            .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(MPDImportJob::cancel);
+        executor.shutdownNow();
+    }
+}
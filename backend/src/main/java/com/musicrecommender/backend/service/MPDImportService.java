@@ -1,128 +1,367 @@
 package com.musicrecommender.backend.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.musicrecommender.backend.config.MPDImportProperties;
 import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.entity.mpd.MPDImportLedgerEntry;
 import com.musicrecommender.backend.entity.mpd.MPDTrack;
 import com.musicrecommender.backend.entity.SpotifyImage;
+import com.musicrecommender.backend.repository.MPDImportLedgerRepository;
 import com.musicrecommender.backend.repository.MPDPlaylistRepository;
-import com.musicrecommender.backend.repository.MPDTrackRepository;
+import com.musicrecommender.backend.service.mpd.MPDBatchWriter;
+import com.musicrecommender.backend.service.mpd.MPDCountingInputStream;
+import com.musicrecommender.backend.service.mpd.MPDDictionary;
+import com.musicrecommender.backend.service.mpd.MPDImportException;
+import com.musicrecommender.backend.service.mpd.MPDImportJob;
+import com.musicrecommender.backend.service.mpd.MPDPlaylistQueue;
+import com.musicrecommender.backend.service.mpd.MPDSliceCatalog;
+import com.musicrecommender.backend.service.mpd.MPDSliceReader;
+import com.musicrecommender.backend.service.mpd.MPDSliceSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
 
 @Service
 public class MPDImportService {
+    private enum SliceOutcome {
+        SUCCESS,
+        SKIPPED,
+        FAIL,
+        CANCELLED
+    }
+
     @Autowired
     private MPDPlaylistRepository playlistRepository;
     @Autowired
-    private MPDTrackRepository trackRepository;
+    private MPDSliceReader sliceReader;
+    @Autowired
+    private MPDImportProperties importProperties;
+    @Autowired
+    private MPDBatchWriter batchWriter;
+    @Autowired
+    private MPDImportLedgerRepository ledgerRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private IncrementalUpdateService incrementalUpdateService;
+    private static final Logger logger = LoggerFactory.getLogger(MPDImportService.class);
 
         /**
-     * Processes all MPD slice files in the given directory, calling importMPD for each file.
-     * Logs the success or failure of each slice as it goes.
+     * Processes all MPD slices in the given directory. Up to mpd.import.parallelism slices are
+     * imported at once. Slices the import ledger marks as completed are skipped, and partially imported
+     * slices resume from their last checkpoint. Logs the result of each slice as it goes.
+     * Slices may be plain .json, gzipped .json.gz, or entries of .zip archives, which are decompressed
+     * while they are parsed; the path may also be a single archive.
      * @param slicesRootDir The root directory containing MPD slice files.
      */
     public void importAllSlices(File slicesRootDir) {
-        if (!slicesRootDir.isDirectory()) {
-            System.out.println("Provided path is not a directory: " + slicesRootDir.getAbsolutePath());
+        importAllSlices(slicesRootDir, new MPDImportJob(slicesRootDir));
+    }
+
+    /**
+     * Overloaded version that reports progress into the given job and honors its pause and cancel requests.
+     * @param slicesRootDir The root directory containing MPD slice files.
+     * @param job Receives live counters and errors for the run
+     */
+    public void importAllSlices(File slicesRootDir, MPDImportJob job) {
+        if (!slicesRootDir.exists()) {
+            logger.error("Provided path does not exist: {}", slicesRootDir.getAbsolutePath());
+            job.addError("Provided path does not exist: " + slicesRootDir.getAbsolutePath());
             return;
         }
-        File[] files = slicesRootDir.listFiles((dir, name) -> name.startsWith("mpd.slice") && name.endsWith(".json"));
-        if (files == null || files.length == 0) {
-            System.out.println("No MPD slice files found in directory: " + slicesRootDir.getAbsolutePath());
-            return;
+        try (MPDSliceCatalog catalog = MPDSliceCatalog.open(slicesRootDir)) {
+            if (catalog.isEmpty()) {
+                logger.error("No MPD slice files found in: {}", slicesRootDir.getAbsolutePath());
+                job.addError("No MPD slice files found in: " + slicesRootDir.getAbsolutePath());
+                return;
+            }
+            importSources(catalog.getSources(), job);
+        } catch (IOException e) {
+            logger.error("Failed to read MPD slices from {}", slicesRootDir.getAbsolutePath(), e);
+            job.addError(slicesRootDir.getName() + ": " + e.getMessage());
         }
-        for (File sliceFile : files) {
-            boolean success = importMPD(sliceFile);
-            String result = success ? "SUCCESS" : "FAIL";
-            System.out.println("Processed slice: " + sliceFile.getName() + " - Result: " + result);
+    }
+
+    private void importSources(List<MPDSliceSource> sources, MPDImportJob job) {
+        job.getSlicesTotal().set(sources.size());
+        for (MPDSliceSource source : sources) {
+            job.getBytesTotal().addAndGet(Math.max(0, source.getSize()));
+        }
+
+        MPDDictionary dictionary = loadDictionary();
+        int parallelism = Math.max(1, Math.min(importProperties.getParallelism(), sources.size()));
+        ExecutorService writers = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("mpd-write-"));
+        // Decompression runs on the parse threads, so archive entries inflate in parallel as they are parsed
+        ExecutorService parsers = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("mpd-parse-"));
+        try {
+            List<Future<SliceOutcome>> results = new ArrayList<>(sources.size());
+            for (MPDSliceSource source : sources) {
+                results.add(writers.submit(() -> importSliceWithRetry(source, parsers, dictionary, job)));
+            }
+            for (int i = 0; i < sources.size(); i++) {
+                SliceOutcome result = awaitResult(results.get(i));
+                logger.info("Processed slice: {} - Result: {}", sources.get(i).getName(), result);
+            }
+        } finally {
+            writers.shutdownNow();
+            parsers.shutdownNow();
         }
     }
 
+    /**
+     * Imports a single MPD slice file. Playlists are streamed from disk and handed to the writer through
+     * a bounded queue, then written with batched JDBC statements, so memory use does not grow with the
+     * size of the slice. Progress is checkpointed in the import ledger, and a slice that was already
+     * fully imported is skipped.
+     * @param mpdJsonFile The mpd.slice JSON file to import, optionally gzipped
+     * @return true if every playlist in the file was saved
+     */
     public boolean importMPD(File mpdJsonFile) {
+        ExecutorService parser = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("mpd-parse-"));
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(mpdJsonFile);
-            JsonNode playlists = root.get("playlists");
-            if (playlists == null) {
-                // If the file is a slice, playlists are inside the top-level object under "playlists"
-                playlists = root.path("playlists");
-            }
+            MPDImportJob job = new MPDImportJob(mpdJsonFile.getParentFile());
+            MPDSliceSource source = MPDSliceSource.forFile(mpdJsonFile);
+            return importSliceWithRetry(source, parser, loadDictionary(), job) != SliceOutcome.FAIL;
+        } finally {
+            parser.shutdownNow();
+        }
+    }
+
+    private MPDDictionary loadDictionary() {
+        long start = System.currentTimeMillis();
+        MPDDictionary dictionary = MPDDictionary.load(jdbcTemplate);
+        logger.info("Loaded MPD dictionary with {} tracks, {} artists and {} albums in {} ms",
+            dictionary.getTracks().size(), dictionary.getArtists().size(), dictionary.getAlbums().size(),
+            System.currentTimeMillis() - start);
+        return dictionary;
+    }
 
-            for (JsonNode playlistNode : playlists) {
-                MPDPlaylist playlist = new MPDPlaylist();
-                playlist.setId(playlistNode.path("pid").asLong());
-                playlist.setName(playlistNode.path("name").asText(null));
-
-                List<MPDTrack> tracks = new ArrayList<>();
-                for (JsonNode trackNode : playlistNode.path("tracks")) {
-                    String trackUri = trackNode.path("track_uri").asText(null);
-                    String trackId = trackUri != null ? trackUri.substring(trackUri.lastIndexOf(":") + 1) : null;
-                    String artistUri = trackNode.path("artist_uri").asText(null);
-                    String artistId = artistUri != null ? artistUri.substring(artistUri.lastIndexOf(":") + 1) : null;
-                    String albumUri = trackNode.path("album_uri").asText(null);
-                    String albumId = albumUri != null ? albumUri.substring(albumUri.lastIndexOf(":") + 1) : null;
-
-                    MPDTrack track = trackRepository.findById(trackId).orElseGet(() -> {
-                        MPDTrack t = new MPDTrack();
-                        t.setId(trackId);
-                        t.setArtistId(artistId);
-                        t.setAlbumId(albumId);
-                        return trackRepository.save(t);
-                    });
-                    tracks.add(track);
+    private SliceOutcome importSliceWithRetry(MPDSliceSource source, ExecutorService parsers,
+                                              MPDDictionary dictionary, MPDImportJob job) {
+        SliceOutcome outcome = SliceOutcome.FAIL;
+        int maxAttempts = Math.max(1, importProperties.getMaxAttempts());
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                job.checkpoint();
+                outcome = importSlice(source, parsers, dictionary, job);
+                break;
+            } catch (CancellationException e) {
+                // The ledger keeps the slice IN_PROGRESS at its last checkpoint, ready to resume
+                outcome = SliceOutcome.CANCELLED;
+                break;
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                // Another import wrote a conflicting row first; the chunk rolled back, so resume from the checkpoint
+                logger.warn("Slice {} conflicted with a concurrent import (attempt {}/{})",
+                    source.getName(), attempt, maxAttempts);
+                if (attempt == maxAttempts) {
+                    markFailed(source, e, job);
                 }
-                playlist.setTracks(tracks);
+            } catch (Exception e) {
+                logger.error("Failed to import slice {}", source.getLocation(), e);
+                markFailed(source, e, job);
+                break;
+            }
+        }
+        switch (outcome) {
+            case SUCCESS -> job.getSlicesDone().incrementAndGet();
+            case SKIPPED -> {
+                job.getSlicesSkipped().incrementAndGet();
+                job.getBytesSkipped().addAndGet(Math.max(0, source.getSize()));
+            }
+            case FAIL -> job.getSlicesFailed().incrementAndGet();
+            case CANCELLED -> { }
+        }
+        return outcome;
+    }
 
-                playlistRepository.save(playlist);
+    /**
+     * Imports one slice as a series of transactions of mpd.import.commit-interval playlists each.
+     * The ledger entry is updated inside every one of those transactions, so after a crash the
+     * slice resumes right after the last playlist that was actually committed.
+     */
+    private SliceOutcome importSlice(MPDSliceSource source, ExecutorService parsers,
+                                     MPDDictionary dictionary, MPDImportJob job) {
+        MPDImportLedgerEntry entry = startLedgerEntry(source);
+        if (entry == null) {
+            return SliceOutcome.SKIPPED;
+        }
+        int alreadyCommitted = entry.getPlaylistCount();
+        if (alreadyCommitted > 0) {
+            logger.info("Resuming slice {} after {} committed playlists", source.getName(), alreadyCommitted);
+        }
+
+        MPDPlaylistQueue queue = new MPDPlaylistQueue(importProperties.getQueueCapacity());
+        CRC32C checksum = new CRC32C();
+        CompletableFuture<Void> parsing = CompletableFuture.runAsync(() -> {
+            // Counted and checksummed after decompression, so progress and checksums do not depend on packaging
+            try (InputStream in = new CheckedInputStream(
+                    new MPDCountingInputStream(source.openStream(), job.getBytesRead()), checksum)) {
+                sliceReader.read(in, alreadyCommitted, queue::put);
+                queue.close();
+            } catch (Throwable t) {
+                queue.fail(t);
+            }
+        }, parsers);
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int chunkSize = Math.max(1, importProperties.getCommitInterval());
+        try {
+            MPDBatchWriter.Batch batch = batchWriter.openBatch(dictionary);
+            List<MPDPlaylist> chunk = new ArrayList<>(chunkSize);
+            boolean finished = false;
+            while (!finished) {
+                // Pause and cancel take effect between chunks, never inside an open transaction
+                job.checkpoint();
+                int committedBefore = entry.getPlaylistCount();
+                chunk.clear();
+                finished = Boolean.TRUE.equals(transaction.execute(status -> writeChunk(queue, batch, chunk, chunkSize, entry, checksum)));
+                job.getPlaylistsWritten().addAndGet(entry.getPlaylistCount() - committedBefore);
+                job.getRowsWritten().addAndGet(batch.drainRowsWritten());
+                // Only committed playlists reach the models
+                incrementalUpdateService.submit(chunk);
+            }
+        } catch (RuntimeException e) {
+            queue.abort();
+            throw e;
+        } finally {
+            parsing.join();
+        }
+        return SliceOutcome.SUCCESS;
+    }
+
+    /**
+     * Writes up to chunkSize playlists plus the matching ledger checkpoint. Runs inside a transaction.
+     * @param chunk Receives the playlists written
+     * @return true once the whole slice has been written
+     */
+    private boolean writeChunk(MPDPlaylistQueue queue, MPDBatchWriter.Batch batch, List<MPDPlaylist> chunk, int chunkSize,
+                               MPDImportLedgerEntry entry, CRC32C checksum) {
+        try {
+            int written = 0;
+            MPDPlaylist playlist = null;
+            while (written < chunkSize && (playlist = queue.take()) != null) {
+                batch.add(playlist);
+                chunk.add(playlist);
+                written++;
+            }
+            batch.flush();
+
+            boolean finished = playlist == null;
+            entry.setPlaylistCount(entry.getPlaylistCount() + written);
+            entry.setUpdatedAt(LocalDateTime.now());
+            if (finished) {
+                // The parser has consumed the whole file by the time it signals the end of the queue
+                entry.setChecksum(Long.toHexString(checksum.getValue()));
+                entry.setStatus(MPDImportLedgerEntry.Status.COMPLETED);
+                entry.setFinishedAt(entry.getUpdatedAt());
+            }
+            ledgerRepository.save(entry);
+            return finished;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MPDImportException("Interrupted while importing slice", e);
+        }
+    }
+
+    /**
+     * Loads or creates the ledger entry for a slice.
+     * @return The entry to resume from, or null if this exact file has already been imported
+     */
+    private MPDImportLedgerEntry startLedgerEntry(MPDSliceSource source) {
+        long size = source.getSize();
+        long lastModified = source.getLastModified();
+        MPDImportLedgerEntry entry = ledgerRepository.findById(source.getName()).orElse(null);
+        if (entry != null && entry.matches(size, lastModified)) {
+            if (entry.getStatus() == MPDImportLedgerEntry.Status.COMPLETED) {
+                return null;
             }
-            return true;
-        } catch (Exception e) {
-            // Optionally log the error
-            return false;
+            entry.setStatus(MPDImportLedgerEntry.Status.IN_PROGRESS);
+            entry.setErrorMessage(null);
+            entry.setUpdatedAt(LocalDateTime.now());
+        } else {
+            // New slice, or the file changed since it was imported: start over, the writes are upserts
+            entry = new MPDImportLedgerEntry(source.getName(), size, lastModified);
+        }
+        return ledgerRepository.save(entry);
+    }
+
+    private void markFailed(MPDSliceSource source, Exception cause, MPDImportJob job) {
+        job.addError(source.getName() + ": " + cause.getMessage());
+        ledgerRepository.findById(source.getName()).ifPresent(entry -> {
+            entry.setStatus(MPDImportLedgerEntry.Status.FAILED);
+            String message = String.valueOf(cause.getMessage());
+            entry.setErrorMessage(message.length() > 1000 ? message.substring(0, 1000) : message);
+            entry.setUpdatedAt(LocalDateTime.now());
+            ledgerRepository.save(entry);
+        });
+    }
+
+    /**
+     * Returns the ledger entries of every slice that has been imported or attempted.
+     */
+    public List<MPDImportLedgerEntry> getLedger() {
+        return ledgerRepository.findAll(Sort.by("sliceName"));
+    }
+
+    private static SliceOutcome awaitResult(Future<SliceOutcome> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return SliceOutcome.FAIL;
+        } catch (ExecutionException e) {
+            return SliceOutcome.FAIL;
         }
     }
 
         /**
-     * Checks which MPD slice files in the directory have already been processed (i.e., playlists exist in DB).
-     * Prints the processed slice file names.
+     * Checks which MPD slice files in the directory have already been fully imported, according to the import ledger.
+     * Logs the processed slice file names.
      */
     public void printProcessedSlices(File slicesRootDir) {
-        if (!slicesRootDir.isDirectory()) {
-            System.out.println("Provided path is not a directory: " + slicesRootDir.getAbsolutePath());
-            return;
-        }
-        File[] files = slicesRootDir.listFiles((dir, name) -> name.startsWith("mpd.slice") && name.endsWith(".json"));
-        if (files == null || files.length == 0) {
-            System.out.println("No MPD slice files found in directory: " + slicesRootDir.getAbsolutePath());
+        if (!slicesRootDir.exists()) {
+            logger.error("Provided path does not exist: {}", slicesRootDir.getAbsolutePath());
             return;
         }
-        for (File sliceFile : files) {
-            try {
-                ObjectMapper mapper = new ObjectMapper();
-                JsonNode root = mapper.readTree(sliceFile);
-                JsonNode playlists = root.get("playlists");
-                if (playlists == null) {
-                    playlists = root.path("playlists");
-                }
-                boolean found = false;
-                for (JsonNode playlistNode : playlists) {
-                    long pid = playlistNode.path("pid").asLong();
-                    if (playlistRepository.existsById(pid)) {
-                        found = true;
-                        break;
-                    }
-                }
-                if (found) {
-                    System.out.println("Processed slice: " + sliceFile.getName());
-                }
-            } catch (Exception e) {
-                System.out.println("Error checking slice: " + sliceFile.getName());
+        try (MPDSliceCatalog catalog = MPDSliceCatalog.open(slicesRootDir)) {
+            if (catalog.isEmpty()) {
+                logger.info("No MPD slice files found in: {}", slicesRootDir.getAbsolutePath());
+                return;
+            }
+            for (MPDSliceSource source : catalog.getSources()) {
+                ledgerRepository.findById(source.getName())
+                    .filter(entry -> entry.getStatus() == MPDImportLedgerEntry.Status.COMPLETED)
+                    .filter(entry -> entry.matches(source.getSize(), source.getLastModified()))
+                    .ifPresent(entry -> logger.info("Processed slice: {}", source.getName()));
             }
+        } catch (IOException e) {
+            logger.error("Failed to read MPD slices from {}", slicesRootDir.getAbsolutePath(), e);
         }
     }
 
@@ -141,7 +380,7 @@ public class MPDImportService {
             List<MPDTrack> tracks = playlist.getTracks();
             if (tracks != null && !tracks.isEmpty()) {
                 MPDTrack firstTrack = tracks.get(0);
-                System.out.println("  First Track: ID=" + firstTrack.getId()
+                System.out.println("  First Track: ID=" + firstTrack.getSpotifyId()
                     + ", ArtistID=" + firstTrack.getArtistId()
                     + (firstTrack.getAlbumId() != null ? ", AlbumID=" + firstTrack.getAlbumId() : ""));
             } else {
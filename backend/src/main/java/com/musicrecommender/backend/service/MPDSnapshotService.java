@@ -0,0 +1,237 @@
+package com.musicrecommender.backend.service;
+
+import com.musicrecommender.backend.config.MPDSnapshotProperties;
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.service.mpd.MPDSliceCatalog;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.mpd.MPDSnapshotWriter;
+import com.musicrecommender.backend.service.recommendation.RecommendationCache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Owns the current MPD snapshot. Consumers read the playlist-track graph from the mapped snapshot
+ * instead of going through H2 and the JPA entities. Rebuilding writes a new version of the file next to
+ * the current one and swaps it in, so readers holding the old snapshot are never disturbed.
+ */
+@Service
+public class MPDSnapshotService {
+    @Autowired
+    private MPDSnapshotProperties snapshotProperties;
+    @Autowired
+    private MPDSnapshotWriter snapshotWriter;
+    @Autowired
+    private RecommendationCache recommendationCache;
+    private volatile MPDSnapshot snapshot;
+    private static final Logger logger = LoggerFactory.getLogger(MPDSnapshotService.class);
+
+    @PostConstruct
+    public void loadOnStartup() {
+        if (!snapshotProperties.isLoadOnStartup()) {
+            return;
+        }
+        Path path = Paths.get(snapshotProperties.getPath()).toAbsolutePath();
+        try {
+            List<Path> current = files().current();
+            if (current.isEmpty()) {
+                logger.info("No MPD snapshot at {}, build one through /admin/mpd-snapshot", path);
+                return;
+            }
+            long start = System.currentTimeMillis();
+            path = current.get(0);
+            MPDSnapshot opened = MPDSnapshot.open(path);
+            for (Path segment : current.subList(1, current.size())) {
+                path = segment;
+                opened = MPDSnapshot.openAppended(opened, segment);
+            }
+            snapshot = loaded(opened, start);
+            files().deleteExcept(snapshot.getPaths());
+        } catch (Exception e) {
+            // A stale or corrupt snapshot should not keep the application from starting
+            logger.error("Failed to load MPD snapshot {}", path, e);
+        }
+    }
+
+    public Optional<MPDSnapshot> getSnapshot() {
+        return Optional.ofNullable(snapshot);
+    }
+
+    /**
+     * Rebuilds the snapshot from the mpd_* tables and makes it current.
+     */
+    public synchronized MPDSnapshot rebuildFromDatabase() throws IOException {
+        Path version = files().next();
+        try {
+            long start = System.currentTimeMillis();
+            snapshotWriter.writeFromDatabase(version);
+            logger.info("Wrote MPD snapshot from database in {} ms", System.currentTimeMillis() - start);
+            return publish(version);
+        } catch (IOException | RuntimeException e) {
+            files().discard(version);
+            throw e;
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot straight from the mpd.slice files in the directory, or in a zip archive of
+     * them, and makes it current.
+     */
+    public synchronized MPDSnapshot rebuildFromSlices(File slicesRootDir) throws IOException {
+        try (MPDSliceCatalog catalog = MPDSliceCatalog.open(slicesRootDir)) {
+            if (catalog.isEmpty()) {
+                throw new IOException("No MPD slice files found in: " + slicesRootDir.getAbsolutePath());
+            }
+            Path version = files().next();
+            try {
+                long start = System.currentTimeMillis();
+                snapshotWriter.writeFromSlices(catalog.getSources(), version);
+                logger.info("Wrote MPD snapshot from {} slices in {} ms", catalog.getSources().size(), System.currentTimeMillis() - start);
+                return publish(version);
+            } catch (IOException | RuntimeException e) {
+                files().discard(version);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Writes the given playlists to a new segment on top of the current snapshot and opens it without making
+     * it current, so models can be folded forward against it before {@link #publishAppended} swaps it in, or
+     * {@link #discardAppended} drops it. The segment holds only the new playlists and IDs; the base files are
+     * shared, not copied.
+     * @return The appended snapshot, or empty if every playlist is already in base
+     */
+    public Optional<MPDSnapshot> writeAppended(MPDSnapshot base, List<MPDPlaylist> playlists) throws IOException {
+        Path version = files().next();
+        try {
+            long start = System.currentTimeMillis();
+            int appended = snapshotWriter.writeAppended(base, playlists, version);
+            if (appended == 0) {
+                files().discard(version);
+                return Optional.empty();
+            }
+            logger.info("Wrote MPD snapshot with {} appended playlists in {} ms", appended, System.currentTimeMillis() - start);
+            start = System.currentTimeMillis();
+            return Optional.of(loaded(MPDSnapshot.openAppended(base, version), start));
+        } catch (IOException | RuntimeException e) {
+            files().discard(version);
+            throw e;
+        }
+    }
+
+    /**
+     * Makes a snapshot written by {@link #writeAppended} current, unless the snapshot it was appended to has
+     * been replaced in the meantime. Cached recommendations are kept: each is keyed by the version of the model
+     * that computed it, and the models that change with the snapshot change that version.
+     * @return The appended snapshot, or empty if base is no longer current and the file was discarded
+     */
+    public synchronized Optional<MPDSnapshot> publishAppended(MPDSnapshot base, MPDSnapshot appended) throws IOException {
+        if (snapshot != base) {
+            discardAppended(appended);
+            return Optional.empty();
+        }
+        files().publish(appended.getPaths());
+        snapshot = appended;
+        files().deleteExcept(appended.getPaths());
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Merges trailing segments of the current snapshot so a long run of appends neither leaves one file per
+     * chunk nor makes each lookup search them all. Segments are merged size-tiered: the newest ones are
+     * rewritten together once they add up to about the size of the one before, so each edge is rewritten a
+     * logarithmic number of times. Once the segments together reach the configured fraction of the first
+     * file, the whole snapshot is rewritten as one file. The merged snapshot holds the same data under the
+     * same creation time and lineage, so models built against the old files keep serving.
+     * @return The snapshot, merged or not, or empty if there is none
+     */
+    public synchronized Optional<MPDSnapshot> compact() throws IOException {
+        MPDSnapshot current = snapshot;
+        if (current == null || current.getSegmentCount() < 2) {
+            return Optional.ofNullable(current);
+        }
+        int last = current.getSegmentCount() - 1;
+        long appendedEdges = current.getEdgeCount() - current.getSegmentEdgeCount(0);
+        int from;
+        if (appendedEdges > snapshotProperties.getMaxAppendedFraction() * current.getSegmentEdgeCount(0)) {
+            from = 0;
+        } else {
+            from = last;
+            long merged = current.getSegmentEdgeCount(last);
+            while (from > 1 && current.getSegmentEdgeCount(from - 1) <= 2 * merged) {
+                from--;
+                merged += current.getSegmentEdgeCount(from);
+            }
+            if (from == last) {
+                return Optional.of(current);
+            }
+        }
+
+        Path version = files().next();
+        try {
+            long start = System.currentTimeMillis();
+            snapshotWriter.writeMerged(current, from, version);
+            logger.info("Merged MPD snapshot segments {} to {} in {} ms", from, last, System.currentTimeMillis() - start);
+            start = System.currentTimeMillis();
+            MPDSnapshot merged = loaded(from == 0
+                ? MPDSnapshot.open(version)
+                : MPDSnapshot.openAppended(current.firstSegments(from), version), start);
+            files().publish(merged.getPaths());
+            snapshot = merged;
+            files().deleteExcept(merged.getPaths());
+            return Optional.of(merged);
+        } catch (IOException | RuntimeException e) {
+            files().discard(version);
+            throw e;
+        }
+    }
+
+    /**
+     * Drops a snapshot written by {@link #writeAppended} that is not going to be published.
+     */
+    public void discardAppended(MPDSnapshot appended) {
+        files().discard(appended.getPath());
+    }
+
+    private MPDSnapshot publish(Path version) throws IOException {
+        // Open before publishing so a broken file never replaces a working one
+        MPDSnapshot opened = open(version);
+        files().publish(version);
+        snapshot = opened;
+        recommendationCache.invalidateAll();
+        files().deleteExcept(List.of(version));
+        return snapshot;
+    }
+
+    private MPDSnapshot open(Path path) throws IOException {
+        long start = System.currentTimeMillis();
+        return loaded(MPDSnapshot.open(path), start);
+    }
+
+    private MPDSnapshot loaded(MPDSnapshot opened, long start) {
+        if (snapshotProperties.isPreload()) {
+            opened.preload();
+        }
+        logger.info("Loaded MPD snapshot v{} with {} playlists, {} tracks and {} edges in {} ms",
+            opened.getVersion(), opened.getPlaylistCount(), opened.getTrackCount(), opened.getEdgeCount(),
+            System.currentTimeMillis() - start);
+        return opened;
+    }
+
+    private VersionedFiles files() {
+        return VersionedFiles.of(Paths.get(snapshotProperties.getPath()));
+    }
+}
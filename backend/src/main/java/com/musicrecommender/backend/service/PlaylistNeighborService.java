@@ -0,0 +1,210 @@
+package com.musicrecommender.backend.service;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.recommendation.MinHasher;
+import com.musicrecommender.backend.service.recommendation.PlaylistLshIndex;
+import com.musicrecommender.backend.service.recommendation.PlaylistLshIndexBuilder;
+import com.musicrecommender.backend.service.recommendation.RecommendationException;
+import com.musicrecommender.backend.service.recommendation.SimilarPlaylists;
+import com.musicrecommender.backend.service.recommendation.TopKHeap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Finds MPD playlists similar to a set of tracks without scanning every playlist. The MinHash LSH index
+ * narrows the search to playlists sharing at least one band bucket with the query, and those candidates
+ * are re-scored with their exact Jaccard similarity read from the snapshot.
+ */
+@Service
+public class PlaylistNeighborService {
+    @Autowired
+    private RecommendationProperties recommendationProperties;
+    @Autowired
+    private MPDSnapshotService snapshotService;
+    @Autowired
+    private PlaylistLshIndexBuilder indexBuilder;
+    private volatile PlaylistLshIndex index;
+    private static final Logger logger = LoggerFactory.getLogger(PlaylistNeighborService.class);
+
+    @PostConstruct
+    public void loadOnStartup() {
+        if (!recommendationProperties.getPlaylistNeighbors().isLoadOnStartup()) {
+            return;
+        }
+        Path path = Paths.get(recommendationProperties.getPlaylistNeighbors().getPath()).toAbsolutePath();
+        try {
+            List<Path> current = files().current();
+            if (current.isEmpty()) {
+                logger.info("No playlist LSH index at {}, build one through /admin/playlist-lsh", path);
+                return;
+            }
+            path = current.get(0);
+            index = open(path);
+            files().deleteExcept(List.of(path));
+            if (snapshotService.getSnapshot().filter(index::isCompatibleWith).isEmpty()) {
+                logger.warn("Playlist LSH index {} was not built from the current MPD snapshot, rebuild it", path);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to load playlist LSH index {}", path, e);
+        }
+    }
+
+    /**
+     * Returns the index if it matches the current MPD snapshot.
+     */
+    public Optional<PlaylistLshIndex> getIndex() {
+        return snapshotService.getSnapshot().flatMap(this::getIndex);
+    }
+
+    /**
+     * Returns the index if it was built from the given snapshot.
+     */
+    public Optional<PlaylistLshIndex> getIndex(MPDSnapshot snapshot) {
+        return Optional.ofNullable(index).filter(current -> current.isCompatibleWith(snapshot));
+    }
+
+    /**
+     * Rebuilds the index from the current MPD snapshot and makes it current.
+     */
+    public synchronized PlaylistLshIndex rebuild() throws IOException {
+        MPDSnapshot snapshot = snapshotService.getSnapshot()
+            .orElseThrow(() -> new RecommendationException("No MPD snapshot is loaded, build one through /admin/mpd-snapshot"));
+        Path version = files().next();
+        PlaylistLshIndex rebuilt;
+        try {
+            indexBuilder.build(snapshot, version);
+            // Open before publishing so a broken file never replaces a working one
+            rebuilt = open(version);
+        } catch (IOException | RuntimeException e) {
+            files().discard(version);
+            throw e;
+        }
+        files().publish(version);
+        index = rebuilt;
+        files().deleteExcept(List.of(version));
+        return rebuilt;
+    }
+
+    /**
+     * Finds the playlists most similar to the tracks by Jaccard similarity of their distinct track sets.
+     * @param snapshot The snapshot the tracks were resolved against, which the index must have been built from
+     * @param tracks Snapshot track ordinals of the query, duplicates allowed
+     * @param k How many playlists to return, capped at recommendation.playlist-neighbors.max-neighbors
+     * @param excludePlaylist Snapshot index of the query playlist itself, or -1
+     */
+    public SimilarPlaylists findNeighbors(MPDSnapshot snapshot, int[] tracks, int k, int excludePlaylist) {
+        PlaylistLshIndex current = getIndex(snapshot)
+            .orElseThrow(() -> new RecommendationException("No playlist LSH index matches the MPD snapshot"));
+        RecommendationProperties.PlaylistNeighbors settings = recommendationProperties.getPlaylistNeighbors();
+        int limit = Math.max(0, Math.min(k, settings.getMaxNeighbors()));
+        int[] query = distinct(tracks);
+        if (query.length == 0 || limit == 0) {
+            return SimilarPlaylists.empty();
+        }
+
+        MinHasher hasher = current.hasher();
+        int[] signature = new int[hasher.getBands() * hasher.getRowsPerBand()];
+        hasher.signature(query, signature);
+        // Spread the candidate budget over the bands so one crowded bucket cannot use it all
+        int perBucket = Math.max(1, settings.getMaxCandidates() / hasher.getBands());
+        int[] candidates = new int[hasher.getBands() * perBucket];
+        int candidateCount = 0;
+        int salt = Arrays.hashCode(signature);
+        for (int band = 0; band < hasher.getBands(); band++) {
+            int key = hasher.bandKey(signature, band);
+            int start = current.findBucket(band, key);
+            if (start < 0) {
+                continue;
+            }
+            int size = current.findBucketEnd(band, key, start) - start;
+            // Buckets are sorted by playlist index, so a crowded one is read from a window starting at an
+            // offset derived from the query instead of always from its earliest playlists
+            int offset = size > perBucket ? Math.floorMod(31 * salt + band, size) : 0;
+            for (int i = 0, taken = 0; i < size && taken < perBucket; i++) {
+                int playlist = current.getBucketPlaylist(start + (offset + i) % size);
+                if (playlist != excludePlaylist) {
+                    candidates[candidateCount++] = playlist;
+                    taken++;
+                }
+            }
+        }
+        Arrays.sort(candidates, 0, candidateCount);
+
+        TopKHeap heap = new TopKHeap(limit);
+        int distinctCandidates = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            if (i > 0 && candidates[i] == candidates[i - 1]) {
+                continue;
+            }
+            distinctCandidates++;
+            heap.offer(candidates[i], jaccard(query, distinct(snapshot.getPlaylistTracks(candidates[i]))));
+        }
+        int[] playlists = new int[heap.size()];
+        float[] similarities = new float[heap.size()];
+        int size = heap.drain(playlists, similarities);
+        return new SimilarPlaylists(playlists, similarities, size, distinctCandidates);
+    }
+
+    /**
+     * Sorts and de-duplicates the tracks.
+     */
+    private static int[] distinct(int[] tracks) {
+        int[] sorted = tracks.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int track : sorted) {
+            if (size == 0 || sorted[size - 1] != track) {
+                sorted[size++] = track;
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * Exact Jaccard similarity of two sorted, distinct track sets.
+     */
+    private static float jaccard(int[] a, int[] b) {
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                shared++;
+                i++;
+                j++;
+            }
+        }
+        int union = a.length + b.length - shared;
+        return union == 0 ? 0f : (float) shared / union;
+    }
+
+    private PlaylistLshIndex open(Path path) throws IOException {
+        long start = System.currentTimeMillis();
+        PlaylistLshIndex opened = PlaylistLshIndex.open(path);
+        logger.info("Loaded playlist LSH index v{} with {} playlists in {} bands in {} ms",
+            opened.getVersion(), opened.getIndexedCount(), opened.getBands(), System.currentTimeMillis() - start);
+        return opened;
+    }
+
+    private VersionedFiles files() {
+        return VersionedFiles.of(Paths.get(recommendationProperties.getPlaylistNeighbors().getPath()));
+    }
+}
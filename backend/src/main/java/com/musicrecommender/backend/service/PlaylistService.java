@@ -3,12 +3,14 @@ package com.musicrecommender.backend.service;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.musicrecommender.backend.dto.spotify.PagingObject;
+import com.musicrecommender.backend.dto.spotify.PlaylistObject;
+import com.musicrecommender.backend.dto.spotify.PlaylistTrackObject;
 import com.musicrecommender.backend.entity.Album;
 import com.musicrecommender.backend.entity.Playlist;
 import com.musicrecommender.backend.entity.SpotifyImage;
@@ -49,30 +51,17 @@ public class PlaylistService {
         return Mono.fromCallable(() -> playlistRepository.save(playlist));
     }
 
-    private Mono<Playlist> createPlaylistFromJSON(Map<String, Object> playlistData) {
-        String playlistId = (String) playlistData.get("id");
-        Object tracksObject = playlistData.get("tracks");
-        Map<String, Object> tracksMap = (Map<String, Object>) tracksObject;
-        String nextUrl = (String) tracksMap.get("next");
-        Object itemsObject = tracksMap.get("items");
-        int currentTrackCount = 0;
-        if (itemsObject instanceof List) {
-            currentTrackCount = ((List<?>) itemsObject).size();
-        }
+    private Mono<Playlist> createPlaylistFromJSON(PlaylistObject playlistData) {
+        String playlistId = playlistData.id();
+        PagingObject<PlaylistTrackObject> tracksPage = playlistData.tracks();
+        String nextUrl = tracksPage.next();
 
-        Mono<Map<String, Object>> playlistDataMono;
+        Mono<PlaylistObject> playlistDataMono;
         if (nextUrl != null) {
             // Has more pages - fetch all tracks
-            playlistDataMono = spotifyIntegrationService.fetchAllTracksForPlaylist(tracksMap)
-                .map(allTracks -> {
-                    // Replace tracks in playlistData with complete set
-                    Map<String, Object> completeTracksObject = Map.of(
-                        "items", allTracks,
-                        "total", allTracks.size()
-                    );
-                    playlistData.put("tracks", completeTracksObject);
-                    return playlistData;
-                });
+            playlistDataMono = spotifyIntegrationService.fetchAllTracksForPlaylist(tracksPage)
+                // Replace tracks in playlistData with complete set
+                .map(allTracks -> playlistData.withTracks(tracksPage.withAllItems(allTracks)));
         } else {
             playlistDataMono = Mono.just(playlistData);
         }
@@ -103,8 +92,8 @@ public class PlaylistService {
             );
     }
 
-    public Mono<Playlist> createPlaylistFromJSONSimple(Map<String, Object> playlistData) {
-        String playlistId = (String) playlistData.get("id");
+    public Mono<Playlist> createPlaylistFromJSONSimple(PlaylistObject playlistData) {
+        String playlistId = playlistData.id();
 
         return Mono.fromCallable(() -> playlistRepository.findById(playlistId))
             .flatMap(repositoryResponse -> {
@@ -121,28 +110,26 @@ public class PlaylistService {
         return spotifyIntegrationService.getUserPlaylists(accessToken)
             .map(playlistData -> {
                 PlaylistListPageDTO playlistListPageDTO = new PlaylistListPageDTO();
-                playlistListPageDTO.setHref((String) playlistData.get("href"));
-                playlistListPageDTO.setLimit((Integer) playlistData.get("limit"));
-                playlistListPageDTO.setNext((String) playlistData.get("next"));
-                playlistListPageDTO.setOffset((Integer) playlistData.get("offset"));
-                playlistListPageDTO.setPrevious((String) playlistData.get("previous"));
-                playlistListPageDTO.setTotal((Integer) playlistData.get("total"));
-
-                List<Map<String, Object>> items = (List<Map<String, Object>>) playlistData.get("items");
-                List<SimplifiedPlaylistDTO> simplifiedPlaylists = items.stream()
+                playlistListPageDTO.setHref(playlistData.href());
+                playlistListPageDTO.setLimit(playlistData.limit());
+                playlistListPageDTO.setNext(playlistData.next());
+                playlistListPageDTO.setOffset(playlistData.offset());
+                playlistListPageDTO.setPrevious(playlistData.previous());
+                playlistListPageDTO.setTotal(playlistData.total());
+
+                List<SimplifiedPlaylistDTO> simplifiedPlaylists = playlistData.items().stream()
                     .map(item -> {
                         SimplifiedPlaylistDTO simplifiedPlaylist = new SimplifiedPlaylistDTO();
-                        simplifiedPlaylist.setCollaborative((Boolean) item.get("collaborative"));
-                        simplifiedPlaylist.setDescription((String) item.get("description"));
-                        simplifiedPlaylist.setHref((String) item.get("href"));
-                        simplifiedPlaylist.setId((String) item.get("id"));
-                        simplifiedPlaylist.setName((String) item.get("name"));
-                        simplifiedPlaylist.setUri((String) item.get("uri"));
-                        simplifiedPlaylist.setOwnerId((String) ((Map<String, Object>) item.get("owner")).get("id"));
-                        simplifiedPlaylist.setOwnerDisplayName((String) ((Map<String, Object>) item.get("owner")).get("display_name"));
-
-                        List<Map<String, Object>> imagesData = (List<Map<String, Object>>) item.get("images");
-                        List<SpotifyImage> images = SpotifyImage.createSpotifyImageListFromJSON(imagesData);
+                        simplifiedPlaylist.setCollaborative(item.collaborative());
+                        simplifiedPlaylist.setDescription(item.description());
+                        simplifiedPlaylist.setHref(item.href());
+                        simplifiedPlaylist.setId(item.id());
+                        simplifiedPlaylist.setName(item.name());
+                        simplifiedPlaylist.setUri(item.uri());
+                        simplifiedPlaylist.setOwnerId(item.owner().id());
+                        simplifiedPlaylist.setOwnerDisplayName(item.owner().displayName());
+
+                        List<SpotifyImage> images = SpotifyImage.createSpotifyImageListFromJSON(item.images());
                         List<SpotifyImageDTO> imageDTOs = images.stream().map(image -> new SpotifyImageDTO(image)).toList();
                         simplifiedPlaylist.setImages(imageDTOs);
 
@@ -0,0 +1,322 @@
+package com.musicrecommender.backend.service;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.dto.PlaylistNeighborListDTO;
+import com.musicrecommender.backend.dto.PopularTrackListDTO;
+import com.musicrecommender.backend.dto.RecommendationListDTO;
+import com.musicrecommender.backend.dto.SimilarTrackListDTO;
+import com.musicrecommender.backend.entity.Playlist;
+import com.musicrecommender.backend.entity.Track;
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.factory.DTOFactory;
+import com.musicrecommender.backend.repository.MPDPlaylistRepository;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.recommendation.AlsRecommender;
+import com.musicrecommender.backend.service.recommendation.ItemItemRecommender;
+import com.musicrecommender.backend.service.recommendation.PopularityIndex;
+import com.musicrecommender.backend.service.recommendation.PopularityRecommender;
+import com.musicrecommender.backend.service.recommendation.RandomWalkRecommender;
+import com.musicrecommender.backend.service.recommendation.RankedTracks;
+import com.musicrecommender.backend.service.recommendation.RecommendationCache;
+import com.musicrecommender.backend.service.recommendation.RecommendationException;
+import com.musicrecommender.backend.service.recommendation.SimilarPlaylists;
+import com.musicrecommender.backend.service.recommendation.TrackRecommender;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class RecommendationService {
+    public static final String ITEM_ITEM = "item-item";
+    public static final String ALS = "als";
+    public static final String RANDOM_WALK = "random-walk";
+    public static final String POPULARITY = "popularity";
+    public static final List<String> ALGORITHMS = List.of(ITEM_ITEM, ALS, RANDOM_WALK, POPULARITY);
+
+    @Autowired
+    private RecommendationProperties recommendationProperties;
+    @Autowired
+    private MPDSnapshotService snapshotService;
+    @Autowired
+    private PlaylistService playlistService;
+    @Autowired
+    private ItemItemRecommender itemItemRecommender;
+    @Autowired
+    private AlsRecommender alsRecommender;
+    @Autowired
+    private RandomWalkRecommender randomWalkRecommender;
+    @Autowired
+    private PopularityRecommender popularityRecommender;
+    @Autowired
+    private PlaylistNeighborService playlistNeighborService;
+    @Autowired
+    private TrackNeighborService trackNeighborService;
+    @Autowired
+    private RecommendationCache recommendationCache;
+    @Autowired
+    private MPDPlaylistRepository mpdPlaylistRepository;
+    @Autowired
+    private DTOFactory dtoFactory;
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationService.class);
+
+    /**
+     * Returns true if the algorithm is one of {@link #ALGORITHMS}.
+     */
+    public boolean isKnownAlgorithm(String algorithm) {
+        return getRecommender(algorithm) != null;
+    }
+
+    public boolean isAvailable(String algorithm) {
+        TrackRecommender recommender = getRecommender(algorithm);
+        return snapshotService.getSnapshot().isPresent() && recommender != null && recommender.isAvailable();
+    }
+
+    public boolean isNeighborSearchAvailable() {
+        return snapshotService.getSnapshot().isPresent() && playlistNeighborService.getIndex().isPresent();
+    }
+
+    public boolean isSimilarTrackSearchAvailable() {
+        return snapshotService.getSnapshot().isPresent() && trackNeighborService.getIndex().isPresent();
+    }
+
+    /**
+     * Recommends tracks to continue a playlist. Numeric IDs are looked up as MPD playlist pids in the
+     * snapshot, anything else is fetched from Spotify. Seed tracks the snapshot does not know are ignored.
+     * @param k How many tracks to return, capped at recommendation.max-tracks-per-request
+     * @param algorithm One of {@link #ALGORITHMS}, null for item-item
+     * @param accessToken Spotify user token for private playlists, or null
+     * @return The recommendations, or empty if the playlist does not exist
+     */
+    public Mono<RecommendationListDTO> getPlaylistContinuation(String playlistId, Integer k, String algorithm,
+                                                              String accessToken) {
+        int limit = limit(k);
+        String name = algorithm != null ? algorithm : ITEM_ITEM;
+        TrackRecommender recommender = getRecommender(name);
+        if (recommender == null) {
+            return Mono.error(new IllegalArgumentException("Unknown recommendation algorithm: " + algorithm));
+        }
+        return resolveSeeds(playlistId, accessToken).map(seeds -> {
+            long start = System.nanoTime();
+            // Seeds, recommendations and DTOs all use the snapshot the seeds were resolved against
+            RankedTracks ranked = recommendationCache.get(name, recommender.modelVersion(seeds.snapshot), seeds.tracks, limit,
+                () -> recommender.recommend(seeds.snapshot, seeds.tracks, limit));
+            logger.debug("Recommended {} tracks for playlist {} with {} from {} seeds in {} us",
+                ranked.size(), playlistId, name, seeds.tracks.length, (System.nanoTime() - start) / 1000);
+
+            RecommendationListDTO dto = new RecommendationListDTO();
+            dto.setPlaylistId(playlistId);
+            dto.setSource(seeds.source);
+            dto.setAlgorithm(name);
+            dto.setSeedTrackCount(seeds.trackCount);
+            dto.setMatchedSeedCount(seeds.matchedCount());
+            dto.setTracks(dtoFactory.createRecommendedTrackDTOs(ranked, seeds.snapshot));
+            return dto;
+        });
+    }
+
+    /**
+     * Finds the MPD playlists most similar to a playlist, resolved the same way as for continuations.
+     * @param k How many playlists to return, capped at recommendation.playlist-neighbors.max-neighbors
+     * @return The neighbors, or empty if the playlist does not exist
+     */
+    public Mono<PlaylistNeighborListDTO> getPlaylistNeighbors(String playlistId, Integer k, String accessToken) {
+        int limit = k != null ? k : 10;
+        return resolveSeeds(playlistId, accessToken).map(seeds -> {
+            long start = System.nanoTime();
+            SimilarPlaylists similar = playlistNeighborService.findNeighbors(seeds.snapshot, seeds.tracks, limit, seeds.playlistIndex);
+            logger.debug("Found {} neighbors of playlist {} among {} candidates in {} us",
+                similar.size(), playlistId, similar.getCandidateCount(), (System.nanoTime() - start) / 1000);
+
+            List<Long> pids = new ArrayList<>(similar.size());
+            for (int rank = 0; rank < similar.size(); rank++) {
+                pids.add(seeds.snapshot.getPlaylistId(similar.getPlaylist(rank)));
+            }
+            Map<Long, String> names = new HashMap<>();
+            for (MPDPlaylist playlist : mpdPlaylistRepository.findAllById(pids)) {
+                names.put(playlist.getId(), playlist.getName());
+            }
+
+            PlaylistNeighborListDTO dto = new PlaylistNeighborListDTO();
+            dto.setPlaylistId(playlistId);
+            dto.setSource(seeds.source);
+            dto.setSeedTrackCount(seeds.trackCount);
+            dto.setMatchedSeedCount(seeds.matchedCount());
+            dto.setCandidateCount(similar.getCandidateCount());
+            dto.setNeighbors(dtoFactory.createPlaylistNeighborDTOs(similar, seeds.snapshot, names));
+            return dto;
+        });
+    }
+
+    /**
+     * Finds the tracks closest to a track in the ALS embedding, through the HNSW index.
+     * @param trackId Spotify track ID
+     * @param k How many tracks to return, capped at recommendation.track-neighbors.max-neighbors
+     * @return The similar tracks, or empty if the snapshot does not know the track
+     */
+    public Mono<SimilarTrackListDTO> getSimilarTracks(String trackId, Integer k) {
+        int limit = k != null ? Math.max(0, k) : 10;
+        return Mono.fromCallable(() -> {
+            MPDSnapshot snapshot = currentSnapshot();
+            int track = snapshot.getTrackOrdinal(trackId);
+            if (track < 0) {
+                return null;
+            }
+            long start = System.nanoTime();
+            // The ordinal is only meaningful in the snapshot it was resolved against
+            RankedTracks ranked = trackNeighborService.findSimilar(snapshot, track, limit);
+            logger.debug("Found {} tracks similar to {} in {} us", ranked.size(), trackId, (System.nanoTime() - start) / 1000);
+
+            SimilarTrackListDTO dto = new SimilarTrackListDTO();
+            dto.setTrackId(trackId);
+            dto.setTracks(dtoFactory.createRecommendedTrackDTOs(ranked, snapshot));
+            return dto;
+        });
+    }
+
+    /**
+     * Returns the tracks by an artist found in the most MPD playlists, without calling Spotify.
+     * @param artistId Spotify artist ID
+     * @param k How many tracks to return, capped at recommendation.popularity.top-n
+     * @return The tracks scored by playlist count, or empty if the snapshot does not know the artist
+     */
+    public Mono<PopularTrackListDTO> getArtistPopularTracks(String artistId, Integer k) {
+        return Mono.fromCallable(() -> {
+            PopularityIndex index = currentPopularityIndex();
+            int artist = index.getSnapshot().findArtistOrdinal(artistId);
+            return artist < 0 ? null : popularTrackList("artist", artistId, index.getArtistTopTracks(artist, popularLimit(k)), index);
+        });
+    }
+
+    /**
+     * Returns the tracks on an album found in the most MPD playlists, without calling Spotify.
+     * @param albumId Spotify album ID
+     * @param k How many tracks to return, capped at recommendation.popularity.top-n
+     * @return The tracks scored by playlist count, or empty if the snapshot does not know the album
+     */
+    public Mono<PopularTrackListDTO> getAlbumPopularTracks(String albumId, Integer k) {
+        return Mono.fromCallable(() -> {
+            PopularityIndex index = currentPopularityIndex();
+            int album = index.getSnapshot().findAlbumOrdinal(albumId);
+            return album < 0 ? null : popularTrackList("album", albumId, index.getAlbumTopTracks(album, popularLimit(k)), index);
+        });
+    }
+
+    /**
+     * Returns the tracks found in the most MPD playlists.
+     * @param k How many tracks to return, capped at recommendation.popularity.global-top-n
+     */
+    public Mono<PopularTrackListDTO> getPopularTracks(Integer k) {
+        return Mono.fromCallable(() -> {
+            PopularityIndex index = currentPopularityIndex();
+            return popularTrackList("global", null, index.getGlobalTopTracks(popularLimit(k)), index);
+        });
+    }
+
+    private PopularTrackListDTO popularTrackList(String scope, String id, RankedTracks ranked, PopularityIndex index) {
+        PopularTrackListDTO dto = new PopularTrackListDTO();
+        dto.setScope(scope);
+        dto.setId(id);
+        dto.setTracks(dtoFactory.createRecommendedTrackDTOs(ranked, index.getSnapshot()));
+        return dto;
+    }
+
+    private PopularityIndex currentPopularityIndex() {
+        return popularityRecommender.getIndex()
+            .orElseThrow(() -> new RecommendationException("No MPD snapshot is loaded"));
+    }
+
+    private static int popularLimit(Integer k) {
+        return k != null ? Math.max(0, k) : 10;
+    }
+
+    /**
+     * Resolves a playlist to its tracks' snapshot ordinals. Numeric IDs are MPD pids, anything else is a
+     * Spotify playlist ID.
+     */
+    private Mono<PlaylistSeeds> resolveSeeds(String playlistId, String accessToken) {
+        if (playlistId.chars().allMatch(Character::isDigit)) {
+            return Mono.fromCallable(() -> {
+                MPDSnapshot snapshot = currentSnapshot();
+                int playlistIndex = snapshot.getPlaylistIndex(Long.parseLong(playlistId));
+                if (playlistIndex < 0) {
+                    return null;
+                }
+                int[] tracks = snapshot.getPlaylistTracks(playlistIndex);
+                return new PlaylistSeeds(snapshot, "mpd", tracks, tracks.length, playlistIndex);
+            });
+        }
+        Mono<Playlist> playlistMono = accessToken != null
+            ? playlistService.getPlaylist(playlistId, accessToken)
+            : playlistService.getPlaylist(playlistId);
+        return playlistMono.map(playlist -> {
+            MPDSnapshot snapshot = currentSnapshot();
+            List<Track> tracks = playlist.getTracks() != null ? playlist.getTracks() : List.of();
+            int[] ordinals = tracks.stream()
+                .filter(track -> track != null && track.getId() != null)
+                .mapToInt(track -> snapshot.getTrackOrdinal(track.getId()))
+                .filter(ordinal -> ordinal >= 0)
+                .toArray();
+            return new PlaylistSeeds(snapshot, "spotify", ordinals, tracks.size(), -1);
+        });
+    }
+
+    /**
+     * @return The recommender for the algorithm name, null if there is none; a null name means item-item
+     */
+    public TrackRecommender getRecommender(String algorithm) {
+        if (algorithm == null || ITEM_ITEM.equals(algorithm)) {
+            return itemItemRecommender;
+        }
+        if (ALS.equals(algorithm)) {
+            return alsRecommender;
+        }
+        if (RANDOM_WALK.equals(algorithm)) {
+            return randomWalkRecommender;
+        }
+        return POPULARITY.equals(algorithm) ? popularityRecommender : null;
+    }
+
+    private MPDSnapshot currentSnapshot() {
+        return snapshotService.getSnapshot()
+            .orElseThrow(() -> new RecommendationException("No MPD snapshot is loaded"));
+    }
+
+    private int limit(Integer k) {
+        int max = Math.max(1, recommendationProperties.getMaxTracksPerRequest());
+        return k == null ? max : Math.max(0, Math.min(k, max));
+    }
+
+    /**
+     * A playlist's tracks as snapshot ordinals, with the snapshot they refer to.
+     */
+    private static final class PlaylistSeeds {
+        private final MPDSnapshot snapshot;
+        private final String source;
+        private final int[] tracks;
+        private final int trackCount;
+        private final int playlistIndex;
+
+        PlaylistSeeds(MPDSnapshot snapshot, String source, int[] tracks, int trackCount, int playlistIndex) {
+            this.snapshot = snapshot;
+            this.source = source;
+            this.tracks = tracks;
+            this.trackCount = trackCount;
+            this.playlistIndex = playlistIndex;
+        }
+
+        int matchedCount() {
+            return (int) Arrays.stream(tracks).distinct().count();
+        }
+    }
+}
@@ -1,6 +1,20 @@
 package com.musicrecommender.backend.service;
 
 import com.musicrecommender.backend.config.SpotifyProperties;
+import com.musicrecommender.backend.dto.spotify.AlbumListObject;
+import com.musicrecommender.backend.dto.spotify.AlbumObject;
+import com.musicrecommender.backend.dto.spotify.ArtistListObject;
+import com.musicrecommender.backend.dto.spotify.ArtistObject;
+import com.musicrecommender.backend.dto.spotify.PagingObject;
+import com.musicrecommender.backend.dto.spotify.PlaylistObject;
+import com.musicrecommender.backend.dto.spotify.PlaylistTrackObject;
+import com.musicrecommender.backend.dto.spotify.SimplifiedAlbumObject;
+import com.musicrecommender.backend.dto.spotify.SimplifiedPlaylistObject;
+import com.musicrecommender.backend.dto.spotify.SimplifiedTrackObject;
+import com.musicrecommender.backend.dto.spotify.TrackListObject;
+import com.musicrecommender.backend.dto.spotify.TrackObject;
+import com.musicrecommender.backend.service.spotify.BatchLoader;
+import com.musicrecommender.backend.service.spotify.SingleFlight;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,25 +24,59 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Map;
+import java.net.URI;
 import java.time.Duration;
+import java.util.regex.Pattern;
 
 @Service
 public class SpotifyIntegrationService {
     private final WebClient spotifyWebClient;
     private final SpotifyProperties spotifyProperties;
     private Mono<String> cachedToken;
-
+    // Concurrent lookups of the same entity share one HTTP call
+    private final SingleFlight<String, AlbumObject> albumFetches = new SingleFlight<>();
+    private final SingleFlight<String, ArtistObject> artistFetches = new SingleFlight<>();
+    private final SingleFlight<String, TrackObject> trackFetches = new SingleFlight<>();
+    // Lookups arriving within spotify.api.batch.window-ms are merged into several-items requests
+    private final BatchLoader<String, AlbumObject> albumBatches;
+    private final BatchLoader<String, ArtistObject> artistBatches;
+    private final BatchLoader<String, TrackObject> trackBatches;
+
+    // The most ids Spotify accepts in one several-items request
+    private static final int MAX_SEVERAL_ALBUMS = 20;
+    private static final int MAX_SEVERAL_ARTISTS = 50;
+    private static final int MAX_SEVERAL_TRACKS = 50;
+    // Responses are decoded straight into records; fields they do not declare are skipped
+    private static final ParameterizedTypeReference<PagingObject<SimplifiedTrackObject>> ALBUM_TRACKS_PAGE =
+        new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<PagingObject<SimplifiedAlbumObject>> ARTIST_ALBUMS_PAGE =
+        new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<PagingObject<PlaylistTrackObject>> PLAYLIST_TRACKS_PAGE =
+        new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<PagingObject<SimplifiedPlaylistObject>> PLAYLISTS_PAGE =
+        new ParameterizedTypeReference<>() {};
+    private static final Pattern SPOTIFY_ID = Pattern.compile("[0-9A-Za-z]{22}");
     private static final Logger logger = LoggerFactory.getLogger(SpotifyIntegrationService.class);
 
     @Autowired
     public SpotifyIntegrationService(WebClient spotifyWebClient, SpotifyProperties spotifyProperties) {
         this.spotifyWebClient = spotifyWebClient;
         this.spotifyProperties = spotifyProperties;
+        Duration window = Duration.ofMillis(spotifyProperties.getBatch().getWindowMs());
+        this.albumBatches = new BatchLoader<>(MAX_SEVERAL_ALBUMS, window,
+            ids -> getSeveralAlbums(String.join(",", ids)).map(albums -> byRequestedId(ids, albums)));
+        this.artistBatches = new BatchLoader<>(MAX_SEVERAL_ARTISTS, window,
+            ids -> getSeveralArtists(String.join(",", ids)).map(artists -> byRequestedId(ids, artists)));
+        this.trackBatches = new BatchLoader<>(MAX_SEVERAL_TRACKS, window,
+            ids -> getSeveralTracks(String.join(",", ids)).map(tracks -> byRequestedId(ids, tracks)));
     }
 
     public Mono<String> getClientCredentialsToken() {
@@ -68,163 +116,219 @@ public class SpotifyIntegrationService {
         return cachedToken;
     }
 
-    private Mono<List<Map<String, Object>>> fetchAllPagesFromUrl(String nextUrl, List<Map<String, Object>> allObjects) {
+    /**
+     * Returns the items of a paged collection, given its first page. The remaining pages' offsets are
+     * worked out from the first page's total and limit, so up to spotify.api.pagination.max-concurrency
+     * pages are fetched at once instead of following next links one at a time. The rate limiter still
+     * paces every request, and the items come back in collection order.
+     */
+    private <T> Mono<List<T>> fetchAllPages(PagingObject<T> firstPage, ParameterizedTypeReference<PagingObject<T>> pageType) {
+        List<T> firstItems = firstPage.items() != null ? firstPage.items() : List.of();
+        String next = firstPage.next();
+        if (next == null) {
+            return Mono.just(new ArrayList<>(firstItems));
+        }
+        Integer total = firstPage.total();
+        Integer limit = firstPage.limit();
+        if (total == null || limit == null || limit <= 0) {
+            // Without total and limit the offsets are unknown, so follow the next links
+            return Mono.defer(() -> fetchAllPagesFromUrl(next, new ArrayList<>(firstItems), pageType));
+        }
+        int offset = firstPage.offset() != null ? firstPage.offset() : 0;
+        List<String> pageUrls = new ArrayList<>();
+        for (int pageOffset = offset + limit; pageOffset < total; pageOffset += limit) {
+            pageUrls.add(UriComponentsBuilder.fromUriString(next).replaceQueryParam("offset", pageOffset).build(true).toUriString());
+        }
+        int concurrency = Math.max(1, spotifyProperties.getPagination().getMaxConcurrency());
         return getValidToken()
-            .flatMap(token -> {
-                // Extract the path and query from the full URL
-                String path = nextUrl.replace("https://api.spotify.com/v1", "");
-                
-                return spotifyWebClient.get()
-                    .uri(path)
-                    .header("Authorization", "Bearer " + token)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .flatMap(response -> {
-                        // Add current page
-                        List<Map<String, Object>> items = (List<Map<String, Object>>) response.get("items");
-                        if (items != null && !items.isEmpty()) {
-                            allObjects.addAll(items);
-                        }
-                        
-                        // Check if there are more pages
-                        String next = (String) response.get("next");
-                        if (next != null) {
-                            // Recursively fetch the next page
-                            return fetchAllPagesFromUrl(next, allObjects);
-                        } else {
-                            // All pages fetched
-                            return Mono.just(allObjects);
-                        }
-                    });
+            .flatMapMany(token -> Flux.fromIterable(pageUrls)
+                .flatMapSequential(url -> fetchPage(url, token, pageType), concurrency))
+            // A fresh list per subscription, so a resubscribe or retry does not append the items twice
+            .reduceWith(() -> new ArrayList<>(firstItems), (all, page) -> {
+                if (page.items() != null) {
+                    all.addAll(page.items());
+                }
+                return all;
             });
     }
 
-    // ALBUM METHODS
+    private <T> Mono<PagingObject<T>> fetchPage(String url, String token, ParameterizedTypeReference<PagingObject<T>> pageType) {
+        return spotifyWebClient.get()
+            // The url is already encoded, so it is passed as a URI rather than expanded as a template
+            .uri(URI.create(url))
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+            .retrieve()
+            .bodyToMono(pageType);
+    }
+
+    private <T> Mono<List<T>> fetchAllPagesFromUrl(String nextUrl, List<T> allObjects, ParameterizedTypeReference<PagingObject<T>> pageType) {
+        return getValidToken()
+            .flatMap(token -> fetchPage(nextUrl, token, pageType))
+            .flatMap(page -> {
+                // Add current page
+                if (page.items() != null) {
+                    allObjects.addAll(page.items());
+                }
+
+                // Check if there are more pages
+                if (page.next() != null) {
+                    // Recursively fetch the next page
+                    return fetchAllPagesFromUrl(page.next(), allObjects, pageType);
+                } else {
+                    // All pages fetched
+                    return Mono.just(allObjects);
+                }
+            });
+    }
+
+    private <T> Mono<T> batched(BatchLoader<String, T> batches, String path, String id, Class<T> type) {
+        if (id == null || !SPOTIFY_ID.matcher(id).matches()) {
+            // A malformed id would fail the whole several-items request
+            return fetchOne(path, id, type);
+        }
+        return batches.load(id).switchIfEmpty(Mono.defer(() -> fetchOne(path, id, type)));
+    }
 
-    public Mono<Map<String, Object>> getAlbum(String albumId) {
+    private <T> Mono<T> fetchOne(String path, String id, Class<T> type) {
         return getValidToken()
             .flatMap(token -> spotifyWebClient.get()
-                .uri("/albums/{id}", albumId)
+                .uri(path, id)
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
                 .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}));
+                .bodyToMono(type));
+    }
+
+    /**
+     * Keys a several-items response by the requested ids. Spotify answers in request order, with null for
+     * ids it does not know.
+     */
+    private static <T> Map<String, T> byRequestedId(List<String> ids, List<T> items) {
+        Map<String, T> byId = new HashMap<>();
+        for (int i = 0; items != null && i < Math.min(ids.size(), items.size()); i++) {
+            if (items.get(i) != null) {
+                byId.put(ids.get(i), items.get(i));
+            }
+        }
+        return byId;
+    }
+
+    // ALBUM METHODS
+
+    /**
+     * Fetches an album. Concurrent calls for the same album share one request and receive the same
+     * immutable response. Artists and tracks are fetched the same way.
+     *
+     * Albums requested within the batch window are fetched together with one several-albums request. An id
+     * the batch has no album for, or one that is not a Spotify id, is fetched on its own, so it fails the
+     * way a single lookup always has.
+     */
+    public Mono<AlbumObject> getAlbum(String albumId) {
+        return albumFetches.execute(albumId, () -> batched(albumBatches, "/albums/{id}", albumId, AlbumObject.class));
     }
 
-    public Mono<List<Map<String, Object>>> getSeveralAlbums(String ids) {
+    public Mono<List<AlbumObject>> getSeveralAlbums(String ids) {
         return getValidToken()
         .flatMap(token -> spotifyWebClient.get()
             .uri("/albums?ids={ids}", ids)
             .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
             .retrieve()
-            .bodyToMono(Map.class)
-            .map(response -> (List<Map<String, Object>>) response.get("albums")));
+            .bodyToMono(AlbumListObject.class)
+            .map(AlbumListObject::albums));
     }
 
-    public Mono<List<Map<String, Object>>> fetchAllTracksForAlbum(Map<String, Object> initialTracks) {
-        return fetchAllPagesFromUrl((String) initialTracks.get("next"), (List<Map<String, Object>>) initialTracks.get("items"));
+    public Mono<List<SimplifiedTrackObject>> fetchAllTracksForAlbum(PagingObject<SimplifiedTrackObject> initialTracks) {
+        return fetchAllPages(initialTracks, ALBUM_TRACKS_PAGE);
     }
 
     //ARTIST METHODS
 
-    public Mono<Map<String, Object>> getArtist(String artistId) {
-        return getValidToken()
-            .flatMap(token -> spotifyWebClient.get()
-                .uri("/artists/{id}", artistId)
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}));
+    public Mono<ArtistObject> getArtist(String artistId) {
+        return artistFetches.execute(artistId, () -> batched(artistBatches, "/artists/{id}", artistId, ArtistObject.class));
     }
 
-    public Mono<List<Map<String, Object>>> getSeveralArtists(String ids) {
+    public Mono<List<ArtistObject>> getSeveralArtists(String ids) {
         return getValidToken()
         .flatMap(token -> spotifyWebClient.get()
             .uri("/artists?ids={ids}", ids)
             .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
             .retrieve()
-            .bodyToMono(Map.class)
-            .map(response -> (List<Map<String, Object>>) response.get("artists")));
+            .bodyToMono(ArtistListObject.class)
+            .map(ArtistListObject::artists));
     }
 
-    public Mono<Map<String, Object>> getArtistAlbums(String artistId) {
+    public Mono<PagingObject<SimplifiedAlbumObject>> getArtistAlbums(String artistId) {
         return getValidToken()
             .flatMap(token -> spotifyWebClient.get()
                 .uri("/artists/{id}/albums", artistId)
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
                 .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}));
+                .bodyToMono(ARTIST_ALBUMS_PAGE));
     }
 
-    public Mono<List<Map<String, Object>>> fetchAllAlbumsForArtist(Map<String, Object> initialAlbums) {
-        return fetchAllPagesFromUrl((String) initialAlbums.get("next"), (List<Map<String, Object>>) initialAlbums.get("items"));
+    public Mono<List<SimplifiedAlbumObject>> fetchAllAlbumsForArtist(PagingObject<SimplifiedAlbumObject> initialAlbums) {
+        return fetchAllPages(initialAlbums, ARTIST_ALBUMS_PAGE);
     }
 
-    public Mono<Map<String, Object>> getArtistTopTracks(String artistId) {
+    public Mono<List<TrackObject>> getArtistTopTracks(String artistId) {
         return getValidToken()
             .flatMap(token -> spotifyWebClient.get()
                 .uri("/artists/{id}/top-tracks", artistId)
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
                 .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}));
+                .bodyToMono(TrackListObject.class)
+                .map(TrackListObject::tracks));
     }
 
     // TRACK METHODS
 
-    public Mono<Map<String, Object>> getTrack(String trackId) {
-        return getValidToken()
-            .flatMap(token -> spotifyWebClient.get()
-                .uri("/tracks/{id}", trackId)
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}));
+    public Mono<TrackObject> getTrack(String trackId) {
+        return trackFetches.execute(trackId, () -> batched(trackBatches, "/tracks/{id}", trackId, TrackObject.class));
     }
 
     // PLAYLIST METHODS
 
-    public Mono<Map<String, Object>> getPlaylist(String playlistId) {
+    public Mono<PlaylistObject> getPlaylist(String playlistId) {
         return getValidToken()
             .flatMap(token -> spotifyWebClient.get()
                 .uri("/playlists/{id}", playlistId)
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
                 .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}));
+                .bodyToMono(PlaylistObject.class));
     }
 
     // Overloaded method to get playlist using a user's access token
-    public Mono<Map<String, Object>> getPlaylist(String playlistId, String accessToken) {
+    public Mono<PlaylistObject> getPlaylist(String playlistId, String accessToken) {
         return spotifyWebClient.get()
             .uri("/playlists/{id}", playlistId)
             .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
             .retrieve()
-            .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {});
+            .bodyToMono(PlaylistObject.class);
     }
 
-    public Mono<List<Map<String, Object>>> fetchAllTracksForPlaylist(Map<String, Object> initialTracks) {
-        return fetchAllPagesFromUrl((String) initialTracks.get("next"), (List<Map<String, Object>>) initialTracks.get("items"));
+    public Mono<List<PlaylistTrackObject>> fetchAllTracksForPlaylist(PagingObject<PlaylistTrackObject> initialTracks) {
+        return fetchAllPages(initialTracks, PLAYLIST_TRACKS_PAGE);
     }
 
     // USER-SPECIFIC TRACK METHODS (using user's access token)
 
     public Mono<Map<String, Object>> getUserProfile(String accessToken) {
-        return WebClient.create(spotifyProperties.getBaseUrl())
-            .get()
+        return spotifyWebClient.get()
             .uri("/me")
             .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
             .retrieve()
             .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {});
     }
 
-    public Mono<Map<String, Object>> getUserPlaylists(String accessToken) {
-        return WebClient.create(spotifyProperties.getBaseUrl())
-            .get()
+    public Mono<PagingObject<SimplifiedPlaylistObject>> getUserPlaylists(String accessToken) {
+        return spotifyWebClient.get()
             .uri("/me/playlists")
             .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
             .retrieve()
-            .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {});
+            .bodyToMono(PLAYLISTS_PAGE);
     }
 
     public Mono<Map<String, Object>> getUserTopTracks(String accessToken) {
-        return WebClient.create(spotifyProperties.getBaseUrl())
-            .get()
+        return spotifyWebClient.get()
             .uri("/me/top/tracks")
             .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
             .retrieve()
@@ -232,22 +336,20 @@ public class SpotifyIntegrationService {
     }
 
     public Mono<Map<String, Object>> getUserTopArtists(String accessToken) {
-        return WebClient.create(spotifyProperties.getBaseUrl())
-            .get()
+        return spotifyWebClient.get()
             .uri("/me/top/artists")
             .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
             .retrieve()
             .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {});
     }
 
-    @SuppressWarnings("unchecked")
-    public Mono<List<Map<String, Object>>> getSeveralTracks(String ids) {
+    public Mono<List<TrackObject>> getSeveralTracks(String ids) {
     return getValidToken()
         .flatMap(token -> spotifyWebClient.get()
             .uri("/tracks?ids={ids}", ids)
             .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
             .retrieve()
-            .bodyToMono(Map.class)
-            .map(response -> (List<Map<String, Object>>) response.get("tracks")));
+            .bodyToMono(TrackListObject.class)
+            .map(TrackListObject::tracks));
     }
 }   
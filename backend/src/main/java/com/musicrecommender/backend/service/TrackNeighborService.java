@@ -0,0 +1,127 @@
+package com.musicrecommender.backend.service;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.recommendation.AlsModel;
+import com.musicrecommender.backend.service.recommendation.HnswIndex;
+import com.musicrecommender.backend.service.recommendation.HnswIndexBuilder;
+import com.musicrecommender.backend.service.recommendation.RankedTracks;
+import com.musicrecommender.backend.service.recommendation.RecommendationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Finds tracks similar to a track through the HNSW index over the ALS track factors. The index is only
+ * served while the model it was built from is current.
+ */
+@Service
+public class TrackNeighborService {
+    @Autowired
+    private RecommendationProperties recommendationProperties;
+    @Autowired
+    private AlsModelService alsModelService;
+    @Autowired
+    private HnswIndexBuilder indexBuilder;
+    private volatile HnswIndex index;
+    private static final Logger logger = LoggerFactory.getLogger(TrackNeighborService.class);
+
+    @PostConstruct
+    public void loadOnStartup() {
+        if (!recommendationProperties.getTrackNeighbors().isLoadOnStartup()) {
+            return;
+        }
+        Path path = Paths.get(recommendationProperties.getTrackNeighbors().getPath()).toAbsolutePath();
+        try {
+            List<Path> current = files().current();
+            if (current.isEmpty()) {
+                logger.info("No track HNSW index at {}, build one through /admin/track-hnsw", path);
+                return;
+            }
+            path = current.get(0);
+            index = open(path);
+            files().deleteExcept(List.of(path));
+            if (alsModelService.getModel().filter(index::isCompatibleWith).isEmpty()) {
+                logger.warn("Track HNSW index {} was not built from the current ALS model, rebuild it", path);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to load track HNSW index {}", path, e);
+        }
+    }
+
+    /**
+     * Returns the index if it matches the current ALS model.
+     */
+    public Optional<HnswIndex> getIndex() {
+        return alsModelService.getModel().flatMap(this::getIndex);
+    }
+
+    /**
+     * Returns the index if it was built from the ALS model serving the given snapshot.
+     */
+    public Optional<HnswIndex> getIndex(MPDSnapshot snapshot) {
+        return alsModelService.getModel(snapshot).flatMap(this::getIndex);
+    }
+
+    private Optional<HnswIndex> getIndex(AlsModel model) {
+        return Optional.ofNullable(index).filter(current -> current.isCompatibleWith(model));
+    }
+
+    /**
+     * Rebuilds the index from the current ALS model and makes it current.
+     */
+    public synchronized HnswIndex rebuild() throws IOException {
+        AlsModel model = alsModelService.getModel()
+            .orElseThrow(() -> new RecommendationException("No ALS model matches the current MPD snapshot, train one through /admin/als-model"));
+        Path version = files().next();
+        HnswIndex rebuilt;
+        try {
+            indexBuilder.build(model, version);
+            // Open before publishing so a broken file never replaces a working one
+            rebuilt = open(version);
+        } catch (IOException | RuntimeException e) {
+            files().discard(version);
+            throw e;
+        }
+        files().publish(version);
+        index = rebuilt;
+        files().deleteExcept(List.of(version));
+        return rebuilt;
+    }
+
+    /**
+     * The tracks whose factors are closest to the track's by cosine, approximately.
+     * @param snapshot The snapshot the track was resolved against
+     * @param track Snapshot track ordinal
+     * @param k How many tracks to return, capped at recommendation.track-neighbors.max-neighbors
+     */
+    public RankedTracks findSimilar(MPDSnapshot snapshot, int track, int k) {
+        HnswIndex current = getIndex(snapshot)
+            .orElseThrow(() -> new RecommendationException("No track HNSW index matches the MPD snapshot"));
+        RecommendationProperties.TrackNeighbors settings = recommendationProperties.getTrackNeighbors();
+        return current.findSimilar(track, Math.min(k, settings.getMaxNeighbors()), settings.getEfSearch());
+    }
+
+    private HnswIndex open(Path path) throws IOException {
+        long start = System.currentTimeMillis();
+        HnswIndex opened = HnswIndex.open(path);
+        logger.info("Loaded track HNSW index v{} with {} tracks in {} ms",
+            opened.getVersion(), opened.getNodeCount(), System.currentTimeMillis() - start);
+        return opened;
+    }
+
+    private VersionedFiles files() {
+        return VersionedFiles.of(Paths.get(recommendationProperties.getTrackNeighbors().getPath()));
+    }
+}
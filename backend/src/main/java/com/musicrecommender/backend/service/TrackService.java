@@ -1,13 +1,15 @@
 package com.musicrecommender.backend.service;
 
-import java.util.Map;
 import java.util.List;
 
+import com.musicrecommender.backend.dto.spotify.SimplifiedTrackObject;
+import com.musicrecommender.backend.dto.spotify.TrackObject;
 import com.musicrecommender.backend.entity.Track;
 import com.musicrecommender.backend.entity.Album;
 import com.musicrecommender.backend.entity.Artist;
 import com.musicrecommender.backend.repository.TrackRepository;
 import com.musicrecommender.backend.factory.TrackFactory;
+import com.musicrecommender.backend.service.spotify.SingleFlight;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -26,9 +28,11 @@ public class TrackService {
     @Autowired
     @Lazy
     private SpotifyIntegrationService spotifyIntegrationService;
+    // Concurrent requests for the same track share one lookup, fetch and save
+    private final SingleFlight<String, Track> trackLoads = new SingleFlight<>();
 
     public Mono<Track> getTrack(String id) {
-        return Mono.fromCallable(() -> trackRepository.findById(id).orElse(null))
+        return trackLoads.execute(id, () -> Mono.fromCallable(() -> trackRepository.findById(id).orElse(null))
             .flatMap(track -> {
                 if (track != null) {
                     return Mono.just(track);
@@ -36,7 +40,7 @@ public class TrackService {
                     return spotifyIntegrationService.getTrack(id)
                         .flatMap(trackData -> createTrackFromJSON(trackData));
                 }
-            });
+            }));
     }
 
     public Mono<List<Track>> getSeveralTracks(String ids) {
@@ -66,8 +70,8 @@ public class TrackService {
         return Mono.fromCallable(() -> trackRepository.save(track));
     }
 
-    public Mono<Track> createTrackFromJSON(Map<String, Object> trackData) {
-        String trackId = (String) trackData.get("id");
+    public Mono<Track> createTrackFromJSON(TrackObject trackData) {
+        String trackId = trackData.id();
         return Mono.fromCallable(() -> trackRepository.findById(trackId))
             .flatMap(repositoryResponse -> {
                 if (repositoryResponse.isPresent()) {
@@ -85,8 +89,8 @@ public class TrackService {
      * @param artists The list of Artist entities to associate with the track
      * @return Mono<Track>
      */
-    public Mono<Track> createTrackFromJSON(Map<String, Object> trackData, List<Artist> artists) {
-        String trackId = (String) trackData.get("id");
+    public Mono<Track> createTrackFromJSON(TrackObject trackData, List<Artist> artists) {
+        String trackId = trackData.id();
         return Mono.fromCallable(() -> trackRepository.findById(trackId))
             .flatMap(repositoryResponse -> {
                 if (repositoryResponse.isPresent()) {
@@ -98,8 +102,8 @@ public class TrackService {
             });
     }
 
-    public Mono<Track> createTrackFromJSONSimple(Map<String, Object> trackData) {
-        String trackId = (String) trackData.get("id");
+    public Mono<Track> createTrackFromJSONSimple(TrackObject trackData) {
+        String trackId = trackData.id();
         return Mono.fromCallable(() -> trackRepository.findById(trackId))
             .flatMap(repositoryResponse -> {
                 if (repositoryResponse.isPresent()) {
@@ -111,15 +115,15 @@ public class TrackService {
             });
     }
 
-    public Mono<List<Track>> createTrackListFromJSON(List<Map<String, Object>> tracksData) {
+    public Mono<List<Track>> createTrackListFromJSON(List<TrackObject> tracksData) {
         return Flux.fromIterable(tracksData)
             .flatMap(this::createTrackFromJSON)
             .collectList();
     }
 
-    public Mono<List<Track>> createTrackListFromJSONSimple(List<Map<String, Object>> tracksData) {
+    public Mono<List<Track>> createTrackListFromJSONSimple(List<TrackObject> tracksData) {
         List<String> ids = tracksData.stream()
-            .map(track -> (String) track.get("id"))
+            .map(TrackObject::id)
             .toList();
         String idsCommaSeparated = String.join(",", ids);
         return getSeveralTracks(idsCommaSeparated);
@@ -131,13 +135,13 @@ public class TrackService {
      * @param artistsList List of artist lists, one per track
      * @return Mono<List<Track>>
      */
-    public Mono<List<Track>> createTrackListFromJSONSimple(List<Map<String, Object>> tracksData, List<List<Artist>> artistsList) {
+    public Mono<List<Track>> createTrackListFromJSONSimple(List<SimplifiedTrackObject> tracksData, List<List<Artist>> artistsList) {
         if (tracksData.size() != artistsList.size()) {
             return Mono.error(new IllegalArgumentException("tracksData and artistsList must be the same size"));
         }
         // Collect all track IDs
         List<String> ids = tracksData.stream()
-            .map(track -> (String) track.get("id"))
+            .map(SimplifiedTrackObject::id)
             .toList();
         String idsCommaSeparated = String.join(",", ids);
         // Batch fetch full track data
@@ -0,0 +1,157 @@
+package com.musicrecommender.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The files of one published artifact, such as the MPD snapshot or a model, under versioned names. Each
+ * build writes a new version instead of replacing the configured file, since the file being replaced is
+ * usually still memory-mapped, which Windows refuses to replace or delete. A small pointer file, which is
+ * never mapped, names the current version and is the only file replaced in place. Versions nothing refers
+ * to any more are deleted at the next cleanup; one whose mapping is still open is retried at the one after.
+ *
+ * For the configured path data/mpd.snapshot the versions are data/mpd.snapshot.1, data/mpd.snapshot.2 and
+ * so on, and the pointer is data/mpd.snapshot.current. A file at the configured path itself, written before
+ * versions were used, stays current until the first version is published.
+ */
+final class VersionedFiles {
+    private static final ConcurrentMap<Path, VersionedFiles> INSTANCES = new ConcurrentHashMap<>();
+    private final Path configured;
+    // Versions handed out by next() that are being written, so cleanup leaves them alone
+    private final Set<Path> reserved = new HashSet<>();
+    private static final Logger logger = LoggerFactory.getLogger(VersionedFiles.class);
+
+    private VersionedFiles(Path configured) {
+        this.configured = configured;
+    }
+
+    /**
+     * The versions of the file at the configured path, shared by everything writing to that path.
+     */
+    static VersionedFiles of(Path configured) {
+        return INSTANCES.computeIfAbsent(configured.toAbsolutePath().normalize(), VersionedFiles::new);
+    }
+
+    /**
+     * The files of the current version, or the file at the configured path if no version was published yet,
+     * or none. A version is usually one file; a snapshot with appended segments is several.
+     */
+    synchronized List<Path> current() throws IOException {
+        Path pointer = pointer();
+        if (Files.exists(pointer)) {
+            return Files.readAllLines(pointer, StandardCharsets.UTF_8).stream()
+                .map(String::strip)
+                .filter(name -> !name.isEmpty())
+                .map(configured::resolveSibling)
+                .toList();
+        }
+        return Files.exists(configured) ? List.of(configured) : List.of();
+    }
+
+    /**
+     * Creates an empty file under the next version number for a build to write to. The caller publishes or
+     * discards it.
+     */
+    synchronized Path next() throws IOException {
+        Files.createDirectories(configured.getParent());
+        long latest;
+        try (Stream<Path> siblings = Files.list(configured.getParent())) {
+            latest = siblings.mapToLong(this::versionOf).max().orElse(0);
+        }
+        Path path = configured.resolveSibling(configured.getFileName() + "." + (latest + 1));
+        Files.createFile(path);
+        reserved.add(path);
+        return path;
+    }
+
+    /**
+     * Makes the version current.
+     */
+    void publish(Path version) throws IOException {
+        publish(List.of(version));
+    }
+
+    /**
+     * Makes the files, each returned by {@link #next} now or earlier, the current version together.
+     */
+    synchronized void publish(List<Path> files) throws IOException {
+        List<Path> versions = files.stream().map(path -> path.toAbsolutePath().normalize()).toList();
+        Path pointer = pointer();
+        Path temporary = pointer.resolveSibling(pointer.getFileName() + ".tmp");
+        Files.write(temporary, versions.stream().map(path -> path.getFileName().toString()).toList(), StandardCharsets.UTF_8);
+        Files.move(temporary, pointer, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        versions.forEach(reserved::remove);
+    }
+
+    /**
+     * Drops a version returned by {@link #next} that is not going to be published.
+     */
+    synchronized void discard(Path version) {
+        version = version.toAbsolutePath().normalize();
+        reserved.remove(version);
+        delete(version);
+    }
+
+    /**
+     * Deletes the versions that are neither current, being written, nor in the given set, as well as the file
+     * at the configured path once a version replaced it.
+     * @param inUse Files still referenced, such as a replaced model that keeps serving for a while
+     */
+    synchronized void deleteExcept(Collection<Path> inUse) throws IOException {
+        Set<Path> kept = inUse.stream().map(path -> path.toAbsolutePath().normalize()).collect(Collectors.toSet());
+        kept.addAll(current());
+        kept.addAll(reserved);
+        List<Path> unused;
+        try (Stream<Path> siblings = Files.list(configured.getParent())) {
+            unused = siblings.filter(path -> versionOf(path) > 0 && !kept.contains(path)).toList();
+        }
+        unused.forEach(this::delete);
+        if (Files.exists(pointer()) && !kept.contains(configured)) {
+            delete(configured);
+        }
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Most likely still mapped on Windows; the next cleanup tries again
+            logger.debug("Could not delete {} yet: {}", path, e.toString());
+        }
+    }
+
+    /**
+     * The version number in the file name, or 0 if it is not a version of this artifact.
+     */
+    private long versionOf(Path path) {
+        String name = path.getFileName().toString();
+        String prefix = configured.getFileName() + ".";
+        if (!name.startsWith(prefix) || name.length() == prefix.length() || name.length() - prefix.length() > 18) {
+            return 0;
+        }
+        for (int i = prefix.length(); i < name.length(); i++) {
+            if (name.charAt(i) < '0' || name.charAt(i) > '9') {
+                return 0;
+            }
+        }
+        return Long.parseLong(name.substring(prefix.length()));
+    }
+
+    private Path pointer() {
+        return configured.resolveSibling(configured.getFileName() + ".current");
+    }
+}
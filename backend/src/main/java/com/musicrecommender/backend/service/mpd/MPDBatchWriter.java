@@ -0,0 +1,281 @@
+package com.musicrecommender.backend.service.mpd;
+
+import com.musicrecommender.backend.config.MPDImportProperties;
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.entity.mpd.MPDTrack;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk write path for MPD playlists. Rows for mpd_playlists and the mpd_playlist_edges join
+ * table are buffered and sent as batched JDBC statements instead of one repository round trip
+ * per row. Edges are stored as (playlist, position, track ordinal) int rows.
+ *
+ * Tracks, artists and albums the dictionary has not seen are assigned ordinals and written to
+ * the mpd_dict_* tables in their own short transaction, before the edges that reference them.
+ * Dictionary rows are append-only, so committing them early is harmless if the chunk that
+ * needed them later rolls back, and concurrent slices never race to insert the same track.
+ * The playlist rows and edges must be written inside a transaction so a chunk is all-or-nothing.
+ */
+@Component
+public class MPDBatchWriter {
+    private static final String INSERT_ARTIST_SQL = "INSERT INTO mpd_dict_artists (ordinal, spotify_id) VALUES (?, ?)";
+    private static final String INSERT_ALBUM_SQL = "INSERT INTO mpd_dict_albums (ordinal, spotify_id) VALUES (?, ?)";
+    private static final String INSERT_TRACK_SQL =
+        "INSERT INTO mpd_dict_tracks (ordinal, spotify_id, artist_ordinal, album_ordinal) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_EDGES_SQL = "DELETE FROM mpd_playlist_edges WHERE playlist_id = ?";
+    private static final String INSERT_EDGE_SQL = "INSERT INTO mpd_playlist_edges (playlist_id, pos, track_ordinal) VALUES (?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MPDImportProperties importProperties;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    private volatile Dialect dialect;
+
+    /**
+     * Starts a new buffer of rows. Call {@link Batch#flush()} before the transaction commits.
+     * @param dictionary Ordinals already assigned, shared by every slice of the import
+     */
+    public Batch openBatch(MPDDictionary dictionary) {
+        return new Batch(dialect(), Math.max(1, importProperties.getBatchSize()), dictionary);
+    }
+
+    private Dialect dialect() {
+        if (dialect == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+            dialect = Dialect.forProduct(product);
+        }
+        return dialect;
+    }
+
+    /**
+     * Assigns ordinals to the tracks, and their artists and albums, that are not in the dictionary yet,
+     * and commits the new dictionary rows. Serialized per import so each ID gets exactly one ordinal.
+     * @return The number of dictionary rows written
+     */
+    private int register(MPDDictionary dictionary, Collection<MPDTrack> tracks, int batchSize) {
+        synchronized (dictionary) {
+            NewEntries newArtists = new NewEntries();
+            NewEntries newAlbums = new NewEntries();
+            NewEntries newTracks = new NewEntries();
+            List<Object[]> trackRows = new ArrayList<>();
+            for (MPDTrack track : tracks) {
+                // Re-check: another slice may have registered the track since the caller looked
+                if (dictionary.getTracks().ordinalOf(track.getSpotifyId()) >= 0
+                        || newTracks.contains(track.getSpotifyId())) {
+                    continue;
+                }
+                Integer artistOrdinal = resolve(dictionary.getArtists(), newArtists, track.getArtistId());
+                Integer albumOrdinal = resolve(dictionary.getAlbums(), newAlbums, track.getAlbumId());
+                int ordinal = newTracks.add(track.getSpotifyId(), dictionary.getTracks().reserveOrdinal());
+                trackRows.add(new Object[] {ordinal, track.getSpotifyId(), artistOrdinal, albumOrdinal});
+            }
+            if (trackRows.isEmpty()) {
+                return 0;
+            }
+
+            TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+            newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            newTransaction.executeWithoutResult(status -> {
+                newArtists.insert(INSERT_ARTIST_SQL, batchSize);
+                newAlbums.insert(INSERT_ALBUM_SQL, batchSize);
+                jdbcTemplate.batchUpdate(INSERT_TRACK_SQL, trackRows, batchSize, (ps, row) -> {
+                    ps.setInt(1, (Integer) row[0]);
+                    ps.setString(2, (String) row[1]);
+                    setNullableInt(ps, 3, (Integer) row[2]);
+                    setNullableInt(ps, 4, (Integer) row[3]);
+                });
+            });
+            // Only committed ordinals may be used by other slices
+            dictionary.getArtists().putAll(newArtists.spotifyIds, newArtists.ordinals);
+            dictionary.getAlbums().putAll(newAlbums.spotifyIds, newAlbums.ordinals);
+            dictionary.getTracks().putAll(newTracks.spotifyIds, newTracks.ordinals);
+            return newArtists.spotifyIds.size() + newAlbums.spotifyIds.size() + trackRows.size();
+        }
+    }
+
+    private static Integer resolve(MPDIdDictionary dictionary, NewEntries pending, String spotifyId) {
+        if (spotifyId == null) {
+            return null;
+        }
+        int ordinal = dictionary.ordinalOf(spotifyId);
+        if (ordinal >= 0) {
+            return ordinal;
+        }
+        Integer pendingOrdinal = pending.get(spotifyId);
+        return pendingOrdinal != null ? pendingOrdinal : pending.add(spotifyId, dictionary.reserveOrdinal());
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    /**
+     * IDs given an ordinal during one {@link #register} call, in assignment order.
+     */
+    private final class NewEntries {
+        private final Map<String, Integer> byId = new LinkedHashMap<>();
+        private final List<String> spotifyIds = new ArrayList<>();
+        private final List<Integer> ordinals = new ArrayList<>();
+
+        boolean contains(String spotifyId) {
+            return byId.containsKey(spotifyId);
+        }
+
+        Integer get(String spotifyId) {
+            return byId.get(spotifyId);
+        }
+
+        int add(String spotifyId, int ordinal) {
+            byId.put(spotifyId, ordinal);
+            spotifyIds.add(spotifyId);
+            ordinals.add(ordinal);
+            return ordinal;
+        }
+
+        void insert(String sql, int batchSize) {
+            if (spotifyIds.isEmpty()) {
+                return;
+            }
+            List<Integer> indexes = new ArrayList<>(spotifyIds.size());
+            for (int i = 0; i < spotifyIds.size(); i++) {
+                indexes.add(i);
+            }
+            jdbcTemplate.batchUpdate(sql, indexes, batchSize, (ps, i) -> {
+                ps.setInt(1, ordinals.get(i));
+                ps.setString(2, spotifyIds.get(i));
+            });
+        }
+    }
+
+    public class Batch {
+        private final Dialect dialect;
+        private final int batchSize;
+        private final MPDDictionary dictionary;
+        private final List<MPDPlaylist> pendingPlaylists = new ArrayList<>();
+        private int pendingEdges;
+        private long rowsWritten;
+
+        private Batch(Dialect dialect, int batchSize, MPDDictionary dictionary) {
+            this.dialect = dialect;
+            this.batchSize = batchSize;
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * Buffers the playlist and its edges, flushing once a full batch of edges is pending.
+         */
+        public void add(MPDPlaylist playlist) {
+            pendingPlaylists.add(playlist);
+            pendingEdges += playlist.getTracks().size();
+            if (pendingEdges >= batchSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Writes everything buffered so far. New dictionary entries and playlists go first so the edges can reference them.
+         */
+        public void flush() {
+            if (pendingPlaylists.isEmpty()) {
+                return;
+            }
+            Map<String, MPDTrack> unregistered = new LinkedHashMap<>();
+            for (MPDPlaylist playlist : pendingPlaylists) {
+                for (MPDTrack track : playlist.getTracks()) {
+                    if (dictionary.getTracks().ordinalOf(track.getSpotifyId()) < 0) {
+                        unregistered.putIfAbsent(track.getSpotifyId(), track);
+                    }
+                }
+            }
+            if (!unregistered.isEmpty()) {
+                rowsWritten += register(dictionary, unregistered.values(), batchSize);
+            }
+
+            long[] edgePlaylists = new long[pendingEdges];
+            int[] edgePositions = new int[pendingEdges];
+            int[] edgeTracks = new int[pendingEdges];
+            int edge = 0;
+            for (MPDPlaylist playlist : pendingPlaylists) {
+                List<MPDTrack> tracks = playlist.getTracks();
+                for (int pos = 0; pos < tracks.size(); pos++, edge++) {
+                    edgePlaylists[edge] = playlist.getId();
+                    edgePositions[edge] = pos;
+                    edgeTracks[edge] = dictionary.getTracks().ordinalOf(tracks.get(pos).getSpotifyId());
+                }
+            }
+
+            jdbcTemplate.batchUpdate(dialect.upsertPlaylistSql, pendingPlaylists, batchSize, (ps, playlist) -> {
+                ps.setLong(1, playlist.getId());
+                ps.setString(2, playlist.getName());
+            });
+            // Re-importing a playlist replaces its tracks, the same as saving it through JPA would
+            jdbcTemplate.batchUpdate(DELETE_EDGES_SQL, pendingPlaylists, batchSize, (ps, playlist) ->
+                ps.setLong(1, playlist.getId()));
+            List<Integer> edgeIndexes = new ArrayList<>(pendingEdges);
+            for (int i = 0; i < pendingEdges; i++) {
+                edgeIndexes.add(i);
+            }
+            jdbcTemplate.batchUpdate(INSERT_EDGE_SQL, edgeIndexes, batchSize, (ps, i) -> {
+                ps.setLong(1, edgePlaylists[i]);
+                ps.setInt(2, edgePositions[i]);
+                ps.setInt(3, edgeTracks[i]);
+            });
+            rowsWritten += pendingPlaylists.size() + pendingEdges;
+            pendingPlaylists.clear();
+            pendingEdges = 0;
+        }
+
+        /**
+         * Returns and resets the number of dictionary, playlist and edge rows written since the last call.
+         */
+        public long drainRowsWritten() {
+            long rows = rowsWritten;
+            rowsWritten = 0;
+            return rows;
+        }
+    }
+
+    private enum Dialect {
+        H2("MERGE INTO mpd_playlists (id, name) KEY (id) VALUES (?, ?)"),
+        POSTGRESQL("INSERT INTO mpd_playlists (id, name) VALUES (?, ?) ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name");
+
+        private final String upsertPlaylistSql;
+
+        Dialect(String upsertPlaylistSql) {
+            this.upsertPlaylistSql = upsertPlaylistSql;
+        }
+
+        static Dialect forProduct(String product) {
+            if ("PostgreSQL".equalsIgnoreCase(product)) {
+                return POSTGRESQL;
+            }
+            if ("H2".equalsIgnoreCase(product)) {
+                return H2;
+            }
+            throw new MPDImportException("Bulk MPD import is not supported on " + product);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.musicrecommender.backend.service.mpd;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Import-scoped ID dictionaries for MPD tracks, artists and albums, loaded from the mpd_dict_* tables.
+ */
+public class MPDDictionary {
+    private final MPDIdDictionary tracks;
+    private final MPDIdDictionary artists;
+    private final MPDIdDictionary albums;
+
+    private MPDDictionary(MPDIdDictionary tracks, MPDIdDictionary artists, MPDIdDictionary albums) {
+        this.tracks = tracks;
+        this.artists = artists;
+        this.albums = albums;
+    }
+
+    public static MPDDictionary load(JdbcTemplate jdbcTemplate) {
+        return new MPDDictionary(
+            MPDIdDictionary.load(jdbcTemplate, "mpd_dict_tracks"),
+            MPDIdDictionary.load(jdbcTemplate, "mpd_dict_artists"),
+            MPDIdDictionary.load(jdbcTemplate, "mpd_dict_albums"));
+    }
+
+    public MPDIdDictionary getTracks() { return tracks; }
+    public MPDIdDictionary getArtists() { return artists; }
+    public MPDIdDictionary getAlbums() { return albums; }
+}
@@ -0,0 +1,11 @@
+package com.musicrecommender.backend.service.mpd;
+
+public class MPDImportException extends RuntimeException {
+    public MPDImportException(String message) {
+        super(message);
+    }
+
+    public MPDImportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
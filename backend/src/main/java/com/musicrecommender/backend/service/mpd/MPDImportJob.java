@@ -0,0 +1,182 @@
+package com.musicrecommender.backend.service.mpd;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State and live counters of one MPD import run. Import workers report progress into it
+ * and call {@link #checkpoint()} between chunks, which is where pause and cancel take effect.
+ */
+public class MPDImportJob {
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        PAUSED,
+        CANCELLED,
+        COMPLETED,
+        FAILED
+    }
+
+    private static final int MAX_ERRORS = 100;
+
+    private final String id = UUID.randomUUID().toString();
+    private final File slicesRoot;
+    private final Instant createdAt = Instant.now();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile boolean paused;
+    private volatile boolean cancelRequested;
+    private long startedNanos;
+    private long finishedNanos;
+    private long pausedSince;
+    private long pausedNanos;
+
+    private final AtomicInteger slicesTotal = new AtomicInteger();
+    private final AtomicInteger slicesDone = new AtomicInteger();
+    private final AtomicInteger slicesSkipped = new AtomicInteger();
+    private final AtomicInteger slicesFailed = new AtomicInteger();
+    private final AtomicLong playlistsWritten = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong bytesTotal = new AtomicLong();
+    private final AtomicLong bytesSkipped = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+
+    public MPDImportJob(File slicesRoot) {
+        this.slicesRoot = slicesRoot;
+    }
+
+    /**
+     * Called by import workers between chunks. Blocks while the job is paused.
+     * @throws CancellationException if the job has been cancelled
+     */
+    public void checkpoint() {
+        if (paused) {
+            synchronized (this) {
+                while (paused && !cancelRequested) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new CancellationException("Interrupted while paused");
+                    }
+                }
+            }
+        }
+        if (cancelRequested) {
+            throw new CancellationException("Import job " + id + " was cancelled");
+        }
+    }
+
+    public synchronized void markRunning() {
+        startedAt = Instant.now();
+        startedNanos = System.nanoTime();
+        status = Status.RUNNING;
+    }
+
+    public synchronized void markFinished() {
+        finishedAt = Instant.now();
+        if (paused) {
+            resume();
+        }
+        finishedNanos = System.nanoTime();
+        if (cancelRequested) {
+            status = Status.CANCELLED;
+        } else if (slicesFailed.get() > 0 || (slicesTotal.get() == 0 && !errors.isEmpty())) {
+            status = Status.FAILED;
+        } else {
+            status = Status.COMPLETED;
+        }
+    }
+
+    public synchronized boolean pause() {
+        if (status != Status.RUNNING) {
+            return false;
+        }
+        paused = true;
+        pausedSince = System.nanoTime();
+        status = Status.PAUSED;
+        return true;
+    }
+
+    public synchronized boolean resume() {
+        if (!paused) {
+            return false;
+        }
+        paused = false;
+        pausedNanos += System.nanoTime() - pausedSince;
+        if (status == Status.PAUSED) {
+            status = Status.RUNNING;
+        }
+        notifyAll();
+        return true;
+    }
+
+    public synchronized boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        cancelRequested = true;
+        notifyAll();
+        return true;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public boolean isFinished() {
+        Status current = status;
+        return current == Status.CANCELLED || current == Status.COMPLETED || current == Status.FAILED;
+    }
+
+    public void addError(String error) {
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(error);
+            }
+        }
+    }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+
+    /**
+     * Seconds the job has spent running, not counting time spent paused.
+     */
+    public synchronized double getActiveSeconds() {
+        if (startedAt == null) {
+            return 0;
+        }
+        long elapsed = (finishedAt != null ? finishedNanos : System.nanoTime()) - startedNanos;
+        long pausedTotal = pausedNanos + (paused ? System.nanoTime() - pausedSince : 0);
+        return Math.max(0, elapsed - pausedTotal) / 1e9;
+    }
+
+    public String getId() { return id; }
+    public File getSlicesRoot() { return slicesRoot; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public Status getStatus() { return status; }
+
+    public AtomicInteger getSlicesTotal() { return slicesTotal; }
+    public AtomicInteger getSlicesDone() { return slicesDone; }
+    public AtomicInteger getSlicesSkipped() { return slicesSkipped; }
+    public AtomicInteger getSlicesFailed() { return slicesFailed; }
+    public AtomicLong getPlaylistsWritten() { return playlistsWritten; }
+    public AtomicLong getRowsWritten() { return rowsWritten; }
+    public AtomicLong getBytesRead() { return bytesRead; }
+    public AtomicLong getBytesTotal() { return bytesTotal; }
+    public AtomicLong getBytesSkipped() { return bytesSkipped; }
+}
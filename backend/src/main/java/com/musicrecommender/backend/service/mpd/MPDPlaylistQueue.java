@@ -0,0 +1,91 @@
+package com.musicrecommender.backend.service.mpd;
+
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded hand-off between the thread parsing a slice and the thread writing it.
+ * The parser blocks once the queue is full, so a slow database throttles parsing
+ * instead of letting parsed playlists pile up on the heap.
+ */
+public class MPDPlaylistQueue {
+    private static final MPDPlaylist END = new MPDPlaylist();
+
+    private final BlockingQueue<MPDPlaylist> queue;
+    private volatile boolean aborted;
+    private volatile Throwable failure;
+
+    public MPDPlaylistQueue(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Called by the parser. Blocks while the queue is full.
+     * @throws CancellationException if the writer gave up on this slice
+     */
+    public void put(MPDPlaylist playlist) {
+        try {
+            while (!queue.offer(playlist, 100, TimeUnit.MILLISECONDS)) {
+                if (aborted) {
+                    throw new CancellationException("Writer aborted slice import");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while queueing playlist");
+        }
+    }
+
+    /**
+     * Called by the parser once the whole slice has been queued.
+     */
+    public void close() {
+        offerEnd();
+    }
+
+    /**
+     * Called by the parser if reading the slice failed. The writer sees the failure on its next take.
+     */
+    public void fail(Throwable cause) {
+        failure = cause;
+        offerEnd();
+    }
+
+    /**
+     * Called by the writer to stop the parser early, e.g. after a database error.
+     */
+    public void abort() {
+        aborted = true;
+        queue.clear();
+    }
+
+    /**
+     * Called by the writer.
+     * @return The next playlist, or null once the slice has been fully read
+     * @throws MPDImportException if the parser failed
+     */
+    public MPDPlaylist take() throws InterruptedException {
+        MPDPlaylist next = queue.take();
+        if (next == END) {
+            if (failure != null) {
+                throw new MPDImportException("Failed to read slice", failure);
+            }
+            return null;
+        }
+        return next;
+    }
+
+    private void offerEnd() {
+        try {
+            while (!aborted && !queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                // Writer is still draining
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.musicrecommender.backend.service.mpd;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The MPD slices found under a path, which may be a directory of slices, a single slice, or a zip
+ * archive such as the one the MPD is distributed as. Directories are scanned for mpd.slice*.json,
+ * mpd.slice*.json.gz and *.zip files. Zip archives stay open until the catalog is closed, so the
+ * sources must not be read after that.
+ *
+ * When the same slice is present more than once, for example both as JSON and gzipped, only the
+ * first one found is kept, preferring plain JSON, then gzip, then zip entries.
+ */
+public class MPDSliceCatalog implements Closeable {
+    private final List<MPDSliceSource> sources;
+    private final List<ZipFile> archives;
+
+    private MPDSliceCatalog(List<MPDSliceSource> sources, List<ZipFile> archives) {
+        this.sources = sources;
+        this.archives = archives;
+    }
+
+    /**
+     * Lists the slices under the path. A path with no slices gives an empty catalog.
+     * @throws IOException if a zip archive cannot be opened
+     */
+    public static MPDSliceCatalog open(File path) throws IOException {
+        List<File> slices = new ArrayList<>();
+        List<File> zips = new ArrayList<>();
+        File[] files = path.isDirectory() ? path.listFiles() : new File[] {path};
+        if (files != null) {
+            for (File file : files) {
+                if (!file.isFile()) {
+                    continue;
+                }
+                if (MPDSliceSource.isSliceName(file.getName())) {
+                    slices.add(file);
+                } else if (file.getName().endsWith(".zip")) {
+                    zips.add(file);
+                }
+            }
+        }
+        // Plain JSON sorts before its .gz twin
+        slices.sort(Comparator.comparing(File::getName));
+        zips.sort(Comparator.comparing(File::getName));
+
+        Map<String, MPDSliceSource> byName = new LinkedHashMap<>();
+        for (File file : slices) {
+            MPDSliceSource source = MPDSliceSource.forFile(file);
+            byName.putIfAbsent(source.getName(), source);
+        }
+        List<ZipFile> archives = new ArrayList<>(zips.size());
+        try {
+            for (File zip : zips) {
+                ZipFile archive = new ZipFile(zip);
+                archives.add(archive);
+                Enumeration<? extends ZipEntry> entries = archive.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    String entryName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                    if (!entry.isDirectory() && entryName.startsWith("mpd.slice") && entryName.endsWith(".json")) {
+                        byName.putIfAbsent(entryName, MPDSliceSource.forZipEntry(archive, entry));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            closeAll(archives);
+            throw e;
+        }
+        return new MPDSliceCatalog(new ArrayList<>(byName.values()), archives);
+    }
+
+    /**
+     * Returns the slices, ordered by slice name within each kind of storage.
+     */
+    public List<MPDSliceSource> getSources() {
+        return sources;
+    }
+
+    public boolean isEmpty() {
+        return sources.isEmpty();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeAll(archives);
+    }
+
+    private static void closeAll(List<ZipFile> archives) throws IOException {
+        IOException failure = null;
+        for (ZipFile archive : archives) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
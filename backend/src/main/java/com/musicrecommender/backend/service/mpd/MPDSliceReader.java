@@ -0,0 +1,131 @@
+package com.musicrecommender.backend.service.mpd;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.entity.mpd.MPDTrack;
+
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams the playlists of an MPD slice file one at a time using Jackson's token API,
+ * so only the playlist currently being read is ever held in memory.
+ */
+@Component
+public class MPDSliceReader {
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Reads every playlist in the slice file and hands it to the consumer as soon as it is complete.
+     * @param sliceFile The mpd.slice JSON file
+     * @param consumer Receives each playlist, with its tracks in playlist order
+     * @return The number of playlists read
+     */
+    public long read(File sliceFile, Consumer<MPDPlaylist> consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(sliceFile)) {
+            return read(parser, 0, consumer);
+        }
+    }
+
+    /**
+     * Overloaded version that reads from an already opened stream. The stream is not closed.
+     */
+    public long read(InputStream in, Consumer<MPDPlaylist> consumer) throws IOException {
+        return read(in, 0, consumer);
+    }
+
+    /**
+     * Overloaded version that skips the first playlists of the slice without materializing them,
+     * used to resume a slice that was partially imported.
+     * @param skipPlaylists How many playlists at the start of the slice to skip
+     * @return The number of playlists in the slice, including skipped ones
+     */
+    public long read(InputStream in, long skipPlaylists, Consumer<MPDPlaylist> consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return read(parser, skipPlaylists, consumer);
+        }
+    }
+
+    private long read(JsonParser parser, long skipPlaylists, Consumer<MPDPlaylist> consumer) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected MPD slice to start with an object");
+        }
+        long count = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("playlists".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    if (count < skipPlaylists) {
+                        parser.skipChildren();
+                    } else {
+                        consumer.accept(readPlaylist(parser));
+                    }
+                    count++;
+                }
+            } else {
+                // "info" and anything else at the top level is not needed for the import
+                parser.skipChildren();
+            }
+        }
+        return count;
+    }
+
+    private MPDPlaylist readPlaylist(JsonParser parser) throws IOException {
+        MPDPlaylist playlist = new MPDPlaylist();
+        List<MPDTrack> tracks = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "pid" -> playlist.setId(parser.getValueAsLong());
+                case "name" -> playlist.setName(value == JsonToken.VALUE_NULL ? null : parser.getText());
+                case "tracks" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            tracks.add(readTrack(parser));
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        playlist.setTracks(tracks);
+        return playlist;
+    }
+
+    private MPDTrack readTrack(JsonParser parser) throws IOException {
+        MPDTrack track = new MPDTrack();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "track_uri" -> track.setSpotifyId(idFromUri(parser, value));
+                case "artist_uri" -> track.setArtistId(idFromUri(parser, value));
+                case "album_uri" -> track.setAlbumId(idFromUri(parser, value));
+                default -> parser.skipChildren();
+            }
+        }
+        return track;
+    }
+
+    private static String idFromUri(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        String uri = parser.getText();
+        return uri.substring(uri.lastIndexOf(':') + 1);
+    }
+}
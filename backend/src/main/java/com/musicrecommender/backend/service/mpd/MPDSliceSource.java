@@ -0,0 +1,191 @@
+package com.musicrecommender.backend.service.mpd;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * One MPD slice, wherever it is stored: a plain mpd.slice JSON file, a gzipped one, or an entry of a
+ * zip archive. {@link #openStream()} always yields the uncompressed JSON, decompressed as it is read,
+ * so the slice is never expanded on disk.
+ *
+ * The name is the slice's plain JSON file name, independent of how it is packaged, and is what the
+ * import ledger keys on.
+ */
+public abstract class MPDSliceSource {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final String name;
+
+    protected MPDSliceSource(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns true if the file name looks like an MPD slice, compressed or not.
+     */
+    public static boolean isSliceName(String fileName) {
+        return fileName.startsWith("mpd.slice") && (fileName.endsWith(".json") || fileName.endsWith(".json.gz"));
+    }
+
+    public static MPDSliceSource forFile(File file) {
+        return file.getName().endsWith(".gz") ? new GzipFile(file) : new JsonFile(file);
+    }
+
+    public static MPDSliceSource forZipEntry(ZipFile archive, ZipEntry entry) {
+        return new ZipFileEntry(archive, entry);
+    }
+
+    /**
+     * The slice's JSON file name, e.g. mpd.slice.0-999.json.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Where the slice is read from, for logging.
+     */
+    public abstract String getLocation();
+
+    /**
+     * The uncompressed size of the slice in bytes, or -1 if it is not known up front.
+     */
+    public abstract long getSize();
+
+    public abstract long getLastModified();
+
+    /**
+     * Opens a new stream of the uncompressed JSON. Safe to call from several threads at once.
+     */
+    public abstract InputStream openStream() throws IOException;
+
+    @Override
+    public String toString() {
+        return getLocation();
+    }
+
+    private static class JsonFile extends MPDSliceSource {
+        private final File file;
+
+        JsonFile(File file) {
+            super(file.getName());
+            this.file = file;
+        }
+
+        @Override
+        public String getLocation() {
+            return file.getAbsolutePath();
+        }
+
+        @Override
+        public long getSize() {
+            return file.length();
+        }
+
+        @Override
+        public long getLastModified() {
+            return file.lastModified();
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return new FileInputStream(file);
+        }
+    }
+
+    private static class GzipFile extends MPDSliceSource {
+        private final File file;
+        private long size = -2;
+
+        GzipFile(File file) {
+            super(file.getName().substring(0, file.getName().length() - ".gz".length()));
+            this.file = file;
+        }
+
+        @Override
+        public String getLocation() {
+            return file.getAbsolutePath();
+        }
+
+        @Override
+        public synchronized long getSize() {
+            if (size == -2) {
+                size = readUncompressedSize();
+            }
+            return size;
+        }
+
+        /**
+         * The gzip trailer ends with the uncompressed size modulo 2^32, which is exact for a
+         * single-member file the size of an MPD slice.
+         */
+        private long readUncompressedSize() {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                if (raf.length() < 18) {
+                    return -1;
+                }
+                raf.seek(raf.length() - 4);
+                byte[] trailer = new byte[4];
+                raf.readFully(trailer);
+                return (trailer[0] & 0xFFL) | (trailer[1] & 0xFFL) << 8 | (trailer[2] & 0xFFL) << 16 | (trailer[3] & 0xFFL) << 24;
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public long getLastModified() {
+            return file.lastModified();
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            InputStream in = new FileInputStream(file);
+            try {
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+    }
+
+    private static class ZipFileEntry extends MPDSliceSource {
+        private final ZipFile archive;
+        private final ZipEntry entry;
+
+        ZipFileEntry(ZipFile archive, ZipEntry entry) {
+            super(entry.getName().substring(entry.getName().lastIndexOf('/') + 1));
+            this.archive = archive;
+            this.entry = entry;
+        }
+
+        @Override
+        public String getLocation() {
+            return archive.getName() + "!/" + entry.getName();
+        }
+
+        @Override
+        public long getSize() {
+            return entry.getSize();
+        }
+
+        @Override
+        public long getLastModified() {
+            return entry.getTime();
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            // Each stream has its own inflater, so entries of one archive can be decompressed in parallel
+            return new BufferedInputStream(archive.getInputStream(entry), BUFFER_SIZE);
+        }
+    }
+}
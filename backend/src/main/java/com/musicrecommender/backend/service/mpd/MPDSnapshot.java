@@ -0,0 +1,575 @@
+package com.musicrecommender.backend.service.mpd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only view of an MPD snapshot file, the playlist-track graph in a compact binary layout
+ * that is memory-mapped instead of loaded, so opening one costs a few header reads and
+ * the data itself lives in the page cache rather than on the heap.
+ *
+ * Layout, all little-endian. A fixed header is followed by a section table of
+ * (offset, length) pairs, one per {@link Section}:
+ * <pre>
+ *   0  long  magic "MPDSNAPS"
+ *   8  int   format version
+ *  12  int   section count
+ *  16  long  created at (epoch millis)
+ *  24  int   track count      28  int  artist count
+ *  32  int   album count      36  int  playlist count
+ *  40  long  edge count
+ *  48  long  lineage
+ *  64        section table
+ * </pre>
+ * The lineage is a random id a snapshot built from scratch gets and a snapshot appended to it keeps. A
+ * snapshot numbers the tracks and playlists of every earlier snapshot of its lineage the same way, so
+ * something built from one of those stays valid for the ordinals it covers, see {@link #startsWith}.
+ * Track, artist and album IDs are stored as dictionaries (int offsets into one ASCII byte blob)
+ * indexed by ordinal. Ordinals follow the database's dictionary ordinals with gaps closed up, and
+ * each dictionary's *_ORDER section lists its ordinals sorted by ID, so lookups by ID are a binary
+ * search. The playlists form a CSR
+ * matrix: playlist i holds the track ordinals EDGES[PLAYLIST_OFFSETS[i] .. PLAYLIST_OFFSETS[i + 1]).
+ * PLAYLIST_ORDER lists playlist indexes sorted by pid for lookups by pid.
+ *
+ * Playlists appended to a snapshot are written to a segment file of their own instead of a copy of the
+ * whole snapshot, and {@link #openAppended} stacks it on the snapshot it continues. A segment has the same
+ * sections, holding only the tracks, artists, albums and playlists it adds; its ordinals, offsets and
+ * sort orders count from its first entry, while the ordinals it stores (track artists and albums, edges)
+ * are those of the whole snapshot. Its header is longer:
+ * <pre>
+ *   0  long  magic "MPDDELTA"
+ *   8 .. 55  as above, the counts being those of the whole snapshot including the segment
+ *  56  long  created at of the snapshot it continues (epoch millis)
+ *  64  int   track count of that snapshot      68  int  its artist count
+ *  72  int   its album count                   76  int  its playlist count
+ *  80  long  its edge count
+ *  96        section table
+ * </pre>
+ *
+ * Instances are safe to share between threads; only absolute buffer reads are used.
+ */
+public class MPDSnapshot {
+    static final long MAGIC = 0x5350414E5344504DL; // "MPDSNAPS" read little-endian
+    static final long SEGMENT_MAGIC = 0x41544C454444504DL; // "MPDDELTA" read little-endian
+    public static final int FORMAT_VERSION = 3;
+    static final int HEADER_SIZE = 64;
+    static final int SEGMENT_HEADER_SIZE = 96;
+
+    enum Section {
+        TRACK_ID_OFFSETS,
+        TRACK_ID_BYTES,
+        TRACK_ID_ORDER,
+        ARTIST_ID_OFFSETS,
+        ARTIST_ID_BYTES,
+        ARTIST_ID_ORDER,
+        ALBUM_ID_OFFSETS,
+        ALBUM_ID_BYTES,
+        ALBUM_ID_ORDER,
+        TRACK_ARTISTS,
+        TRACK_ALBUMS,
+        PLAYLIST_IDS,
+        PLAYLIST_OFFSETS,
+        PLAYLIST_ORDER,
+        EDGES
+    }
+
+    // The full snapshot file first, then the appended segments in order
+    private final Segment[] segments;
+    private final Segment base;
+    private final Segment last;
+
+    private MPDSnapshot(Segment[] segments) {
+        this.segments = segments;
+        this.base = segments[0];
+        this.last = segments[segments.length - 1];
+    }
+
+    /**
+     * Maps the snapshot at the given path. The file must not be modified while it is open;
+     * the snapshot service writes every new snapshot to a file of its own.
+     */
+    public static MPDSnapshot open(Path path) throws IOException {
+        return new MPDSnapshot(new Segment[] {Segment.open(path, null)});
+    }
+
+    /**
+     * Maps a segment written by {@link MPDSnapshotWriter#writeAppended} and returns the parent snapshot with
+     * the segment's playlists appended. The parent's mappings are shared, not mapped again.
+     */
+    public static MPDSnapshot openAppended(MPDSnapshot parent, Path path) throws IOException {
+        Segment[] segments = Arrays.copyOf(parent.segments, parent.segments.length + 1);
+        segments[parent.segments.length] = Segment.open(path, parent);
+        return new MPDSnapshot(segments);
+    }
+
+    /**
+     * The snapshot made of the first count files of this one, that this one was appended to.
+     */
+    public MPDSnapshot firstSegments(int count) {
+        if (count < 1 || count > segments.length) {
+            throw new IllegalArgumentException("Snapshot has " + segments.length + " segments, not " + count);
+        }
+        return count == segments.length ? this : new MPDSnapshot(Arrays.copyOf(segments, count));
+    }
+
+    /**
+     * Touches every page of the snapshot so the first queries do not pay for page faults.
+     */
+    public void preload() {
+        for (Segment segment : segments) {
+            for (MappedByteBuffer section : segment.sections) {
+                section.load();
+            }
+        }
+    }
+
+    /**
+     * Returns true if this snapshot is, or was appended to, the snapshot of the given lineage with the given
+     * track and playlist counts, so the ordinals below those counts mean the same tracks and playlists.
+     */
+    public boolean startsWith(long lineage, int trackCount, int playlistCount) {
+        return last.lineage == lineage && trackCount <= getTrackCount() && playlistCount <= getPlaylistCount();
+    }
+
+    /**
+     * Returns true if the other snapshot holds the same data as this one, possibly in fewer or more files,
+     * as after its segments were merged.
+     */
+    public boolean isSameAs(MPDSnapshot other) {
+        return other == this || (other.last.lineage == last.lineage && other.last.createdAt.equals(last.createdAt)
+            && other.getTrackCount() == getTrackCount() && other.getPlaylistCount() == getPlaylistCount()
+            && other.getEdgeCount() == getEdgeCount());
+    }
+
+    /**
+     * The file of the newest segment, the only file of a snapshot that was not appended to.
+     */
+    public Path getPath() { return last.path; }
+    public List<Path> getPaths() { return Arrays.stream(segments).map(segment -> segment.path).toList(); }
+    public int getSegmentCount() { return segments.length; }
+    public int getVersion() { return base.version; }
+    public Instant getCreatedAt() { return last.createdAt; }
+    public long getLineage() { return last.lineage; }
+    public long getSizeBytes() { return Arrays.stream(segments).mapToLong(segment -> segment.sizeBytes).sum(); }
+    public int getTrackCount() { return last.trackEnd; }
+    public int getArtistCount() { return last.artistEnd; }
+    public int getAlbumCount() { return last.albumEnd; }
+    public int getPlaylistCount() { return last.playlistEnd; }
+    public long getEdgeCount() { return last.edgeEnd; }
+
+    /**
+     * The number of edges the segment adds, or holds for the first one.
+     */
+    public long getSegmentEdgeCount(int segment) {
+        return segments[segment].edgeEnd - segments[segment].firstEdge;
+    }
+
+    public String getTrackId(int trackOrdinal) {
+        Segment segment = trackSegment(trackOrdinal);
+        return segment.tracks.get(trackOrdinal - segment.firstTrack);
+    }
+
+    /**
+     * @return The track's ordinal, or -1 if the snapshot does not contain it
+     */
+    public int getTrackOrdinal(String trackId) {
+        for (Segment segment : segments) {
+            int found = segment.tracks.find(trackId);
+            if (found >= 0) {
+                return segment.firstTrack + found;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The ordinal of the track's artist, or -1 if the artist is unknown
+     */
+    public int getArtistOrdinal(int trackOrdinal) {
+        Segment segment = trackSegment(trackOrdinal);
+        return segment.trackArtists.get(trackOrdinal - segment.firstTrack);
+    }
+
+    /**
+     * @return The ordinal of the track's album, or -1 if the album is unknown
+     */
+    public int getAlbumOrdinal(int trackOrdinal) {
+        Segment segment = trackSegment(trackOrdinal);
+        return segment.trackAlbums.get(trackOrdinal - segment.firstTrack);
+    }
+
+    /**
+     * @return The artist's ordinal, or -1 if the snapshot does not contain it
+     */
+    public int findArtistOrdinal(String artistId) {
+        for (Segment segment : segments) {
+            int found = segment.artists.find(artistId);
+            if (found >= 0) {
+                return segment.firstArtist + found;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The album's ordinal, or -1 if the snapshot does not contain it
+     */
+    public int findAlbumOrdinal(String albumId) {
+        for (Segment segment : segments) {
+            int found = segment.albums.find(albumId);
+            if (found >= 0) {
+                return segment.firstAlbum + found;
+            }
+        }
+        return -1;
+    }
+
+    public String getArtistId(int artistOrdinal) {
+        if (artistOrdinal < 0) {
+            return null;
+        }
+        Segment segment = base;
+        for (int i = segments.length - 1; i > 0 && artistOrdinal >= base.artistEnd; i--) {
+            if (artistOrdinal >= segments[i].firstArtist) {
+                segment = segments[i];
+                break;
+            }
+        }
+        return segment.artists.get(artistOrdinal - segment.firstArtist);
+    }
+
+    public String getAlbumId(int albumOrdinal) {
+        if (albumOrdinal < 0) {
+            return null;
+        }
+        Segment segment = base;
+        for (int i = segments.length - 1; i > 0 && albumOrdinal >= base.albumEnd; i--) {
+            if (albumOrdinal >= segments[i].firstAlbum) {
+                segment = segments[i];
+                break;
+            }
+        }
+        return segment.albums.get(albumOrdinal - segment.firstAlbum);
+    }
+
+    public long getPlaylistId(int playlistIndex) {
+        Segment segment = playlistSegment(playlistIndex);
+        return segment.playlistIds.get(playlistIndex - segment.firstPlaylist);
+    }
+
+    /**
+     * @return The index of the playlist with the given pid, or -1 if the snapshot does not contain it
+     */
+    public int getPlaylistIndex(long pid) {
+        for (Segment segment : segments) {
+            int found = segment.findPlaylist(pid);
+            if (found >= 0) {
+                return segment.firstPlaylist + found;
+            }
+        }
+        return -1;
+    }
+
+    public int getPlaylistLength(int playlistIndex) {
+        Segment segment = playlistSegment(playlistIndex);
+        int local = playlistIndex - segment.firstPlaylist;
+        return segment.playlistOffsets.get(local + 1) - segment.playlistOffsets.get(local);
+    }
+
+    /**
+     * Start of the playlist's track ordinals in {@link #getEdge(int)} positions.
+     */
+    public int getPlaylistStart(int playlistIndex) {
+        Segment segment = playlistSegment(playlistIndex);
+        return segment.firstEdge + segment.playlistOffsets.get(playlistIndex - segment.firstPlaylist);
+    }
+
+    /**
+     * The track ordinal stored at the given position of the edge array.
+     */
+    public int getEdge(int position) {
+        if (position < base.edgeEnd) {
+            return base.edges.get(position);
+        }
+        Segment segment = last;
+        for (int i = segments.length - 1; position < segment.firstEdge; ) {
+            segment = segments[--i];
+        }
+        return segment.edges.get(position - segment.firstEdge);
+    }
+
+    /**
+     * Copies the playlist's track ordinals, in playlist order.
+     */
+    public int[] getPlaylistTracks(int playlistIndex) {
+        Segment segment = playlistSegment(playlistIndex);
+        int local = playlistIndex - segment.firstPlaylist;
+        int start = segment.playlistOffsets.get(local);
+        int[] tracks = new int[segment.playlistOffsets.get(local + 1) - start];
+        segment.edges.get(start, tracks);
+        return tracks;
+    }
+
+    /**
+     * The ordinal of the track of the first file whose ID sorts at the given rank, for merging new IDs into
+     * the sort order.
+     */
+    int getTrackOrder(int rank) {
+        return base.tracks.order.get(rank);
+    }
+
+    int getArtistOrder(int rank) {
+        return base.artists.order.get(rank);
+    }
+
+    int getAlbumOrder(int rank) {
+        return base.albums.order.get(rank);
+    }
+
+    private Segment trackSegment(int trackOrdinal) {
+        if (trackOrdinal < base.trackEnd) {
+            return base;
+        }
+        // Scanning from the newest skips segments that added no tracks, which share the next one's first ordinal
+        for (int i = segments.length - 1; i > 0; i--) {
+            if (trackOrdinal >= segments[i].firstTrack) {
+                return segments[i];
+            }
+        }
+        return base;
+    }
+
+    private Segment playlistSegment(int playlistIndex) {
+        if (playlistIndex < base.playlistEnd) {
+            return base;
+        }
+        for (int i = segments.length - 1; i > 0; i--) {
+            if (playlistIndex >= segments[i].firstPlaylist) {
+                return segments[i];
+            }
+        }
+        return base;
+    }
+
+    /**
+     * One file of a snapshot: the whole snapshot, or the playlists and IDs a segment appended to it.
+     */
+    private static final class Segment {
+        private final Path path;
+        private final int version;
+        private final Instant createdAt;
+        private final long lineage;
+        private final long sizeBytes;
+        private final int firstTrack;
+        private final int firstArtist;
+        private final int firstAlbum;
+        private final int firstPlaylist;
+        private final int firstEdge;
+        private final int trackEnd;
+        private final int artistEnd;
+        private final int albumEnd;
+        private final int playlistEnd;
+        private final int edgeEnd;
+        private final Dictionary tracks;
+        private final Dictionary artists;
+        private final Dictionary albums;
+        private final IntBuffer trackArtists;
+        private final IntBuffer trackAlbums;
+        private final LongBuffer playlistIds;
+        private final IntBuffer playlistOffsets;
+        private final IntBuffer playlistOrder;
+        private final IntBuffer edges;
+        private final MappedByteBuffer[] sections;
+
+        static Segment open(Path path, MPDSnapshot parent) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                // Mappings stay valid after the channel is closed
+                return new Segment(path, channel, parent);
+            }
+        }
+
+        private Segment(Path path, FileChannel channel, MPDSnapshot parent) throws IOException {
+            this.path = path;
+            this.sizeBytes = channel.size();
+            int headerSize = parent == null ? HEADER_SIZE : SEGMENT_HEADER_SIZE;
+            if (sizeBytes < headerSize) {
+                throw new MPDImportException("Not an MPD snapshot, file is too short: " + path);
+            }
+            ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            if (header.getLong(0) != (parent == null ? MAGIC : SEGMENT_MAGIC)) {
+                throw new MPDImportException((parent == null ? "Not an MPD snapshot: " : "Not an MPD snapshot segment: ") + path);
+            }
+            this.version = header.getInt(8);
+            if (version != FORMAT_VERSION) {
+                throw new MPDImportException("Unsupported MPD snapshot version " + version + " in " + path
+                    + ", expected " + FORMAT_VERSION + ". Rebuild the snapshot.");
+            }
+            int sectionCount = header.getInt(12);
+            if (sectionCount != Section.values().length) {
+                throw new MPDImportException("Corrupt MPD snapshot section table in " + path);
+            }
+            this.createdAt = Instant.ofEpochMilli(header.getLong(16));
+            this.trackEnd = header.getInt(24);
+            this.artistEnd = header.getInt(28);
+            this.albumEnd = header.getInt(32);
+            this.playlistEnd = header.getInt(36);
+            long edgeCount = header.getLong(40);
+            this.lineage = header.getLong(48);
+            if (parent == null) {
+                this.firstTrack = 0;
+                this.firstArtist = 0;
+                this.firstAlbum = 0;
+                this.firstPlaylist = 0;
+                this.firstEdge = 0;
+            } else {
+                if (lineage != parent.getLineage() || header.getLong(56) != parent.getCreatedAt().toEpochMilli()
+                        || header.getInt(64) != parent.getTrackCount() || header.getInt(68) != parent.getArtistCount()
+                        || header.getInt(72) != parent.getAlbumCount() || header.getInt(76) != parent.getPlaylistCount()
+                        || header.getLong(80) != parent.getEdgeCount()) {
+                    throw new MPDImportException("MPD snapshot segment " + path + " does not continue the snapshot "
+                        + parent.getPath() + ". Rebuild the snapshot.");
+                }
+                this.firstTrack = parent.getTrackCount();
+                this.firstArtist = parent.getArtistCount();
+                this.firstAlbum = parent.getAlbumCount();
+                this.firstPlaylist = parent.getPlaylistCount();
+                this.firstEdge = (int) parent.getEdgeCount();
+            }
+            if (edgeCount > Integer.MAX_VALUE) {
+                throw new MPDImportException("Corrupt MPD snapshot edge count in " + path);
+            }
+            this.edgeEnd = (int) edgeCount;
+
+            ByteBuffer table = ByteBuffer.allocate(sectionCount * 16).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(table, headerSize);
+            this.sections = new MappedByteBuffer[sectionCount];
+            for (int i = 0; i < sectionCount; i++) {
+                long offset = table.getLong(i * 16);
+                long length = table.getLong(i * 16 + 8);
+                if (offset < 0 || length < 0 || offset + length > sizeBytes) {
+                    throw new MPDImportException("Corrupt MPD snapshot section " + Section.values()[i] + " in " + path);
+                }
+                sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                sections[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            int trackCount = trackEnd - firstTrack;
+            int playlistCount = playlistEnd - firstPlaylist;
+            this.tracks = new Dictionary(trackCount, ints(Section.TRACK_ID_OFFSETS),
+                sections[Section.TRACK_ID_BYTES.ordinal()], ints(Section.TRACK_ID_ORDER));
+            this.artists = new Dictionary(artistEnd - firstArtist, ints(Section.ARTIST_ID_OFFSETS),
+                sections[Section.ARTIST_ID_BYTES.ordinal()], ints(Section.ARTIST_ID_ORDER));
+            this.albums = new Dictionary(albumEnd - firstAlbum, ints(Section.ALBUM_ID_OFFSETS),
+                sections[Section.ALBUM_ID_BYTES.ordinal()], ints(Section.ALBUM_ID_ORDER));
+            this.trackArtists = ints(Section.TRACK_ARTISTS);
+            this.trackAlbums = ints(Section.TRACK_ALBUMS);
+            this.playlistIds = sections[Section.PLAYLIST_IDS.ordinal()].asLongBuffer();
+            this.playlistOffsets = ints(Section.PLAYLIST_OFFSETS);
+            this.playlistOrder = ints(Section.PLAYLIST_ORDER);
+            this.edges = ints(Section.EDGES);
+            if (playlistOffsets.limit() != playlistCount + 1 || edges.limit() != edgeEnd - firstEdge
+                    || trackArtists.limit() != trackCount || playlistIds.limit() != playlistCount) {
+                throw new MPDImportException("MPD snapshot section sizes do not match its header: " + path);
+            }
+        }
+
+        private IntBuffer ints(Section section) {
+            return sections[section.ordinal()].asIntBuffer();
+        }
+
+        /**
+         * @return The index of the playlist with the given pid within this segment, or -1
+         */
+        int findPlaylist(long pid) {
+            int low = 0;
+            int high = playlistEnd - firstPlaylist - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int index = playlistOrder.get(mid);
+                long midPid = playlistIds.get(index);
+                if (midPid < pid) {
+                    low = mid + 1;
+                } else if (midPid > pid) {
+                    high = mid - 1;
+                } else {
+                    return index;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * String dictionary. Entry i is the bytes between offsets[i] and offsets[i + 1]; order lists the entries sorted.
+     */
+    private static final class Dictionary {
+        private final int size;
+        private final IntBuffer offsets;
+        private final ByteBuffer bytes;
+        private final IntBuffer order;
+
+        private Dictionary(int size, IntBuffer offsets, ByteBuffer bytes, IntBuffer order) {
+            if (offsets.limit() != size + 1 || order.limit() != size) {
+                throw new MPDImportException("MPD snapshot dictionary does not match its header");
+            }
+            this.size = size;
+            this.offsets = offsets;
+            this.bytes = bytes;
+            this.order = order;
+        }
+
+        String get(int ordinal) {
+            int start = offsets.get(ordinal);
+            byte[] value = new byte[offsets.get(ordinal + 1) - start];
+            bytes.get(start, value);
+            return new String(value, StandardCharsets.ISO_8859_1);
+        }
+
+        int find(String id) {
+            if (id == null) {
+                return -1;
+            }
+            byte[] key = id.getBytes(StandardCharsets.ISO_8859_1);
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int ordinal = order.get(mid);
+                int cmp = compare(ordinal, key);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return ordinal;
+                }
+            }
+            return -1;
+        }
+
+        private int compare(int ordinal, byte[] key) {
+            int start = offsets.get(ordinal);
+            int length = offsets.get(ordinal + 1) - start;
+            int common = Math.min(length, key.length);
+            for (int i = 0; i < common; i++) {
+                int cmp = Integer.compare(bytes.get(start + i) & 0xff, key[i] & 0xff);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return Integer.compare(length, key.length);
+        }
+    }
+}
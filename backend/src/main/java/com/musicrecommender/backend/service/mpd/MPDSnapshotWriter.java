@@ -0,0 +1,623 @@
+package com.musicrecommender.backend.service.mpd;
+
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.entity.mpd.MPDTrack;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Writes {@link MPDSnapshot} files, either from the mpd_* tables or straight from slice files.
+ * Only the ID dictionaries and per-playlist offsets are held in memory; edges are streamed to disk.
+ */
+@Component
+public class MPDSnapshotWriter {
+    private static final int FETCH_SIZE = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MPDSliceReader sliceReader;
+
+    /**
+     * Writes a snapshot of everything currently in the mpd_dict_* tables, mpd_playlists and mpd_playlist_edges.
+     * Snapshot ordinals are the database ordinals with any gaps closed up, so edges are copied without
+     * looking at a single Spotify ID.
+     */
+    public void writeFromDatabase(Path target) throws IOException {
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(FETCH_SIZE);
+
+        OrdinalColumn artists = new OrdinalColumn();
+        streaming.query("SELECT ordinal, spotify_id FROM mpd_dict_artists ORDER BY ordinal", rs -> {
+            artists.add(rs.getInt(1), rs.getString(2));
+        });
+        OrdinalColumn albums = new OrdinalColumn();
+        streaming.query("SELECT ordinal, spotify_id FROM mpd_dict_albums ORDER BY ordinal", rs -> {
+            albums.add(rs.getInt(1), rs.getString(2));
+        });
+        int[] artistRemap = artists.remap();
+        int[] albumRemap = albums.remap();
+
+        OrdinalColumn tracks = new OrdinalColumn();
+        IntList trackArtists = new IntList();
+        IntList trackAlbums = new IntList();
+        streaming.query("SELECT ordinal, spotify_id, artist_ordinal, album_ordinal FROM mpd_dict_tracks ORDER BY ordinal", rs -> {
+            tracks.add(rs.getInt(1), rs.getString(2));
+            int artist = rs.getInt(3);
+            trackArtists.add(rs.wasNull() ? -1 : artistRemap[artist]);
+            int album = rs.getInt(4);
+            trackAlbums.add(rs.wasNull() ? -1 : albumRemap[album]);
+        });
+        int[] trackRemap = tracks.remap();
+        TrackDictionary dictionary = new TrackDictionary(tracks.ids(), trackArtists.toArray(), trackAlbums.toArray(),
+            artists.ids(), albums.ids());
+
+        long[] playlistIds = streaming.queryForList("SELECT id FROM mpd_playlists ORDER BY id", Long.class)
+            .stream().mapToLong(Long::longValue).toArray();
+
+        try (Output out = new Output(target, newLineage(), System.currentTimeMillis(), null)) {
+            out.writeDictionary(dictionary);
+            out.beginSection(MPDSnapshot.Section.EDGES);
+            int[] cursor = {0};
+            streaming.query("SELECT playlist_id, track_ordinal FROM mpd_playlist_edges ORDER BY playlist_id, pos", rs -> {
+                long pid = rs.getLong(1);
+                // Playlists without tracks have no edges but still get an (empty) entry
+                while (cursor[0] < playlistIds.length && playlistIds[cursor[0]] <= pid) {
+                    out.beginPlaylist(playlistIds[cursor[0]++]);
+                }
+                out.addEdge(trackRemap[rs.getInt(2)]);
+            });
+            while (cursor[0] < playlistIds.length) {
+                out.beginPlaylist(playlistIds[cursor[0]++]);
+            }
+            out.finish();
+        }
+    }
+
+    /**
+     * Writes a snapshot straight from slice files, without going through the database. The slices are
+     * read twice: once to build the ID dictionaries and once to stream the edges. Ordinals are assigned
+     * in order of first appearance, the same way the import assigns them. Compressed slices are
+     * decompressed on each pass rather than expanded to disk.
+     */
+    public void writeFromSlices(List<MPDSliceSource> slices, Path target) throws IOException {
+        List<MPDSliceSource> ordered = new ArrayList<>(slices);
+        ordered.sort(Comparator.comparing(MPDSliceSource::getName));
+
+        Map<String, Integer> trackOrdinals = new HashMap<>();
+        Map<String, Integer> artistOrdinals = new LinkedHashMap<>();
+        Map<String, Integer> albumOrdinals = new LinkedHashMap<>();
+        List<String> trackIds = new ArrayList<>();
+        IntList trackArtists = new IntList();
+        IntList trackAlbums = new IntList();
+        for (MPDSliceSource slice : ordered) {
+            read(slice, playlist -> {
+                for (MPDTrack track : playlist.getTracks()) {
+                    if (trackOrdinals.putIfAbsent(track.getSpotifyId(), trackIds.size()) == null) {
+                        trackIds.add(track.getSpotifyId());
+                        trackArtists.add(ordinalOf(artistOrdinals, track.getArtistId()));
+                        trackAlbums.add(ordinalOf(albumOrdinals, track.getAlbumId()));
+                    }
+                }
+            });
+        }
+        TrackDictionary dictionary = new TrackDictionary(trackIds.toArray(new String[0]), trackArtists.toArray(),
+            trackAlbums.toArray(), artistOrdinals.keySet().toArray(new String[0]), albumOrdinals.keySet().toArray(new String[0]));
+        artistOrdinals.clear();
+        albumOrdinals.clear();
+
+        try (Output out = new Output(target, newLineage(), System.currentTimeMillis(), null)) {
+            out.writeDictionary(dictionary);
+            out.beginSection(MPDSnapshot.Section.EDGES);
+            for (MPDSliceSource slice : ordered) {
+                read(slice, playlist -> {
+                    out.beginPlaylist(playlist.getId());
+                    for (MPDTrack track : playlist.getTracks()) {
+                        out.addEdge(trackOrdinals.get(track.getSpotifyId()));
+                    }
+                });
+            }
+            out.finish();
+        }
+    }
+
+    /**
+     * Writes a segment appending the given playlists to the base snapshot, for
+     * {@link MPDSnapshot#openAppended} to stack on it. Only the new playlists and the tracks, artists and albums
+     * the base snapshot lacks are written, so the cost follows them rather than the base snapshot. Existing
+     * tracks, artists and albums keep their ordinals and new ones are numbered after them in order of first
+     * appearance, so models built from the base snapshot stay valid for its part of the new one and can be
+     * folded forward instead of rebuilt; the new snapshot keeps the base snapshot's lineage to say so.
+     * Playlists whose pid the base snapshot already holds, or that repeat an earlier pid in the list, are skipped.
+     * @return The number of playlists appended
+     */
+    public int writeAppended(MPDSnapshot base, List<MPDPlaylist> playlists, Path target) throws IOException {
+        List<MPDPlaylist> appended = new ArrayList<>(playlists.size());
+        Set<Long> pids = new HashSet<>();
+        for (MPDPlaylist playlist : playlists) {
+            if (base.getPlaylistIndex(playlist.getId()) < 0 && pids.add(playlist.getId())) {
+                appended.add(playlist);
+            }
+        }
+
+        List<String> trackIds = new ArrayList<>();
+        List<String> artistIds = new ArrayList<>();
+        List<String> albumIds = new ArrayList<>();
+        IntList trackArtists = new IntList();
+        IntList trackAlbums = new IntList();
+        Map<String, Integer> newTracks = new HashMap<>();
+        Map<String, Integer> newArtists = new HashMap<>();
+        Map<String, Integer> newAlbums = new HashMap<>();
+        for (MPDPlaylist playlist : appended) {
+            for (MPDTrack track : playlist.getTracks()) {
+                if (base.getTrackOrdinal(track.getSpotifyId()) < 0
+                        && newTracks.putIfAbsent(track.getSpotifyId(), base.getTrackCount() + trackIds.size()) == null) {
+                    trackIds.add(track.getSpotifyId());
+                    trackArtists.add(appendedOrdinalOf(base.findArtistOrdinal(track.getArtistId()), newArtists,
+                        artistIds, base.getArtistCount(), track.getArtistId()));
+                    trackAlbums.add(appendedOrdinalOf(base.findAlbumOrdinal(track.getAlbumId()), newAlbums,
+                        albumIds, base.getAlbumCount(), track.getAlbumId()));
+                }
+            }
+        }
+        TrackDictionary dictionary = new TrackDictionary(trackIds.toArray(new String[0]), trackArtists.toArray(),
+            trackAlbums.toArray(), artistIds.toArray(new String[0]), albumIds.toArray(new String[0]));
+
+        // Same lineage, but always a later creation time, so models that must match exactly tell the two apart
+        long createdAt = Math.max(System.currentTimeMillis(), base.getCreatedAt().toEpochMilli() + 1);
+        try (Output out = new Output(target, base.getLineage(), createdAt, base)) {
+            out.writeDictionary(dictionary);
+            out.beginSection(MPDSnapshot.Section.EDGES);
+            for (MPDPlaylist playlist : appended) {
+                out.beginPlaylist(playlist.getId());
+                for (MPDTrack track : playlist.getTracks()) {
+                    int ordinal = base.getTrackOrdinal(track.getSpotifyId());
+                    out.addEdge(ordinal >= 0 ? ordinal : newTracks.get(track.getSpotifyId()));
+                }
+            }
+            out.finish();
+        }
+        return appended.size();
+    }
+
+    /**
+     * Rewrites the segments of the snapshot from the given one on as a single file holding the same data
+     * under the same creation time and lineage: a full snapshot if from is 0, which costs a pass over the whole
+     * snapshot, otherwise a segment appended to the ones before it, which costs a pass over the merged ones.
+     */
+    public void writeMerged(MPDSnapshot snapshot, int from, Path target) throws IOException {
+        MPDSnapshot parent = from == 0 ? null : snapshot.firstSegments(from);
+        int firstTrack = parent == null ? 0 : parent.getTrackCount();
+        int firstArtist = parent == null ? 0 : parent.getArtistCount();
+        int firstAlbum = parent == null ? 0 : parent.getAlbumCount();
+        int firstPlaylist = parent == null ? 0 : parent.getPlaylistCount();
+
+        String[] tracks = new String[snapshot.getTrackCount() - firstTrack];
+        int[] trackArtists = new int[tracks.length];
+        int[] trackAlbums = new int[tracks.length];
+        for (int i = 0; i < tracks.length; i++) {
+            tracks[i] = snapshot.getTrackId(firstTrack + i);
+            trackArtists[i] = snapshot.getArtistOrdinal(firstTrack + i);
+            trackAlbums[i] = snapshot.getAlbumOrdinal(firstTrack + i);
+        }
+        String[] artists = new String[snapshot.getArtistCount() - firstArtist];
+        Arrays.setAll(artists, i -> snapshot.getArtistId(firstArtist + i));
+        String[] albums = new String[snapshot.getAlbumCount() - firstAlbum];
+        Arrays.setAll(albums, i -> snapshot.getAlbumId(firstAlbum + i));
+        TrackDictionary dictionary;
+        if (parent == null) {
+            // The first file's IDs are already sorted; only the appended ones are
+            MPDSnapshot first = snapshot.firstSegments(1);
+            dictionary = new TrackDictionary(tracks, trackArtists, trackAlbums, artists, albums,
+                appendedSortOrder(tracks, first.getTrackCount(), snapshot::getTrackOrder),
+                appendedSortOrder(artists, first.getArtistCount(), snapshot::getArtistOrder),
+                appendedSortOrder(albums, first.getAlbumCount(), snapshot::getAlbumOrder));
+        } else {
+            dictionary = new TrackDictionary(tracks, trackArtists, trackAlbums, artists, albums);
+        }
+
+        try (Output out = new Output(target, snapshot.getLineage(), snapshot.getCreatedAt().toEpochMilli(), parent)) {
+            out.writeDictionary(dictionary);
+            out.beginSection(MPDSnapshot.Section.EDGES);
+            for (int playlist = firstPlaylist; playlist < snapshot.getPlaylistCount(); playlist++) {
+                out.beginPlaylist(snapshot.getPlaylistId(playlist));
+                int end = snapshot.getPlaylistStart(playlist) + snapshot.getPlaylistLength(playlist);
+                for (int position = snapshot.getPlaylistStart(playlist); position < end; position++) {
+                    out.addEdge(snapshot.getEdge(position));
+                }
+            }
+            out.finish();
+        }
+    }
+
+    private static long newLineage() {
+        return UUID.randomUUID().getMostSignificantBits();
+    }
+
+    private void read(MPDSliceSource slice, Consumer<MPDPlaylist> consumer) throws IOException {
+        try (InputStream in = slice.openStream()) {
+            sliceReader.read(in, consumer);
+        }
+    }
+
+    private static int ordinalOf(Map<String, Integer> ordinals, String id) {
+        return id == null ? -1 : ordinals.computeIfAbsent(id, key -> ordinals.size());
+    }
+
+    /**
+     * The ordinal of an artist or album of an appended track: its base snapshot ordinal if it has one, otherwise
+     * the next ordinal after the base snapshot's and the ones already added, or -1 for a missing ID.
+     */
+    private static int appendedOrdinalOf(int baseOrdinal, Map<String, Integer> newOrdinals, List<String> ids,
+                                         int baseCount, String id) {
+        if (baseOrdinal >= 0 || id == null) {
+            return baseOrdinal;
+        }
+        return newOrdinals.computeIfAbsent(id, key -> {
+            ids.add(key);
+            return baseCount + ids.size() - 1;
+        });
+    }
+
+    /**
+     * The sort order of ids whose first baseCount entries are already ordered by baseOrder: only the new IDs
+     * are sorted, then the two runs are merged.
+     */
+    private static int[] appendedSortOrder(String[] ids, int baseCount, IntUnaryOperator baseOrder) {
+        int[] added = IntStream.range(baseCount, ids.length).boxed()
+            .sorted(Comparator.comparing(i -> ids[i]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+        int[] order = new int[ids.length];
+        int b = 0;
+        int a = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (a == added.length || (b < baseCount && ids[baseOrder.applyAsInt(b)].compareTo(ids[added[a]]) <= 0)) {
+                order[i] = baseOrder.applyAsInt(b++);
+            } else {
+                order[i] = added[a++];
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Track, artist and album IDs by ordinal, each with its sort order for lookups by ID.
+     */
+    private static final class TrackDictionary {
+        private final String[] trackIds;
+        private final String[] artistIds;
+        private final String[] albumIds;
+        private final int[] trackArtists;
+        private final int[] trackAlbums;
+        private final int[] trackOrder;
+        private final int[] artistOrder;
+        private final int[] albumOrder;
+
+        private TrackDictionary(String[] trackIds, int[] trackArtists, int[] trackAlbums,
+                                String[] artistIds, String[] albumIds) {
+            this(trackIds, trackArtists, trackAlbums, artistIds, albumIds,
+                sortOrder(trackIds), sortOrder(artistIds), sortOrder(albumIds));
+        }
+
+        private TrackDictionary(String[] trackIds, int[] trackArtists, int[] trackAlbums, String[] artistIds,
+                                String[] albumIds, int[] trackOrder, int[] artistOrder, int[] albumOrder) {
+            this.trackIds = trackIds;
+            this.trackArtists = trackArtists;
+            this.trackAlbums = trackAlbums;
+            this.artistIds = artistIds;
+            this.albumIds = albumIds;
+            this.trackOrder = trackOrder;
+            this.artistOrder = artistOrder;
+            this.albumOrder = albumOrder;
+        }
+
+        static int[] sortOrder(String[] ids) {
+            return IntStream.range(0, ids.length).boxed()
+                .sorted(Comparator.comparing(i -> ids[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        }
+    }
+
+    /**
+     * (ordinal, Spotify ID) rows read in ordinal order, compacted to dense snapshot ordinals.
+     */
+    private static final class OrdinalColumn {
+        private final IntList ordinals = new IntList();
+        private final List<String> ids = new ArrayList<>();
+
+        void add(int ordinal, String id) {
+            ordinals.add(ordinal);
+            ids.add(id);
+        }
+
+        String[] ids() {
+            return ids.toArray(new String[0]);
+        }
+
+        /**
+         * Maps each database ordinal to its snapshot ordinal, or -1 for ordinals that were never committed.
+         */
+        int[] remap() {
+            int[] values = ordinals.toArray();
+            int[] remap = new int[values.length == 0 ? 0 : values[values.length - 1] + 1];
+            Arrays.fill(remap, -1);
+            for (int i = 0; i < values.length; i++) {
+                remap[values[i]] = i;
+            }
+            return remap;
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Buffered sequential writer for one snapshot or segment file. The header is written last, once all counts are known.
+     */
+    private static final class Output implements Closeable {
+        private static final int SECTION_TABLE_SIZE = MPDSnapshot.Section.values().length * 16;
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private final long[] sectionOffsets = new long[MPDSnapshot.Section.values().length];
+        private final long[] sectionLengths = new long[MPDSnapshot.Section.values().length];
+        private long position;
+        private MPDSnapshot.Section openSection;
+        private final long lineage;
+        private final long createdAt;
+        // The snapshot a segment is appended to, or null for a full snapshot
+        private final MPDSnapshot parent;
+        private final int headerSize;
+        private final long firstEdge;
+        private int trackCount;
+        private int artistCount;
+        private int albumCount;
+        private long[] playlistIds = new long[1024];
+        private int[] playlistOffsets = new int[1025];
+        private int playlistCount;
+        private long edgeCount;
+
+        private Output(Path target, long lineage, long createdAt, MPDSnapshot parent) throws IOException {
+            this.lineage = lineage;
+            this.createdAt = createdAt;
+            this.parent = parent;
+            this.headerSize = parent == null ? MPDSnapshot.HEADER_SIZE : MPDSnapshot.SEGMENT_HEADER_SIZE;
+            this.firstEdge = parent == null ? 0 : parent.getEdgeCount();
+            this.channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+            this.position = headerSize + SECTION_TABLE_SIZE;
+            channel.position(position);
+        }
+
+        void writeDictionary(TrackDictionary dictionary) throws IOException {
+            trackCount = dictionary.trackIds.length;
+            artistCount = dictionary.artistIds.length;
+            albumCount = dictionary.albumIds.length;
+            writeStrings(MPDSnapshot.Section.TRACK_ID_OFFSETS, MPDSnapshot.Section.TRACK_ID_BYTES, dictionary.trackIds);
+            writeInts(MPDSnapshot.Section.TRACK_ID_ORDER, dictionary.trackOrder, trackCount);
+            writeStrings(MPDSnapshot.Section.ARTIST_ID_OFFSETS, MPDSnapshot.Section.ARTIST_ID_BYTES, dictionary.artistIds);
+            writeInts(MPDSnapshot.Section.ARTIST_ID_ORDER, dictionary.artistOrder, artistCount);
+            writeStrings(MPDSnapshot.Section.ALBUM_ID_OFFSETS, MPDSnapshot.Section.ALBUM_ID_BYTES, dictionary.albumIds);
+            writeInts(MPDSnapshot.Section.ALBUM_ID_ORDER, dictionary.albumOrder, albumCount);
+            writeInts(MPDSnapshot.Section.TRACK_ARTISTS, dictionary.trackArtists, trackCount);
+            writeInts(MPDSnapshot.Section.TRACK_ALBUMS, dictionary.trackAlbums, trackCount);
+        }
+
+        void beginPlaylist(long pid) {
+            if (playlistCount == playlistIds.length) {
+                playlistIds = Arrays.copyOf(playlistIds, playlistCount * 2);
+                playlistOffsets = Arrays.copyOf(playlistOffsets, playlistCount * 2 + 1);
+            }
+            playlistIds[playlistCount++] = pid;
+        }
+
+        /**
+         * Appends a track ordinal to the current playlist. Tracks missing from the dictionary are dropped.
+         */
+        void addEdge(int trackOrdinal) {
+            if (trackOrdinal < 0 || playlistCount == 0) {
+                return;
+            }
+            if (firstEdge + edgeCount == Integer.MAX_VALUE) {
+                throw new MPDImportException("MPD snapshot cannot hold more than " + Integer.MAX_VALUE + " edges");
+            }
+            putInt(trackOrdinal);
+            edgeCount++;
+            playlistOffsets[playlistCount] = (int) edgeCount;
+        }
+
+        void finish() throws IOException {
+            endSection();
+            // Offsets were only recorded for playlists that received edges; fill in the empty ones
+            for (int i = 1; i <= playlistCount; i++) {
+                playlistOffsets[i] = Math.max(playlistOffsets[i], playlistOffsets[i - 1]);
+            }
+            beginSection(MPDSnapshot.Section.PLAYLIST_IDS);
+            for (int i = 0; i < playlistCount; i++) {
+                putLong(playlistIds[i]);
+            }
+            endSection();
+            writeInts(MPDSnapshot.Section.PLAYLIST_OFFSETS, playlistOffsets, playlistCount + 1);
+            writeInts(MPDSnapshot.Section.PLAYLIST_ORDER, playlistOrder(), playlistCount);
+            flush();
+            writeHeader();
+            channel.force(true);
+        }
+
+        private int[] playlistOrder() {
+            boolean sorted = true;
+            for (int i = 1; i < playlistCount && sorted; i++) {
+                sorted = playlistIds[i - 1] <= playlistIds[i];
+            }
+            if (sorted) {
+                int[] identity = new int[playlistCount];
+                Arrays.setAll(identity, i -> i);
+                return identity;
+            }
+            long[] ids = playlistIds;
+            return IntStream.range(0, playlistCount).boxed()
+                .sorted(Comparator.comparingLong(i -> ids[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        }
+
+        private void writeHeader() throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(headerSize + SECTION_TABLE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(parent == null ? MPDSnapshot.MAGIC : MPDSnapshot.SEGMENT_MAGIC);
+            header.putInt(MPDSnapshot.FORMAT_VERSION);
+            header.putInt(sectionOffsets.length);
+            header.putLong(createdAt);
+            if (parent == null) {
+                header.putInt(trackCount);
+                header.putInt(artistCount);
+                header.putInt(albumCount);
+                header.putInt(playlistCount);
+                header.putLong(edgeCount);
+                header.putLong(lineage);
+            } else {
+                // Counts of the whole snapshot, then those of the snapshot the segment continues
+                header.putInt(parent.getTrackCount() + trackCount);
+                header.putInt(parent.getArtistCount() + artistCount);
+                header.putInt(parent.getAlbumCount() + albumCount);
+                header.putInt(parent.getPlaylistCount() + playlistCount);
+                header.putLong(parent.getEdgeCount() + edgeCount);
+                header.putLong(lineage);
+                header.putLong(parent.getCreatedAt().toEpochMilli());
+                header.putInt(parent.getTrackCount());
+                header.putInt(parent.getArtistCount());
+                header.putInt(parent.getAlbumCount());
+                header.putInt(parent.getPlaylistCount());
+                header.putLong(parent.getEdgeCount());
+            }
+            header.position(headerSize);
+            for (int i = 0; i < sectionOffsets.length; i++) {
+                header.putLong(sectionOffsets[i]);
+                header.putLong(sectionLengths[i]);
+            }
+            header.flip();
+            long at = 0;
+            while (header.hasRemaining()) {
+                at += channel.write(header, at);
+            }
+        }
+
+        private void writeStrings(MPDSnapshot.Section offsetsSection, MPDSnapshot.Section bytesSection, String[] values)
+                throws IOException {
+            beginSection(offsetsSection);
+            int offset = 0;
+            putInt(0);
+            for (String value : values) {
+                offset += value.length();
+                putInt(offset);
+            }
+            endSection();
+            beginSection(bytesSection);
+            for (String value : values) {
+                byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+                ensureCapacity(bytes.length);
+                buffer.put(bytes);
+                position += bytes.length;
+            }
+            endSection();
+        }
+
+        private void writeInts(MPDSnapshot.Section section, int[] values, int count) throws IOException {
+            beginSection(section);
+            for (int i = 0; i < count; i++) {
+                putInt(values[i]);
+            }
+            endSection();
+        }
+
+        void beginSection(MPDSnapshot.Section section) throws IOException {
+            // Keep sections 8-byte aligned so the mapped int and long views are aligned too
+            while (position % 8 != 0) {
+                ensureCapacity(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+            openSection = section;
+            sectionOffsets[section.ordinal()] = position;
+        }
+
+        private void endSection() {
+            sectionLengths[openSection.ordinal()] = position - sectionOffsets[openSection.ordinal()];
+            openSection = null;
+        }
+
+        private void putInt(int value) {
+            ensureCapacity(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        private void putLong(long value) {
+            ensureCapacity(8);
+            buffer.putLong(value);
+            position += 8;
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (buffer.remaining() < bytes) {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    throw new MPDImportException("Failed to write MPD snapshot", e);
+                }
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
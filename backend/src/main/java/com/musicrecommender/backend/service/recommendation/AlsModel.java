@@ -0,0 +1,176 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Track and playlist factors of an implicit-feedback ALS model trained by {@link AlsTrainer}. Rows are
+ * the track ordinals and playlist indexes of the snapshot the model was trained on, so a model is only
+ * usable together with that snapshot or one appended to it.
+ *
+ * Layout, all little-endian. A fixed header is followed by a section table of (offset, length) pairs,
+ * one per {@link Section}:
+ * <pre>
+ *   0  long  magic "ALSFACTS"
+ *   8  int   format version
+ *  12  int   section count
+ *  16  long  created at (epoch millis)
+ *  24  long  created at of the source snapshot (epoch millis)
+ *  32  int   track count      36  int   playlist count
+ *  40  int   factors          44  int   iterations
+ *  48  float regularization   52  float alpha
+ *  56  int   CG steps per solve
+ *  64  long  lineage of the source snapshot
+ *  72        section table
+ * </pre>
+ * TRACK_FACTORS and PLAYLIST_FACTORS hold one row of factors floats per track or playlist, row-major.
+ * GRAM holds the factors x factors Gram matrix of the track factors, which folding in a new playlist
+ * needs and which would otherwise take a pass over every track to compute.
+ *
+ * The track factors are copied onto the heap when the model is opened, since serving a request scores
+ * every track; the playlist factors stay mapped. Instances are safe to share between threads.
+ */
+public class AlsModel {
+    static final long MAGIC = 0x5354434146534C41L; // "ALSFACTS" read little-endian
+    public static final int FORMAT_VERSION = 2;
+    static final int HEADER_SIZE = 72;
+
+    enum Section {
+        TRACK_FACTORS,
+        PLAYLIST_FACTORS,
+        GRAM
+    }
+
+    private final Path path;
+    private final int version;
+    private final Instant createdAt;
+    private final Instant snapshotCreatedAt;
+    private final long snapshotLineage;
+    private final long sizeBytes;
+    private final int trackCount;
+    private final int playlistCount;
+    private final int factors;
+    private final int iterations;
+    private final float regularization;
+    private final float alpha;
+    private final int cgSteps;
+    private final float[] trackFactors;
+    private final float[] gram;
+    private final FloatBuffer playlistFactors;
+
+    private AlsModel(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.sizeBytes = channel.size();
+        if (sizeBytes < HEADER_SIZE) {
+            throw new RecommendationException("Not an ALS model, file is too short: " + path);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        if (header.getLong(0) != MAGIC) {
+            throw new RecommendationException("Not an ALS model: " + path);
+        }
+        this.version = header.getInt(8);
+        if (version != FORMAT_VERSION) {
+            throw new RecommendationException("Unsupported ALS model version " + version + " in " + path
+                + ", expected " + FORMAT_VERSION + ". Retrain the model.");
+        }
+        int sectionCount = header.getInt(12);
+        if (sectionCount != Section.values().length) {
+            throw new RecommendationException("Corrupt ALS model section table in " + path);
+        }
+        this.createdAt = Instant.ofEpochMilli(header.getLong(16));
+        this.snapshotCreatedAt = Instant.ofEpochMilli(header.getLong(24));
+        this.trackCount = header.getInt(32);
+        this.playlistCount = header.getInt(36);
+        this.factors = header.getInt(40);
+        this.iterations = header.getInt(44);
+        this.regularization = header.getFloat(48);
+        this.alpha = header.getFloat(52);
+        this.cgSteps = header.getInt(56);
+        this.snapshotLineage = header.getLong(64);
+
+        ByteBuffer table = ByteBuffer.allocate(sectionCount * 16).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(table, HEADER_SIZE);
+        MappedByteBuffer[] sections = new MappedByteBuffer[sectionCount];
+        for (int i = 0; i < sectionCount; i++) {
+            long offset = table.getLong(i * 16);
+            long length = table.getLong(i * 16 + 8);
+            if (offset < 0 || length < 0 || offset + length > sizeBytes) {
+                throw new RecommendationException("Corrupt ALS model section " + Section.values()[i] + " in " + path);
+            }
+            sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            sections[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        FloatBuffer tracks = sections[Section.TRACK_FACTORS.ordinal()].asFloatBuffer();
+        FloatBuffer grams = sections[Section.GRAM.ordinal()].asFloatBuffer();
+        this.playlistFactors = sections[Section.PLAYLIST_FACTORS.ordinal()].asFloatBuffer();
+        if (tracks.limit() != (long) trackCount * factors || playlistFactors.limit() != (long) playlistCount * factors
+                || grams.limit() != factors * factors) {
+            throw new RecommendationException("ALS model section sizes do not match its header: " + path);
+        }
+        this.trackFactors = new float[trackCount * factors];
+        tracks.get(0, trackFactors);
+        this.gram = new float[factors * factors];
+        grams.get(0, gram);
+    }
+
+    /**
+     * Opens the model at the given path. The file must not be modified while it is open.
+     */
+    public static AlsModel open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new AlsModel(path, channel);
+        }
+    }
+
+    /**
+     * Returns true if the model was trained on this snapshot or one it was appended to, so its rows mean the
+     * same tracks and playlists. Tracks and playlists appended since have no factors until the model is retrained.
+     */
+    public boolean isCompatibleWith(MPDSnapshot snapshot) {
+        return snapshot.startsWith(snapshotLineage, trackCount, playlistCount);
+    }
+
+    public Path getPath() { return path; }
+    public int getVersion() { return version; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getSnapshotCreatedAt() { return snapshotCreatedAt; }
+    public long getSizeBytes() { return sizeBytes; }
+    public int getTrackCount() { return trackCount; }
+    public int getPlaylistCount() { return playlistCount; }
+    public int getFactors() { return factors; }
+    public int getIterations() { return iterations; }
+    public float getRegularization() { return regularization; }
+    public float getAlpha() { return alpha; }
+    public int getCgSteps() { return cgSteps; }
+
+    /**
+     * All track factors, track t at t * factors .. (t + 1) * factors. Callers must not modify the array.
+     */
+    float[] trackFactors() {
+        return trackFactors;
+    }
+
+    /**
+     * The Gram matrix of the track factors, row-major. Callers must not modify the array.
+     */
+    float[] gram() {
+        return gram;
+    }
+
+    /**
+     * Copies a playlist's factors into the array.
+     */
+    public void getPlaylistFactors(int playlistIndex, float[] into) {
+        playlistFactors.get(playlistIndex * factors, into, 0, factors);
+    }
+}
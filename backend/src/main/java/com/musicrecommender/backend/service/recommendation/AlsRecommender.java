@@ -0,0 +1,103 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.service.AlsModelService;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Recommends with the {@link AlsModel}: the seeds are folded in as a new playlist by solving for its
+ * factors against the fixed track factors, then every track is scored by its dot product with them.
+ * The cost is one small solve plus a pass over the track factors, independent of how popular the seed
+ * tracks are, where item-item scoring reads a full neighbor row per seed.
+ */
+@Component
+public class AlsRecommender implements TrackRecommender {
+    @Autowired
+    private AlsModelService alsModelService;
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<>();
+
+    @Override
+    public boolean isAvailable() {
+        return alsModelService.getModel().isPresent();
+    }
+
+    @Override
+    public long modelVersion(MPDSnapshot snapshot) {
+        return alsModelService.getModel(snapshot).map(model -> model.getCreatedAt().toEpochMilli()).orElse(0L);
+    }
+
+    @Override
+    public RankedTracks recommend(MPDSnapshot snapshot, int[] seedTracks, int k) {
+        AlsModel model = alsModelService.getModel(snapshot)
+            .orElseThrow(() -> new RecommendationException("No ALS model matches the MPD snapshot"));
+        int[] distinctSeeds = distinct(seedTracks, model.getTrackCount());
+        if (k <= 0 || distinctSeeds.length == 0) {
+            return RankedTracks.empty();
+        }
+        int f = model.getFactors();
+        Scratch scratch = scratch(model);
+        float[] x = scratch.factors;
+        Arrays.fill(x, 0f);
+        // Started from zero, conjugate gradient is exact after f steps and usually converges well before
+        scratch.solver.solve(model.gram(), model.getRegularization(), model.getAlpha(), model.trackFactors(),
+            distinctSeeds, 0, distinctSeeds.length, x, 0, f);
+
+        float[] trackFactors = model.trackFactors();
+        TopKHeap heap = new TopKHeap(Math.min(k, model.getTrackCount() - distinctSeeds.length));
+        int nextSeed = 0;
+        for (int track = 0; track < model.getTrackCount(); track++) {
+            if (nextSeed < distinctSeeds.length && distinctSeeds[nextSeed] == track) {
+                nextSeed++;
+                continue;
+            }
+            int offset = track * f;
+            float score = 0f;
+            for (int a = 0; a < f; a++) {
+                score += trackFactors[offset + a] * x[a];
+            }
+            heap.offer(track, score);
+        }
+        return heap.drain();
+    }
+
+    /**
+     * Sorts and de-duplicates the seeds, dropping ordinals outside the model.
+     */
+    private static int[] distinct(int[] seedTracks, int trackCount) {
+        int[] sorted = seedTracks.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int seed : sorted) {
+            if (seed >= 0 && seed < trackCount && (size == 0 || sorted[size - 1] != seed)) {
+                sorted[size++] = seed;
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+
+    private Scratch scratch(AlsModel model) {
+        Scratch current = scratch.get();
+        if (current == null || current.factors.length != model.getFactors()) {
+            current = new Scratch(model.getFactors());
+            scratch.set(current);
+        }
+        return current;
+    }
+
+    /**
+     * Per-thread solver state sized to the factor count.
+     */
+    private static final class Scratch {
+        private final float[] factors;
+        private final ImplicitCgSolver solver;
+
+        Scratch(int factors) {
+            this.factors = new float[factors];
+            this.solver = new ImplicitCgSolver(factors);
+        }
+    }
+}
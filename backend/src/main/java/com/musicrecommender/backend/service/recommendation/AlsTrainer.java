@@ -0,0 +1,222 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Trains an {@link AlsModel} on the playlist-track matrix of an MPD snapshot with implicit-feedback
+ * alternating least squares (Hu, Koren and Volinsky). A playlist containing a track is an observation
+ * with confidence 1 + alpha, every other pair has confidence 1 and preference 0.
+ *
+ * Factors are kept in two flat row-major float arrays. Each iteration solves every playlist row against
+ * the fixed track factors, then every track row against the fixed playlist factors. Rows of a half
+ * iteration are independent, so they are solved in parallel on a fork-join pool, each with a few warm
+ * started conjugate gradient steps ({@link ImplicitCgSolver}). The Gram matrix of the fixed side is
+ * computed once per half iteration, also in parallel.
+ */
+@Component
+public class AlsTrainer {
+    private static final int SECTION_TABLE_SIZE = AlsModel.Section.values().length * 16;
+    private static final int GRAM_CHUNK_ROWS = 4096;
+
+    @Autowired
+    private RecommendationProperties recommendationProperties;
+    private static final Logger logger = LoggerFactory.getLogger(AlsTrainer.class);
+
+    public void train(MPDSnapshot snapshot, Path target) throws IOException {
+        RecommendationProperties.Als settings = recommendationProperties.getAls();
+        int f = settings.getFactors();
+        int iterations = settings.getIterations();
+        int cgSteps = settings.getCgSteps();
+        float regularization = (float) settings.getRegularization();
+        float alpha = (float) settings.getAlpha();
+        int parallelism = settings.getParallelism() > 0 ? settings.getParallelism() : Runtime.getRuntime().availableProcessors();
+        if (f <= 0 || iterations <= 0 || cgSteps <= 0) {
+            throw new RecommendationException("ALS needs at least one factor, iteration and CG step");
+        }
+        int trackCount = snapshot.getTrackCount();
+        int playlistCount = snapshot.getPlaylistCount();
+        if ((long) Math.max(trackCount, playlistCount) * f > Integer.MAX_VALUE - 8) {
+            throw new RecommendationException("Too many factors for " + Math.max(trackCount, playlistCount)
+                + " rows, lower recommendation.als.factors");
+        }
+
+        long start = System.currentTimeMillis();
+        PlaylistTrackIndex index = PlaylistTrackIndex.of(snapshot);
+        logger.info("Indexed {} playlists with {} distinct tracks each on average for ALS in {} ms", playlistCount,
+            playlistCount == 0 ? 0 : index.playlistTracks.length / playlistCount, System.currentTimeMillis() - start);
+
+        float[] trackFactors = initialFactors(trackCount, f, settings.getSeed());
+        float[] playlistFactors = initialFactors(playlistCount, f, settings.getSeed() + 1);
+        float[] trackGram;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ThreadLocal<ImplicitCgSolver> solvers = ThreadLocal.withInitial(() -> new ImplicitCgSolver(f));
+            for (int iteration = 1; iteration <= iterations; iteration++) {
+                long iterationStart = System.currentTimeMillis();
+                float[] gram = gram(pool, trackFactors, trackCount, f);
+                pool.submit(() -> IntStream.range(0, playlistCount).parallel().forEach(playlist ->
+                    solveRow(solvers.get(), gram, regularization, alpha, trackFactors, index.playlistTracks,
+                        index.playlistOffsets[playlist], index.playlistOffsets[playlist + 1], playlistFactors, playlist * f, f, cgSteps)
+                )).get();
+                float[] playlistGram = gram(pool, playlistFactors, playlistCount, f);
+                pool.submit(() -> IntStream.range(0, trackCount).parallel().forEach(track ->
+                    solveRow(solvers.get(), playlistGram, regularization, alpha, playlistFactors, index.trackPlaylists,
+                        index.trackOffsets[track], index.trackOffsets[track + 1], trackFactors, track * f, f, cgSteps)
+                )).get();
+                logger.info("ALS iteration {}/{} took {} ms", iteration, iterations, System.currentTimeMillis() - iterationStart);
+            }
+            trackGram = gram(pool, trackFactors, trackCount, f);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RecommendationException("Interrupted while training the ALS model", e);
+        } catch (ExecutionException e) {
+            throw new RecommendationException("Failed to train the ALS model", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long trackOffset = AlsModel.HEADER_SIZE + SECTION_TABLE_SIZE;
+            long trackLength = (long) trackFactors.length * 4;
+            long playlistOffset = trackOffset + trackLength;
+            long playlistLength = (long) playlistFactors.length * 4;
+            long gramOffset = playlistOffset + playlistLength;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            long position = putFloats(channel, buffer, trackOffset, trackFactors);
+            position = putFloats(channel, buffer, position, playlistFactors);
+            putFloats(channel, buffer, position, trackGram);
+
+            ByteBuffer header = ByteBuffer.allocate(AlsModel.HEADER_SIZE + SECTION_TABLE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(0, AlsModel.MAGIC);
+            header.putInt(8, AlsModel.FORMAT_VERSION);
+            header.putInt(12, AlsModel.Section.values().length);
+            header.putLong(16, System.currentTimeMillis());
+            header.putLong(24, snapshot.getCreatedAt().toEpochMilli());
+            header.putInt(32, trackCount);
+            header.putInt(36, playlistCount);
+            header.putInt(40, f);
+            header.putInt(44, iterations);
+            header.putFloat(48, regularization);
+            header.putFloat(52, alpha);
+            header.putInt(56, cgSteps);
+            header.putLong(64, snapshot.getLineage());
+            header.putLong(AlsModel.HEADER_SIZE, trackOffset);
+            header.putLong(AlsModel.HEADER_SIZE + 8, trackLength);
+            header.putLong(AlsModel.HEADER_SIZE + 16, playlistOffset);
+            header.putLong(AlsModel.HEADER_SIZE + 24, playlistLength);
+            header.putLong(AlsModel.HEADER_SIZE + 32, gramOffset);
+            header.putLong(AlsModel.HEADER_SIZE + 40, (long) trackGram.length * 4);
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        logger.info("Trained ALS model with {} factors over {} tracks and {} playlists in {} ms",
+            f, trackCount, playlistCount, System.currentTimeMillis() - start);
+    }
+
+    private static void solveRow(ImplicitCgSolver solver, float[] gram, float regularization, float alpha,
+                                 float[] fixed, int[] observed, int start, int end, float[] x, int offset, int f, int steps) {
+        if (start == end) {
+            // Nothing observed, the solution is all zero
+            for (int a = 0; a < f; a++) {
+                x[offset + a] = 0f;
+            }
+            return;
+        }
+        solver.solve(gram, regularization, alpha, fixed, observed, start, end, x, offset, steps);
+    }
+
+    /**
+     * Small random factors, so the first half iteration starts from distinct rows.
+     */
+    private static float[] initialFactors(int rows, int f, long seed) {
+        float[] factors = new float[rows * f];
+        SplittableRandom random = new SplittableRandom(seed);
+        float scale = (float) (0.1 / Math.sqrt(f));
+        for (int i = 0; i < factors.length; i++) {
+            factors[i] = (float) random.nextDouble() * scale;
+        }
+        return factors;
+    }
+
+    /**
+     * Computes the Gram matrix of the rows, summing per-chunk partial matrices in parallel.
+     */
+    private static float[] gram(ForkJoinPool pool, float[] factors, int rows, int f)
+            throws InterruptedException, ExecutionException {
+        int chunks = (rows + GRAM_CHUNK_ROWS - 1) / GRAM_CHUNK_ROWS;
+        double[] sum = pool.submit(() -> IntStream.range(0, chunks).parallel()
+            .mapToObj(chunk -> partialGram(factors, chunk * GRAM_CHUNK_ROWS, Math.min(rows, (chunk + 1) * GRAM_CHUNK_ROWS), f))
+            .reduce(new double[f * f], AlsTrainer::add)).get();
+        float[] gram = new float[f * f];
+        for (int a = 0; a < f; a++) {
+            for (int b = a; b < f; b++) {
+                gram[a * f + b] = (float) sum[a * f + b];
+                gram[b * f + a] = (float) sum[a * f + b];
+            }
+        }
+        return gram;
+    }
+
+    /**
+     * The upper triangle of the Gram matrix of rows first .. last.
+     */
+    private static double[] partialGram(float[] factors, int first, int last, int f) {
+        double[] gram = new double[f * f];
+        for (int row = first; row < last; row++) {
+            int offset = row * f;
+            for (int a = 0; a < f; a++) {
+                double value = factors[offset + a];
+                int target = a * f;
+                for (int b = a; b < f; b++) {
+                    gram[target + b] += value * factors[offset + b];
+                }
+            }
+        }
+        return gram;
+    }
+
+    private static double[] add(double[] a, double[] b) {
+        double[] sum = new double[a.length];
+        for (int i = 0; i < a.length; i++) {
+            sum[i] = a[i] + b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Writes the floats at the position.
+     * @return The position after the written bytes
+     */
+    private static long putFloats(FileChannel channel, ByteBuffer buffer, long position, float[] values) throws IOException {
+        int perBuffer = buffer.capacity() / 4;
+        for (int from = 0; from < values.length; from += perBuffer) {
+            int count = Math.min(perBuffer, values.length - from);
+            buffer.clear();
+            buffer.asFloatBuffer().put(values, from, count);
+            buffer.limit(count * 4);
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,79 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State, progress and results of one offline evaluation run. Results are set once, when the run completes.
+ */
+public class EvaluationJob {
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String source;
+    private final int sampleSize;
+    private final List<String> algorithms;
+    private final boolean challengeCsv;
+    private final Instant createdAt = Instant.now();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile String error;
+    private volatile List<EvaluationResult> results = List.of();
+    private volatile List<String> outputFiles = List.of();
+    private volatile int playlistsInSnapshot;
+    private final AtomicInteger playlistsTotal = new AtomicInteger();
+    private final AtomicInteger playlistsDone = new AtomicInteger();
+
+    /**
+     * @param source A directory or zip of slice files to sample playlists from, or null for the snapshot's own playlists
+     */
+    public EvaluationJob(String source, int sampleSize, List<String> algorithms, boolean challengeCsv) {
+        this.source = source;
+        this.sampleSize = sampleSize;
+        this.algorithms = List.copyOf(algorithms);
+        this.challengeCsv = challengeCsv;
+    }
+
+    public void markRunning() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    public void markCompleted(List<EvaluationResult> results, List<String> outputFiles, int playlistsInSnapshot) {
+        this.results = List.copyOf(results);
+        this.outputFiles = List.copyOf(outputFiles);
+        this.playlistsInSnapshot = playlistsInSnapshot;
+        finishedAt = Instant.now();
+        status = Status.COMPLETED;
+    }
+
+    public void markFailed(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+
+    public String getId() { return id; }
+    public String getSource() { return source; }
+    public int getSampleSize() { return sampleSize; }
+    public List<String> getAlgorithms() { return algorithms; }
+    public boolean isChallengeCsv() { return challengeCsv; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public Status getStatus() { return status; }
+    public String getError() { return error; }
+    public List<EvaluationResult> getResults() { return results; }
+    public List<String> getOutputFiles() { return outputFiles; }
+    public int getPlaylistsInSnapshot() { return playlistsInSnapshot; }
+    public AtomicInteger getPlaylistsTotal() { return playlistsTotal; }
+    public AtomicInteger getPlaylistsDone() { return playlistsDone; }
+}
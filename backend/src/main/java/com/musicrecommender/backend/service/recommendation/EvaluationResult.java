@@ -0,0 +1,80 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Mean metrics and latency percentiles of one algorithm over a set of held-out playlists.
+ */
+public class EvaluationResult {
+    private final String algorithm;
+    private final int seedCount;
+    private final int playlists;
+    private final double rPrecision;
+    private final double ndcg;
+    private final double clicks;
+    private final double meanLatencyMillis;
+    private final double p50LatencyMillis;
+    private final double p95LatencyMillis;
+    private final double p99LatencyMillis;
+    private final double maxLatencyMillis;
+
+    private EvaluationResult(String algorithm, int seedCount, int playlists, double rPrecision, double ndcg,
+                             double clicks, long[] sortedLatencyNanos) {
+        this.algorithm = algorithm;
+        this.seedCount = seedCount;
+        this.playlists = playlists;
+        this.rPrecision = rPrecision;
+        this.ndcg = ndcg;
+        this.clicks = clicks;
+        this.meanLatencyMillis = Arrays.stream(sortedLatencyNanos).average().orElse(0) / 1e6;
+        this.p50LatencyMillis = percentile(sortedLatencyNanos, 0.50);
+        this.p95LatencyMillis = percentile(sortedLatencyNanos, 0.95);
+        this.p99LatencyMillis = percentile(sortedLatencyNanos, 0.99);
+        this.maxLatencyMillis = sortedLatencyNanos.length == 0 ? 0 : sortedLatencyNanos[sortedLatencyNanos.length - 1] / 1e6;
+    }
+
+    /**
+     * Averages the per-playlist values of the selected playlists.
+     * @param seedCount The seed count the playlists were selected by, 0 for all of them
+     * @param selected Indexes into the per-playlist arrays
+     */
+    public static EvaluationResult of(String algorithm, int seedCount, int[] selected, double[] rPrecisions,
+                                      double[] ndcgs, int[] clicks, long[] latencyNanos) {
+        double rPrecision = 0;
+        double ndcg = 0;
+        double clickSum = 0;
+        long[] latencies = new long[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            rPrecision += rPrecisions[selected[i]];
+            ndcg += ndcgs[selected[i]];
+            clickSum += clicks[selected[i]];
+            latencies[i] = latencyNanos[selected[i]];
+        }
+        Arrays.sort(latencies);
+        int n = Math.max(1, selected.length);
+        return new EvaluationResult(algorithm, seedCount, selected.length, rPrecision / n, ndcg / n, clickSum / n, latencies);
+    }
+
+    /**
+     * Nearest-rank percentile, in milliseconds.
+     */
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    public String getAlgorithm() { return algorithm; }
+    public int getSeedCount() { return seedCount; }
+    public int getPlaylists() { return playlists; }
+    public double getRPrecision() { return rPrecision; }
+    public double getNdcg() { return ndcg; }
+    public double getClicks() { return clicks; }
+    public double getMeanLatencyMillis() { return meanLatencyMillis; }
+    public double getP50LatencyMillis() { return p50LatencyMillis; }
+    public double getP95LatencyMillis() { return p95LatencyMillis; }
+    public double getP99LatencyMillis() { return p99LatencyMillis; }
+    public double getMaxLatencyMillis() { return maxLatencyMillis; }
+}
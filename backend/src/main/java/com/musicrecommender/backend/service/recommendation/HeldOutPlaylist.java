@@ -0,0 +1,37 @@
+package com.musicrecommender.backend.service.recommendation;
+
+/**
+ * A playlist split into the seed tracks a recommender sees and the tracks it is expected to find, as
+ * ordinals of the snapshot being evaluated.
+ */
+public class HeldOutPlaylist {
+    private final long pid;
+    private final int seedCount;
+    private final int[] seeds;
+    private final int[] truth;
+    private final int truthSize;
+    private final boolean inSnapshot;
+
+    /**
+     * @param seedCount How many tracks were given as seeds, including those the snapshot does not know
+     * @param seeds The seeds the snapshot knows
+     * @param truth Distinct held-out tracks the snapshot knows, sorted, none of them a seed
+     * @param truthSize The number of distinct held-out tracks, including those the snapshot does not know
+     * @param inSnapshot Whether the snapshot contains the playlist itself, so models were trained on the held-out tracks
+     */
+    public HeldOutPlaylist(long pid, int seedCount, int[] seeds, int[] truth, int truthSize, boolean inSnapshot) {
+        this.pid = pid;
+        this.seedCount = seedCount;
+        this.seeds = seeds;
+        this.truth = truth;
+        this.truthSize = truthSize;
+        this.inSnapshot = inSnapshot;
+    }
+
+    public long getPid() { return pid; }
+    public int getSeedCount() { return seedCount; }
+    public int[] getSeeds() { return seeds; }
+    public int[] getTruth() { return truth; }
+    public int getTruthSize() { return truthSize; }
+    public boolean isInSnapshot() { return inSnapshot; }
+}
@@ -0,0 +1,22 @@
+package com.musicrecommender.backend.service.recommendation;
+
+/**
+ * The read side of a hierarchical navigable small world graph over unit vectors, shared by the graph
+ * under construction and the mapped {@link HnswIndex} so both are searched by the same
+ * {@link HnswSearcher}. Similarity is the dot product, which for unit vectors is the cosine.
+ */
+interface HnswGraph {
+    int size();
+
+    int entryPoint();
+
+    int maxLevel();
+
+    float similarity(float[] query, int node);
+
+    /**
+     * Copies a node's neighbors on a level into the array, which must hold at least 2 * M entries.
+     * @return The number of neighbors
+     */
+    int neighbors(int node, int level, int[] into);
+}
@@ -0,0 +1,260 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * An HNSW graph under construction, held on the heap. Nodes are inserted concurrently: each node's
+ * neighbor lists are guarded by one of a fixed set of striped locks, held only while a list is copied
+ * or rewritten and never two at a time, so insertions cannot deadlock. Levels are drawn up front from
+ * the seed, so the level structure does not depend on the insertion order.
+ *
+ * Level 0 allows 2 * M neighbors per node and the upper levels M. Each list is stored as a block of
+ * its neighbor count followed by the neighbors, level 0 in one flat array and the upper levels of a
+ * node in a per-node array, which is the layout {@link HnswIndexBuilder} writes out.
+ */
+final class HnswGraphBuilder implements HnswGraph {
+    private static final int LOCK_STRIPES = 4096;
+
+    private final float[] vectors;
+    private final int dimensions;
+    private final int nodeCount;
+    private final int m;
+    private final int efConstruction;
+    private final int[] levels;
+    private final int[] levelZero;
+    private final int[][] upperLevels;
+    private final Object[] locks;
+    private final Object entryLock = new Object();
+    private volatile int entryPoint;
+    private volatile int maxLevel;
+
+    /**
+     * @param vectors Unit vectors, node n at n * dimensions .. (n + 1) * dimensions
+     */
+    HnswGraphBuilder(float[] vectors, int dimensions, int m, int efConstruction, long seed) {
+        if (m < 2 || efConstruction < 1) {
+            throw new IllegalArgumentException("HNSW needs M of at least 2 and a positive efConstruction");
+        }
+        this.vectors = vectors;
+        this.dimensions = dimensions;
+        this.nodeCount = vectors.length / dimensions;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levels = new int[nodeCount];
+        this.levelZero = new int[nodeCount * (2 * m + 1)];
+        this.upperLevels = new int[nodeCount][];
+        this.locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        double levelMultiplier = 1 / Math.log(m);
+        for (int node = 0; node < nodeCount; node++) {
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            levels[node] = level;
+            if (level > 0) {
+                upperLevels[node] = new int[level * (m + 1)];
+            }
+        }
+    }
+
+    /**
+     * Inserts every node, the first one alone and the rest in parallel on the pool.
+     */
+    void build(ForkJoinPool pool) throws InterruptedException, ExecutionException {
+        if (nodeCount == 0) {
+            return;
+        }
+        entryPoint = 0;
+        maxLevel = levels[0];
+        ThreadLocal<HnswSearcher> searchers = ThreadLocal.withInitial(() -> new HnswSearcher(nodeCount, 2 * m));
+        pool.submit(() -> IntStream.range(1, nodeCount).parallel().forEach(node -> insert(node, searchers.get()))).get();
+    }
+
+    private void insert(int node, HnswSearcher searcher) {
+        float[] query = new float[dimensions];
+        System.arraycopy(vectors, node * dimensions, query, 0, dimensions);
+        int level = levels[node];
+        int entry;
+        int top;
+        synchronized (entryLock) {
+            entry = entryPoint;
+            top = maxLevel;
+        }
+        float similarity = similarity(query, entry);
+        for (int current = top; current > level; current--) {
+            entry = searcher.closest(this, query, entry, similarity, current);
+            similarity = similarity(query, entry);
+        }
+
+        int[] candidates = new int[efConstruction];
+        float[] candidateSimilarities = new float[efConstruction];
+        int[] selected = new int[2 * m];
+        for (int current = Math.min(level, top); current >= 0; current--) {
+            searcher.searchLevel(this, query, entry, similarity, efConstruction, current);
+            int count = searcher.drainResults(candidates, candidateSimilarities);
+            entry = candidates[0];
+            similarity = candidateSimilarities[0];
+            int selectedCount = selectNeighbors(candidates, candidateSimilarities, count, maxDegree(current), selected);
+            synchronized (lock(node)) {
+                int[] block = block(node, current);
+                int start = blockStart(node, current);
+                block[start] = selectedCount;
+                System.arraycopy(selected, 0, block, start + 1, selectedCount);
+            }
+            for (int i = 0; i < selectedCount; i++) {
+                link(selected[i], node, current);
+            }
+        }
+
+        if (level > top) {
+            synchronized (entryLock) {
+                if (level > maxLevel) {
+                    maxLevel = level;
+                    entryPoint = node;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a link from the node to the new neighbor, pruning the node's list with the selection
+     * heuristic when it is full.
+     */
+    private void link(int node, int neighbor, int level) {
+        int maxDegree = maxDegree(level);
+        synchronized (lock(node)) {
+            int[] block = block(node, level);
+            int start = blockStart(node, level);
+            int count = block[start];
+            if (count < maxDegree) {
+                block[start + 1 + count] = neighbor;
+                block[start] = count + 1;
+                return;
+            }
+            // Rank the current neighbors and the new one by similarity to the node, then keep a diverse subset
+            float[] query = new float[dimensions];
+            System.arraycopy(vectors, node * dimensions, query, 0, dimensions);
+            NodeHeap ranked = new NodeHeap(true, count + 1);
+            for (int i = 0; i < count; i++) {
+                ranked.push(block[start + 1 + i], similarity(query, block[start + 1 + i]));
+            }
+            ranked.push(neighbor, similarity(query, neighbor));
+            int[] candidates = new int[count + 1];
+            float[] candidateSimilarities = new float[count + 1];
+            ranked.drainMostSimilarFirst(candidates, candidateSimilarities);
+            int[] selected = new int[maxDegree];
+            int selectedCount = selectNeighbors(candidates, candidateSimilarities, count + 1, maxDegree, selected);
+            block[start] = selectedCount;
+            System.arraycopy(selected, 0, block, start + 1, selectedCount);
+        }
+    }
+
+    /**
+     * The neighbor selection heuristic (algorithm 4 of the paper): walking the candidates from most to
+     * least similar, keep one only if it is more similar to the base node than to every neighbor kept so
+     * far. This favors links in different directions over clusters of near duplicates. Free slots are
+     * then filled with the most similar of the pruned candidates (keepPrunedConnections in the paper),
+     * since ALS factors are concentrated enough that the heuristic alone leaves nodes with only a handful
+     * of links and search recall suffers.
+     * @param candidates Sorted most similar first
+     * @return The number of neighbors written to selected
+     */
+    private int selectNeighbors(int[] candidates, float[] candidateSimilarities, int count, int maxDegree, int[] selected) {
+        int selectedCount = 0;
+        int prunedCount = 0;
+        for (int i = 0; i < count && selectedCount < maxDegree; i++) {
+            int candidate = candidates[i];
+            boolean diverse = true;
+            for (int j = 0; j < selectedCount; j++) {
+                if (similarity(candidate, selected[j]) > candidateSimilarities[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[selectedCount++] = candidate;
+            } else {
+                // Pruned candidates are compacted to the front of the array, still most similar first
+                candidates[prunedCount++] = candidate;
+            }
+        }
+        for (int i = 0; i < prunedCount && selectedCount < maxDegree; i++) {
+            selected[selectedCount++] = candidates[i];
+        }
+        return selectedCount;
+    }
+
+    @Override
+    public int size() {
+        return nodeCount;
+    }
+
+    @Override
+    public int entryPoint() {
+        return entryPoint;
+    }
+
+    @Override
+    public int maxLevel() {
+        return maxLevel;
+    }
+
+    @Override
+    public float similarity(float[] query, int node) {
+        int offset = node * dimensions;
+        float sum = 0f;
+        for (int i = 0; i < dimensions; i++) {
+            sum += query[i] * vectors[offset + i];
+        }
+        return sum;
+    }
+
+    private float similarity(int a, int b) {
+        int offsetA = a * dimensions;
+        int offsetB = b * dimensions;
+        float sum = 0f;
+        for (int i = 0; i < dimensions; i++) {
+            sum += vectors[offsetA + i] * vectors[offsetB + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public int neighbors(int node, int level, int[] into) {
+        synchronized (lock(node)) {
+            int[] block = block(node, level);
+            int start = blockStart(node, level);
+            int count = block[start];
+            System.arraycopy(block, start + 1, into, 0, count);
+            return count;
+        }
+    }
+
+    int getDimensions() { return dimensions; }
+    int getM() { return m; }
+    int getEfConstruction() { return efConstruction; }
+    int getLevel(int node) { return levels[node]; }
+    float[] vectors() { return vectors; }
+    int[] levelZero() { return levelZero; }
+    int[] upperLevels(int node) { return upperLevels[node]; }
+
+    private int maxDegree(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    private int[] block(int node, int level) {
+        return level == 0 ? levelZero : upperLevels[node];
+    }
+
+    private int blockStart(int node, int level) {
+        return level == 0 ? node * (2 * m + 1) : (level - 1) * (m + 1);
+    }
+
+    private Object lock(int node) {
+        return locks[node & (LOCK_STRIPES - 1)];
+    }
+}
@@ -0,0 +1,242 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Read-only, memory-mapped HNSW index over the normalized track factors of an {@link AlsModel}, built by
+ * {@link HnswIndexBuilder}. Nodes are track ordinals and similarity is the cosine of the factors.
+ *
+ * Layout, all little-endian. A fixed header is followed by a section table of (offset, length) pairs,
+ * one per {@link Section}:
+ * <pre>
+ *   0  long  magic "HNSWTRKS"
+ *   8  int   format version
+ *  12  int   section count
+ *  16  long  created at (epoch millis)
+ *  24  long  created at of the source snapshot (epoch millis)
+ *  32  long  created at of the source ALS model (epoch millis)
+ *  40  int   node count       44  int   dimensions
+ *  48  int   M                52  int   efConstruction
+ *  56  int   entry point      60  int   max level
+ *  64        section table
+ * </pre>
+ * VECTORS holds the unit vectors, row-major. LEVEL0_LINKS holds one block of 2 * M + 1 ints per node,
+ * the neighbor count followed by the neighbors. Nodes above level 0 have their upper levels in
+ * UPPER_LINKS, one block of M + 1 ints per level starting at level 1, at the int offset given in
+ * UPPER_OFFSETS (-1 for nodes only on level 0).
+ *
+ * The index never changes once written, so searches read it without locking. Instances are safe to
+ * share between threads; each search borrows its scratch state from a pool bounded by the number of
+ * processors, since the visited markers take an int per node.
+ */
+public class HnswIndex implements HnswGraph {
+    static final long MAGIC = 0x534B525457534E48L; // "HNSWTRKS" read little-endian
+    public static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    enum Section {
+        VECTORS,
+        LEVEL0_LINKS,
+        UPPER_OFFSETS,
+        UPPER_LINKS
+    }
+
+    private final Path path;
+    private final int version;
+    private final Instant createdAt;
+    private final Instant snapshotCreatedAt;
+    private final Instant modelCreatedAt;
+    private final long sizeBytes;
+    private final int nodeCount;
+    private final int dimensions;
+    private final int m;
+    private final int efConstruction;
+    private final int entryPoint;
+    private final int maxLevel;
+    private final FloatBuffer vectors;
+    private final IntBuffer levelZero;
+    private final IntBuffer upperOffsets;
+    private final IntBuffer upperLinks;
+    private final ScratchPool<HnswSearcher> searchers;
+
+    private HnswIndex(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.sizeBytes = channel.size();
+        if (sizeBytes < HEADER_SIZE) {
+            throw new RecommendationException("Not an HNSW index, file is too short: " + path);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        if (header.getLong(0) != MAGIC) {
+            throw new RecommendationException("Not an HNSW index: " + path);
+        }
+        this.version = header.getInt(8);
+        if (version != FORMAT_VERSION) {
+            throw new RecommendationException("Unsupported HNSW index version " + version + " in " + path
+                + ", expected " + FORMAT_VERSION + ". Rebuild the index.");
+        }
+        int sectionCount = header.getInt(12);
+        if (sectionCount != Section.values().length) {
+            throw new RecommendationException("Corrupt HNSW index section table in " + path);
+        }
+        this.createdAt = Instant.ofEpochMilli(header.getLong(16));
+        this.snapshotCreatedAt = Instant.ofEpochMilli(header.getLong(24));
+        this.modelCreatedAt = Instant.ofEpochMilli(header.getLong(32));
+        this.nodeCount = header.getInt(40);
+        this.dimensions = header.getInt(44);
+        this.m = header.getInt(48);
+        this.efConstruction = header.getInt(52);
+        this.entryPoint = header.getInt(56);
+        this.maxLevel = header.getInt(60);
+
+        ByteBuffer table = ByteBuffer.allocate(sectionCount * 16).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(table, HEADER_SIZE);
+        MappedByteBuffer[] sections = new MappedByteBuffer[sectionCount];
+        for (int i = 0; i < sectionCount; i++) {
+            long offset = table.getLong(i * 16);
+            long length = table.getLong(i * 16 + 8);
+            if (offset < 0 || length < 0 || offset + length > sizeBytes) {
+                throw new RecommendationException("Corrupt HNSW index section " + Section.values()[i] + " in " + path);
+            }
+            sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            sections[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        this.vectors = sections[Section.VECTORS.ordinal()].asFloatBuffer();
+        this.levelZero = sections[Section.LEVEL0_LINKS.ordinal()].asIntBuffer();
+        this.upperOffsets = sections[Section.UPPER_OFFSETS.ordinal()].asIntBuffer();
+        this.upperLinks = sections[Section.UPPER_LINKS.ordinal()].asIntBuffer();
+        if (vectors.limit() != (long) nodeCount * dimensions || levelZero.limit() != (long) nodeCount * (2 * m + 1)
+                || upperOffsets.limit() != nodeCount || (nodeCount > 0 && (entryPoint < 0 || entryPoint >= nodeCount))) {
+            throw new RecommendationException("HNSW index section sizes do not match its header: " + path);
+        }
+        this.searchers = new ScratchPool<>(Runtime.getRuntime().availableProcessors(),
+            size -> new HnswSearcher(size, 2 * m), HnswSearcher::nodeCapacity);
+    }
+
+    /**
+     * Maps the index at the given path. The file must not be modified while it is open.
+     */
+    public static HnswIndex open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new HnswIndex(path, channel);
+        }
+    }
+
+    /**
+     * Returns true if the index was built from this model's track factors.
+     */
+    public boolean isCompatibleWith(AlsModel model) {
+        return model.getCreatedAt().equals(modelCreatedAt) && model.getSnapshotCreatedAt().equals(snapshotCreatedAt)
+            && model.getTrackCount() == nodeCount;
+    }
+
+    public Path getPath() { return path; }
+    public int getVersion() { return version; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getSnapshotCreatedAt() { return snapshotCreatedAt; }
+    public Instant getModelCreatedAt() { return modelCreatedAt; }
+    public long getSizeBytes() { return sizeBytes; }
+    public int getNodeCount() { return nodeCount; }
+    public int getDimensions() { return dimensions; }
+    public int getM() { return m; }
+    public int getEfConstruction() { return efConstruction; }
+
+    /**
+     * Approximate nearest neighbors of a track by the cosine of their factors, excluding the track.
+     * @param ef The search beam width, raised to k + 1 if smaller; larger is slower and more accurate
+     */
+    public RankedTracks findSimilar(int track, int k, int ef) {
+        if (k <= 0 || track < 0 || track >= nodeCount || nodeCount < 2) {
+            return RankedTracks.empty();
+        }
+        float[] query = vector(track);
+        int beam = Math.max(ef, k + 1);
+        int[] nodes = new int[beam];
+        float[] similarities = new float[beam];
+        HnswSearcher searcher = searchers.borrow(nodeCount);
+        int found;
+        try {
+            found = searcher.search(this, query, beam, nodes, similarities);
+        } finally {
+            searchers.release(searcher);
+        }
+        TopKHeap heap = new TopKHeap(k);
+        for (int i = 0; i < found; i++) {
+            if (nodes[i] != track) {
+                heap.offer(nodes[i], similarities[i]);
+            }
+        }
+        return heap.drain();
+    }
+
+    /**
+     * Exact nearest neighbors of a track by scanning every vector, to measure the recall of {@link #findSimilar}.
+     */
+    public RankedTracks findSimilarExact(int track, int k) {
+        if (k <= 0 || track < 0 || track >= nodeCount) {
+            return RankedTracks.empty();
+        }
+        float[] query = vector(track);
+        TopKHeap heap = new TopKHeap(Math.min(k, nodeCount - 1));
+        for (int node = 0; node < nodeCount; node++) {
+            if (node != track) {
+                heap.offer(node, similarity(query, node));
+            }
+        }
+        return heap.drain();
+    }
+
+    @Override
+    public int size() {
+        return nodeCount;
+    }
+
+    @Override
+    public int entryPoint() {
+        return entryPoint;
+    }
+
+    @Override
+    public int maxLevel() {
+        return maxLevel;
+    }
+
+    @Override
+    public float similarity(float[] query, int node) {
+        int offset = node * dimensions;
+        float sum = 0f;
+        for (int i = 0; i < dimensions; i++) {
+            sum += query[i] * vectors.get(offset + i);
+        }
+        return sum;
+    }
+
+    @Override
+    public int neighbors(int node, int level, int[] into) {
+        if (level == 0) {
+            int start = node * (2 * m + 1);
+            int count = levelZero.get(start);
+            levelZero.get(start + 1, into, 0, count);
+            return count;
+        }
+        int start = upperOffsets.get(node) + (level - 1) * (m + 1);
+        int count = upperLinks.get(start);
+        upperLinks.get(start + 1, into, 0, count);
+        return count;
+    }
+
+    private float[] vector(int node) {
+        float[] vector = new float[dimensions];
+        vectors.get(node * dimensions, vector);
+        return vector;
+    }
+}
@@ -0,0 +1,165 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Builds an {@link HnswIndex} over the track factors of an ALS model. The factors are normalized so the
+ * dot product is the cosine, inserted into an {@link HnswGraphBuilder} in parallel on a fork-join pool,
+ * and the finished graph is written out.
+ */
+@Component
+public class HnswIndexBuilder {
+    private static final int SECTION_TABLE_SIZE = HnswIndex.Section.values().length * 16;
+
+    @Autowired
+    private RecommendationProperties recommendationProperties;
+    private static final Logger logger = LoggerFactory.getLogger(HnswIndexBuilder.class);
+
+    public void build(AlsModel model, Path target) throws IOException {
+        RecommendationProperties.TrackNeighbors settings = recommendationProperties.getTrackNeighbors();
+        int parallelism = settings.getParallelism() > 0 ? settings.getParallelism() : Runtime.getRuntime().availableProcessors();
+        long start = System.currentTimeMillis();
+        float[] vectors = normalize(model.trackFactors(), model.getFactors());
+        HnswGraphBuilder graph = new HnswGraphBuilder(vectors, model.getFactors(), settings.getM(),
+            settings.getEfConstruction(), settings.getSeed());
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            graph.build(pool);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RecommendationException("Interrupted while building the HNSW index", e);
+        } catch (ExecutionException e) {
+            throw new RecommendationException("Failed to build the HNSW index", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        logger.info("Inserted {} tracks into the HNSW graph with M {} and efConstruction {} in {} ms",
+            graph.size(), settings.getM(), settings.getEfConstruction(), System.currentTimeMillis() - start);
+        write(graph, model.getSnapshotCreatedAt(), model.getCreatedAt(), target);
+    }
+
+    /**
+     * Copies the vectors scaled to unit length. All-zero vectors stay zero.
+     */
+    static float[] normalize(float[] vectors, int dimensions) {
+        float[] normalized = new float[vectors.length];
+        for (int offset = 0; offset < vectors.length; offset += dimensions) {
+            double norm = 0;
+            for (int i = 0; i < dimensions; i++) {
+                norm += (double) vectors[offset + i] * vectors[offset + i];
+            }
+            if (norm > 0) {
+                float scale = (float) (1 / Math.sqrt(norm));
+                for (int i = 0; i < dimensions; i++) {
+                    normalized[offset + i] = vectors[offset + i] * scale;
+                }
+            }
+        }
+        return normalized;
+    }
+
+    static void write(HnswGraphBuilder graph, Instant snapshotCreatedAt, Instant modelCreatedAt, Path target)
+            throws IOException {
+        int nodeCount = graph.size();
+        int m = graph.getM();
+        int[] upperOffsets = new int[nodeCount];
+        long upperLength = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            int[] upper = graph.upperLevels(node);
+            upperOffsets[node] = upper == null ? -1 : (int) upperLength;
+            upperLength += upper == null ? 0 : upper.length;
+        }
+        long vectorsLength = (long) graph.vectors().length * 4;
+        long levelZeroLength = (long) graph.levelZero().length * 4;
+        if (Math.max(vectorsLength, Math.max(levelZeroLength, upperLength * 4)) > Integer.MAX_VALUE) {
+            throw new RecommendationException("HNSW index sections would exceed 2 GB, lower the factors or M");
+        }
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long vectorsOffset = HnswIndex.HEADER_SIZE + SECTION_TABLE_SIZE;
+            long levelZeroOffset = vectorsOffset + vectorsLength;
+            long upperOffsetsOffset = levelZeroOffset + levelZeroLength;
+            long upperLinksOffset = upperOffsetsOffset + (long) nodeCount * 4;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            long position = vectorsOffset;
+            for (float value : graph.vectors()) {
+                if (buffer.remaining() < 4) {
+                    position = flush(channel, buffer, position);
+                }
+                buffer.putFloat(value);
+            }
+            position = putInts(channel, buffer, position, graph.levelZero());
+            position = putInts(channel, buffer, position, upperOffsets);
+            for (int node = 0; node < nodeCount; node++) {
+                if (graph.upperLevels(node) != null) {
+                    position = putInts(channel, buffer, position, graph.upperLevels(node));
+                }
+            }
+            flush(channel, buffer, position);
+
+            ByteBuffer header = ByteBuffer.allocate(HnswIndex.HEADER_SIZE + SECTION_TABLE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(0, HnswIndex.MAGIC);
+            header.putInt(8, HnswIndex.FORMAT_VERSION);
+            header.putInt(12, HnswIndex.Section.values().length);
+            header.putLong(16, System.currentTimeMillis());
+            header.putLong(24, snapshotCreatedAt.toEpochMilli());
+            header.putLong(32, modelCreatedAt.toEpochMilli());
+            header.putInt(40, nodeCount);
+            header.putInt(44, graph.getDimensions());
+            header.putInt(48, m);
+            header.putInt(52, graph.getEfConstruction());
+            header.putInt(56, graph.entryPoint());
+            header.putInt(60, graph.maxLevel());
+            header.putLong(HnswIndex.HEADER_SIZE, vectorsOffset);
+            header.putLong(HnswIndex.HEADER_SIZE + 8, vectorsLength);
+            header.putLong(HnswIndex.HEADER_SIZE + 16, levelZeroOffset);
+            header.putLong(HnswIndex.HEADER_SIZE + 24, levelZeroLength);
+            header.putLong(HnswIndex.HEADER_SIZE + 32, upperOffsetsOffset);
+            header.putLong(HnswIndex.HEADER_SIZE + 40, (long) nodeCount * 4);
+            header.putLong(HnswIndex.HEADER_SIZE + 48, upperLinksOffset);
+            header.putLong(HnswIndex.HEADER_SIZE + 56, upperLength * 4);
+            channel.write(header, 0);
+            channel.force(true);
+        }
+    }
+
+    private static long putInts(FileChannel channel, ByteBuffer buffer, long position, int[] values) throws IOException {
+        for (int value : values) {
+            if (buffer.remaining() < 4) {
+                position = flush(channel, buffer, position);
+            }
+            buffer.putInt(value);
+        }
+        return position;
+    }
+
+    /**
+     * Writes the buffered bytes at the position.
+     * @return The position after the written bytes
+     */
+    private static long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+        return position;
+    }
+}
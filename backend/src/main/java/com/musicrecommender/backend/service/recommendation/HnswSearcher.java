@@ -0,0 +1,121 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Greedy best-first search over an {@link HnswGraph} (Malkov and Yashunin, algorithms 2 and 5). Holds
+ * the scratch state of one search: a visited marker per node that is reset by bumping a generation
+ * number rather than clearing, the candidate queue and the result set. Not thread-safe; each search
+ * needs an instance to itself.
+ */
+final class HnswSearcher {
+    private final NodeHeap candidates;
+    private final NodeHeap results;
+    private final int[] neighbors;
+    private int[] visited;
+    private int generation;
+
+    HnswSearcher(int nodeCount, int maxDegree) {
+        this.candidates = new NodeHeap(true, 256);
+        this.results = new NodeHeap(false, 256);
+        this.neighbors = new int[maxDegree];
+        this.visited = new int[nodeCount];
+    }
+
+    /**
+     * Finds about the ef nodes most similar to the query, descending greedily through the upper levels
+     * and searching level 0 with a beam of ef.
+     * @return The number of nodes written, most similar first
+     */
+    int search(HnswGraph graph, float[] query, int ef, int[] intoNodes, float[] intoSimilarities) {
+        int entry = graph.entryPoint();
+        float similarity = graph.similarity(query, entry);
+        for (int level = graph.maxLevel(); level > 0; level--) {
+            entry = closest(graph, query, entry, similarity, level);
+            similarity = graph.similarity(query, entry);
+        }
+        searchLevel(graph, query, entry, similarity, ef, 0);
+        return results.drainMostSimilarFirst(intoNodes, intoSimilarities);
+    }
+
+    /**
+     * Follows the most similar neighbor on one level until no neighbor is more similar.
+     */
+    int closest(HnswGraph graph, float[] query, int entry, float similarity, int level) {
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int count = graph.neighbors(entry, level, neighbors);
+            for (int i = 0; i < count; i++) {
+                float candidate = graph.similarity(query, neighbors[i]);
+                if (candidate > similarity) {
+                    similarity = candidate;
+                    entry = neighbors[i];
+                    improved = true;
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Beam search on one level from the entry node, leaving up to ef nodes in the result set.
+     */
+    void searchLevel(HnswGraph graph, float[] query, int entry, float entrySimilarity, int ef, int level) {
+        nextGeneration(graph.size());
+        candidates.clear();
+        results.clear();
+        visited[entry] = generation;
+        candidates.push(entry, entrySimilarity);
+        results.push(entry, entrySimilarity);
+        while (candidates.size() > 0) {
+            int node = candidates.peekNode();
+            float similarity = candidates.peekSimilarity();
+            if (results.size() >= ef && similarity < results.peekSimilarity()) {
+                break;
+            }
+            candidates.pop();
+            int count = graph.neighbors(node, level, neighbors);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                if (visited[neighbor] == generation) {
+                    continue;
+                }
+                visited[neighbor] = generation;
+                float neighborSimilarity = graph.similarity(query, neighbor);
+                if (results.size() < ef || neighborSimilarity > results.peekSimilarity()) {
+                    candidates.push(neighbor, neighborSimilarity);
+                    results.push(neighbor, neighborSimilarity);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Empties the result set of the last {@link #searchLevel} into the arrays, most similar first.
+     */
+    int drainResults(int[] intoNodes, float[] intoSimilarities) {
+        return results.drainMostSimilarFirst(intoNodes, intoSimilarities);
+    }
+
+    /**
+     * The number of nodes the visited markers cover without growing.
+     */
+    int nodeCapacity() {
+        return visited.length;
+    }
+
+    private void nextGeneration(int nodeCount) {
+        if (visited.length < nodeCount) {
+            visited = Arrays.copyOf(visited, nodeCount);
+        }
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(visited, 0);
+            generation = 1;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.service.ItemSimilarityService;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Item-based collaborative filtering over the {@link ItemSimilarityMatrix}: a candidate's score is the sum
+ * of its similarities to the distinct seed tracks. Scores are accumulated in an open-addressing table
+ * sized to the seed rows read, so a request costs time and memory proportional to those rows rather than
+ * to the catalog.
+ */
+@Component
+public class ItemItemRecommender implements TrackRecommender {
+    @Autowired
+    private ItemSimilarityService itemSimilarityService;
+
+    @Override
+    public boolean isAvailable() {
+        return itemSimilarityService.getMatrix().isPresent();
+    }
+
+    @Override
+    public long modelVersion(MPDSnapshot snapshot) {
+        return itemSimilarityService.getMatrix(snapshot).map(matrix -> matrix.getCreatedAt().toEpochMilli()).orElse(0L);
+    }
+
+    @Override
+    public RankedTracks recommend(MPDSnapshot snapshot, int[] seedTracks, int k) {
+        ItemSimilarityMatrix matrix = itemSimilarityService.getMatrix(snapshot)
+            .orElseThrow(() -> new RecommendationException("No item similarity matrix matches the MPD snapshot"));
+        if (k <= 0) {
+            return RankedTracks.empty();
+        }
+        int[] distinctSeeds = distinct(seedTracks, matrix.getTrackCount());
+        long entries = 0;
+        for (int seed : distinctSeeds) {
+            entries += matrix.getRowLength(seed);
+        }
+        // At most half full, so probe sequences stay short; there cannot be more candidates than tracks
+        long wanted = Math.max(8, 2 * Math.min(entries, matrix.getTrackCount()));
+        int capacity = Integer.highestOneBit((int) wanted - 1) << 1;
+        int mask = capacity - 1;
+        int[] tracks = new int[capacity];
+        float[] scores = new float[capacity];
+        Arrays.fill(tracks, -1);
+        int touchedCount = 0;
+        for (int seed : distinctSeeds) {
+            long end = matrix.getRowStart(seed) + matrix.getRowLength(seed);
+            for (long position = matrix.getRowStart(seed); position < end; position++) {
+                int neighbor = matrix.getNeighbor(position);
+                if (Arrays.binarySearch(distinctSeeds, neighbor) >= 0) {
+                    continue;
+                }
+                int slot = (neighbor * 0x9E3779B9) & mask;
+                while (tracks[slot] != neighbor && tracks[slot] != -1) {
+                    slot = (slot + 1) & mask;
+                }
+                if (tracks[slot] == -1) {
+                    tracks[slot] = neighbor;
+                    touchedCount++;
+                }
+                scores[slot] += matrix.getScore(position);
+            }
+        }
+
+        TopKHeap heap = new TopKHeap(Math.min(k, touchedCount));
+        for (int slot = 0; slot < capacity; slot++) {
+            if (tracks[slot] != -1) {
+                heap.offer(tracks[slot], scores[slot]);
+            }
+        }
+        return heap.drain();
+    }
+
+    /**
+     * Sorts and de-duplicates the seeds, dropping ordinals outside the matrix. Each distinct seed
+     * contributes once, however often the playlist repeats it.
+     */
+    private static int[] distinct(int[] seedTracks, int trackCount) {
+        int[] sorted = seedTracks.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int seed : sorted) {
+            if (seed >= 0 && seed < trackCount && (size == 0 || sorted[size - 1] != seed)) {
+                sorted[size++] = seed;
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+}
@@ -0,0 +1,490 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Builds an {@link ItemSimilarityMatrix} from the playlists of an MPD snapshot.
+ *
+ * Two tracks co-occur when they appear in the same playlist; a track repeated within a playlist counts
+ * once. The similarity of tracks i and j is the cosine c(i, j) / sqrt(n(i) * n(j)), where c is the number
+ * of playlists containing both and n the number containing each. Pairs seen together fewer than
+ * recommendation.item-similarity.min-co-occurrence times or scoring below recommendation.similarity-threshold
+ * are pruned, and each row keeps only its max-neighbors best entries.
+ *
+ * Rows are computed independently on a fork-join pool, each worker accumulating counts into its own dense
+ * int array indexed by track ordinal, so no pair is ever boxed or hashed. Blocks of rows are appended to
+ * the file in track order as they complete.
+ *
+ * {@link #fold} updates an existing matrix for playlists appended to its snapshot instead of starting over,
+ * writing only the rows that changed to a delta file, and {@link #merge} combines deltas again.
+ */
+@Component
+public class ItemSimilarityBuilder {
+    private static final int BLOCK_SIZE = 256;
+
+    @Autowired
+    private RecommendationProperties recommendationProperties;
+    private static final Logger logger = LoggerFactory.getLogger(ItemSimilarityBuilder.class);
+
+    public void build(MPDSnapshot snapshot, Path target) throws IOException {
+        RecommendationProperties.ItemSimilarity settings = recommendationProperties.getItemSimilarity();
+        float threshold = (float) recommendationProperties.getSimilarityThreshold();
+        int maxNeighbors = Math.max(1, settings.getMaxNeighbors());
+        int minCoOccurrence = Math.max(1, settings.getMinCoOccurrence());
+        int parallelism = settings.getParallelism() > 0 ? settings.getParallelism() : Runtime.getRuntime().availableProcessors();
+
+        long start = System.currentTimeMillis();
+        PlaylistTrackIndex index = PlaylistTrackIndex.of(snapshot);
+        logger.info("Indexed {} playlists and {} distinct playlist-track pairs in {} ms",
+            snapshot.getPlaylistCount(), index.playlistTracks.length, System.currentTimeMillis() - start);
+
+        start = System.currentTimeMillis();
+        int blockCount = (snapshot.getTrackCount() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (Output out = new Output(target, blockCount, snapshot.getTrackCount(), null)) {
+            ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(snapshot.getTrackCount()));
+            int[] counts = index.trackPlaylistCounts;
+            IntUnaryOperator countOf = track -> counts[track];
+            pool.invoke(new RowTask(0, blockCount, block -> {
+                out.offer(block, computeBlock(index, countOf, block, scratch.get(), threshold, maxNeighbors, minCoOccurrence));
+            }));
+            out.finish(System.currentTimeMillis(), snapshot.getCreatedAt().toEpochMilli(), snapshot.getTrackCount(),
+                snapshot.getPlaylistCount(), null, counts, threshold, maxNeighbors, minCoOccurrence, 0, out.entryCount);
+            logger.info("Computed item similarities for {} tracks with {} entries on {} threads in {} ms",
+                snapshot.getTrackCount(), out.entryCount, parallelism, System.currentTimeMillis() - start);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes a delta updating a matrix built from base to next, a snapshot that appends playlists to base, by
+     * folding the appended playlists into it. Only the rows of the tracks in the new playlists are written:
+     * their pairs within the new playlists are counted and added to the stored co-occurrences, and the row
+     * is rescored with the new playlist counts. Open the delta with {@link ItemSimilarityMatrix#openAppended}.
+     * The pruning settings are taken from the matrix, not the configuration.
+     *
+     * The result is approximate in two ways. Every other row keeps its stored scores, although a neighbor
+     * in the new playlists now appears in more playlists, which lowers its true score. And where the matrix
+     * pruned a pair, for its row's size, its score or too few co-occurrences, the pair restarts from the
+     * co-occurrences in the new playlists alone, and a row whose entries score lower after the fold is not
+     * refilled from pairs it pruned before. Pairs of tracks new to the snapshot are exact. The matrix records
+     * how many playlists were folded in since it was last built in full, so callers can bound the drift; a
+     * full {@link #build} restores exact rows.
+     */
+    public void fold(ItemSimilarityMatrix matrix, MPDSnapshot base, MPDSnapshot next, Path target) throws IOException {
+        if (!matrix.isCompatibleWith(base) || next.getTrackCount() < base.getTrackCount()
+                || next.getPlaylistCount() < base.getPlaylistCount()) {
+            throw new RecommendationException("Item similarity matrix does not match the snapshot the new playlists were appended to");
+        }
+        RecommendationProperties.ItemSimilarity settings = recommendationProperties.getItemSimilarity();
+        float threshold = matrix.getThreshold();
+        int maxNeighbors = matrix.getMaxNeighbors();
+        int minCoOccurrence = matrix.getMinCoOccurrence();
+        int parallelism = settings.getParallelism() > 0 ? settings.getParallelism() : Runtime.getRuntime().availableProcessors();
+
+        long start = System.currentTimeMillis();
+        PlaylistTrackIndex delta = PlaylistTrackIndex.of(next, base.getPlaylistCount());
+        // The changed rows are those of the tracks in the new playlists, the only tracks whose counts change
+        int[] rows = Arrays.stream(delta.playlistTracks).sorted().distinct().toArray();
+        IntUnaryOperator countOf = track ->
+            (track < matrix.getTrackCount() ? matrix.getTrackPlaylistCount(track) : 0) + delta.trackPlaylistCounts[track];
+        int[] rowPlaylistCounts = new int[rows.length];
+        long replacedEntries = 0;
+        for (int row = 0; row < rows.length; row++) {
+            rowPlaylistCounts[row] = countOf.applyAsInt(rows[row]);
+            replacedEntries += matrix.getRowLength(rows[row]);
+        }
+        int blockCount = (rows.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (Output out = new Output(target, blockCount, rows.length, matrix)) {
+            ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(next.getTrackCount()));
+            pool.invoke(new RowTask(0, blockCount, block -> {
+                out.offer(block, foldBlock(matrix, delta, rows, countOf, block, scratch.get(),
+                    threshold, maxNeighbors, minCoOccurrence));
+            }));
+            out.finish(System.currentTimeMillis(), next.getCreatedAt().toEpochMilli(), next.getTrackCount(),
+                next.getPlaylistCount(), rows, rowPlaylistCounts, threshold, maxNeighbors, minCoOccurrence,
+                matrix.getFoldedPlaylistCount() + delta.getPlaylistCount(), matrix.getEntryCount() - replacedEntries + out.entryCount);
+            logger.info("Folded {} new playlists into the item similarities of {} of {} tracks with {} entries in {} ms",
+                delta.getPlaylistCount(), rows.length, next.getTrackCount(), out.entryCount, System.currentTimeMillis() - start);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Rewrites the files of the matrix from the given one on as a single file holding the same rows under the
+     * same creation time: a full matrix if from is 0, which costs a pass over every row, otherwise a delta
+     * holding the rows of the merged deltas on top of the files before them, which costs a pass over those.
+     * Open the result with {@link ItemSimilarityMatrix#open} or {@link ItemSimilarityMatrix#openAppended}
+     * on {@code matrix.firstSegments(from)}.
+     */
+    public void merge(ItemSimilarityMatrix matrix, int from, Path target) throws IOException {
+        ItemSimilarityMatrix parent = from == 0 ? null : matrix.firstSegments(from);
+        int[] rows = parent == null ? null : IntStream.range(from, matrix.getSegmentCount())
+            .flatMap(segment -> IntStream.range(0, matrix.getSegmentRowCount(segment)).map(row -> matrix.getSegmentRow(segment, row)))
+            .sorted().distinct().toArray();
+        int rowCount = rows == null ? matrix.getTrackCount() : rows.length;
+        int[] rowPlaylistCounts = new int[rowCount];
+        int blockCount = (rowCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        try (Output out = new Output(target, blockCount, rowCount, parent)) {
+            for (int block = 0; block < blockCount; block++) {
+                int first = block * BLOCK_SIZE;
+                int last = Math.min(first + BLOCK_SIZE, rowCount);
+                RowBlock copied = new RowBlock(last - first);
+                for (int row = first; row < last; row++) {
+                    int track = rows == null ? row : rows[row];
+                    rowPlaylistCounts[row] = matrix.getTrackPlaylistCount(track);
+                    long end = matrix.getRowStart(track) + matrix.getRowLength(track);
+                    for (long position = matrix.getRowStart(track); position < end; position++) {
+                        copied.add(matrix.getNeighbor(position), matrix.getScore(position), matrix.getCoOccurrence(position));
+                    }
+                    copied.endRow(row - first, matrix.getRowLength(track));
+                }
+                out.offer(block, copied);
+            }
+            out.finish(matrix.getCreatedAt().toEpochMilli(), matrix.getSnapshotCreatedAt().toEpochMilli(),
+                matrix.getTrackCount(), matrix.getPlaylistCount(), rows, rowPlaylistCounts, matrix.getThreshold(),
+                matrix.getMaxNeighbors(), matrix.getMinCoOccurrence(), matrix.getFoldedPlaylistCount(), matrix.getEntryCount());
+        }
+    }
+
+    private static RowBlock computeBlock(PlaylistTrackIndex index, IntUnaryOperator countOf, int block, Scratch scratch,
+                                         float threshold, int maxNeighbors, int minCoOccurrence) {
+        int first = block * BLOCK_SIZE;
+        int last = Math.min(first + BLOCK_SIZE, index.trackPlaylistCounts.length);
+        RowBlock rows = new RowBlock(last - first);
+        int[] counts = scratch.counts;
+        int[] touched = scratch.touched;
+        for (int track = first; track < last; track++) {
+            int touchedCount = 0;
+            for (int k = index.trackOffsets[track]; k < index.trackOffsets[track + 1]; k++) {
+                int playlist = index.trackPlaylists[k];
+                for (int m = index.playlistOffsets[playlist]; m < index.playlistOffsets[playlist + 1]; m++) {
+                    int other = index.playlistTracks[m];
+                    if (other != track && counts[other]++ == 0) {
+                        touched[touchedCount++] = other;
+                    }
+                }
+            }
+            keepBest(rows, track - first, index.trackPlaylistCounts[track], countOf, scratch, touchedCount,
+                threshold, maxNeighbors, minCoOccurrence);
+        }
+        return rows;
+    }
+
+    private static RowBlock foldBlock(ItemSimilarityMatrix matrix, PlaylistTrackIndex delta, int[] changedRows,
+                                      IntUnaryOperator countOf, int block, Scratch scratch, float threshold,
+                                      int maxNeighbors, int minCoOccurrence) {
+        int first = block * BLOCK_SIZE;
+        int last = Math.min(first + BLOCK_SIZE, changedRows.length);
+        RowBlock rows = new RowBlock(last - first);
+        int[] counts = scratch.counts;
+        int[] touched = scratch.touched;
+        for (int row = first; row < last; row++) {
+            int track = changedRows[row];
+            int touchedCount = 0;
+            for (int k = delta.trackOffsets[track]; k < delta.trackOffsets[track + 1]; k++) {
+                int playlist = delta.trackPlaylists[k];
+                for (int m = delta.playlistOffsets[playlist]; m < delta.playlistOffsets[playlist + 1]; m++) {
+                    int other = delta.playlistTracks[m];
+                    if (other != track && counts[other]++ == 0) {
+                        touched[touchedCount++] = other;
+                    }
+                }
+            }
+            long end = matrix.getRowStart(track) + matrix.getRowLength(track);
+            for (long position = matrix.getRowStart(track); position < end; position++) {
+                int other = matrix.getNeighbor(position);
+                if (counts[other] == 0) {
+                    touched[touchedCount++] = other;
+                }
+                counts[other] += matrix.getCoOccurrence(position);
+            }
+            keepBest(rows, row - first, countOf.applyAsInt(track), countOf, scratch, touchedCount,
+                threshold, maxNeighbors, minCoOccurrence);
+        }
+        return rows;
+    }
+
+    /**
+     * Scores the row's touched tracks from their co-occurrence counts, adds the best of them to the block
+     * and resets the counts for the next row.
+     */
+    private static void keepBest(RowBlock rows, int row, double trackCount, IntUnaryOperator countOf, Scratch scratch,
+                                 int touchedCount, float threshold, int maxNeighbors, int minCoOccurrence) {
+        int[] counts = scratch.counts;
+        int[] touched = scratch.touched;
+        long[] candidates = scratch.candidates(touchedCount);
+        int candidateCount = 0;
+        for (int t = 0; t < touchedCount; t++) {
+            int other = touched[t];
+            int together = counts[other];
+            if (together >= minCoOccurrence) {
+                float score = (float) (together / Math.sqrt(trackCount * countOf.applyAsInt(other)));
+                if (score >= threshold) {
+                    // Positive floats order like their bits; the inverted ordinal breaks ties toward lower ordinals
+                    candidates[candidateCount++] = (long) Float.floatToIntBits(score) << 32 | (~other & 0xFFFFFFFFL);
+                }
+            }
+        }
+        Arrays.sort(candidates, 0, candidateCount);
+        int kept = Math.min(candidateCount, maxNeighbors);
+        for (int c = candidateCount - 1; c >= candidateCount - kept; c--) {
+            int other = ~(int) candidates[c];
+            rows.add(other, Float.intBitsToFloat((int) (candidates[c] >>> 32)), counts[other]);
+        }
+        rows.endRow(row, kept);
+
+        for (int t = 0; t < touchedCount; t++) {
+            counts[touched[t]] = 0;
+        }
+    }
+
+    /**
+     * Per-thread accumulators, sized to the track count and reused for every row the thread computes.
+     */
+    private static final class Scratch {
+        private final int[] counts;
+        private final int[] touched;
+        private long[] candidates = new long[1024];
+
+        Scratch(int trackCount) {
+            this.counts = new int[trackCount];
+            this.touched = new int[trackCount];
+        }
+
+        long[] candidates(int size) {
+            if (candidates.length < size) {
+                candidates = new long[Math.max(size, candidates.length * 2)];
+            }
+            return candidates;
+        }
+    }
+
+    /**
+     * The entries of BLOCK_SIZE consecutive rows.
+     */
+    private static final class RowBlock {
+        private final int[] rowLengths;
+        private int[] neighbors = new int[256];
+        private float[] scores = new float[256];
+        private int[] coOccurrences = new int[256];
+        private int size;
+
+        RowBlock(int rowCount) {
+            this.rowLengths = new int[rowCount];
+        }
+
+        void add(int neighbor, float score, int coOccurrence) {
+            if (size == neighbors.length) {
+                neighbors = Arrays.copyOf(neighbors, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+                coOccurrences = Arrays.copyOf(coOccurrences, size * 2);
+            }
+            neighbors[size] = neighbor;
+            scores[size] = score;
+            coOccurrences[size] = coOccurrence;
+            size++;
+        }
+
+        void endRow(int row, int length) {
+            rowLengths[row] = length;
+        }
+    }
+
+    private interface BlockConsumer {
+        void accept(int block);
+    }
+
+    /**
+     * Splits the block range in halves until single blocks remain, so idle workers can steal the other half.
+     */
+    private static final class RowTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final BlockConsumer consumer;
+
+        RowTask(int from, int to, BlockConsumer consumer) {
+            this.from = from;
+            this.to = to;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    consumer.accept(from);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RowTask(from, middle, consumer), new RowTask(middle, to, consumer));
+        }
+    }
+
+    /**
+     * Writes the matrix file, or a delta if there is a parent. Blocks may arrive in any order; they are held
+     * until every earlier block has been written, so entries end up in row order. The header is written last.
+     */
+    private static final class Output implements Closeable {
+        private static final int SECTION_TABLE_SIZE = ItemSimilarityMatrix.Section.values().length * 16;
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private final RowBlock[] pending;
+        private final long[] rowOffsets;
+        private final ItemSimilarityMatrix parent;
+        private final int headerSize;
+        private long position;
+        private int nextBlock;
+        private int nextRow;
+        private long entryCount;
+
+        Output(Path target, int blockCount, int rowCount, ItemSimilarityMatrix parent) throws IOException {
+            this.channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+            this.pending = new RowBlock[blockCount];
+            this.rowOffsets = new long[rowCount + 1];
+            this.parent = parent;
+            this.headerSize = parent == null ? ItemSimilarityMatrix.HEADER_SIZE : ItemSimilarityMatrix.DELTA_HEADER_SIZE;
+            this.position = headerSize + SECTION_TABLE_SIZE;
+        }
+
+        synchronized void offer(int block, RowBlock rows) {
+            pending[block] = rows;
+            try {
+                while (nextBlock < pending.length && pending[nextBlock] != null) {
+                    write(pending[nextBlock]);
+                    pending[nextBlock++] = null;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void write(RowBlock rows) throws IOException {
+            for (int i = 0; i < rows.size; i++) {
+                ensureCapacity(ItemSimilarityMatrix.ENTRY_SIZE);
+                buffer.putInt(rows.neighbors[i]);
+                buffer.putFloat(rows.scores[i]);
+                buffer.putInt(rows.coOccurrences[i]);
+            }
+            for (int length : rows.rowLengths) {
+                rowOffsets[nextRow + 1] = rowOffsets[nextRow] + length;
+                nextRow++;
+            }
+            entryCount += rows.size;
+        }
+
+        /**
+         * @param rows The tracks of the rows written, or null if they are every track in order
+         * @param trackPlaylistCounts The playlist counts of the tracks of the rows written
+         * @param totalEntryCount The entry count of the whole matrix, which differs from the entries written for a delta
+         */
+        void finish(long createdAt, long snapshotCreatedAt, int trackCount, int playlistCount, int[] rows,
+                    int[] trackPlaylistCounts, float threshold, int maxNeighbors, int minCoOccurrence,
+                    int foldedPlaylistCount, long totalEntryCount) throws IOException {
+            if (nextBlock != pending.length) {
+                throw new RecommendationException("Item similarity rows are missing, wrote " + nextBlock + " of " + pending.length + " blocks");
+            }
+            long[] offsets = new long[ItemSimilarityMatrix.Section.values().length];
+            long[] lengths = new long[offsets.length];
+            offsets[ItemSimilarityMatrix.Section.ENTRIES.ordinal()] = headerSize + SECTION_TABLE_SIZE;
+            lengths[ItemSimilarityMatrix.Section.ENTRIES.ordinal()] = entryCount * ItemSimilarityMatrix.ENTRY_SIZE;
+
+            flush();
+            offsets[ItemSimilarityMatrix.Section.ROW_OFFSETS.ordinal()] = position;
+            for (long offset : rowOffsets) {
+                ensureCapacity(8);
+                buffer.putLong(offset);
+            }
+            flush();
+            lengths[ItemSimilarityMatrix.Section.ROW_OFFSETS.ordinal()] = position - offsets[ItemSimilarityMatrix.Section.ROW_OFFSETS.ordinal()];
+            offsets[ItemSimilarityMatrix.Section.TRACK_PLAYLIST_COUNTS.ordinal()] = position;
+            for (int count : trackPlaylistCounts) {
+                ensureCapacity(4);
+                buffer.putInt(count);
+            }
+            flush();
+            lengths[ItemSimilarityMatrix.Section.TRACK_PLAYLIST_COUNTS.ordinal()] =
+                position - offsets[ItemSimilarityMatrix.Section.TRACK_PLAYLIST_COUNTS.ordinal()];
+            offsets[ItemSimilarityMatrix.Section.ROWS.ordinal()] = position;
+            if (rows != null) {
+                for (int track : rows) {
+                    ensureCapacity(4);
+                    buffer.putInt(track);
+                }
+                flush();
+            }
+            lengths[ItemSimilarityMatrix.Section.ROWS.ordinal()] = position - offsets[ItemSimilarityMatrix.Section.ROWS.ordinal()];
+
+            ByteBuffer header = ByteBuffer.allocate(headerSize + SECTION_TABLE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(0, parent == null ? ItemSimilarityMatrix.MAGIC : ItemSimilarityMatrix.DELTA_MAGIC);
+            header.putInt(8, ItemSimilarityMatrix.FORMAT_VERSION);
+            header.putInt(12, offsets.length);
+            header.putLong(16, createdAt);
+            header.putLong(24, snapshotCreatedAt);
+            header.putInt(32, trackCount);
+            header.putInt(36, maxNeighbors);
+            header.putLong(40, totalEntryCount);
+            header.putFloat(48, threshold);
+            header.putInt(52, minCoOccurrence);
+            header.putInt(56, playlistCount);
+            header.putInt(60, foldedPlaylistCount);
+            if (parent != null) {
+                header.putLong(64, parent.getCreatedAt().toEpochMilli());
+                header.putInt(72, parent.getTrackCount());
+                header.putInt(76, rowOffsets.length - 1);
+            }
+            for (int i = 0; i < offsets.length; i++) {
+                header.putLong(headerSize + i * 16, offsets[i]);
+                header.putLong(headerSize + i * 16 + 8, lengths[i]);
+            }
+            channel.write(header, 0);
+            channel.force(true);
+        }
+
+        private void ensureCapacity(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only view of a track-track similarity matrix built by {@link ItemSimilarityBuilder}, memory-mapped
+ * the same way as {@link MPDSnapshot}. Rows and columns are the track ordinals of the snapshot the
+ * matrix was built from, so a matrix is only usable together with that snapshot.
+ *
+ * Layout, all little-endian. A fixed header is followed by a section table of (offset, length) pairs,
+ * one per {@link Section}:
+ * <pre>
+ *   0  long  magic "ITEMSIMS"
+ *   8  int   format version
+ *  12  int   section count
+ *  16  long  created at (epoch millis)
+ *  24  long  created at of the source snapshot (epoch millis)
+ *  32  int   track count      36  int   max neighbors per row
+ *  40  long  entry count
+ *  48  float similarity threshold
+ *  52  int   minimum co-occurrence
+ *  56  int   playlist count of the source snapshot
+ *  60  int   playlists folded in since the matrix was last built in full
+ *  64        section table
+ * </pre>
+ * The matrix is stored as CSR: row t holds entries ROW_OFFSETS[t] .. ROW_OFFSETS[t + 1]. Each entry is
+ * 12 bytes, the neighbor's track ordinal, its cosine similarity as a float and the number of playlists
+ * both tracks appear in. Entries of a row are sorted by descending similarity. TRACK_PLAYLIST_COUNTS
+ * holds the number of playlists each track appears in. ROWS is empty.
+ *
+ * Folding playlists into a matrix writes a delta file holding only the rows that changed, those of the
+ * tracks in the new playlists, and {@link #openAppended} stacks it on the matrix it updates. ROWS lists
+ * the delta's tracks in ascending order, and ROW_OFFSETS and TRACK_PLAYLIST_COUNTS are indexed by position
+ * in ROWS. A row is read from the newest file holding it. The header is longer:
+ * <pre>
+ *   0  long  magic "ITEMSIMD"
+ *   8 .. 63  as above, the counts being those of the whole matrix including the delta
+ *  64  long  created at of the matrix it updates (epoch millis)
+ *  72  int   track count of that matrix
+ *  76  int   number of rows in the delta
+ *  80        section table
+ * </pre>
+ *
+ * Instances are safe to share between threads; only absolute buffer reads are used.
+ */
+public class ItemSimilarityMatrix {
+    static final long MAGIC = 0x534D49534D455449L; // "ITEMSIMS" read little-endian
+    static final long DELTA_MAGIC = 0x444D49534D455449L; // "ITEMSIMD" read little-endian
+    public static final int FORMAT_VERSION = 2;
+    static final int HEADER_SIZE = 64;
+    static final int DELTA_HEADER_SIZE = 80;
+    static final int ENTRY_SIZE = 12;
+    // Entries are mapped in chunks, a single mapping cannot exceed 2 GB
+    static final int ENTRIES_PER_CHUNK_BITS = 26;
+    private static final int ENTRIES_PER_CHUNK_MASK = (1 << ENTRIES_PER_CHUNK_BITS) - 1;
+
+    enum Section {
+        ROW_OFFSETS,
+        TRACK_PLAYLIST_COUNTS,
+        ENTRIES,
+        ROWS
+    }
+
+    // The full matrix file first, then the deltas in order
+    private final Segment[] segments;
+    private final Segment base;
+    private final Segment last;
+
+    private ItemSimilarityMatrix(Segment[] segments) {
+        this.segments = segments;
+        this.base = segments[0];
+        this.last = segments[segments.length - 1];
+    }
+
+    /**
+     * Maps the matrix at the given path. The file must not be modified while it is open.
+     */
+    public static ItemSimilarityMatrix open(Path path) throws IOException {
+        return new ItemSimilarityMatrix(new Segment[] {Segment.open(path, null, 0)});
+    }
+
+    /**
+     * Maps a delta written by {@link ItemSimilarityBuilder#fold} or {@link ItemSimilarityBuilder#merge} and
+     * returns the parent matrix with the delta's rows replacing its own. The parent's mappings are shared.
+     */
+    public static ItemSimilarityMatrix openAppended(ItemSimilarityMatrix parent, Path path) throws IOException {
+        Segment[] segments = Arrays.copyOf(parent.segments, parent.segments.length + 1);
+        segments[parent.segments.length] = Segment.open(path, parent, parent.getStoredEntryCount());
+        return new ItemSimilarityMatrix(segments);
+    }
+
+    /**
+     * The matrix made of the first count files of this one, that the later deltas were appended to.
+     */
+    public ItemSimilarityMatrix firstSegments(int count) {
+        if (count < 1 || count > segments.length) {
+            throw new IllegalArgumentException("Matrix has " + segments.length + " files, not " + count);
+        }
+        return count == segments.length ? this : new ItemSimilarityMatrix(Arrays.copyOf(segments, count));
+    }
+
+    /**
+     * Touches every page of the matrix so the first queries do not pay for page faults.
+     */
+    public void preload() {
+        for (Segment segment : segments) {
+            for (MappedByteBuffer section : segment.sections) {
+                section.load();
+            }
+            for (MappedByteBuffer chunk : segment.entryChunks) {
+                chunk.load();
+            }
+        }
+    }
+
+    /**
+     * Returns true if the matrix was built from this snapshot, so its track ordinals mean the same tracks.
+     */
+    public boolean isCompatibleWith(MPDSnapshot snapshot) {
+        return snapshot.getCreatedAt().equals(last.snapshotCreatedAt) && snapshot.getTrackCount() == last.trackCount;
+    }
+
+    /**
+     * The file of the newest delta, the only file of a matrix that was not folded into.
+     */
+    public Path getPath() { return last.path; }
+    public List<Path> getPaths() { return Arrays.stream(segments).map(segment -> segment.path).toList(); }
+    public int getSegmentCount() { return segments.length; }
+    public int getVersion() { return base.version; }
+    public Instant getCreatedAt() { return last.createdAt; }
+    public Instant getSnapshotCreatedAt() { return last.snapshotCreatedAt; }
+    public long getSizeBytes() { return Arrays.stream(segments).mapToLong(segment -> segment.sizeBytes).sum(); }
+    public int getTrackCount() { return last.trackCount; }
+    public int getMaxNeighbors() { return base.maxNeighbors; }
+    /**
+     * The number of entries in the matrix's rows, not counting those of rows a delta replaced.
+     */
+    public long getEntryCount() { return last.entryCount; }
+    public float getThreshold() { return base.threshold; }
+    public int getMinCoOccurrence() { return base.minCoOccurrence; }
+    public int getPlaylistCount() { return last.playlistCount; }
+    public int getFoldedPlaylistCount() { return last.foldedPlaylistCount; }
+
+    /**
+     * The number of rows stored in the given file, every track's for the first one.
+     */
+    int getSegmentRowCount(int segment) {
+        return segments[segment].rowCount;
+    }
+
+    /**
+     * The number of entries stored in the given file.
+     */
+    public long getSegmentEntryCount(int segment) {
+        return segments[segment].storedEntries;
+    }
+
+    /**
+     * The track of the row at the given position of a delta file.
+     */
+    int getSegmentRow(int segment, int row) {
+        return segments[segment].rows.get(row);
+    }
+
+    /**
+     * Position of the track's first entry, for use with {@link #getNeighbor(long)} and friends.
+     */
+    public long getRowStart(int trackOrdinal) {
+        for (int i = segments.length - 1; i > 0; i--) {
+            int row = segments[i].find(trackOrdinal);
+            if (row >= 0) {
+                return segments[i].firstEntry + segments[i].rowOffsets.get(row);
+            }
+        }
+        return trackOrdinal < base.rowCount ? base.rowOffsets.get(trackOrdinal) : 0;
+    }
+
+    public int getRowLength(int trackOrdinal) {
+        for (int i = segments.length - 1; i > 0; i--) {
+            int row = segments[i].find(trackOrdinal);
+            if (row >= 0) {
+                return segments[i].rowLength(row);
+            }
+        }
+        return trackOrdinal < base.rowCount ? base.rowLength(trackOrdinal) : 0;
+    }
+
+    /**
+     * The number of playlists the track appears in.
+     */
+    public int getTrackPlaylistCount(int trackOrdinal) {
+        for (int i = segments.length - 1; i > 0; i--) {
+            int row = segments[i].find(trackOrdinal);
+            if (row >= 0) {
+                return segments[i].trackPlaylistCounts.get(row);
+            }
+        }
+        return trackOrdinal < base.rowCount ? base.trackPlaylistCounts.get(trackOrdinal) : 0;
+    }
+
+    /**
+     * The track ordinal of the entry at the given position.
+     */
+    public int getNeighbor(long position) {
+        Segment segment = entrySegment(position);
+        position -= segment.firstEntry;
+        return segment.entryChunks[(int) (position >>> ENTRIES_PER_CHUNK_BITS)].getInt(entryOffset(position));
+    }
+
+    public float getScore(long position) {
+        Segment segment = entrySegment(position);
+        position -= segment.firstEntry;
+        return segment.entryChunks[(int) (position >>> ENTRIES_PER_CHUNK_BITS)].getFloat(entryOffset(position) + 4);
+    }
+
+    /**
+     * The number of playlists containing both tracks of the entry at the given position.
+     */
+    public int getCoOccurrence(long position) {
+        Segment segment = entrySegment(position);
+        position -= segment.firstEntry;
+        return segment.entryChunks[(int) (position >>> ENTRIES_PER_CHUNK_BITS)].getInt(entryOffset(position) + 8);
+    }
+
+    private long getStoredEntryCount() {
+        return last.firstEntry + last.storedEntries;
+    }
+
+    private Segment entrySegment(long position) {
+        if (position < base.storedEntries) {
+            return base;
+        }
+        Segment segment = last;
+        for (int i = segments.length - 1; position < segment.firstEntry; ) {
+            segment = segments[--i];
+        }
+        return segment;
+    }
+
+    private static int entryOffset(long position) {
+        return (int) (position & ENTRIES_PER_CHUNK_MASK) * ENTRY_SIZE;
+    }
+
+    /**
+     * One file of a matrix: every row, or the rows a delta replaced. Entry positions of later files follow
+     * those of earlier ones, so a position identifies its file.
+     */
+    private static final class Segment {
+        private final Path path;
+        private final int version;
+        private final Instant createdAt;
+        private final Instant snapshotCreatedAt;
+        private final long sizeBytes;
+        private final int trackCount;
+        private final int maxNeighbors;
+        private final long entryCount;
+        private final float threshold;
+        private final int minCoOccurrence;
+        private final int playlistCount;
+        private final int foldedPlaylistCount;
+        private final int rowCount;
+        private final long firstEntry;
+        private final long storedEntries;
+        // The tracks of a delta's rows, ascending; null for the full file, whose row t is track t
+        private final IntBuffer rows;
+        private final LongBuffer rowOffsets;
+        private final IntBuffer trackPlaylistCounts;
+        private final MappedByteBuffer[] entryChunks;
+        private final MappedByteBuffer[] sections;
+
+        static Segment open(Path path, ItemSimilarityMatrix parent, long firstEntry) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                // Mappings stay valid after the channel is closed
+                return new Segment(path, channel, parent, firstEntry);
+            }
+        }
+
+        private Segment(Path path, FileChannel channel, ItemSimilarityMatrix parent, long firstEntry) throws IOException {
+            this.path = path;
+            this.firstEntry = firstEntry;
+            this.sizeBytes = channel.size();
+            int headerSize = parent == null ? HEADER_SIZE : DELTA_HEADER_SIZE;
+            if (sizeBytes < headerSize) {
+                throw new RecommendationException("Not an item similarity matrix, file is too short: " + path);
+            }
+            ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            if (header.getLong(0) != (parent == null ? MAGIC : DELTA_MAGIC)) {
+                throw new RecommendationException((parent == null ? "Not an item similarity matrix: "
+                    : "Not an item similarity matrix delta: ") + path);
+            }
+            this.version = header.getInt(8);
+            if (version != FORMAT_VERSION) {
+                throw new RecommendationException("Unsupported item similarity matrix version " + version + " in " + path
+                    + ", expected " + FORMAT_VERSION + ". Rebuild the matrix.");
+            }
+            int sectionCount = header.getInt(12);
+            if (sectionCount != Section.values().length) {
+                throw new RecommendationException("Corrupt item similarity matrix section table in " + path);
+            }
+            this.createdAt = Instant.ofEpochMilli(header.getLong(16));
+            this.snapshotCreatedAt = Instant.ofEpochMilli(header.getLong(24));
+            this.trackCount = header.getInt(32);
+            this.maxNeighbors = header.getInt(36);
+            this.entryCount = header.getLong(40);
+            this.threshold = header.getFloat(48);
+            this.minCoOccurrence = header.getInt(52);
+            this.playlistCount = header.getInt(56);
+            this.foldedPlaylistCount = header.getInt(60);
+            if (parent == null) {
+                this.rowCount = trackCount;
+            } else {
+                if (header.getLong(64) != parent.getCreatedAt().toEpochMilli() || header.getInt(72) != parent.getTrackCount()
+                        || trackCount < parent.getTrackCount() || maxNeighbors != parent.getMaxNeighbors()
+                        || Float.compare(threshold, parent.getThreshold()) != 0 || minCoOccurrence != parent.getMinCoOccurrence()) {
+                    throw new RecommendationException("Item similarity matrix delta " + path + " does not update the matrix "
+                        + parent.getPath() + ". Rebuild the matrix.");
+                }
+                this.rowCount = header.getInt(76);
+            }
+
+            ByteBuffer table = ByteBuffer.allocate(sectionCount * 16).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(table, headerSize);
+            long[] offsets = new long[sectionCount];
+            long[] lengths = new long[sectionCount];
+            for (int i = 0; i < sectionCount; i++) {
+                offsets[i] = table.getLong(i * 16);
+                lengths[i] = table.getLong(i * 16 + 8);
+                if (offsets[i] < 0 || lengths[i] < 0 || offsets[i] + lengths[i] > sizeBytes) {
+                    throw new RecommendationException("Corrupt item similarity matrix section " + Section.values()[i] + " in " + path);
+                }
+            }
+            this.sections = new MappedByteBuffer[] {
+                map(channel, offsets[Section.ROW_OFFSETS.ordinal()], lengths[Section.ROW_OFFSETS.ordinal()]),
+                map(channel, offsets[Section.TRACK_PLAYLIST_COUNTS.ordinal()], lengths[Section.TRACK_PLAYLIST_COUNTS.ordinal()]),
+                map(channel, offsets[Section.ROWS.ordinal()], lengths[Section.ROWS.ordinal()])
+            };
+            this.rowOffsets = sections[0].asLongBuffer();
+            this.trackPlaylistCounts = sections[1].asIntBuffer();
+            this.rows = parent == null ? null : sections[2].asIntBuffer();
+
+            long entriesOffset = offsets[Section.ENTRIES.ordinal()];
+            long entriesLength = lengths[Section.ENTRIES.ordinal()];
+            this.storedEntries = entriesLength / ENTRY_SIZE;
+            if (rowOffsets.limit() != rowCount + 1 || trackPlaylistCounts.limit() != rowCount
+                    || (rows == null ? lengths[Section.ROWS.ordinal()] != 0 : rows.limit() != rowCount)
+                    || entriesLength != storedEntries * ENTRY_SIZE || rowOffsets.get(rowCount) != storedEntries
+                    || (parent == null && storedEntries != entryCount)) {
+                throw new RecommendationException("Item similarity matrix section sizes do not match its header: " + path);
+            }
+            int chunkCount = (int) ((storedEntries + ENTRIES_PER_CHUNK_MASK) >>> ENTRIES_PER_CHUNK_BITS);
+            this.entryChunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                long first = (long) i << ENTRIES_PER_CHUNK_BITS;
+                long count = Math.min(storedEntries - first, 1L << ENTRIES_PER_CHUNK_BITS);
+                entryChunks[i] = map(channel, entriesOffset + first * ENTRY_SIZE, count * ENTRY_SIZE);
+            }
+        }
+
+        private static MappedByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+
+        /**
+         * @return The position of the track's row in this delta, or -1
+         */
+        int find(int trackOrdinal) {
+            int low = 0;
+            int high = rowCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int track = rows.get(mid);
+                if (track < trackOrdinal) {
+                    low = mid + 1;
+                } else if (track > trackOrdinal) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        int rowLength(int row) {
+            return (int) (rowOffsets.get(row + 1) - rowOffsets.get(row));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash signatures of track sets, and LSH band keys over them. Two sets agree on any one signature
+ * value with probability equal to their Jaccard similarity, so sets that agree on all rows of at least
+ * one band are likely to be similar.
+ *
+ * Each track ordinal is mixed into a 64-bit value once, then hash i is the high 32 bits of
+ * a[i] * x + b[i] (multiply-shift hashing), which keeps a signature to one multiply per track and hash.
+ * The functions depend only on the seed, so signatures computed at query time match the ones the
+ * index was built with.
+ */
+public class MinHasher {
+    private final int bands;
+    private final int rowsPerBand;
+    private final long seed;
+    private final long[] multipliers;
+    private final long[] increments;
+
+    public MinHasher(int bands, int rowsPerBand, long seed) {
+        if (bands <= 0 || rowsPerBand <= 0) {
+            throw new IllegalArgumentException("MinHash needs at least one band and one row per band");
+        }
+        this.bands = bands;
+        this.rowsPerBand = rowsPerBand;
+        this.seed = seed;
+        int hashCount = bands * rowsPerBand;
+        this.multipliers = new long[hashCount];
+        this.increments = new long[hashCount];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < hashCount; i++) {
+            multipliers[i] = random.nextLong() | 1;
+            increments[i] = random.nextLong();
+        }
+    }
+
+    public int getBands() { return bands; }
+    public int getRowsPerBand() { return rowsPerBand; }
+    public long getSeed() { return seed; }
+
+    /**
+     * Computes the signature of a set of track ordinals. Duplicates do not change the result.
+     * @param signature Receives bands * rowsPerBand values
+     */
+    public void signature(int[] tracks, int[] signature) {
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int track : tracks) {
+            long x = mix(track);
+            for (int i = 0; i < signature.length; i++) {
+                int hash = (int) ((multipliers[i] * x + increments[i]) >>> 32);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+    }
+
+    /**
+     * Hashes the signature values of one band into its bucket key.
+     */
+    public int bandKey(int[] signature, int band) {
+        long hash = band;
+        for (int row = band * rowsPerBand; row < (band + 1) * rowsPerBand; row++) {
+            hash = mix(hash * 31 + signature[row]);
+        }
+        return (int) (hash >>> 32);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
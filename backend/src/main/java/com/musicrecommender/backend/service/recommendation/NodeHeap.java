@@ -0,0 +1,101 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Growable binary heap of (node, similarity) pairs over primitive arrays, used by the HNSW search for
+ * its candidate queue (most similar on top) and its result set (least similar on top). Not thread-safe.
+ */
+final class NodeHeap {
+    private final boolean mostSimilarFirst;
+    private int[] nodes;
+    private float[] similarities;
+    private int size;
+
+    NodeHeap(boolean mostSimilarFirst, int capacity) {
+        this.mostSimilarFirst = mostSimilarFirst;
+        this.nodes = new int[Math.max(1, capacity)];
+        this.similarities = new float[Math.max(1, capacity)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int peekNode() {
+        return nodes[0];
+    }
+
+    float peekSimilarity() {
+        return similarities[0];
+    }
+
+    void push(int node, float similarity) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            similarities = Arrays.copyOf(similarities, size * 2);
+        }
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!above(similarity, similarities[parent])) {
+                break;
+            }
+            nodes[index] = nodes[parent];
+            similarities[index] = similarities[parent];
+            index = parent;
+        }
+        nodes[index] = node;
+        similarities[index] = similarity;
+    }
+
+    void pop() {
+        size--;
+        if (size == 0) {
+            return;
+        }
+        int node = nodes[size];
+        float similarity = similarities[size];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && above(similarities[child + 1], similarities[child])) {
+                child++;
+            }
+            if (!above(similarities[child], similarity)) {
+                break;
+            }
+            nodes[index] = nodes[child];
+            similarities[index] = similarities[child];
+            index = child;
+        }
+        nodes[index] = node;
+        similarities[index] = similarity;
+    }
+
+    /**
+     * Empties the heap into the arrays, most similar first.
+     * @return The number of entries written
+     */
+    int drainMostSimilarFirst(int[] intoNodes, float[] intoSimilarities) {
+        int count = size;
+        for (int i = 0; i < count; i++) {
+            int position = mostSimilarFirst ? i : count - 1 - i;
+            intoNodes[position] = nodes[0];
+            intoSimilarities[position] = similarities[0];
+            pop();
+        }
+        return count;
+    }
+
+    private boolean above(float a, float b) {
+        return mostSimilarFirst ? a > b : a < b;
+    }
+}
@@ -0,0 +1,192 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Read-only, memory-mapped LSH index over the MinHash signatures of the playlists in an MPD snapshot,
+ * built by {@link PlaylistLshIndexBuilder}. Playlists are identified by their snapshot playlist index.
+ *
+ * Layout, all little-endian. A fixed header is followed by a section table of (offset, length) pairs,
+ * one per {@link Section}:
+ * <pre>
+ *   0  long  magic "PLAYLSHI"
+ *   8  int   format version
+ *  12  int   section count
+ *  16  long  created at (epoch millis)
+ *  24  long  created at of the source snapshot (epoch millis)
+ *  32  int   playlist count   36  int  indexed playlist count
+ *  40  int   bands            44  int  rows per band
+ *  48  long  MinHash seed     56  long lineage of the source snapshot
+ *  64        section table
+ * </pre>
+ * Empty playlists are not indexed. For each band, BUCKET_KEYS holds the band key of every indexed
+ * playlist sorted ascending and BUCKET_PLAYLISTS the matching playlist indexes, so the playlists of a
+ * bucket are a contiguous run found by binary search. Band b occupies positions
+ * b * indexedCount .. (b + 1) * indexedCount of both sections. Signatures themselves are not stored;
+ * they are cheap to recompute from the snapshot with {@link #hasher()}.
+ *
+ * Instances are safe to share between threads; only absolute buffer reads are used.
+ */
+public class PlaylistLshIndex {
+    static final long MAGIC = 0x4948534C59414C50L; // "PLAYLSHI" read little-endian
+    public static final int FORMAT_VERSION = 2;
+    static final int HEADER_SIZE = 64;
+
+    enum Section {
+        BUCKET_KEYS,
+        BUCKET_PLAYLISTS
+    }
+
+    private final Path path;
+    private final int version;
+    private final Instant createdAt;
+    private final Instant snapshotCreatedAt;
+    private final long snapshotLineage;
+    private final long sizeBytes;
+    private final int playlistCount;
+    private final int indexedCount;
+    private final MinHasher hasher;
+    private final IntBuffer bucketKeys;
+    private final IntBuffer bucketPlaylists;
+    private final MappedByteBuffer[] sections;
+
+    private PlaylistLshIndex(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.sizeBytes = channel.size();
+        if (sizeBytes < HEADER_SIZE) {
+            throw new RecommendationException("Not a playlist LSH index, file is too short: " + path);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        if (header.getLong(0) != MAGIC) {
+            throw new RecommendationException("Not a playlist LSH index: " + path);
+        }
+        this.version = header.getInt(8);
+        if (version != FORMAT_VERSION) {
+            throw new RecommendationException("Unsupported playlist LSH index version " + version + " in " + path
+                + ", expected " + FORMAT_VERSION + ". Rebuild the index.");
+        }
+        int sectionCount = header.getInt(12);
+        if (sectionCount != Section.values().length) {
+            throw new RecommendationException("Corrupt playlist LSH index section table in " + path);
+        }
+        this.createdAt = Instant.ofEpochMilli(header.getLong(16));
+        this.snapshotCreatedAt = Instant.ofEpochMilli(header.getLong(24));
+        this.playlistCount = header.getInt(32);
+        this.indexedCount = header.getInt(36);
+        this.hasher = new MinHasher(header.getInt(40), header.getInt(44), header.getLong(48));
+        this.snapshotLineage = header.getLong(56);
+
+        ByteBuffer table = ByteBuffer.allocate(sectionCount * 16).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(table, HEADER_SIZE);
+        this.sections = new MappedByteBuffer[sectionCount];
+        for (int i = 0; i < sectionCount; i++) {
+            long offset = table.getLong(i * 16);
+            long length = table.getLong(i * 16 + 8);
+            if (offset < 0 || length < 0 || offset + length > sizeBytes) {
+                throw new RecommendationException("Corrupt playlist LSH index section " + Section.values()[i] + " in " + path);
+            }
+            sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            sections[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        this.bucketKeys = sections[Section.BUCKET_KEYS.ordinal()].asIntBuffer();
+        this.bucketPlaylists = sections[Section.BUCKET_PLAYLISTS.ordinal()].asIntBuffer();
+        long expected = (long) hasher.getBands() * indexedCount;
+        if (bucketKeys.limit() != expected || bucketPlaylists.limit() != expected) {
+            throw new RecommendationException("Playlist LSH index section sizes do not match its header: " + path);
+        }
+    }
+
+    /**
+     * Maps the index at the given path. The file must not be modified while it is open.
+     */
+    public static PlaylistLshIndex open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new PlaylistLshIndex(path, channel);
+        }
+    }
+
+    /**
+     * Returns true if the index was built from this snapshot or one it was appended to, so its playlist indexes
+     * mean the same playlists. Playlists appended since are not indexed and cannot be found until a rebuild.
+     */
+    public boolean isCompatibleWith(MPDSnapshot snapshot) {
+        return snapshot.startsWith(snapshotLineage, 0, playlistCount);
+    }
+
+    /**
+     * The hash functions the index was built with, for computing query signatures.
+     */
+    public MinHasher hasher() {
+        return hasher;
+    }
+
+    public Path getPath() { return path; }
+    public int getVersion() { return version; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getSnapshotCreatedAt() { return snapshotCreatedAt; }
+    public long getSizeBytes() { return sizeBytes; }
+    public int getPlaylistCount() { return playlistCount; }
+    public int getIndexedCount() { return indexedCount; }
+    public int getBands() { return hasher.getBands(); }
+    public int getRowsPerBand() { return hasher.getRowsPerBand(); }
+
+    /**
+     * Finds the first position of a band's bucket.
+     * @return The position of the bucket's first playlist, or -1 if no playlist has that key in the band
+     */
+    public int findBucket(int band, int key) {
+        int base = band * indexedCount;
+        int low = 0;
+        int high = indexedCount - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midKey = bucketKeys.get(base + mid);
+            if (midKey < key) {
+                low = mid + 1;
+            } else {
+                if (midKey == key) {
+                    found = base + mid;
+                }
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the end of the bucket that starts at the position returned by {@link #findBucket}.
+     * @return The position after the bucket's last playlist
+     */
+    public int findBucketEnd(int band, int key, int start) {
+        int low = start;
+        int high = (band + 1) * indexedCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (bucketKeys.get(mid) <= key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The playlist index stored at the given position.
+     */
+    public int getBucketPlaylist(int position) {
+        return bucketPlaylists.get(position);
+    }
+}
@@ -0,0 +1,141 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Builds a {@link PlaylistLshIndex} from the playlists of an MPD snapshot. Signatures and band keys are
+ * computed for all playlists in parallel on a fork-join pool, then each band is sorted by key, also in
+ * parallel, and written out.
+ */
+@Component
+public class PlaylistLshIndexBuilder {
+    private static final int SECTION_TABLE_SIZE = PlaylistLshIndex.Section.values().length * 16;
+
+    @Autowired
+    private RecommendationProperties recommendationProperties;
+    private static final Logger logger = LoggerFactory.getLogger(PlaylistLshIndexBuilder.class);
+
+    public void build(MPDSnapshot snapshot, Path target) throws IOException {
+        RecommendationProperties.PlaylistNeighbors settings = recommendationProperties.getPlaylistNeighbors();
+        MinHasher hasher = new MinHasher(settings.getBands(), settings.getRowsPerBand(), settings.getSeed());
+        int parallelism = settings.getParallelism() > 0 ? settings.getParallelism() : Runtime.getRuntime().availableProcessors();
+        int bands = hasher.getBands();
+
+        // Empty playlists have no signature and are left out
+        int playlistCount = snapshot.getPlaylistCount();
+        int[] slots = new int[playlistCount];
+        int indexedCount = 0;
+        for (int playlist = 0; playlist < playlistCount; playlist++) {
+            slots[playlist] = snapshot.getPlaylistLength(playlist) > 0 ? indexedCount++ : -1;
+        }
+        int indexed = indexedCount;
+
+        long start = System.currentTimeMillis();
+        // One packed (band key, playlist index) per playlist and band, so sorting by key keeps its playlist
+        long[][] buckets = new long[bands][indexed];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ThreadLocal<int[]> signatures = ThreadLocal.withInitial(() -> new int[bands * hasher.getRowsPerBand()]);
+            pool.submit(() -> IntStream.range(0, playlistCount).parallel().forEach(playlist -> {
+                if (slots[playlist] < 0) {
+                    return;
+                }
+                int[] signature = signatures.get();
+                hasher.signature(snapshot.getPlaylistTracks(playlist), signature);
+                for (int band = 0; band < bands; band++) {
+                    buckets[band][slots[playlist]] = (long) hasher.bandKey(signature, band) << 32 | playlist;
+                }
+            })).get();
+            logger.info("Computed MinHash signatures for {} playlists in {} ms", indexed, System.currentTimeMillis() - start);
+            pool.submit(() -> IntStream.range(0, bands).parallel().forEach(band -> Arrays.sort(buckets[band]))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RecommendationException("Interrupted while building the playlist LSH index", e);
+        } catch (ExecutionException e) {
+            throw new RecommendationException("Failed to build the playlist LSH index", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long sectionLength = (long) bands * indexed * 4;
+            long keysOffset = PlaylistLshIndex.HEADER_SIZE + SECTION_TABLE_SIZE;
+            long playlistsOffset = keysOffset + sectionLength;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            long position = keysOffset;
+            for (long[] band : buckets) {
+                for (long bucket : band) {
+                    position = putInt(channel, buffer, position, (int) (bucket >>> 32));
+                }
+            }
+            for (long[] band : buckets) {
+                for (long bucket : band) {
+                    position = putInt(channel, buffer, position, (int) bucket);
+                }
+            }
+            flush(channel, buffer, position);
+
+            ByteBuffer header = ByteBuffer.allocate(PlaylistLshIndex.HEADER_SIZE + SECTION_TABLE_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(0, PlaylistLshIndex.MAGIC);
+            header.putInt(8, PlaylistLshIndex.FORMAT_VERSION);
+            header.putInt(12, PlaylistLshIndex.Section.values().length);
+            header.putLong(16, System.currentTimeMillis());
+            header.putLong(24, snapshot.getCreatedAt().toEpochMilli());
+            header.putInt(32, playlistCount);
+            header.putInt(36, indexed);
+            header.putInt(40, bands);
+            header.putInt(44, hasher.getRowsPerBand());
+            header.putLong(48, hasher.getSeed());
+            header.putLong(56, snapshot.getLineage());
+            header.putLong(PlaylistLshIndex.HEADER_SIZE, keysOffset);
+            header.putLong(PlaylistLshIndex.HEADER_SIZE + 8, sectionLength);
+            header.putLong(PlaylistLshIndex.HEADER_SIZE + 16, playlistsOffset);
+            header.putLong(PlaylistLshIndex.HEADER_SIZE + 24, sectionLength);
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        logger.info("Built playlist LSH index with {} bands of {} rows over {} playlists in {} ms",
+            bands, hasher.getRowsPerBand(), indexed, System.currentTimeMillis() - start);
+    }
+
+    private static long putInt(FileChannel channel, ByteBuffer buffer, long position, int value) throws IOException {
+        if (buffer.remaining() < 4) {
+            position = flush(channel, buffer, position);
+        }
+        buffer.putInt(value);
+        return position;
+    }
+
+    /**
+     * Writes the buffered bytes at the position.
+     * @return The position after the written bytes
+     */
+    private static long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+        return position;
+    }
+}
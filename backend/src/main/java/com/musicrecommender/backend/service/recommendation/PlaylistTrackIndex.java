@@ -0,0 +1,74 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+
+import java.util.Arrays;
+
+/**
+ * The snapshot's playlists with duplicate tracks removed, and the transposed track to playlist lists,
+ * as on-heap CSR arrays for the model builders that walk the whole graph many times. Playlist p holds
+ * playlistTracks[playlistOffsets[p] .. playlistOffsets[p + 1]), sorted ascending; track t appears in
+ * trackPlaylists[trackOffsets[t] .. trackOffsets[t + 1]), also sorted.
+ */
+final class PlaylistTrackIndex {
+    final int[] playlistOffsets;
+    final int[] playlistTracks;
+    final int[] trackOffsets;
+    final int[] trackPlaylists;
+    final int[] trackPlaylistCounts;
+
+    private PlaylistTrackIndex(int[] playlistOffsets, int[] playlistTracks, int trackCount) {
+        this.playlistOffsets = playlistOffsets;
+        this.playlistTracks = playlistTracks;
+        this.trackPlaylistCounts = new int[trackCount];
+        for (int track : playlistTracks) {
+            trackPlaylistCounts[track]++;
+        }
+        this.trackOffsets = new int[trackCount + 1];
+        for (int track = 0; track < trackCount; track++) {
+            trackOffsets[track + 1] = trackOffsets[track] + trackPlaylistCounts[track];
+        }
+        this.trackPlaylists = new int[playlistTracks.length];
+        int[] next = Arrays.copyOf(trackOffsets, trackCount);
+        int playlistCount = playlistOffsets.length - 1;
+        for (int playlist = 0; playlist < playlistCount; playlist++) {
+            for (int m = playlistOffsets[playlist]; m < playlistOffsets[playlist + 1]; m++) {
+                trackPlaylists[next[playlistTracks[m]]++] = playlist;
+            }
+        }
+    }
+
+    static PlaylistTrackIndex of(MPDSnapshot snapshot) {
+        return of(snapshot, 0);
+    }
+
+    /**
+     * Indexes only the snapshot's playlists from firstPlaylist on, renumbered from 0, for folding
+     * playlists appended to a snapshot into models built before them. Tracks keep their snapshot ordinals.
+     */
+    static PlaylistTrackIndex of(MPDSnapshot snapshot, int firstPlaylist) {
+        int playlistCount = snapshot.getPlaylistCount() - firstPlaylist;
+        int[] offsets = new int[playlistCount + 1];
+        int[] tracks = new int[(int) (snapshot.getEdgeCount() - snapshot.getPlaylistStart(firstPlaylist))];
+        int size = 0;
+        for (int playlist = 0; playlist < playlistCount; playlist++) {
+            int[] playlistTracks = snapshot.getPlaylistTracks(firstPlaylist + playlist);
+            Arrays.sort(playlistTracks);
+            for (int i = 0; i < playlistTracks.length; i++) {
+                if (i == 0 || playlistTracks[i] != playlistTracks[i - 1]) {
+                    tracks[size++] = playlistTracks[i];
+                }
+            }
+            offsets[playlist + 1] = size;
+        }
+        return new PlaylistTrackIndex(offsets, Arrays.copyOf(tracks, size), snapshot.getTrackCount());
+    }
+
+    int getPlaylistCount() {
+        return playlistOffsets.length - 1;
+    }
+
+    int getTrackCount() {
+        return trackPlaylistCounts.length;
+    }
+}
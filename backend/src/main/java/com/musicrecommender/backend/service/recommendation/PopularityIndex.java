@@ -0,0 +1,300 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * The most frequent tracks of every artist and album, and overall, counted as the number of MPD
+ * playlists containing each track. Lists are stored back to back in flat arrays with an offsets array
+ * per key, like the snapshot's playlists, so an artist's top tracks are a slice of one int array.
+ *
+ * {@link #fold} updates an index for playlists appended to its snapshot, touching only the lists of the
+ * artists and albums whose tracks gained playlists.
+ */
+public final class PopularityIndex {
+    private final MPDSnapshot snapshot;
+    private final int[] playlistCounts;
+    private final int[] artistOffsets;
+    private final int[] artistTracks;
+    private final int[] albumOffsets;
+    private final int[] albumTracks;
+    private final int[] globalTracks;
+    private final int topN;
+    private final int globalTopN;
+
+    private PopularityIndex(MPDSnapshot snapshot, int[] playlistCounts, int[] artistOffsets, int[] artistTracks,
+                            int[] albumOffsets, int[] albumTracks, int[] globalTracks, int topN, int globalTopN) {
+        this.snapshot = snapshot;
+        this.playlistCounts = playlistCounts;
+        this.artistOffsets = artistOffsets;
+        this.artistTracks = artistTracks;
+        this.albumOffsets = albumOffsets;
+        this.albumTracks = albumTracks;
+        this.globalTracks = globalTracks;
+        this.topN = topN;
+        this.globalTopN = globalTopN;
+    }
+
+    /**
+     * Counts the playlists of every track in one parallel pass over the snapshot's playlists, each worker
+     * counting a range of playlists into its own array, then keeps the top tracks per artist and album.
+     * @param topN How many tracks to keep per artist and per album
+     * @param globalTopN How many tracks to keep overall
+     */
+    public static PopularityIndex build(MPDSnapshot snapshot, int topN, int globalTopN, ForkJoinPool pool) {
+        int trackCount = snapshot.getTrackCount();
+        int playlistCount = snapshot.getPlaylistCount();
+        int workers = Math.max(1, Math.min(pool.getParallelism(), playlistCount));
+        try {
+            int[] counts = pool.submit(() -> IntStream.range(0, workers).parallel().mapToObj(worker -> {
+                int[] workerCounts = new int[trackCount];
+                // The last playlist each track was counted for, so repeats within a playlist count once
+                int[] lastPlaylist = new int[trackCount];
+                Arrays.fill(lastPlaylist, -1);
+                int first = (int) ((long) playlistCount * worker / workers);
+                int last = (int) ((long) playlistCount * (worker + 1) / workers);
+                for (int playlist = first; playlist < last; playlist++) {
+                    int start = snapshot.getPlaylistStart(playlist);
+                    int end = start + snapshot.getPlaylistLength(playlist);
+                    for (int position = start; position < end; position++) {
+                        int track = snapshot.getEdge(position);
+                        if (lastPlaylist[track] != playlist) {
+                            lastPlaylist[track] = playlist;
+                            workerCounts[track]++;
+                        }
+                    }
+                }
+                return workerCounts;
+            }).reduce((a, b) -> {
+                for (int i = 0; i < a.length; i++) {
+                    a[i] += b[i];
+                }
+                return a;
+            }).orElse(new int[trackCount])).get();
+
+            int[] artistOffsets = new int[snapshot.getArtistCount() + 1];
+            int[] artistTracks = topPerKey(pool, snapshot, counts, snapshot.getArtistCount(), topN, artistOffsets, true);
+            int[] albumOffsets = new int[snapshot.getAlbumCount() + 1];
+            int[] albumTracks = topPerKey(pool, snapshot, counts, snapshot.getAlbumCount(), topN, albumOffsets, false);
+            TopKHeap global = new TopKHeap(Math.min(globalTopN, trackCount));
+            for (int track = 0; track < trackCount; track++) {
+                global.offer(track, counts[track]);
+            }
+            return new PopularityIndex(snapshot, counts, artistOffsets, artistTracks, albumOffsets, albumTracks,
+                tracksOf(global.drain()), topN, globalTopN);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RecommendationException("Interrupted while counting track popularity", e);
+        } catch (ExecutionException e) {
+            throw new RecommendationException("Failed to count track popularity", e.getCause());
+        }
+    }
+
+    /**
+     * Returns the index of next, a snapshot that appends playlists to the index's snapshot, by adding the
+     * appended playlists to the counts. Counts only grow, so a track can only enter a top list if it is in
+     * one of the new playlists; the lists of artists and albums without such a track are copied, and the
+     * others are re-ranked from their old list plus their tracks that gained playlists.
+     */
+    public static PopularityIndex fold(PopularityIndex index, MPDSnapshot next) {
+        MPDSnapshot base = index.snapshot;
+        if (next.getTrackCount() < base.getTrackCount() || next.getPlaylistCount() < base.getPlaylistCount()) {
+            throw new RecommendationException("The popularity index's snapshot is not a prefix of the new snapshot");
+        }
+        PlaylistTrackIndex delta = PlaylistTrackIndex.of(next, base.getPlaylistCount());
+        int[] counts = Arrays.copyOf(index.playlistCounts, next.getTrackCount());
+        int changedCount = 0;
+        for (int track = 0; track < counts.length; track++) {
+            if (delta.trackPlaylistCounts[track] > 0) {
+                counts[track] += delta.trackPlaylistCounts[track];
+                changedCount++;
+            }
+        }
+        int[] changed = new int[changedCount];
+        for (int track = 0, i = 0; track < counts.length; track++) {
+            if (delta.trackPlaylistCounts[track] > 0) {
+                changed[i++] = track;
+            }
+        }
+
+        int[] artistOffsets = new int[next.getArtistCount() + 1];
+        int[] artistTracks = foldPerKey(next, counts, changed, index.artistOffsets, index.artistTracks,
+            next.getArtistCount(), index.topN, artistOffsets, true);
+        int[] albumOffsets = new int[next.getAlbumCount() + 1];
+        int[] albumTracks = foldPerKey(next, counts, changed, index.albumOffsets, index.albumTracks,
+            next.getAlbumCount(), index.topN, albumOffsets, false);
+        TopKHeap global = new TopKHeap(Math.min(index.globalTopN, counts.length));
+        offerFolded(global, index.globalTracks, 0, index.globalTracks.length, changed, 0, changed.length, counts);
+        return new PopularityIndex(next, counts, artistOffsets, artistTracks, albumOffsets, albumTracks,
+            tracksOf(global.drain()), index.topN, index.globalTopN);
+    }
+
+    /**
+     * Rebuilds the per-key lists for the new counts, re-ranking only the keys that have changed tracks.
+     * @param offsets Filled with where each key's tracks start in the returned array
+     */
+    private static int[] foldPerKey(MPDSnapshot next, int[] counts, int[] changed, int[] baseOffsets, int[] baseTracks,
+                                    int keyCount, int topN, int[] offsets, boolean byArtist) {
+        // The changed tracks ordered by key, packed as key << 32 | track
+        long[] keyed = new long[changed.length];
+        int keyedCount = 0;
+        for (int track : changed) {
+            int key = byArtist ? next.getArtistOrdinal(track) : next.getAlbumOrdinal(track);
+            if (key >= 0) {
+                keyed[keyedCount++] = (long) key << 32 | track;
+            }
+        }
+        Arrays.sort(keyed, 0, keyedCount);
+        int[] keyedTracks = new int[keyedCount];
+        for (int i = 0; i < keyedCount; i++) {
+            keyedTracks[i] = (int) keyed[i];
+        }
+
+        int baseKeyCount = baseOffsets.length - 1;
+        RankedTracks[] reranked = new RankedTracks[keyCount];
+        for (int start = 0, end; start < keyedCount; start = end) {
+            int key = (int) (keyed[start] >>> 32);
+            end = start + 1;
+            while (end < keyedCount && (int) (keyed[end] >>> 32) == key) {
+                end++;
+            }
+            int baseStart = key < baseKeyCount ? baseOffsets[key] : 0;
+            int baseEnd = key < baseKeyCount ? baseOffsets[key + 1] : 0;
+            TopKHeap heap = new TopKHeap(Math.min(topN, baseEnd - baseStart + end - start));
+            offerFolded(heap, baseTracks, baseStart, baseEnd, keyedTracks, start, end, counts);
+            reranked[key] = heap.drain();
+        }
+
+        for (int key = 0; key < keyCount; key++) {
+            int size = reranked[key] != null ? reranked[key].size()
+                : key < baseKeyCount ? baseOffsets[key + 1] - baseOffsets[key] : 0;
+            offsets[key + 1] = offsets[key] + size;
+        }
+        int[] top = new int[offsets[keyCount]];
+        for (int key = 0; key < keyCount; key++) {
+            if (reranked[key] != null) {
+                for (int rank = 0; rank < reranked[key].size(); rank++) {
+                    top[offsets[key] + rank] = reranked[key].getTrack(rank);
+                }
+            } else if (key < baseKeyCount) {
+                System.arraycopy(baseTracks, baseOffsets[key], top, offsets[key], offsets[key + 1] - offsets[key]);
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Offers a list's old tracks and its changed tracks, each track once. The changed tracks are sorted.
+     */
+    private static void offerFolded(TopKHeap heap, int[] baseTracks, int baseStart, int baseEnd, int[] changed,
+                                    int changedStart, int changedEnd, int[] counts) {
+        for (int i = baseStart; i < baseEnd; i++) {
+            if (Arrays.binarySearch(changed, changedStart, changedEnd, baseTracks[i]) < 0) {
+                heap.offer(baseTracks[i], counts[baseTracks[i]]);
+            }
+        }
+        for (int i = changedStart; i < changedEnd; i++) {
+            heap.offer(changed[i], counts[changed[i]]);
+        }
+    }
+
+    private static int[] tracksOf(RankedTracks ranked) {
+        int[] tracks = new int[ranked.size()];
+        Arrays.setAll(tracks, ranked::getTrack);
+        return tracks;
+    }
+
+    /**
+     * Groups the tracks by artist or album with a counting sort, then keeps each group's topN tracks,
+     * most frequent first.
+     * @param offsets Filled with where each key's tracks start in the returned array
+     */
+    private static int[] topPerKey(ForkJoinPool pool, MPDSnapshot snapshot, int[] counts, int keyCount, int topN,
+                                   int[] offsets, boolean byArtist) throws InterruptedException, ExecutionException {
+        int trackCount = counts.length;
+        int[] groupOffsets = new int[keyCount + 1];
+        for (int track = 0; track < trackCount; track++) {
+            int key = byArtist ? snapshot.getArtistOrdinal(track) : snapshot.getAlbumOrdinal(track);
+            if (key >= 0) {
+                groupOffsets[key + 1]++;
+            }
+        }
+        for (int key = 0; key < keyCount; key++) {
+            offsets[key + 1] = offsets[key] + Math.min(topN, groupOffsets[key + 1]);
+            groupOffsets[key + 1] += groupOffsets[key];
+        }
+        int[] grouped = new int[groupOffsets[keyCount]];
+        int[] cursor = Arrays.copyOf(groupOffsets, keyCount);
+        for (int track = 0; track < trackCount; track++) {
+            int key = byArtist ? snapshot.getArtistOrdinal(track) : snapshot.getAlbumOrdinal(track);
+            if (key >= 0) {
+                grouped[cursor[key]++] = track;
+            }
+        }
+        int[] top = new int[offsets[keyCount]];
+        pool.submit(() -> IntStream.range(0, keyCount).parallel().forEach(key -> {
+            int size = offsets[key + 1] - offsets[key];
+            TopKHeap heap = new TopKHeap(size);
+            for (int i = groupOffsets[key]; i < groupOffsets[key + 1]; i++) {
+                heap.offer(grouped[i], counts[grouped[i]]);
+            }
+            RankedTracks ranked = heap.drain();
+            for (int rank = 0; rank < ranked.size(); rank++) {
+                top[offsets[key] + rank] = ranked.getTrack(rank);
+            }
+        })).get();
+        return top;
+    }
+
+    public MPDSnapshot getSnapshot() { return snapshot; }
+
+    /**
+     * The number of playlists containing the track.
+     */
+    public int getPlaylistCount(int track) {
+        return playlistCounts[track];
+    }
+
+    /**
+     * The artist's most frequent tracks, most frequent first, at most k.
+     */
+    public RankedTracks getArtistTopTracks(int artistOrdinal, int k) {
+        return slice(artistTracks, artistOffsets[artistOrdinal], artistOffsets[artistOrdinal + 1], k);
+    }
+
+    /**
+     * The album's most frequent tracks, most frequent first, at most k.
+     */
+    public RankedTracks getAlbumTopTracks(int albumOrdinal, int k) {
+        return slice(albumTracks, albumOffsets[albumOrdinal], albumOffsets[albumOrdinal + 1], k);
+    }
+
+    /**
+     * The most frequent tracks overall, most frequent first, at most k.
+     */
+    public RankedTracks getGlobalTopTracks(int k) {
+        return slice(globalTracks, 0, globalTracks.length, k);
+    }
+
+    int[] artistTracks() { return artistTracks; }
+    int artistStart(int artistOrdinal) { return artistOffsets[artistOrdinal]; }
+    int artistEnd(int artistOrdinal) { return artistOffsets[artistOrdinal + 1]; }
+    int[] albumTracks() { return albumTracks; }
+    int albumStart(int albumOrdinal) { return albumOffsets[albumOrdinal]; }
+    int albumEnd(int albumOrdinal) { return albumOffsets[albumOrdinal + 1]; }
+    int[] globalTracks() { return globalTracks; }
+
+    private RankedTracks slice(int[] tracks, int start, int end, int k) {
+        int size = Math.max(0, Math.min(k, end - start));
+        int[] selected = Arrays.copyOfRange(tracks, start, start + size);
+        float[] scores = new float[size];
+        for (int i = 0; i < size; i++) {
+            scores[i] = playlistCounts[selected[i]];
+        }
+        return new RankedTracks(selected, scores);
+    }
+}
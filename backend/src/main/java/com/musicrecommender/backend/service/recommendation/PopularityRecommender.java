@@ -0,0 +1,200 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.service.MPDSnapshotService;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Cold-start fallback that recommends the most popular tracks by the seeds' artists and on their albums,
+ * then the most popular tracks overall, from the {@link PopularityIndex}. A candidate scores one point
+ * per seed sharing its artist and one per seed sharing its album, plus its playlist count scaled below
+ * one, so tracks related to more seeds come first and popularity breaks ties.
+ *
+ * The index is counted from the snapshot on first use after the snapshot changes, or folded forward when
+ * new playlists are appended to the snapshot; no model has to be trained.
+ */
+@Component
+public class PopularityRecommender implements TrackRecommender {
+    @Autowired
+    private RecommendationProperties recommendationProperties;
+    @Autowired
+    private MPDSnapshotService snapshotService;
+    private volatile PopularityIndex index;
+    // Folded for a snapshot that is about to be published, and served from the first request for it
+    private PopularityIndex folded;
+    private ForkJoinPool pool;
+    private static final Logger logger = LoggerFactory.getLogger(PopularityRecommender.class);
+
+    @PostConstruct
+    public void start() {
+        int parallelism = recommendationProperties.getPopularity().getParallelism();
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return snapshotService.getSnapshot().isPresent();
+    }
+
+    @Override
+    public long modelVersion(MPDSnapshot snapshot) {
+        return snapshot.getCreatedAt().toEpochMilli();
+    }
+
+    /**
+     * Returns the index of the current snapshot, counting it first if needed, or empty while no snapshot is loaded.
+     */
+    public Optional<PopularityIndex> getIndex() {
+        return snapshotService.getSnapshot().map(this::index);
+    }
+
+    /**
+     * Folds the playlists appended adds to base into the current index, if it was counted for base, so the
+     * new snapshot is not counted from scratch on first use. Call it before the appended snapshot is
+     * published: the current index keeps serving base, and the folded one serves appended from the first
+     * request for it. {@link #publishFolded} or {@link #discardFolded} then settles it.
+     */
+    public synchronized void fold(MPDSnapshot base, MPDSnapshot appended) {
+        PopularityIndex current = index;
+        if (current == null || !current.getSnapshot().isSameAs(base)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        folded = PopularityIndex.fold(current, appended);
+        logger.info("Folded {} new playlists into track popularity in {} ms",
+            appended.getPlaylistCount() - base.getPlaylistCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Serves the index folded for the snapshot that was just published, unless a request already switched to it.
+     */
+    public synchronized void publishFolded(MPDSnapshot published) {
+        PopularityIndex pending = folded;
+        folded = null;
+        PopularityIndex current = index;
+        if (pending != null && pending.getSnapshot().isSameAs(published) && (current == null || !current.getSnapshot().isSameAs(published))) {
+            index = pending;
+        }
+    }
+
+    /**
+     * Drops the index folded for a snapshot that was not published.
+     */
+    public synchronized void discardFolded(MPDSnapshot appended) {
+        if (folded != null && folded.getSnapshot().isSameAs(appended)) {
+            folded = null;
+        }
+    }
+
+    @Override
+    public RankedTracks recommend(MPDSnapshot snapshot, int[] seedTracks, int k) {
+        PopularityIndex index = index(snapshot);
+        if (k <= 0) {
+            return RankedTracks.empty();
+        }
+        int[] seeds = distinct(seedTracks, snapshot.getTrackCount());
+        int[] artists = new int[seeds.length];
+        int[] albums = new int[seeds.length];
+        int size = 0;
+        for (int i = 0; i < seeds.length; i++) {
+            artists[i] = snapshot.getArtistOrdinal(seeds[i]);
+            albums[i] = snapshot.getAlbumOrdinal(seeds[i]);
+            size += artists[i] < 0 ? 0 : index.artistEnd(artists[i]) - index.artistStart(artists[i]);
+            size += albums[i] < 0 ? 0 : index.albumEnd(albums[i]) - index.albumStart(albums[i]);
+        }
+        // Each track appears once per seed it shares an artist or album with; sorting puts the repeats together
+        int[] candidates = new int[size];
+        int filled = 0;
+        for (int i = 0; i < seeds.length; i++) {
+            if (artists[i] >= 0) {
+                int length = index.artistEnd(artists[i]) - index.artistStart(artists[i]);
+                System.arraycopy(index.artistTracks(), index.artistStart(artists[i]), candidates, filled, length);
+                filled += length;
+            }
+            if (albums[i] >= 0) {
+                int length = index.albumEnd(albums[i]) - index.albumStart(albums[i]);
+                System.arraycopy(index.albumTracks(), index.albumStart(albums[i]), candidates, filled, length);
+                filled += length;
+            }
+        }
+        Arrays.sort(candidates);
+
+        int[] global = index.globalTracks();
+        float scale = global.length == 0 ? 0f : 1f / (index.getPlaylistCount(global[0]) + 1);
+        TopKHeap heap = new TopKHeap(k);
+        for (int start = 0, end; start < candidates.length; start = end) {
+            int track = candidates[start];
+            end = start + 1;
+            while (end < candidates.length && candidates[end] == track) {
+                end++;
+            }
+            if (Arrays.binarySearch(seeds, track) < 0) {
+                heap.offer(track, end - start + index.getPlaylistCount(track) * scale);
+            }
+        }
+        for (int track : global) {
+            if (Arrays.binarySearch(seeds, track) < 0 && Arrays.binarySearch(candidates, track) < 0) {
+                heap.offer(track, index.getPlaylistCount(track) * scale);
+            }
+        }
+        return heap.drain();
+    }
+
+    /**
+     * Sorts and de-duplicates the seeds, dropping ordinals outside the snapshot.
+     */
+    private static int[] distinct(int[] seedTracks, int trackCount) {
+        int[] sorted = seedTracks.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int seed : sorted) {
+            if (seed >= 0 && seed < trackCount && (size == 0 || sorted[size - 1] != seed)) {
+                sorted[size++] = seed;
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+
+    private PopularityIndex index(MPDSnapshot snapshot) {
+        PopularityIndex current = index;
+        if (current != null && current.getSnapshot().isSameAs(snapshot)) {
+            return current;
+        }
+        synchronized (this) {
+            current = index;
+            if (current != null && current.getSnapshot().isSameAs(snapshot)) {
+                return current;
+            }
+            if (folded != null && folded.getSnapshot().isSameAs(snapshot)) {
+                current = folded;
+                folded = null;
+            } else {
+                long start = System.currentTimeMillis();
+                RecommendationProperties.Popularity settings = recommendationProperties.getPopularity();
+                current = PopularityIndex.build(snapshot, settings.getTopN(), settings.getGlobalTopN(), pool);
+                logger.info("Counted track popularity over {} playlists in {} ms",
+                    snapshot.getPlaylistCount(), System.currentTimeMillis() - start);
+            }
+            index = current;
+            return current;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.service.MPDSnapshotService;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Pixie-style recommendations (Eksombatchai et al., "Pixie: A System for Recommending 3+ Billion Items
+ * to 200+ Million Users in Real-Time") from random walks on the bipartite playlist-track graph. Each
+ * walk starts at a seed track, hops to a random playlist containing it and on to a random track of
+ * that playlist, and restarts at the seed with probability 1 / mean walk length after every hop.
+ *
+ * The step budget is split across the seeds, favoring better connected seeds sub-linearly, and a
+ * seed's walks stop early once enough tracks have been visited often enough for their ranking to be
+ * stable. Visit counts per seed are combined as (sum of square roots)^2, which ranks tracks reached
+ * from several seeds above tracks reached often from just one. Seeds are walked in parallel groups,
+ * each group counting into its own dense primitive arrays, which are pooled between requests.
+ *
+ * The graph is the snapshot's playlists with its transpose, built in memory on a background thread
+ * when the snapshot changes; no model has to be trained. Until it is ready, the graph of the snapshot
+ * that one was appended to keeps serving, as its ordinals are a prefix of the new ones. Only the first
+ * graph of a lineage has nothing to serve meanwhile: {@link #isAvailable} is false until it is built.
+ */
+@Component
+public class RandomWalkRecommender implements TrackRecommender {
+    @Autowired
+    private RecommendationProperties recommendationProperties;
+    @Autowired
+    private MPDSnapshotService snapshotService;
+    private volatile Graph graph;
+    // The graph being built and the snapshot it is built from, guarded by this
+    private CompletableFuture<Graph> pending;
+    private MPDSnapshot pendingSnapshot;
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("random-walk-graph-"));
+    private ScratchPool<Scratch> scratches;
+    private ForkJoinPool pool;
+    private static final Logger logger = LoggerFactory.getLogger(RandomWalkRecommender.class);
+
+    @PostConstruct
+    public void start() {
+        int parallelism = recommendationProperties.getRandomWalk().getParallelism();
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        // One request uses up to parallelism instances; requests running at once allocate their own
+        scratches = new ScratchPool<>(pool.getParallelism(), Scratch::new, scratch -> scratch.visits.length);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+        builder.shutdownNow();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return snapshotService.getSnapshot().map(this::servingGraph).isPresent();
+    }
+
+    @Override
+    public long modelVersion(MPDSnapshot snapshot) {
+        Graph serving = servingGraph(snapshot);
+        return serving != null ? serving.snapshot.getCreatedAt().toEpochMilli() : 0;
+    }
+
+    @Override
+    public RankedTracks recommend(MPDSnapshot snapshot, int[] seedTracks, int k) {
+        Graph current = servingGraph(snapshot);
+        if (current == null) {
+            current = awaitGraph(snapshot);
+        }
+        PlaylistTrackIndex index = current.index;
+        int[] seeds = distinct(seedTracks, index);
+        if (k <= 0 || seeds.length == 0) {
+            return RankedTracks.empty();
+        }
+        RecommendationProperties.RandomWalk settings = recommendationProperties.getRandomWalk();
+        int[] steps = stepsPerSeed(index, current.maxDegree, seeds, settings.getTotalSteps());
+        int groups = Math.min(pool.getParallelism(), seeds.length);
+        Scratch[] groupScratches = new Scratch[groups];
+        for (int group = 0; group < groups; group++) {
+            groupScratches[group] = scratches.borrow(index.getTrackCount());
+        }
+        try {
+            pool.submit(() -> IntStream.range(0, groups).parallel().forEach(group -> {
+                for (int i = group; i < seeds.length; i += groups) {
+                    // Seeded per track, so the result does not depend on how seeds were grouped
+                    SplittableRandom random = new SplittableRandom(settings.getSeed() * 31 + seeds[i]);
+                    walk(index, seeds[i], steps[i], settings, random, groupScratches[group]);
+                }
+            })).get();
+
+            Scratch merged = groupScratches[0];
+            for (int group = 1; group < groups; group++) {
+                Scratch scratch = groupScratches[group];
+                for (int i = 0; i < scratch.combinedCount; i++) {
+                    merged.combine(scratch.combinedTracks[i], scratch.combined[scratch.combinedTracks[i]]);
+                }
+            }
+            TopKHeap heap = new TopKHeap(Math.min(k, merged.combinedCount));
+            for (int i = 0; i < merged.combinedCount; i++) {
+                int track = merged.combinedTracks[i];
+                // A newer graph reaches tracks the snapshot does not have
+                if (track < snapshot.getTrackCount() && Arrays.binarySearch(seeds, track) < 0) {
+                    float root = merged.combined[track];
+                    heap.offer(track, root * root);
+                }
+            }
+            return heap.drain();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RecommendationException("Interrupted while walking the playlist-track graph", e);
+        } catch (ExecutionException e) {
+            throw new RecommendationException("Random walk recommendation failed", e.getCause());
+        } finally {
+            for (Scratch scratch : groupScratches) {
+                scratch.clearCombined();
+                scratches.release(scratch);
+            }
+        }
+    }
+
+    /**
+     * Runs walks from one seed until its step budget is spent or enough tracks pass the visit threshold,
+     * then adds the square roots of its visit counts to the group's combined scores.
+     */
+    private static void walk(PlaylistTrackIndex index, int seed, int steps, RecommendationProperties.RandomWalk settings,
+                             SplittableRandom random, Scratch scratch) {
+        int[] visits = scratch.visits;
+        int[] visited = scratch.visitedTracks;
+        int visitedCount = 0;
+        int highVisits = 0;
+        int taken = 0;
+        double restart = 1 / Math.max(1, settings.getMeanWalkLength());
+        int threshold = settings.getVisitThreshold();
+        int highVisitCount = settings.getHighVisitCount();
+        while (taken < steps && highVisits < highVisitCount) {
+            int track = seed;
+            do {
+                int trackStart = index.trackOffsets[track];
+                int playlist = index.trackPlaylists[trackStart + random.nextInt(index.trackOffsets[track + 1] - trackStart)];
+                int playlistStart = index.playlistOffsets[playlist];
+                track = index.playlistTracks[playlistStart + random.nextInt(index.playlistOffsets[playlist + 1] - playlistStart)];
+                if (visits[track]++ == 0) {
+                    visited[visitedCount++] = track;
+                }
+                if (visits[track] == threshold) {
+                    highVisits++;
+                }
+                taken++;
+            } while (taken < steps && highVisits < highVisitCount && random.nextDouble() >= restart);
+        }
+        for (int i = 0; i < visitedCount; i++) {
+            int track = visited[i];
+            scratch.combine(track, (float) Math.sqrt(visits[track]));
+            visits[track] = 0;
+        }
+    }
+
+    /**
+     * Splits the step budget in proportion to deg * (C - log deg), where C is one more than the log of
+     * the highest track degree. Seeds in more playlists get more steps, but sub-linearly, so one hit
+     * song cannot use up the budget.
+     */
+    private static int[] stepsPerSeed(PlaylistTrackIndex index, int maxDegree, int[] seeds, int totalSteps) {
+        double c = Math.log(maxDegree) + 1;
+        double[] weights = new double[seeds.length];
+        double sum = 0;
+        for (int i = 0; i < seeds.length; i++) {
+            int degree = index.trackPlaylistCounts[seeds[i]];
+            weights[i] = degree * (c - Math.log(degree));
+            sum += weights[i];
+        }
+        int[] steps = new int[seeds.length];
+        for (int i = 0; i < seeds.length; i++) {
+            steps[i] = (int) Math.max(1, Math.round(totalSteps * weights[i] / sum));
+        }
+        return steps;
+    }
+
+    /**
+     * Sorts and de-duplicates the seeds, dropping ordinals outside the graph and tracks in no playlist.
+     */
+    private static int[] distinct(int[] seedTracks, PlaylistTrackIndex index) {
+        int[] sorted = seedTracks.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int seed : sorted) {
+            if (seed >= 0 && seed < index.getTrackCount() && index.trackPlaylistCounts[seed] > 0
+                    && (size == 0 || sorted[size - 1] != seed)) {
+                sorted[size++] = seed;
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * The graph to walk for the snapshot: its own, or else that of a snapshot it was appended to, while its
+     * own is built in the background. The graph of a snapshot appended to this one serves it too, for
+     * requests still holding the snapshot an update replaced. Null if none of these is built yet.
+     */
+    private Graph servingGraph(MPDSnapshot snapshot) {
+        Graph current = graph;
+        if (current != null && (current.snapshot.isSameAs(snapshot)
+                || current.snapshot.startsWith(snapshot.getLineage(), snapshot.getTrackCount(), snapshot.getPlaylistCount()))) {
+            return current;
+        }
+        requestGraph(snapshot);
+        return current != null && snapshot.startsWith(current.snapshot.getLineage(), current.snapshot.getTrackCount(),
+            current.snapshot.getPlaylistCount()) ? current : null;
+    }
+
+    /**
+     * Waits for the graph of a snapshot nothing built before can serve, such as the first one.
+     */
+    private Graph awaitGraph(MPDSnapshot snapshot) {
+        try {
+            return requestGraph(snapshot).join();
+        } catch (CompletionException e) {
+            throw new RecommendationException("Building the playlist-track graph failed", e.getCause());
+        }
+    }
+
+    /**
+     * Builds the snapshot's graph on the builder thread unless it is already being built. Requests queue
+     * behind the build in progress, so the newest snapshot's graph is installed last.
+     */
+    private synchronized CompletableFuture<Graph> requestGraph(MPDSnapshot snapshot) {
+        if (pending != null && pendingSnapshot.isSameAs(snapshot)) {
+            return pending;
+        }
+        CompletableFuture<Graph> building = CompletableFuture.supplyAsync(() -> {
+            long start = System.currentTimeMillis();
+            Graph built = new Graph(snapshot, PlaylistTrackIndex.of(snapshot));
+            graph = built;
+            logger.info("Built the playlist-track graph for random walks with {} edges in {} ms",
+                built.index.playlistTracks.length, System.currentTimeMillis() - start);
+            return built;
+        }, builder);
+        building.whenComplete((built, e) -> {
+            if (e != null) {
+                logger.error("Failed to build the playlist-track graph for random walks", e);
+                synchronized (this) {
+                    // The next request tries again
+                    if (pending == building) {
+                        pending = null;
+                    }
+                }
+            }
+        });
+        pending = building;
+        pendingSnapshot = snapshot;
+        return building;
+    }
+
+    /**
+     * The graph, the snapshot it was built from and its highest track degree.
+     */
+    private static final class Graph {
+        private final MPDSnapshot snapshot;
+        private final PlaylistTrackIndex index;
+        private final int maxDegree;
+
+        Graph(MPDSnapshot snapshot, PlaylistTrackIndex index) {
+            this.snapshot = snapshot;
+            this.index = index;
+            this.maxDegree = Math.max(1, Arrays.stream(index.trackPlaylistCounts).max().orElse(1));
+        }
+    }
+
+    /**
+     * Dense counters for one group of seeds, sized to at least the track count and left all zero when returned.
+     */
+    private static final class Scratch {
+        private final int[] visits;
+        private final int[] visitedTracks;
+        private final float[] combined;
+        private final int[] combinedTracks;
+        private int combinedCount;
+
+        Scratch(int trackCount) {
+            this.visits = new int[trackCount];
+            this.visitedTracks = new int[trackCount];
+            this.combined = new float[trackCount];
+            this.combinedTracks = new int[trackCount];
+        }
+
+        void combine(int track, float value) {
+            if (combined[track] == 0f) {
+                combinedTracks[combinedCount++] = track;
+            }
+            combined[track] += value;
+        }
+
+        void clearCombined() {
+            for (int i = 0; i < combinedCount; i++) {
+                combined[combinedTracks[i]] = 0f;
+            }
+            combinedCount = 0;
+        }
+    }
+}
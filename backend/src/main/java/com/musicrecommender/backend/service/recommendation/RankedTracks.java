@@ -0,0 +1,33 @@
+package com.musicrecommender.backend.service.recommendation;
+
+/**
+ * Track ordinals with their scores, best first.
+ */
+public class RankedTracks {
+    private final int[] tracks;
+    private final float[] scores;
+
+    public RankedTracks(int[] tracks, float[] scores) {
+        if (tracks.length != scores.length) {
+            throw new IllegalArgumentException("Got " + tracks.length + " tracks but " + scores.length + " scores");
+        }
+        this.tracks = tracks;
+        this.scores = scores;
+    }
+
+    public static RankedTracks empty() {
+        return new RankedTracks(new int[0], new float[0]);
+    }
+
+    public int size() {
+        return tracks.length;
+    }
+
+    public int getTrack(int rank) {
+        return tracks[rank];
+    }
+
+    public float getScore(int rank) {
+        return scores[rank];
+    }
+}
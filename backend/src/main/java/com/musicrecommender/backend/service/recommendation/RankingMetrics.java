@@ -0,0 +1,71 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * The playlist continuation metrics of the RecSys Challenge 2018 (Chen et al., "Recsys Challenge 2018:
+ * Automatic Music Playlist Continuation"), computed for one ranked list against the held-out tracks.
+ * Only exact track matches count; the challenge's partial credit for matching artists is left out.
+ */
+public final class RankingMetrics {
+    private RankingMetrics() {}
+
+    /**
+     * The share of the held-out tracks found among the first |held out| recommendations.
+     * @param truth Distinct held-out track ordinals the snapshot knows, sorted
+     * @param truthSize The number of distinct held-out tracks, including those the snapshot does not know
+     */
+    public static double rPrecision(RankedTracks ranked, int[] truth, int truthSize) {
+        if (truthSize == 0) {
+            return 0;
+        }
+        int hits = 0;
+        for (int rank = 0; rank < Math.min(truthSize, ranked.size()); rank++) {
+            if (Arrays.binarySearch(truth, ranked.getTrack(rank)) >= 0) {
+                hits++;
+            }
+        }
+        return (double) hits / truthSize;
+    }
+
+    /**
+     * DCG over the whole list divided by the DCG of a list with every hit at the top, where the first
+     * rank is undiscounted and rank i > 1 is discounted by log2(i).
+     */
+    public static double ndcg(RankedTracks ranked, int[] truth) {
+        double dcg = 0;
+        int hits = 0;
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            if (Arrays.binarySearch(truth, ranked.getTrack(rank)) >= 0) {
+                dcg += discount(rank);
+                hits++;
+            }
+        }
+        if (hits == 0) {
+            return 0;
+        }
+        double ideal = 0;
+        for (int rank = 0; rank < hits; rank++) {
+            ideal += discount(rank);
+        }
+        return dcg / ideal;
+    }
+
+    /**
+     * How many refreshes of ten tracks it takes before a held-out track is shown, or one more than the
+     * list holds pages if none is.
+     * @param candidates The list length the metric is defined for, 500 in the challenge
+     */
+    public static int clicks(RankedTracks ranked, int[] truth, int candidates) {
+        for (int rank = 0; rank < Math.min(candidates, ranked.size()); rank++) {
+            if (Arrays.binarySearch(truth, ranked.getTrack(rank)) >= 0) {
+                return rank / 10;
+            }
+        }
+        return candidates / 10 + 1;
+    }
+
+    private static double discount(int rank) {
+        return rank == 0 ? 1 : Math.log(2) / Math.log(rank + 1);
+    }
+}
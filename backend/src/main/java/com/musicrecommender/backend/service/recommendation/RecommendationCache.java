@@ -0,0 +1,225 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caches ranked recommendations by algorithm, model version, result size and the distinct seed set, so
+ * a repeated request for the same playlist costs a hash lookup. Entries expire after
+ * recommendation.cache-duration-minutes and the least recently used entries are evicted once the
+ * estimated size of all entries exceeds recommendation.cache-max-size-mb.
+ *
+ * The map is split into segments, each an access-ordered LinkedHashMap behind its own lock with an
+ * equal share of the size budget, so concurrent requests rarely contend. Results are computed outside
+ * the lock; two concurrent misses for the same key both compute and the later one is kept.
+ *
+ * Keys include the model version, so a result is never served from a model that has been replaced;
+ * {@link #invalidateAll()} is called when a model is swapped in to free the stale entries right away.
+ * Hits, misses, evictions, entry count and estimated size are published as the standard Micrometer
+ * cache meters with the tag cache=recommendations.
+ */
+@Component
+public class RecommendationCache {
+    private static final int SEGMENTS = 16;
+    // Rough per-entry cost of the key and value objects, map entry and arrays headers
+    private static final long ENTRY_OVERHEAD_BYTES = 160;
+
+    @Autowired
+    private RecommendationProperties recommendationProperties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private long ttlNanos;
+
+    @PostConstruct
+    public void start() {
+        ttlNanos = recommendationProperties.getCacheDurationMinutes() * 60_000_000_000L;
+        long segmentBytes = recommendationProperties.getCacheMaxSizeMb() * 1024L * 1024L / SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentBytes);
+        }
+        String name = "recommendations";
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum).tag("cache", name).tag("result", "hit")
+            .description("Recommendation lookups by whether the result was cached").register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum).tag("cache", name).tag("result", "miss")
+            .description("Recommendation lookups by whether the result was cached").register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum).tag("cache", name)
+            .description("Entries evicted to stay within the size budget").register(meterRegistry);
+        FunctionCounter.builder("cache.expirations", expirations, LongAdder::sum).tag("cache", name)
+            .description("Entries dropped because they outlived the TTL").register(meterRegistry);
+        Gauge.builder("cache.size", this, RecommendationCache::getEntryCount).tag("cache", name)
+            .description("Cached recommendation results").register(meterRegistry);
+        Gauge.builder("cache.weight", this, RecommendationCache::getSizeBytes).tag("cache", name).baseUnit("bytes")
+            .description("Estimated size of the cached results").register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached result for the request, computing and caching it on a miss.
+     * @param modelVersion Identifies the model that computes the result, see {@link TrackRecommender#modelVersion(com.musicrecommender.backend.service.mpd.MPDSnapshot)}
+     * @param seedTracks The seeds in any order, duplicates allowed; only the distinct set is part of the key
+     */
+    public RankedTracks get(String algorithm, long modelVersion, int[] seedTracks, int k, Supplier<RankedTracks> loader) {
+        if (ttlNanos <= 0 || segments[0].maxBytes <= 0) {
+            misses.increment();
+            return loader.get();
+        }
+        Key key = new Key(algorithm, modelVersion, k, distinct(seedTracks));
+        Segment segment = segments[(key.hash ^ (key.hash >>> 16)) & (SEGMENTS - 1)];
+        long now = System.nanoTime();
+        synchronized (segment) {
+            Entry entry = segment.entries.get(key);
+            if (entry != null) {
+                if (now - entry.createdAt < ttlNanos) {
+                    hits.increment();
+                    return entry.value;
+                }
+                segment.remove(key, entry);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+        RankedTracks value = loader.get();
+        Entry entry = new Entry(value, now, ENTRY_OVERHEAD_BYTES + 4L * key.seeds.length + 8L * value.size());
+        synchronized (segment) {
+            Entry previous = segment.entries.put(key, entry);
+            if (previous != null) {
+                segment.bytes -= previous.bytes;
+            }
+            segment.bytes += entry.bytes;
+            Iterator<Map.Entry<Key, Entry>> eldest = segment.entries.entrySet().iterator();
+            while (segment.bytes > segment.maxBytes && eldest.hasNext()) {
+                segment.bytes -= eldest.next().getValue().bytes;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Drops every entry, for when a model or snapshot is replaced.
+     */
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                segment.bytes = 0;
+            }
+        }
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+    public long getExpirationCount() { return expirations.sum(); }
+    public long getMaxSizeBytes() { return segments[0].maxBytes * SEGMENTS; }
+    public long getTtlMinutes() { return ttlNanos / 60_000_000_000L; }
+
+    public int getEntryCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.entries.size();
+            }
+        }
+        return count;
+    }
+
+    public long getSizeBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += segment.bytes;
+            }
+        }
+        return bytes;
+    }
+
+    private static int[] distinct(int[] seedTracks) {
+        int[] sorted = seedTracks.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int seed : sorted) {
+            if (size == 0 || sorted[size - 1] != seed) {
+                sorted[size++] = seed;
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+
+    private static final class Segment {
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maxBytes;
+        private long bytes;
+
+        Segment(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        void remove(Key key, Entry entry) {
+            entries.remove(key);
+            bytes -= entry.bytes;
+        }
+    }
+
+    private static final class Entry {
+        private final RankedTracks value;
+        private final long createdAt;
+        private final long bytes;
+
+        Entry(RankedTracks value, long createdAt, long bytes) {
+            this.value = value;
+            this.createdAt = createdAt;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Key {
+        private final String algorithm;
+        private final long modelVersion;
+        private final int k;
+        private final int[] seeds;
+        private final int hash;
+
+        Key(String algorithm, long modelVersion, int k, int[] seeds) {
+            this.algorithm = algorithm;
+            this.modelVersion = modelVersion;
+            this.k = k;
+            this.seeds = seeds;
+            this.hash = 31 * (31 * (31 * algorithm.hashCode() + Long.hashCode(modelVersion)) + k) + Arrays.hashCode(seeds);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key key)) {
+                return false;
+            }
+            return hash == key.hash && k == key.k && modelVersion == key.modelVersion
+                && algorithm.equals(key.algorithm) && Arrays.equals(seeds, key.seeds);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.musicrecommender.backend.service.recommendation;
+
+public class RecommendationException extends RuntimeException {
+    public RecommendationException(String message) {
+        super(message);
+    }
+
+    public RecommendationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,52 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * A bounded pool of catalog-sized scratch state for requests. At most capacity idle instances are kept:
+ * a borrow that finds none idle allocates one, and a release that finds the pool full lets it go to the
+ * garbage collector. Memory held between requests is therefore capacity instances however many request
+ * threads ran at once, unlike a ThreadLocal, which keeps one per thread for as long as the thread lives.
+ *
+ * Instances at least as large as requested are reused, so a catalog that grows by a few tracks does not
+ * discard them all; new instances get some headroom for the same reason.
+ */
+final class ScratchPool<T> {
+    private final ArrayBlockingQueue<T> idle;
+    private final IntFunction<T> factory;
+    private final ToIntFunction<T> sizeOf;
+
+    /**
+     * @param factory Creates an instance for the given size
+     * @param sizeOf The size an instance was created for
+     */
+    ScratchPool(int capacity, IntFunction<T> factory, ToIntFunction<T> sizeOf) {
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.factory = factory;
+        this.sizeOf = sizeOf;
+    }
+
+    /**
+     * Takes an idle instance of at least the size, dropping smaller ones, or allocates one.
+     */
+    T borrow(int size) {
+        T scratch = idle.poll();
+        while (scratch != null && sizeOf.applyAsInt(scratch) < size) {
+            scratch = idle.poll();
+        }
+        return scratch != null ? scratch : factory.apply(size + size / 16);
+    }
+
+    /**
+     * Returns an instance, which the caller must have left in the state borrowers expect.
+     */
+    void release(T scratch) {
+        idle.offer(scratch);
+    }
+
+    int idleCount() {
+        return idle.size();
+    }
+}
@@ -0,0 +1,41 @@
+package com.musicrecommender.backend.service.recommendation;
+
+/**
+ * Snapshot playlist indexes with their Jaccard similarity to a query track set, most similar first.
+ */
+public class SimilarPlaylists {
+    private final int[] playlists;
+    private final float[] similarities;
+    private final int size;
+    private final int candidateCount;
+
+    public SimilarPlaylists(int[] playlists, float[] similarities, int size, int candidateCount) {
+        this.playlists = playlists;
+        this.similarities = similarities;
+        this.size = size;
+        this.candidateCount = candidateCount;
+    }
+
+    public static SimilarPlaylists empty() {
+        return new SimilarPlaylists(new int[0], new float[0], 0, 0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getPlaylist(int rank) {
+        return playlists[rank];
+    }
+
+    public float getSimilarity(int rank) {
+        return similarities[rank];
+    }
+
+    /**
+     * How many distinct playlists the LSH lookup returned and were re-scored exactly.
+     */
+    public int getCandidateCount() {
+        return candidateCount;
+    }
+}
@@ -0,0 +1,108 @@
+package com.musicrecommender.backend.service.recommendation;
+
+/**
+ * Keeps the k best scoring tracks seen so far in a binary min-heap over primitive arrays, so selecting
+ * the top k of n candidates takes O(n log k) time and no allocation per candidate. Equal scores prefer
+ * the lower track ordinal, which keeps results deterministic. Not thread-safe.
+ */
+public class TopKHeap {
+    private final int[] tracks;
+    private final float[] scores;
+    private int size;
+
+    public TopKHeap(int k) {
+        this.tracks = new int[Math.max(0, k)];
+        this.scores = new float[Math.max(0, k)];
+    }
+
+    /**
+     * Adds the track if it is among the k best so far, evicting the current worst.
+     */
+    public void offer(int track, float score) {
+        if (size < tracks.length) {
+            tracks[size] = track;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && worse(tracks[0], scores[0], track, score)) {
+            tracks[0] = track;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Empties the heap into a list ordered best first.
+     */
+    public RankedTracks drain() {
+        int[] rankedTracks = new int[size];
+        float[] rankedScores = new float[size];
+        drain(rankedTracks, rankedScores);
+        return new RankedTracks(rankedTracks, rankedScores);
+    }
+
+    /**
+     * Empties the heap into the arrays, best first. Also usable for IDs other than track ordinals.
+     * @return The number of entries written
+     */
+    public int drain(int[] ids, float[] rankedScores) {
+        int count = size;
+        for (int rank = count - 1; rank >= 0; rank--) {
+            ids[rank] = tracks[0];
+            rankedScores[rank] = scores[0];
+            size--;
+            if (size > 0) {
+                tracks[0] = tracks[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if (trackA, scoreA) ranks below (trackB, scoreB).
+     */
+    private static boolean worse(int trackA, float scoreA, int trackB, float scoreB) {
+        return scoreA < scoreB || (scoreA == scoreB && trackA > trackB);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!worse(tracks[index], scores[index], tracks[parent], scores[parent])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int right = left + 1;
+            int worst = right < size && worse(tracks[right], scores[right], tracks[left], scores[left]) ? right : left;
+            if (!worse(tracks[worst], scores[worst], tracks[index], scores[index])) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int track = tracks[a];
+        tracks[a] = tracks[b];
+        tracks[b] = track;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,29 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+
+/**
+ * Ranks tracks to continue a list of seed tracks. Tracks are identified by the ordinals of the MPD snapshot
+ * passed in, so callers resolve seeds and map results back against the same snapshot even if a new one
+ * is swapped in meanwhile.
+ */
+public interface TrackRecommender {
+    /**
+     * Returns false while the model this recommender needs has not been built or loaded.
+     */
+    boolean isAvailable();
+
+    /**
+     * Identifies the model recommendations for the snapshot come from. Changes whenever a new model is
+     * swapped in, so cached results can be keyed by it.
+     */
+    long modelVersion(MPDSnapshot snapshot);
+
+    /**
+     * @param snapshot The snapshot the seed ordinals refer to; fails if the model does not match it
+     * @param seedTracks Track ordinals of the playlist so far, in any order, duplicates allowed
+     * @param k The maximum number of tracks to return
+     * @return Up to k tracks that are not among the seeds, best first
+     */
+    RankedTracks recommend(MPDSnapshot snapshot, int[] seedTracks, int k);
+}
@@ -0,0 +1,97 @@
+package com.musicrecommender.backend.service.spotify;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Merges single-key lookups into batch calls: keys requested within the window after the first one are
+ * collected and fetched with one call of the batch function, which is dispatched early once maxBatchSize
+ * distinct keys are waiting. Each caller gets the value for its own key, or completes empty if the batch
+ * has none for it. A failed batch call fails every lookup in the batch.
+ *
+ * Lookups of the same key within a batch share one slot and receive the same value instance.
+ */
+public final class BatchLoader<K, V> {
+    private final int maxBatchSize;
+    private final Duration window;
+    private final Function<List<K>, Mono<Map<K, V>>> batchFunction;
+    private Batch current;
+
+    public BatchLoader(int maxBatchSize, Duration window, Function<List<K>, Mono<Map<K, V>>> batchFunction) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.window = window;
+        this.batchFunction = batchFunction;
+    }
+
+    /**
+     * Returns a Mono that adds the key to the pending batch on subscription and emits its value once the
+     * batch has been fetched.
+     */
+    public Mono<V> load(K key) {
+        return Mono.defer(() -> {
+            Sinks.One<V> slot;
+            Batch full = null;
+            synchronized (this) {
+                if (current == null) {
+                    Batch batch = new Batch();
+                    current = batch;
+                    batch.timer = Mono.delay(window).subscribe(ignored -> dispatch(take(batch)));
+                }
+                slot = current.slots.computeIfAbsent(key, k -> Sinks.one());
+                if (current.slots.size() >= maxBatchSize) {
+                    full = take(current);
+                    full.timer.dispose();
+                }
+            }
+            if (full != null) {
+                dispatch(full);
+            }
+            return slot.asMono();
+        });
+    }
+
+    /**
+     * Detaches the batch so new keys start the next one.
+     * @return The batch, or null if it was already taken
+     */
+    private synchronized Batch take(Batch batch) {
+        if (current != batch) {
+            return null;
+        }
+        current = null;
+        return batch;
+    }
+
+    private void dispatch(Batch batch) {
+        if (batch == null) {
+            return;
+        }
+        List<K> keys = new ArrayList<>(batch.slots.keySet());
+        Mono.defer(() -> batchFunction.apply(keys))
+            .defaultIfEmpty(Map.of())
+            .subscribe(values -> batch.slots.forEach((key, slot) -> {
+                V value = values.get(key);
+                if (value != null) {
+                    slot.tryEmitValue(value);
+                } else {
+                    slot.tryEmitEmpty();
+                }
+            }), error -> batch.slots.values().forEach(slot -> slot.tryEmitError(error)));
+    }
+
+    private final class Batch {
+        private final Map<K, Sinks.One<V>> slots = new LinkedHashMap<>();
+        private Disposable timer;
+    }
+}
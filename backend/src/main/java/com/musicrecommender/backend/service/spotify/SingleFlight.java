@@ -0,0 +1,44 @@
+package com.musicrecommender.backend.service.spotify;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one: the first subscriber for a key starts the call
+ * and everyone who subscribes while it is in flight shares its result or its error. The key is released
+ * as soon as the call terminates, so nothing is cached beyond the life of the call and the next
+ * subscriber starts a fresh one.
+ *
+ * The shared call keeps running if its first subscriber cancels, so the others still get the result.
+ * Every subscriber receives the same value instance; callers that mutate it must copy it first.
+ */
+public final class SingleFlight<K, V> {
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a Mono that joins the call in flight for the key, or starts one from the supplier.
+     * The supplier is only invoked on subscription, and only by the subscriber that starts the call.
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> {
+            AtomicReference<Mono<V>> self = new AtomicReference<>();
+            Mono<V> shared = Mono.defer(call)
+                // Anyone who still finds the call after it terminated gets the replayed result
+                .doFinally(signal -> inFlight.remove(k, self.get()))
+                .cache();
+            self.set(shared);
+            return shared;
+        }));
+    }
+
+    /**
+     * The number of keys with a call in flight.
+     */
+    public int size() {
+        return inFlight.size();
+    }
+}
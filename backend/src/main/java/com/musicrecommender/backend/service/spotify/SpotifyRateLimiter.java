@@ -0,0 +1,233 @@
+package com.musicrecommender.backend.service.spotify;
+
+import com.musicrecommender.backend.config.SpotifyProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Paces every request of the Spotify Web API client through one token bucket, so bursts queue up as
+ * latency instead of turning into 429s. The bucket refills at spotify.api.rate-limit.requests-per-second
+ * up to burst tokens. A request that finds it empty reserves the next token and waits on a timer without
+ * holding a thread.
+ *
+ * A 429 pauses the whole lane for the response's Retry-After, or for a jittered exponential backoff if
+ * it has none, so every queued request waits, not only the one that was throttled. 502, 503 and 504
+ * responses are retried after the same backoff, without pausing the lane. Both are retried up to
+ * max-retries times; once the retries are used up, the last response is handed to the caller unchanged.
+ *
+ * Queue depth, permit wait times, throttled responses and retries are published as spotify.rate-limit.* meters.
+ */
+@Component
+public class SpotifyRateLimiter implements ExchangeFilterFunction {
+    @Autowired
+    private SpotifyProperties spotifyProperties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder throttled = new LongAdder();
+    private double tokens;
+    private long refilledAt;
+    private long pausedUntil;
+    private Timer waitTimer;
+    private Counter retries;
+    private static final Logger logger = LoggerFactory.getLogger(SpotifyRateLimiter.class);
+
+    @PostConstruct
+    public void start() {
+        tokens = Math.max(1, spotifyProperties.getRateLimit().getBurst());
+        refilledAt = System.nanoTime();
+        pausedUntil = refilledAt;
+        Gauge.builder("spotify.rate-limit.queue", queued, AtomicInteger::get)
+            .description("Spotify requests waiting for a permit").register(meterRegistry);
+        waitTimer = Timer.builder("spotify.rate-limit.wait")
+            .description("Time Spotify requests waited for a permit").register(meterRegistry);
+        FunctionCounter.builder("spotify.rate-limit.throttled", throttled, LongAdder::sum)
+            .description("Spotify responses with status 429").register(meterRegistry);
+        retries = Counter.builder("spotify.rate-limit.retries")
+            .description("Spotify requests retried after a 429 or a 502-504").register(meterRegistry);
+        Gauge.builder("spotify.rate-limit.paused", this, SpotifyRateLimiter::getPausedSeconds).baseUnit("seconds")
+            .description("Time left until a Retry-After pause ends").register(meterRegistry);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return exchange(request, next, 0);
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next, int attempt) {
+        return acquire()
+            .then(Mono.defer(() -> next.exchange(request)))
+            .flatMap(response -> {
+                HttpStatusCode status = response.statusCode();
+                boolean throttledResponse = status.value() == HttpStatus.TOO_MANY_REQUESTS.value();
+                if (throttledResponse) {
+                    throttled.increment();
+                    Duration retryAfter = retryAfter(response.headers().asHttpHeaders());
+                    Duration pause = retryAfter != null ? retryAfter : backoff(attempt);
+                    pause(pause);
+                    logger.warn("Spotify throttled {} {}, pausing requests for {} ms",
+                        request.method(), request.url().getPath(), pause.toMillis());
+                } else if (!isTransient(status)) {
+                    return Mono.just(response);
+                }
+                if (attempt >= spotifyProperties.getRateLimit().getMaxRetries()) {
+                    return Mono.just(response);
+                }
+                retries.increment();
+                // A 429 retry only waits out the shared pause in acquire(), which already includes the backoff
+                // when there is no Retry-After; the bucket refilling from empty spreads the queued requests
+                Duration delay = throttledResponse ? Duration.ZERO : backoff(attempt);
+                return response.releaseBody()
+                    .then(Mono.delay(delay))
+                    .then(exchange(request, next, attempt + 1));
+            });
+    }
+
+    /**
+     * Completes once a token is available, reserving it right away so later requests queue behind this one.
+     * A subscriber that cancels while queued returns its token.
+     */
+    private Mono<Void> acquire() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            long waitNanos = reserve(start);
+            if (waitNanos <= 0) {
+                waitTimer.record(0, TimeUnit.NANOSECONDS);
+                return Mono.empty();
+            }
+            queued.incrementAndGet();
+            return Mono.delay(Duration.ofNanos(waitNanos))
+                .then(Mono.defer(this::awaitPause))
+                .doOnSuccess(ignored -> {
+                    queued.decrementAndGet();
+                    waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                })
+                .doOnError(e -> abandon())
+                .doOnCancel(this::abandon);
+        });
+    }
+
+    /**
+     * Waits out a pause that began while the request was queued.
+     */
+    private Mono<Void> awaitPause() {
+        long remaining = pauseRemaining(System.nanoTime());
+        return remaining <= 0 ? Mono.empty() : Mono.delay(Duration.ofNanos(remaining)).then(Mono.defer(this::awaitPause));
+    }
+
+    /**
+     * Takes a token, letting the bucket go negative by the number of queued requests.
+     * @return How long the caller has to wait for its token, 0 if it can go ahead
+     */
+    private synchronized long reserve(long now) {
+        refill(now);
+        tokens -= 1;
+        long waitNanos = tokens >= 0 ? 0 : (long) (-tokens / spotifyProperties.getRateLimit().getRequestsPerSecond() * 1e9);
+        // The bucket does not refill during a pause, so the queue starts draining when it ends
+        return pauseRemaining(now) + waitNanos;
+    }
+
+    /**
+     * Returns the token of a request that stopped waiting for it.
+     */
+    private synchronized void abandon() {
+        queued.decrementAndGet();
+        tokens += 1;
+    }
+
+    /**
+     * Holds every request until the pause is over. The bucket is emptied and stays empty during the pause,
+     * so requests resume at the refill rate instead of in one burst.
+     */
+    private synchronized void pause(Duration duration) {
+        long now = System.nanoTime();
+        refill(now);
+        pausedUntil = Math.max(pausedUntil, now + duration.toNanos());
+        tokens = Math.min(tokens, 0);
+    }
+
+    private void refill(long now) {
+        SpotifyProperties.RateLimit settings = spotifyProperties.getRateLimit();
+        long elapsed = Math.max(0, now - Math.max(refilledAt, pausedUntil));
+        tokens = Math.min(Math.max(1, settings.getBurst()), tokens + elapsed / 1e9 * settings.getRequestsPerSecond());
+        refilledAt = now;
+    }
+
+    private synchronized long pauseRemaining(long now) {
+        return Math.max(0, pausedUntil - now);
+    }
+
+    /**
+     * Jittered exponential backoff: a random delay between half and all of initial-backoff-ms * 2^attempt,
+     * capped at max-backoff-ms, so requests throttled together do not retry together.
+     */
+    private Duration backoff(int attempt) {
+        SpotifyProperties.RateLimit settings = spotifyProperties.getRateLimit();
+        long ceiling = Math.min(settings.getMaxBackoffMs(), settings.getInitialBackoffMs() << Math.min(attempt, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+    }
+
+    /**
+     * Parses Retry-After as either delta-seconds or an HTTP date, capped at max-retry-after-seconds.
+     * @return The delay, or null if the header is missing or unreadable
+     */
+    private Duration retryAfter(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Duration delay;
+        try {
+            delay = Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                delay = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+        Duration max = Duration.ofSeconds(spotifyProperties.getRateLimit().getMaxRetryAfterSeconds());
+        return delay.isNegative() ? Duration.ZERO : delay.compareTo(max) > 0 ? max : delay;
+    }
+
+    private static boolean isTransient(HttpStatusCode status) {
+        int code = status.value();
+        return code == 502 || code == 503 || code == 504;
+    }
+
+    /**
+     * Seconds until the current Retry-After pause ends, 0 if requests are not paused.
+     */
+    public double getPausedSeconds() {
+        return pauseRemaining(System.nanoTime()) / 1e9;
+    }
+}
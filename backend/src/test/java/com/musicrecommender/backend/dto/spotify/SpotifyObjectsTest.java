@@ -0,0 +1,69 @@
+package com.musicrecommender.backend.dto.spotify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpotifyObjectsTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void albumIsDecodedWithItsFirstPageOfTracks() throws IOException {
+        AlbumObject album = objectMapper.readValue("""
+            {"id": "album", "name": "Album", "album_type": "compilation", "total_tracks": 3,
+             "release_date": "1999-05", "release_date_precision": "month", "popularity": 42,
+             "label": "not mapped", "available_markets": ["SE"],
+             "images": [{"url": "https://i.scdn.co/image/1", "width": 640, "height": null}],
+             "artists": [{"id": "artist", "name": "Artist", "type": "artist"}],
+             "tracks": {"limit": 2, "offset": 0, "total": 3, "next": "https://api.spotify.com/v1/albums/album/tracks?offset=2&limit=2",
+                        "items": [{"id": "t0", "duration_ms": 1000, "explicit": true}, {"id": "t1"}]}}
+            """, AlbumObject.class);
+
+        assertEquals("compilation", album.albumType());
+        assertEquals(3, album.totalTracks());
+        assertEquals("month", album.releaseDatePrecision());
+        assertEquals(42, album.popularity());
+        assertNull(album.images().get(0).height());
+        assertEquals("Artist", album.artists().get(0).name());
+        assertEquals(3, album.tracks().total());
+        assertEquals(1000, album.tracks().items().get(0).durationMs());
+        assertTrue(album.tracks().items().get(0).explicit());
+        assertEquals("t1", album.tracks().items().get(1).id());
+    }
+
+    @Test
+    void playlistKeepsUnavailableTracksAsNull() throws IOException {
+        PlaylistObject playlist = objectMapper.readValue("""
+            {"id": "playlist", "public": false, "collaborative": true, "owner": {"id": "user", "display_name": "User"},
+             "tracks": {"total": 2, "items": [{"track": {"id": "t0", "album": {"id": "album", "total_tracks": 7}}}, {"track": null}]}}
+            """, PlaylistObject.class);
+
+        assertFalse(playlist.isPublic());
+        assertTrue(playlist.collaborative());
+        assertEquals("User", playlist.owner().displayName());
+        assertEquals(7, playlist.tracks().items().get(0).track().album().totalTracks());
+        assertNull(playlist.tracks().items().get(1).track());
+    }
+
+    @Test
+    void collectedTracksReplaceTheFirstPageInACopy() {
+        SimplifiedTrackObject first = new SimplifiedTrackObject("t0", null, null, null, 0, false, List.of());
+        SimplifiedTrackObject second = new SimplifiedTrackObject("t1", null, null, null, 0, false, List.of());
+        PagingObject<SimplifiedTrackObject> page = new PagingObject<>("href", 1, "next", 0, null, 2, List.of(first));
+        AlbumObject album = new AlbumObject("album", null, null, null, null, 2, null, null, List.of(), List.of(), 0, page);
+
+        AlbumObject complete = album.withTracks(page.withAllItems(List.of(first, second)));
+
+        assertEquals(new PagingObject<>("href", 2, null, 0, null, 2, List.of(first, second)), complete.tracks());
+        assertEquals("album", complete.id());
+        assertEquals(page, album.tracks(), "the shared original is left unchanged");
+    }
+}
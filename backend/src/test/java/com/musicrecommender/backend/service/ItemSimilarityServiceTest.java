@@ -0,0 +1,163 @@
+package com.musicrecommender.backend.service;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.mpd.MPDTestData;
+import com.musicrecommender.backend.service.recommendation.ItemSimilarityBuilder;
+import com.musicrecommender.backend.service.recommendation.ItemSimilarityMatrix;
+import com.musicrecommender.backend.service.recommendation.RecommendationCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemSimilarityServiceTest {
+    @TempDir
+    Path directory;
+
+    private Path matrixPath;
+    private MPDSnapshot base;
+    private MPDSnapshot next;
+    private ItemSimilarityService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        List<MPDPlaylist> playlists = MPDTestData.clustered(120, 4, 12, 7);
+        base = MPDTestData.write(directory, playlists.subList(0, 90));
+        List<MPDPlaylist> appended = new ArrayList<>(playlists.subList(90, 120));
+        // New tracks, so the two snapshots differ in track count even when written within the same millisecond
+        appended.add(MPDTestData.playlist(1000, "new1", "new2", "c0t1"));
+        next = MPDTestData.append(base, appended, directory.resolve("appended.bin"));
+
+        matrixPath = directory.resolve("item-similarity.bin");
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.setSimilarityThreshold(0);
+        properties.getItemSimilarity().setPath(matrixPath.toString());
+        properties.getItemSimilarity().setMinCoOccurrence(1);
+        properties.getItemSimilarity().setMaxNeighbors(1000);
+        properties.getItemSimilarity().setParallelism(2);
+        properties.getIncrementalUpdates().setMaxFoldedFraction(1.0);
+
+        MPDSnapshotService snapshotService = new MPDSnapshotService();
+        ReflectionTestUtils.setField(snapshotService, "snapshot", base);
+        ItemSimilarityBuilder builder = new ItemSimilarityBuilder();
+        ReflectionTestUtils.setField(builder, "recommendationProperties", properties);
+        RecommendationCache cache = new RecommendationCache();
+        ReflectionTestUtils.setField(cache, "recommendationProperties", properties);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.start();
+
+        service = new ItemSimilarityService();
+        ReflectionTestUtils.setField(service, "recommendationProperties", properties);
+        ReflectionTestUtils.setField(service, "snapshotService", snapshotService);
+        ReflectionTestUtils.setField(service, "similarityBuilder", builder);
+        ReflectionTestUtils.setField(service, "recommendationCache", cache);
+        service.rebuild();
+    }
+
+    @Test
+    void foldedMatrixServesTheAppendedSnapshotWhileTheReplacedOneServesTheBase() throws IOException {
+        ItemSimilarityMatrix rebuilt = service.getMatrix(base).orElseThrow();
+
+        ItemSimilarityMatrix folded = service.fold(base, next).orElseThrow();
+
+        assertSame(folded, service.getMatrix(next).orElseThrow());
+        assertSame(rebuilt, service.getMatrix(base).orElseThrow());
+        assertNotEquals(rebuilt.getPath(), folded.getPath());
+        assertEquals(rebuilt.getPath(), currentVersion(), "the current version is untouched until publishing");
+    }
+
+    @Test
+    void discardingAFoldedMatrixServesTheReplacedOneAgain() throws IOException {
+        ItemSimilarityMatrix folded = service.fold(base, next).orElseThrow();
+
+        service.discardFolded(folded);
+
+        assertTrue(service.getMatrix(base).isPresent());
+        assertFalse(service.getMatrix(next).isPresent());
+        assertFalse(Files.exists(folded.getPath()));
+        assertTrue(ItemSimilarityMatrix.open(currentVersion()).isCompatibleWith(base));
+    }
+
+    @Test
+    void publishingAFoldedMatrixMakesItsVersionCurrent() throws IOException {
+        ItemSimilarityMatrix rebuilt = service.getMatrix(base).orElseThrow();
+        ItemSimilarityMatrix folded = service.fold(base, next).orElseThrow();
+
+        service.publishFolded(folded, next);
+
+        assertEquals(List.of(rebuilt.getPath(), folded.getPath()), currentVersions(), "the fold only adds the changed rows");
+        assertSame(folded, service.getMatrix(next).orElseThrow());
+        assertFalse(service.getMatrix(base).isPresent(), "the replaced matrix is retired");
+        assertFalse(Files.exists(matrixPath), "nothing is written to the configured path itself");
+    }
+
+    @Test
+    void foldsAreMergedSizeTiered() throws IOException {
+        ItemSimilarityMatrix rebuilt = service.getMatrix(base).orElseThrow();
+        List<MPDPlaylist> playlists = MPDTestData.clustered(200, 4, 12, 13);
+        MPDSnapshot snapshot = next;
+        service.publishFolded(service.fold(base, next).orElseThrow(), next);
+        for (int chunk = 0; chunk < 2; chunk++) {
+            // Pids from 120 on are not in next
+            MPDSnapshot appended = MPDTestData.append(snapshot, playlists.subList(120 + 30 * chunk, 150 + 30 * chunk),
+                directory.resolve("appended." + chunk));
+            service.publishFolded(service.fold(snapshot, appended).orElseThrow(), appended);
+            snapshot = appended;
+        }
+        ItemSimilarityMatrix unmerged = service.getMatrix(snapshot).orElseThrow();
+        assertEquals(4, unmerged.getSegmentCount());
+
+        service.compact();
+
+        ItemSimilarityMatrix merged = service.getMatrix(snapshot).orElseThrow();
+        assertEquals(2, merged.getSegmentCount());
+        assertEquals(rebuilt.getPath(), merged.getPaths().get(0), "the full file is only replaced by a rebuild");
+        assertEquals(merged.getPaths(), currentVersions());
+        assertEquals(unmerged.getCreatedAt(), merged.getCreatedAt());
+        assertEquals(unmerged.getEntryCount(), merged.getEntryCount());
+        assertFalse(Files.exists(unmerged.getPaths().get(1)), "the merged deltas are deleted");
+    }
+
+    @Test
+    void rebuildingReplacesTheCurrentVersionWithoutTouchingTheMappedOne() throws IOException {
+        ItemSimilarityMatrix first = service.getMatrix(base).orElseThrow();
+
+        ItemSimilarityMatrix second = service.rebuild();
+
+        assertNotEquals(first.getPath(), second.getPath());
+        assertEquals(second.getPath(), currentVersion());
+        assertEquals(first.getEntryCount(), second.getEntryCount());
+        assertEquals(first.getNeighbor(0), second.getNeighbor(0), "the old mapping still reads");
+    }
+
+    @Test
+    void foldNeedsAMatrixBuiltFromTheBase() throws IOException {
+        assertFalse(service.fold(next, next).isPresent());
+    }
+
+    private Path currentVersion() throws IOException {
+        return directory.resolve(Files.readString(directory.resolve("item-similarity.bin.current")).strip());
+    }
+
+    private List<Path> currentVersions() throws IOException {
+        return Files.readAllLines(directory.resolve("item-similarity.bin.current")).stream().map(directory::resolve).toList();
+    }
+}
@@ -0,0 +1,116 @@
+package com.musicrecommender.backend.service;
+
+import com.musicrecommender.backend.config.MPDSnapshotProperties;
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.service.mpd.MPDSliceReader;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.mpd.MPDSnapshotWriter;
+import com.musicrecommender.backend.service.mpd.MPDTestData;
+import com.musicrecommender.backend.service.recommendation.RecommendationCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MPDSnapshotServiceTest {
+    @TempDir
+    Path directory;
+
+    private List<MPDPlaylist> playlists;
+    private MPDSnapshotProperties properties;
+    private MPDSnapshotService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        playlists = MPDTestData.clustered(200, 4, 20, 11);
+        Path slices = Files.createDirectories(directory.resolve("slices"));
+        MPDTestData.writeSlice(slices.resolve("mpd.slice.0-99.json"), playlists.subList(0, 100));
+
+        properties = new MPDSnapshotProperties();
+        properties.setPath(directory.resolve("mpd.snapshot").toString());
+        properties.setMaxAppendedFraction(1.0);
+        service = newService();
+        service.rebuildFromSlices(slices.toFile());
+    }
+
+    @Test
+    void appendedSegmentsAreMergedSizeTiered() throws IOException {
+        MPDSnapshot original = append(100, 110);
+        assertEquals(2, original.getSegmentCount());
+        assertEquals(2, service.compact().orElseThrow().getSegmentCount(), "a single segment is left alone");
+
+        append(110, 120);
+        MPDSnapshot merged = service.compact().orElseThrow();
+        assertEquals(2, merged.getSegmentCount(), "two segments of about the same size are merged");
+        assertEquals(merged.getEdgeCount() - merged.getSegmentEdgeCount(0), merged.getSegmentEdgeCount(1));
+
+        MPDSnapshot appended = append(120, 125);
+        assertEquals(3, appended.getSegmentCount());
+        assertEquals(3, service.compact().orElseThrow().getSegmentCount(), "a segment much smaller than the one before is kept");
+        assertTrue(service.getSnapshot().orElseThrow().isSameAs(appended));
+    }
+
+    @Test
+    void appendedSegmentsAreMergedIntoTheFirstFileOnceTheyHoldTheConfiguredFraction() throws IOException {
+        properties.setMaxAppendedFraction(0.05);
+        MPDSnapshot appended = append(100, 120);
+
+        MPDSnapshot merged = service.compact().orElseThrow();
+
+        assertEquals(1, merged.getSegmentCount());
+        assertTrue(merged.isSameAs(appended));
+        assertEquals(List.of(merged.getPath()), VersionedFiles.of(directory.resolve("mpd.snapshot")).current());
+    }
+
+    @Test
+    void segmentChainIsReloadedOnStartup() throws IOException {
+        append(100, 120);
+        MPDSnapshot current = append(120, 125);
+
+        MPDSnapshotService restarted = newService();
+        restarted.loadOnStartup();
+
+        MPDSnapshot loaded = restarted.getSnapshot().orElseThrow();
+        assertEquals(current.getPaths(), loaded.getPaths());
+        assertTrue(loaded.isSameAs(current));
+        for (int playlist = 0; playlist < current.getPlaylistCount(); playlist++) {
+            assertArrayEquals(current.getPlaylistTracks(playlist), loaded.getPlaylistTracks(playlist));
+        }
+    }
+
+    private MPDSnapshot append(int from, int to) throws IOException {
+        MPDSnapshot base = service.getSnapshot().orElseThrow();
+        MPDSnapshot appended = service.writeAppended(base, playlists.subList(from, to)).orElseThrow();
+        return service.publishAppended(base, appended).orElseThrow();
+    }
+
+    private MPDSnapshotService newService() {
+        RecommendationProperties recommendationProperties = new RecommendationProperties();
+        RecommendationCache cache = new RecommendationCache();
+        ReflectionTestUtils.setField(cache, "recommendationProperties", recommendationProperties);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.start();
+        MPDSnapshotWriter writer = new MPDSnapshotWriter();
+        ReflectionTestUtils.setField(writer, "sliceReader", new MPDSliceReader());
+
+        MPDSnapshotService snapshotService = new MPDSnapshotService();
+        ReflectionTestUtils.setField(snapshotService, "snapshotProperties", properties);
+        ReflectionTestUtils.setField(snapshotService, "snapshotWriter", writer);
+        ReflectionTestUtils.setField(snapshotService, "recommendationCache", cache);
+        return snapshotService;
+    }
+}
@@ -0,0 +1,143 @@
+package com.musicrecommender.backend.service;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.mpd.MPDTestData;
+import com.musicrecommender.backend.service.recommendation.PlaylistLshIndex;
+import com.musicrecommender.backend.service.recommendation.PlaylistLshIndexBuilder;
+import com.musicrecommender.backend.service.recommendation.RecommendationException;
+import com.musicrecommender.backend.service.recommendation.SimilarPlaylists;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlaylistNeighborServiceTest {
+    @TempDir
+    Path directory;
+
+    private RecommendationProperties properties;
+    private PlaylistNeighborService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RecommendationProperties();
+        properties.getPlaylistNeighbors().setPath(directory.resolve("playlist-lsh.bin").toString());
+        properties.getPlaylistNeighbors().setParallelism(2);
+    }
+
+    @Test
+    void lshNeighborsRecallTheExactTopByJaccard() throws IOException {
+        MPDSnapshot snapshot = load(MPDTestData.clustered(600, 20, 30, 11));
+        int k = 10;
+
+        int queries = 0;
+        double recall = 0;
+        for (int query = 0; query < snapshot.getPlaylistCount(); query += 12) {
+            int[] tracks = snapshot.getPlaylistTracks(query);
+            float[] exact = new float[snapshot.getPlaylistCount()];
+            for (int playlist = 0; playlist < exact.length; playlist++) {
+                exact[playlist] = playlist == query ? -1 : jaccard(tracks, snapshot.getPlaylistTracks(playlist));
+            }
+            float[] sorted = exact.clone();
+            Arrays.sort(sorted);
+            float kth = sorted[sorted.length - k];
+
+            SimilarPlaylists found = service.findNeighbors(snapshot, tracks, k, query);
+            int hits = 0;
+            for (int rank = 0; rank < found.size(); rank++) {
+                assertTrue(found.getPlaylist(rank) != query, "the query playlist is excluded");
+                assertEquals(exact[found.getPlaylist(rank)], found.getSimilarity(rank), 1e-6);
+                if (found.getSimilarity(rank) >= kth) {
+                    hits++;
+                }
+            }
+            recall += (double) hits / k;
+            queries++;
+        }
+        assertTrue(recall / queries >= 0.9, "recall@" + k + " was " + recall / queries);
+    }
+
+    @Test
+    void crowdedBucketsAreNotReadFromTheirFirstPlaylistsOnly() throws IOException {
+        // Identical playlists share every bucket, so each band's bucket holds all of them
+        List<MPDPlaylist> playlists = new ArrayList<>();
+        for (int pid = 0; pid < 400; pid++) {
+            playlists.add(MPDTestData.playlist(pid, "a", "b", "c", "d"));
+        }
+        properties.getPlaylistNeighbors().setMaxCandidates(properties.getPlaylistNeighbors().getBands());
+        MPDSnapshot snapshot = load(playlists);
+
+        SimilarPlaylists found = service.findNeighbors(snapshot, snapshot.getPlaylistTracks(0), 100, 0);
+
+        Set<Integer> returned = new HashSet<>();
+        for (int rank = 0; rank < found.size(); rank++) {
+            returned.add(found.getPlaylist(rank));
+        }
+        assertTrue(found.getCandidateCount() > properties.getPlaylistNeighbors().getBands() / 2,
+            "candidates came from " + found.getCandidateCount() + " positions");
+        assertTrue(returned.stream().anyMatch(playlist -> playlist >= properties.getPlaylistNeighbors().getBands()));
+        assertFalse(returned.contains(0));
+    }
+
+    @Test
+    void searchesOnlyAnIndexBuiltFromTheGivenSnapshotOrOneItWasAppendedTo() throws IOException {
+        MPDSnapshot snapshot = load(MPDTestData.clustered(100, 5, 10, 3));
+        MPDSnapshot appended = MPDTestData.append(snapshot, List.of(MPDTestData.playlist(1000, "c0t0", "new")),
+            directory.resolve("appended.bin"));
+        // The same playlists, but built from scratch, so its ordinals need not match
+        MPDSnapshot unrelated = MPDTestData.write(Files.createDirectories(directory.resolve("other")),
+            MPDTestData.clustered(100, 5, 10, 3));
+
+        assertTrue(service.getIndex(snapshot).isPresent());
+        assertTrue(service.getIndex(appended).isPresent());
+        assertTrue(service.findNeighbors(appended, appended.getPlaylistTracks(0), 10, 0).size() > 0);
+        assertFalse(service.getIndex(unrelated).isPresent());
+        assertThrows(RecommendationException.class,
+            () -> service.findNeighbors(unrelated, unrelated.getPlaylistTracks(0), 10, 0));
+    }
+
+    private MPDSnapshot load(List<MPDPlaylist> playlists) throws IOException {
+        MPDSnapshot snapshot = MPDTestData.write(directory, playlists);
+        MPDSnapshotService snapshotService = new MPDSnapshotService();
+        ReflectionTestUtils.setField(snapshotService, "snapshot", snapshot);
+        PlaylistLshIndexBuilder builder = new PlaylistLshIndexBuilder();
+        ReflectionTestUtils.setField(builder, "recommendationProperties", properties);
+        Path path = Path.of(properties.getPlaylistNeighbors().getPath());
+        builder.build(snapshot, path);
+
+        service = new PlaylistNeighborService();
+        ReflectionTestUtils.setField(service, "recommendationProperties", properties);
+        ReflectionTestUtils.setField(service, "snapshotService", snapshotService);
+        ReflectionTestUtils.setField(service, "index", PlaylistLshIndex.open(path));
+        return snapshot;
+    }
+
+    private static float jaccard(int[] a, int[] b) {
+        Set<Integer> left = new HashSet<>();
+        Arrays.stream(a).forEach(left::add);
+        Set<Integer> right = new HashSet<>();
+        Arrays.stream(b).forEach(right::add);
+        Set<Integer> union = new HashSet<>(left);
+        union.addAll(right);
+        left.retainAll(right);
+        return union.isEmpty() ? 0f : (float) left.size() / union.size();
+    }
+}
@@ -0,0 +1,207 @@
+package com.musicrecommender.backend.service;
+
+import com.musicrecommender.backend.config.SpotifyProperties;
+import com.musicrecommender.backend.dto.spotify.AlbumObject;
+import com.musicrecommender.backend.dto.spotify.PagingObject;
+import com.musicrecommender.backend.dto.spotify.SimplifiedTrackObject;
+import com.musicrecommender.backend.dto.spotify.TrackObject;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SpotifyIntegrationServiceTest {
+    private SpotifyProperties properties;
+    private final List<URI> requests = Collections.synchronizedList(new ArrayList<>());
+    private Function<URI, Mono<ClientResponse>> api;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SpotifyProperties();
+        properties.getBatch().setWindowMs(50);
+    }
+
+    @Test
+    void albumsAreFetchedTwentyToARequest() {
+        api = uri -> json(listOf("albums", queriedIds(uri), id -> "{\"id\":\"" + id + "\"}"));
+        SpotifyIntegrationService service = newService();
+
+        List<String> ids = IntStream.range(0, 25).mapToObj(SpotifyIntegrationServiceTest::id).toList();
+        List<AlbumObject> albums = Flux.fromIterable(ids).flatMapSequential(service::getAlbum)
+            .collectList().block(Duration.ofSeconds(5));
+
+        assertEquals(List.of(20, 5), requests.stream().map(uri -> queriedIds(uri).size()).sorted((a, b) -> b - a).toList());
+        assertEquals(ids, albums.stream().map(AlbumObject::id).toList());
+    }
+
+    @Test
+    void tracksAreFetchedFiftyToARequest() {
+        api = uri -> json(listOf("tracks", queriedIds(uri), id -> "{\"id\":\"" + id + "\"}"));
+        SpotifyIntegrationService service = newService();
+
+        List<String> ids = IntStream.range(0, 60).mapToObj(SpotifyIntegrationServiceTest::id).toList();
+        List<TrackObject> tracks = Flux.fromIterable(ids).flatMapSequential(service::getTrack)
+            .collectList().block(Duration.ofSeconds(5));
+
+        assertEquals(List.of(50, 10), requests.stream().map(uri -> queriedIds(uri).size()).sorted((a, b) -> b - a).toList());
+        assertEquals(ids, tracks.stream().map(TrackObject::id).toList());
+    }
+
+    @Test
+    void albumMissingFromTheBatchIsFetchedOnItsOwn() {
+        String missing = id(1);
+        api = uri -> uri.getPath().endsWith("/albums")
+            ? json(listOf("albums", queriedIds(uri), id -> id.equals(missing) ? "null" : "{\"id\":\"" + id + "\"}"))
+            : json("{\"id\":\"" + missing + "\",\"name\":\"fetched alone\"}");
+        SpotifyIntegrationService service = newService();
+
+        List<AlbumObject> albums = Flux.just(id(0), missing).flatMapSequential(service::getAlbum)
+            .collectList().block(Duration.ofSeconds(5));
+
+        assertEquals(List.of(id(0), missing), albums.stream().map(AlbumObject::id).toList());
+        assertEquals("fetched alone", albums.get(1).name());
+        assertEquals(List.of("/v1/albums", "/v1/albums/" + missing), requests.stream().map(URI::getPath).toList());
+    }
+
+    @Test
+    void malformedIdIsNotBatched() {
+        api = uri -> json("{\"id\":\"not-an-id\"}");
+        SpotifyIntegrationService service = newService();
+
+        assertEquals("not-an-id", service.getAlbum("not-an-id").block(Duration.ofSeconds(5)).id());
+        assertEquals(List.of("/v1/albums/not-an-id"), requests.stream().map(URI::getPath).toList());
+    }
+
+    @Test
+    void pagesAreFetchedConcurrentlyAndReassembledInOrder() {
+        properties.getPagination().setMaxConcurrency(3);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        api = uri -> {
+            int offset = queriedInt(uri, "offset");
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            // Later pages answer first, so completion order is the reverse of collection order
+            return json(page(offset, 50, 230, true))
+                .delayElement(Duration.ofMillis(200 - offset / 2))
+                .doOnNext(response -> inFlight.decrementAndGet());
+        };
+        SpotifyIntegrationService service = newService();
+
+        List<SimplifiedTrackObject> tracks = service.fetchAllTracksForAlbum(decodePage(page(0, 50, 230, true)))
+            .block(Duration.ofSeconds(5));
+
+        assertEquals(IntStream.range(0, 230).mapToObj(i -> "t" + i).toList(), tracks.stream().map(SimplifiedTrackObject::id).toList());
+        assertEquals(List.of(50, 100, 150, 200), requests.stream().map(uri -> queriedInt(uri, "offset")).sorted().toList());
+        assertEquals(3, maxInFlight.get());
+    }
+
+    @Test
+    void nextLinksAreFollowedWithoutATotal() {
+        api = uri -> json(page(queriedInt(uri, "offset"), 50, 120, false));
+        SpotifyIntegrationService service = newService();
+
+        List<SimplifiedTrackObject> tracks = service.fetchAllTracksForAlbum(decodePage(page(0, 50, 120, false)))
+            .block(Duration.ofSeconds(5));
+
+        assertEquals(IntStream.range(0, 120).mapToObj(i -> "t" + i).toList(), tracks.stream().map(SimplifiedTrackObject::id).toList());
+        assertEquals(List.of(50, 100), requests.stream().map(uri -> queriedInt(uri, "offset")).toList());
+    }
+
+    @Test
+    void singlePageIsReturnedWithoutARequest() {
+        api = uri -> Mono.error(new AssertionError("unexpected request " + uri));
+        SpotifyIntegrationService service = newService();
+
+        List<SimplifiedTrackObject> tracks = service.fetchAllTracksForAlbum(decodePage(page(0, 50, 20, true)))
+            .block(Duration.ofSeconds(5));
+
+        assertEquals(20, tracks.size());
+        assertEquals(List.of(), requests);
+    }
+
+    private SpotifyIntegrationService newService() {
+        WebClient webClient = WebClient.builder()
+            .baseUrl(properties.getBaseUrl())
+            .exchangeFunction((ClientRequest request) -> {
+                requests.add(request.url());
+                return api.apply(request.url());
+            })
+            .build();
+        SpotifyIntegrationService service = new SpotifyIntegrationService(webClient, properties);
+        ReflectionTestUtils.setField(service, "cachedToken", Mono.just("token"));
+        return service;
+    }
+
+    private static String id(int index) {
+        return String.format("%022d", index);
+    }
+
+    private static List<String> queriedIds(URI uri) {
+        String query = uri.getQuery();
+        return Arrays.asList(query.substring(query.indexOf("ids=") + 4).split(","));
+    }
+
+    private static int queriedInt(URI uri, String name) {
+        return Integer.parseInt(UriComponentsBuilder.fromUri(uri).build().getQueryParams().getFirst(name));
+    }
+
+    /**
+     * A page of an album's tracks, named t0, t1 and so on by their position in the collection.
+     * @param withTotal Whether the page carries its total and limit, or only a next link
+     */
+    private static String page(int offset, int limit, int total, boolean withTotal) {
+        int end = Math.min(total, offset + limit);
+        String items = IntStream.range(offset, end).mapToObj(i -> "{\"id\":\"t" + i + "\"}").collect(Collectors.joining(","));
+        String next = end < total
+            ? "\"https://api.spotify.com/v1/albums/" + id(0) + "/tracks?offset=" + end + "&limit=" + limit + "\""
+            : "null";
+        String paging = withTotal ? "\"limit\":" + limit + ",\"offset\":" + offset + ",\"total\":" + total + "," : "";
+        return "{" + paging + "\"next\":" + next + ",\"items\":[" + items + "]}";
+    }
+
+    private static PagingObject<SimplifiedTrackObject> decodePage(String json) {
+        try {
+            return new ObjectMapper().readValue(json, new TypeReference<PagingObject<SimplifiedTrackObject>>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static String listOf(String field, List<String> ids, Function<String, String> item) {
+        return "{\"" + field + "\":[" + ids.stream().map(item).collect(Collectors.joining(",")) + "]}";
+    }
+
+    private static Mono<ClientResponse> json(String body) {
+        return Mono.just(ClientResponse.create(HttpStatus.OK)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .body(body)
+            .build());
+    }
+}
@@ -0,0 +1,58 @@
+package com.musicrecommender.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VersionedFilesTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void fileAtTheConfiguredPathIsCurrentUntilAVersionIsPublished() throws IOException {
+        Path configured = directory.resolve("model.bin");
+        VersionedFiles files = VersionedFiles.of(configured);
+        assertEquals(List.of(), files.current());
+        Files.write(configured, new byte[] {1});
+        assertEquals(List.of(configured), files.current());
+
+        Path version = files.next();
+        files.publish(version);
+        files.deleteExcept(List.of());
+
+        assertEquals(directory.resolve("model.bin.1"), version);
+        assertEquals(List.of(version), files.current());
+        assertFalse(Files.exists(configured));
+    }
+
+    @Test
+    void cleanupKeepsVersionsInUseOrBeingWritten() throws IOException {
+        VersionedFiles files = VersionedFiles.of(directory.resolve("matrix.bin"));
+        Path replaced = files.next();
+        files.publish(replaced);
+        Path unused = files.next();
+        files.publish(unused);
+        Path current = files.next();
+        files.publish(current);
+        Path writing = files.next();
+
+        files.deleteExcept(List.of(replaced));
+
+        assertTrue(Files.exists(replaced));
+        assertFalse(Files.exists(unused));
+        assertTrue(Files.exists(current));
+        assertTrue(Files.exists(writing));
+        assertEquals(directory.resolve("matrix.bin.5"), files.next(), "numbers are not reused");
+
+        files.discard(writing);
+        assertFalse(Files.exists(writing));
+    }
+}
@@ -0,0 +1,178 @@
+package com.musicrecommender.backend.service.mpd;
+
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.musicrecommender.backend.service.mpd.MPDTestData.albumOf;
+import static com.musicrecommender.backend.service.mpd.MPDTestData.artistOf;
+import static com.musicrecommender.backend.service.mpd.MPDTestData.playlist;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MPDSnapshotWriterTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void snapshotFromSlicesReadsBackEveryPlaylist() throws IOException {
+        List<MPDPlaylist> playlists = List.of(
+            playlist(7, "t1", "t2", "t3"),
+            playlist(3, "t3", "t4"),
+            playlist(12, "t5", "t1", "t1"));
+        MPDSnapshot snapshot = MPDTestData.write(directory, playlists);
+
+        assertEquals(MPDSnapshot.FORMAT_VERSION, snapshot.getVersion());
+        assertEquals(3, snapshot.getPlaylistCount());
+        assertEquals(5, snapshot.getTrackCount());
+        assertEquals(8, snapshot.getEdgeCount());
+        for (int i = 0; i < playlists.size(); i++) {
+            MPDPlaylist playlist = playlists.get(i);
+            assertEquals(playlist.getId(), snapshot.getPlaylistId(i));
+            assertEquals(i, snapshot.getPlaylistIndex(playlist.getId()));
+            int[] tracks = snapshot.getPlaylistTracks(i);
+            assertEquals(playlist.getTracks().size(), tracks.length);
+            for (int position = 0; position < tracks.length; position++) {
+                assertEquals(playlist.getTracks().get(position).getSpotifyId(), snapshot.getTrackId(tracks[position]));
+            }
+        }
+        assertEquals(-1, snapshot.getPlaylistIndex(4));
+    }
+
+    @Test
+    void dictionariesResolveIdsAndOrdinalsBothWays() throws IOException {
+        MPDSnapshot snapshot = MPDTestData.write(directory, List.of(
+            playlist(1, "zz", "aa", "mm"),
+            playlist(2, "bb", "aa")));
+
+        // Ordinals follow first appearance, lookups by ID go through the sorted order
+        assertEquals("zz", snapshot.getTrackId(0));
+        assertEquals("aa", snapshot.getTrackId(1));
+        for (String id : List.of("aa", "bb", "mm", "zz")) {
+            int ordinal = snapshot.getTrackOrdinal(id);
+            assertEquals(id, snapshot.getTrackId(ordinal));
+            assertEquals(artistOf(id), snapshot.getArtistId(snapshot.getArtistOrdinal(ordinal)));
+            assertEquals(albumOf(id), snapshot.getAlbumId(snapshot.getAlbumOrdinal(ordinal)));
+        }
+        assertEquals(-1, snapshot.getTrackOrdinal("ab"));
+        assertEquals(-1, snapshot.findArtistOrdinal("no-such-artist"));
+    }
+
+    @Test
+    void appendKeepsBaseOrdinalsAndSkipsKnownPlaylists() throws IOException {
+        MPDSnapshot base = MPDTestData.write(directory, List.of(
+            playlist(1, "t1", "t2"),
+            playlist(2, "t2", "t3")));
+        MPDSnapshot appended = MPDTestData.append(base, List.of(
+            playlist(2, "t9"),
+            playlist(5, "t0", "t2"),
+            playlist(5, "t8"),
+            playlist(4, "t3", "t4")), directory.resolve("appended.bin"));
+
+        assertEquals(4, appended.getPlaylistCount());
+        assertEquals(5, appended.getTrackCount());
+        assertEquals(base.getLineage(), appended.getLineage());
+        assertTrue(appended.getCreatedAt().isAfter(base.getCreatedAt()));
+        assertTrue(appended.startsWith(base.getLineage(), base.getTrackCount(), base.getPlaylistCount()));
+        assertFalse(base.startsWith(appended.getLineage(), appended.getTrackCount(), appended.getPlaylistCount()));
+        for (int track = 0; track < base.getTrackCount(); track++) {
+            assertEquals(base.getTrackId(track), appended.getTrackId(track));
+        }
+        for (int playlist = 0; playlist < base.getPlaylistCount(); playlist++) {
+            assertArrayEquals(base.getPlaylistTracks(playlist), appended.getPlaylistTracks(playlist));
+        }
+        // New tracks are numbered after the base ones and can be found in the merged sort order
+        assertEquals(3, appended.getTrackOrdinal("t0"));
+        assertEquals(4, appended.getTrackOrdinal("t4"));
+        assertEquals(-1, appended.getTrackOrdinal("t8"));
+        assertEquals(-1, appended.getTrackOrdinal("t9"));
+        assertArrayEquals(new int[] {3, 1}, appended.getPlaylistTracks(appended.getPlaylistIndex(5)));
+        assertEquals(3, appended.getPlaylistIndex(4));
+    }
+
+    @Test
+    void appendedSegmentHoldsOnlyTheNewPlaylists() throws IOException {
+        List<MPDPlaylist> playlists = MPDTestData.clustered(400, 4, 50, 3);
+        MPDSnapshot base = MPDTestData.write(directory, playlists.subList(0, 390));
+        MPDSnapshot appended = MPDTestData.append(base, playlists.subList(390, 400), directory.resolve("appended.bin"));
+
+        assertEquals(List.of(base.getPath(), directory.resolve("appended.bin")), appended.getPaths());
+        assertEquals(base.getEdgeCount(), appended.getSegmentEdgeCount(0));
+        assertEquals(appended.getEdgeCount() - base.getEdgeCount(), appended.getSegmentEdgeCount(1));
+        assertTrue(Files.size(appended.getPath()) < Files.size(base.getPath()) / 10);
+    }
+
+    @Test
+    void mergingSegmentsKeepsTheirData() throws IOException {
+        List<MPDPlaylist> playlists = MPDTestData.clustered(90, 4, 12, 5);
+        MPDSnapshot snapshot = MPDTestData.write(directory, playlists.subList(0, 60));
+        snapshot = MPDTestData.append(snapshot, playlists.subList(60, 70), directory.resolve("appended.1"));
+        snapshot = MPDTestData.append(snapshot, playlists.subList(70, 80), directory.resolve("appended.2"));
+        snapshot = MPDTestData.append(snapshot, playlists.subList(80, 90), directory.resolve("appended.3"));
+
+        MPDSnapshot tail = MPDTestData.merge(snapshot, 1, directory.resolve("tail.bin"));
+        MPDSnapshot whole = MPDTestData.merge(snapshot, 0, directory.resolve("whole.bin"));
+
+        assertEquals(2, tail.getSegmentCount());
+        assertEquals(1, whole.getSegmentCount());
+        for (MPDSnapshot merged : List.of(tail, whole)) {
+            assertTrue(merged.isSameAs(snapshot));
+            assertEquals(snapshot.getArtistCount(), merged.getArtistCount());
+            assertEquals(snapshot.getAlbumCount(), merged.getAlbumCount());
+            for (int track = 0; track < snapshot.getTrackCount(); track++) {
+                String id = snapshot.getTrackId(track);
+                assertEquals(id, merged.getTrackId(track));
+                assertEquals(track, merged.getTrackOrdinal(id));
+                assertEquals(snapshot.getArtistOrdinal(track), merged.getArtistOrdinal(track));
+                assertEquals(snapshot.getAlbumOrdinal(track), merged.getAlbumOrdinal(track));
+            }
+            for (int playlist = 0; playlist < snapshot.getPlaylistCount(); playlist++) {
+                long pid = snapshot.getPlaylistId(playlist);
+                assertEquals(pid, merged.getPlaylistId(playlist));
+                assertEquals(playlist, merged.getPlaylistIndex(pid));
+                assertArrayEquals(snapshot.getPlaylistTracks(playlist), merged.getPlaylistTracks(playlist));
+            }
+        }
+    }
+
+    @Test
+    void segmentOnlyOpensOnTheSnapshotItWasAppendedTo() throws IOException {
+        List<MPDPlaylist> playlists = MPDTestData.clustered(40, 2, 10, 9);
+        MPDSnapshot base = MPDTestData.write(directory, playlists.subList(0, 30));
+        MPDSnapshot appended = MPDTestData.append(base, playlists.subList(30, 35), directory.resolve("appended.1"));
+        MPDTestData.append(appended, playlists.subList(35, 40), directory.resolve("appended.2"));
+        MPDSnapshot other = MPDTestData.write(Files.createDirectories(directory.resolve("other")), playlists.subList(0, 30));
+
+        assertThrows(MPDImportException.class, () -> MPDSnapshot.openAppended(other, directory.resolve("appended.1")));
+        assertThrows(MPDImportException.class, () -> MPDSnapshot.openAppended(base, directory.resolve("appended.2")));
+        assertThrows(MPDImportException.class, () -> MPDSnapshot.open(directory.resolve("appended.1")));
+    }
+
+    @Test
+    void snapshotsBuiltFromScratchStartNewLineages() throws IOException {
+        List<MPDPlaylist> playlists = List.of(playlist(1, "t1", "t2"));
+        MPDSnapshot first = MPDTestData.write(directory, playlists);
+        MPDSnapshot second = MPDTestData.write(Files.createDirectories(directory.resolve("second")), playlists);
+
+        assertNotEquals(first.getLineage(), second.getLineage());
+        assertFalse(second.startsWith(first.getLineage(), first.getTrackCount(), first.getPlaylistCount()));
+    }
+
+    @Test
+    void openRejectsFilesThatAreNotSnapshots() throws IOException {
+        Path file = directory.resolve("garbage.bin");
+        Files.write(file, new byte[128]);
+
+        assertThrows(MPDImportException.class, () -> MPDSnapshot.open(file));
+    }
+}
@@ -0,0 +1,139 @@
+package com.musicrecommender.backend.service.mpd;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.entity.mpd.MPDTrack;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Small MPD data sets for tests. Playlists are built in code, written out as an mpd.slice JSON file and
+ * turned into a snapshot the same way the snapshot service does it.
+ */
+public final class MPDTestData {
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private MPDTestData() {
+    }
+
+    /**
+     * A playlist of the given track IDs. Each track's artist and album are derived from its ID, see
+     * {@link #artistOf} and {@link #albumOf}.
+     */
+    public static MPDPlaylist playlist(long pid, String... trackIds) {
+        List<MPDTrack> tracks = new ArrayList<>(trackIds.length);
+        for (String trackId : trackIds) {
+            MPDTrack track = new MPDTrack();
+            track.setSpotifyId(trackId);
+            track.setArtistId(artistOf(trackId));
+            track.setAlbumId(albumOf(trackId));
+            tracks.add(track);
+        }
+        MPDPlaylist playlist = new MPDPlaylist();
+        playlist.setId(pid);
+        playlist.setName("playlist " + pid);
+        playlist.setTracks(tracks);
+        return playlist;
+    }
+
+    public static String artistOf(String trackId) {
+        return "artist" + Math.floorMod(trackId.hashCode(), 7);
+    }
+
+    public static String albumOf(String trackId) {
+        return "album" + Math.floorMod(trackId.hashCode(), 11);
+    }
+
+    /**
+     * Playlists with pids 0 .. count - 1 that each draw most of their distinct tracks from one of the
+     * clusters, so playlists of the same cluster overlap heavily and others barely do.
+     */
+    public static List<MPDPlaylist> clustered(int count, int clusters, int tracksPerCluster, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<MPDPlaylist> playlists = new ArrayList<>(count);
+        for (int pid = 0; pid < count; pid++) {
+            int cluster = random.nextInt(clusters);
+            int length = tracksPerCluster / 2 + random.nextInt(tracksPerCluster / 2);
+            Set<String> tracks = new LinkedHashSet<>();
+            while (tracks.size() < length) {
+                int other = random.nextInt(10) == 0 ? random.nextInt(clusters) : cluster;
+                tracks.add("c" + other + "t" + random.nextInt(tracksPerCluster));
+            }
+            playlists.add(playlist(pid, tracks.toArray(new String[0])));
+        }
+        return playlists;
+    }
+
+    /**
+     * Writes the playlists as one slice in the directory and a snapshot of it next to the slice.
+     */
+    public static MPDSnapshot write(Path directory, List<MPDPlaylist> playlists) throws IOException {
+        Path slice = directory.resolve("mpd.slice.0-" + (playlists.size() - 1) + ".json");
+        writeSlice(slice, playlists);
+        Path target = directory.resolve("mpd-snapshot.bin");
+        writer().writeFromSlices(List.of(MPDSliceSource.forFile(slice.toFile())), target);
+        return MPDSnapshot.open(target);
+    }
+
+    /**
+     * Writes a segment appending the playlists to the base snapshot to the target and opens the two together.
+     */
+    public static MPDSnapshot append(MPDSnapshot base, List<MPDPlaylist> playlists, Path target) throws IOException {
+        writer().writeAppended(base, playlists, target);
+        return MPDSnapshot.openAppended(base, target);
+    }
+
+    /**
+     * Rewrites the snapshot's segments from the given one on as one file at the target and opens the result.
+     */
+    public static MPDSnapshot merge(MPDSnapshot snapshot, int from, Path target) throws IOException {
+        writer().writeMerged(snapshot, from, target);
+        return from == 0 ? MPDSnapshot.open(target) : MPDSnapshot.openAppended(snapshot.firstSegments(from), target);
+    }
+
+    public static void writeSlice(Path file, List<MPDPlaylist> playlists) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file); JsonGenerator json = JSON.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeObjectFieldStart("info");
+            json.writeStringField("slice", file.getFileName().toString());
+            json.writeEndObject();
+            json.writeArrayFieldStart("playlists");
+            for (MPDPlaylist playlist : playlists) {
+                json.writeStartObject();
+                json.writeStringField("name", playlist.getName());
+                json.writeNumberField("pid", playlist.getId());
+                json.writeArrayFieldStart("tracks");
+                int position = 0;
+                for (MPDTrack track : playlist.getTracks()) {
+                    json.writeStartObject();
+                    json.writeNumberField("pos", position++);
+                    json.writeStringField("track_uri", "spotify:track:" + track.getSpotifyId());
+                    json.writeStringField("artist_uri", "spotify:artist:" + track.getArtistId());
+                    json.writeStringField("album_uri", "spotify:album:" + track.getAlbumId());
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    private static MPDSnapshotWriter writer() {
+        MPDSnapshotWriter writer = new MPDSnapshotWriter();
+        ReflectionTestUtils.setField(writer, "sliceReader", new MPDSliceReader());
+        return writer;
+    }
+}
@@ -0,0 +1,141 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.mpd.MPDTestData;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlsTrainerTest {
+    @TempDir
+    Path directory;
+
+    private RecommendationProperties properties;
+    private AlsTrainer trainer;
+    private MPDSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new RecommendationProperties();
+        properties.getAls().setFactors(8);
+        properties.getAls().setIterations(8);
+        properties.getAls().setParallelism(2);
+        trainer = new AlsTrainer();
+        ReflectionTestUtils.setField(trainer, "recommendationProperties", properties);
+        snapshot = MPDTestData.write(directory, MPDTestData.clustered(120, 4, 16, 3));
+    }
+
+    @Test
+    void modelFileRecordsItsShapeAndSettings() throws IOException {
+        AlsModel model = train();
+
+        assertEquals(AlsModel.FORMAT_VERSION, model.getVersion());
+        assertTrue(model.isCompatibleWith(snapshot));
+        assertEquals(snapshot.getTrackCount(), model.getTrackCount());
+        assertEquals(snapshot.getPlaylistCount(), model.getPlaylistCount());
+        assertEquals(8, model.getFactors());
+        assertEquals(8, model.getIterations());
+        assertEquals((float) properties.getAls().getRegularization(), model.getRegularization());
+        assertEquals((float) properties.getAls().getAlpha(), model.getAlpha());
+        assertEquals(properties.getAls().getCgSteps(), model.getCgSteps());
+        assertEquals(snapshot.getTrackCount() * 8, model.trackFactors().length);
+    }
+
+    @Test
+    void modelServesSnapshotsAppendedToItsOwnButNotRebuiltOnes() throws IOException {
+        AlsModel model = train();
+        MPDSnapshot appended = MPDTestData.append(snapshot, List.of(MPDTestData.playlist(1000, "c0t0", "new")),
+            directory.resolve("appended.bin"));
+        MPDSnapshot rebuilt = MPDTestData.write(Files.createDirectories(directory.resolve("rebuilt")),
+            MPDTestData.clustered(120, 4, 16, 3));
+
+        assertTrue(model.isCompatibleWith(appended));
+        assertFalse(model.isCompatibleWith(rebuilt));
+    }
+
+    @Test
+    void storedGramMatchesTheTrackFactors() throws IOException {
+        AlsModel model = train();
+        float[] factors = model.trackFactors();
+        int f = model.getFactors();
+
+        for (int a = 0; a < f; a++) {
+            for (int b = 0; b < f; b++) {
+                double sum = 0;
+                for (int track = 0; track < model.getTrackCount(); track++) {
+                    sum += factors[track * f + a] * factors[track * f + b];
+                }
+                assertEquals(sum, model.gram()[a * f + b], 1e-3 * Math.max(1, Math.abs(sum)));
+            }
+        }
+    }
+
+    @Test
+    void playlistsScoreTheirOwnTracksAboveAverage() throws IOException {
+        AlsModel model = train();
+        float[] factors = model.trackFactors();
+        int f = model.getFactors();
+        float[] x = new float[f];
+
+        int better = 0;
+        for (int playlist = 0; playlist < model.getPlaylistCount(); playlist++) {
+            model.getPlaylistFactors(playlist, x);
+            double all = 0;
+            for (int track = 0; track < model.getTrackCount(); track++) {
+                all += score(factors, track, x);
+            }
+            double own = 0;
+            int[] tracks = snapshot.getPlaylistTracks(playlist);
+            for (int track : tracks) {
+                own += score(factors, track, x);
+            }
+            if (own / tracks.length > all / model.getTrackCount()) {
+                better++;
+            }
+        }
+        assertTrue(better >= 0.95 * model.getPlaylistCount(), better + " of " + model.getPlaylistCount());
+    }
+
+    @Test
+    void rejectsModelsWithoutFactors() {
+        properties.getAls().setFactors(0);
+
+        assertThrows(RecommendationException.class, this::train);
+    }
+
+    @Test
+    void openRejectsFilesThatAreNotModels() throws IOException {
+        Path file = directory.resolve("garbage.bin");
+        Files.write(file, new byte[128]);
+
+        assertThrows(RecommendationException.class, () -> AlsModel.open(file));
+    }
+
+    private AlsModel train() throws IOException {
+        Path target = directory.resolve("als-factors.bin");
+        trainer.train(snapshot, target);
+        return AlsModel.open(target);
+    }
+
+    private static float score(float[] factors, int track, float[] x) {
+        float sum = 0f;
+        for (int a = 0; a < x.length; a++) {
+            sum += factors[track * x.length + a] * x[a];
+        }
+        return sum;
+    }
+}
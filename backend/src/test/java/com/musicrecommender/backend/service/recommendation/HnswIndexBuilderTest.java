@@ -0,0 +1,137 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.mpd.MPDTestData;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswIndexBuilderTest {
+    @TempDir
+    Path directory;
+
+    private RecommendationProperties properties;
+    private AlsModel model;
+    private HnswIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new RecommendationProperties();
+        properties.getAls().setFactors(16);
+        properties.getAls().setIterations(3);
+        properties.getAls().setParallelism(2);
+        properties.getTrackNeighbors().setM(8);
+        properties.getTrackNeighbors().setEfConstruction(64);
+        properties.getTrackNeighbors().setParallelism(2);
+
+        MPDSnapshot snapshot = MPDTestData.write(directory, MPDTestData.clustered(800, 40, 50, 9));
+        AlsTrainer trainer = new AlsTrainer();
+        ReflectionTestUtils.setField(trainer, "recommendationProperties", properties);
+        Path modelPath = directory.resolve("als-factors.bin");
+        trainer.train(snapshot, modelPath);
+        model = AlsModel.open(modelPath);
+
+        HnswIndexBuilder builder = new HnswIndexBuilder();
+        ReflectionTestUtils.setField(builder, "recommendationProperties", properties);
+        Path indexPath = directory.resolve("track-hnsw.bin");
+        builder.build(model, indexPath);
+        index = HnswIndex.open(indexPath);
+    }
+
+    @Test
+    void indexFileRecordsItsShapeAndModel() {
+        assertEquals(HnswIndex.FORMAT_VERSION, index.getVersion());
+        assertTrue(index.isCompatibleWith(model));
+        assertEquals(model.getTrackCount(), index.getNodeCount());
+        assertEquals(model.getFactors(), index.getDimensions());
+        assertEquals(8, index.getM());
+        assertEquals(64, index.getEfConstruction());
+        assertTrue(index.entryPoint() >= 0 && index.entryPoint() < index.size());
+    }
+
+    @Test
+    void linksPointAtOtherNodesWithinTheDegreeBound() {
+        int[] neighbors = new int[2 * index.getM()];
+        for (int node = 0; node < index.size(); node++) {
+            int count = index.neighbors(node, 0, neighbors);
+            assertTrue(count > 0 && count <= 2 * index.getM(), "node " + node + " has " + count + " links");
+            for (int i = 0; i < count; i++) {
+                assertNotEquals(node, neighbors[i]);
+                assertTrue(neighbors[i] >= 0 && neighbors[i] < index.size());
+            }
+        }
+    }
+
+    @Test
+    void approximateNeighborsRecallTheExactOnes() {
+        int k = 10;
+        int queries = 0;
+        double recall = 0;
+        for (int track = 0; track < index.size(); track += 20) {
+            RankedTracks exact = index.findSimilarExact(track, k);
+            RankedTracks found = index.findSimilar(track, k, 100);
+            float kth = exact.getScore(exact.size() - 1);
+            int hits = 0;
+            for (int rank = 0; rank < found.size(); rank++) {
+                assertNotEquals(track, found.getTrack(rank));
+                if (found.getScore(rank) >= kth - 1e-6f) {
+                    hits++;
+                }
+            }
+            recall += (double) hits / exact.size();
+            queries++;
+        }
+        assertTrue(recall / queries >= 0.9, "recall@" + k + " was " + recall / queries);
+    }
+
+    @Test
+    void concurrentSearchesGiveTheSameResultsAsSerialOnes() throws Exception {
+        int[] serial = new int[index.size()];
+        for (int track = 0; track < index.size(); track++) {
+            serial[track] = index.findSimilar(track, 5, 50).getTrack(0);
+        }
+        ForkJoinPool pool = new ForkJoinPool(8);
+        try {
+            int[] concurrent = pool.submit(() -> IntStream.range(0, index.size()).parallel()
+                .map(track -> index.findSimilar(track, 5, 50).getTrack(0))
+                .toArray()).get();
+            assertArrayEquals(serial, concurrent);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void similaritiesAreCosines() {
+        RankedTracks exact = index.findSimilarExact(0, index.size());
+        for (int rank = 0; rank < exact.size(); rank++) {
+            assertTrue(Math.abs(exact.getScore(rank)) <= 1.0001f);
+        }
+        assertEquals(0, index.findSimilar(-1, 10, 100).size());
+        assertEquals(0, index.findSimilar(0, 0, 100).size());
+    }
+
+    @Test
+    void openRejectsFilesThatAreNotIndexes() throws IOException {
+        Path file = directory.resolve("garbage.bin");
+        Files.write(file, new byte[128]);
+
+        assertThrows(RecommendationException.class, () -> HnswIndex.open(file));
+    }
+}
@@ -0,0 +1,129 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImplicitCgSolverTest {
+    private static final int FACTORS = 6;
+    private static final int ROWS = 40;
+    private static final float REGULARIZATION = 0.1f;
+    private static final float ALPHA = 10f;
+
+    private final float[] fixed = new float[ROWS * FACTORS];
+    private final float[] gram = new float[FACTORS * FACTORS];
+    private final int[] observed = {3, 7, 8, 15, 22, 31};
+
+    ImplicitCgSolverTest() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < fixed.length; i++) {
+            fixed[i] = (float) (random.nextDouble() - 0.5);
+        }
+        for (int row = 0; row < ROWS; row++) {
+            for (int a = 0; a < FACTORS; a++) {
+                for (int b = 0; b < FACTORS; b++) {
+                    gram[a * FACTORS + b] += fixed[row * FACTORS + a] * fixed[row * FACTORS + b];
+                }
+            }
+        }
+    }
+
+    @Test
+    void enoughStepsReachTheExactSolution() {
+        double[] exact = directSolve();
+        float[] x = new float[FACTORS];
+
+        new ImplicitCgSolver(FACTORS).solve(gram, REGULARIZATION, ALPHA, fixed, observed, 0, observed.length, x, 0, FACTORS + 2);
+
+        for (int a = 0; a < FACTORS; a++) {
+            assertEquals(exact[a], x[a], 1e-3);
+        }
+    }
+
+    @Test
+    void solvesTheRowAtItsOffsetAndLeavesTheOthers() {
+        double[] exact = directSolve();
+        float[] x = new float[3 * FACTORS];
+        x[0] = 7f;
+        x[2 * FACTORS] = 9f;
+
+        new ImplicitCgSolver(FACTORS).solve(gram, REGULARIZATION, ALPHA, fixed, observed, 0, observed.length, x, FACTORS, FACTORS + 2);
+
+        for (int a = 0; a < FACTORS; a++) {
+            assertEquals(exact[a], x[FACTORS + a], 1e-3);
+        }
+        assertEquals(7f, x[0]);
+        assertEquals(9f, x[2 * FACTORS]);
+    }
+
+    @Test
+    void warmStartFromTheSolutionStaysThere() {
+        double[] exact = directSolve();
+        float[] x = new float[FACTORS];
+        for (int a = 0; a < FACTORS; a++) {
+            x[a] = (float) exact[a];
+        }
+
+        new ImplicitCgSolver(FACTORS).solve(gram, REGULARIZATION, ALPHA, fixed, observed, 0, observed.length, x, 0, 3);
+
+        for (int a = 0; a < FACTORS; a++) {
+            assertEquals(exact[a], x[a], 1e-4);
+        }
+    }
+
+    @Test
+    void fewStepsStillReduceTheError() {
+        double[] exact = directSolve();
+        float[] x = new float[FACTORS];
+
+        new ImplicitCgSolver(FACTORS).solve(gram, REGULARIZATION, ALPHA, fixed, observed, 0, observed.length, x, 0, 2);
+
+        double before = 0;
+        double after = 0;
+        for (int a = 0; a < FACTORS; a++) {
+            before += exact[a] * exact[a];
+            after += (exact[a] - x[a]) * (exact[a] - x[a]);
+        }
+        assertTrue(after < before / 2, "error " + after + " from " + before);
+    }
+
+    /**
+     * Solves (G + lambda I + alpha sum(y y^T)) x = (1 + alpha) sum(y) by Gaussian elimination.
+     */
+    private double[] directSolve() {
+        double[][] system = new double[FACTORS][FACTORS + 1];
+        for (int a = 0; a < FACTORS; a++) {
+            for (int b = 0; b < FACTORS; b++) {
+                system[a][b] = gram[a * FACTORS + b] + (a == b ? REGULARIZATION : 0);
+            }
+        }
+        for (int row : observed) {
+            for (int a = 0; a < FACTORS; a++) {
+                for (int b = 0; b < FACTORS; b++) {
+                    system[a][b] += ALPHA * fixed[row * FACTORS + a] * fixed[row * FACTORS + b];
+                }
+                system[a][FACTORS] += (1 + ALPHA) * fixed[row * FACTORS + a];
+            }
+        }
+        for (int pivot = 0; pivot < FACTORS; pivot++) {
+            for (int row = pivot + 1; row < FACTORS; row++) {
+                double factor = system[row][pivot] / system[pivot][pivot];
+                for (int column = pivot; column <= FACTORS; column++) {
+                    system[row][column] -= factor * system[pivot][column];
+                }
+            }
+        }
+        double[] x = new double[FACTORS];
+        for (int row = FACTORS - 1; row >= 0; row--) {
+            double sum = system[row][FACTORS];
+            for (int column = row + 1; column < FACTORS; column++) {
+                sum -= system[row][column] * x[column];
+            }
+            x[row] = sum / system[row][row];
+        }
+        return x;
+    }
+}
@@ -0,0 +1,83 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.service.ItemSimilarityService;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.mpd.MPDTestData;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemItemRecommenderTest {
+    @TempDir
+    Path directory;
+
+    private MPDSnapshot snapshot;
+    private ItemSimilarityMatrix matrix;
+    private ItemItemRecommender recommender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.setSimilarityThreshold(0);
+        properties.getItemSimilarity().setMinCoOccurrence(1);
+        properties.getItemSimilarity().setMaxNeighbors(20);
+        properties.getItemSimilarity().setParallelism(2);
+        snapshot = MPDTestData.write(directory, MPDTestData.clustered(200, 5, 15, 5));
+        ItemSimilarityBuilder builder = new ItemSimilarityBuilder();
+        ReflectionTestUtils.setField(builder, "recommendationProperties", properties);
+        Path path = directory.resolve("item-similarity.bin");
+        builder.build(snapshot, path);
+        matrix = ItemSimilarityMatrix.open(path);
+
+        ItemSimilarityService service = new ItemSimilarityService();
+        ReflectionTestUtils.setField(service, "matrix", matrix);
+        recommender = new ItemItemRecommender();
+        ReflectionTestUtils.setField(recommender, "itemSimilarityService", service);
+    }
+
+    @Test
+    void scoresAreSummedSimilaritiesToTheDistinctSeeds() {
+        int[] seeds = {3, 17, 3, 40, 41};
+        float[] expected = new float[snapshot.getTrackCount()];
+        for (int seed : new int[] {3, 17, 40, 41}) {
+            for (long position = matrix.getRowStart(seed); position < matrix.getRowStart(seed) + matrix.getRowLength(seed); position++) {
+                expected[matrix.getNeighbor(position)] += matrix.getScore(position);
+            }
+        }
+        for (int seed : seeds) {
+            expected[seed] = 0;
+        }
+        int candidates = 0;
+        for (float score : expected) {
+            if (score > 0) {
+                candidates++;
+            }
+        }
+
+        RankedTracks ranked = recommender.recommend(snapshot, seeds, snapshot.getTrackCount());
+
+        assertEquals(candidates, ranked.size());
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            assertEquals(expected[ranked.getTrack(rank)], ranked.getScore(rank), 1e-5);
+            if (rank > 0) {
+                assertTrue(ranked.getScore(rank) <= ranked.getScore(rank - 1));
+            }
+        }
+    }
+
+    @Test
+    void unknownSeedsAndZeroLimitsGiveNothing() {
+        assertEquals(0, recommender.recommend(snapshot, new int[] {-1, snapshot.getTrackCount()}, 10).size());
+        assertEquals(0, recommender.recommend(snapshot, new int[] {1}, 0).size());
+    }
+}
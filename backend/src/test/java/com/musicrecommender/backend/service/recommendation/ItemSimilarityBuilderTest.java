@@ -0,0 +1,231 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.mpd.MPDTestData;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemSimilarityBuilderTest {
+    @TempDir
+    Path directory;
+
+    private RecommendationProperties properties;
+    private ItemSimilarityBuilder builder;
+    private MPDSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new RecommendationProperties();
+        properties.setSimilarityThreshold(0);
+        properties.getItemSimilarity().setMinCoOccurrence(1);
+        properties.getItemSimilarity().setMaxNeighbors(1000);
+        properties.getItemSimilarity().setParallelism(2);
+        builder = new ItemSimilarityBuilder();
+        ReflectionTestUtils.setField(builder, "recommendationProperties", properties);
+        snapshot = MPDTestData.write(directory, MPDTestData.clustered(80, 4, 12, 7));
+    }
+
+    @Test
+    void unprunedMatrixHoldsTheCosineOfEveryCoOccurringPair() throws IOException {
+        ItemSimilarityMatrix matrix = build();
+        int[][] coOccurrences = coOccurrences(snapshot);
+        int[] counts = playlistCounts(snapshot);
+
+        assertTrue(matrix.isCompatibleWith(snapshot));
+        assertEquals(snapshot.getTrackCount(), matrix.getTrackCount());
+        assertEquals(snapshot.getPlaylistCount(), matrix.getPlaylistCount());
+        long entries = 0;
+        for (int track = 0; track < snapshot.getTrackCount(); track++) {
+            assertEquals(counts[track], matrix.getTrackPlaylistCount(track));
+            int expectedLength = 0;
+            for (int other = 0; other < snapshot.getTrackCount(); other++) {
+                if (other != track && coOccurrences[track][other] > 0) {
+                    expectedLength++;
+                }
+            }
+            assertEquals(expectedLength, matrix.getRowLength(track));
+            float last = Float.MAX_VALUE;
+            for (long position = matrix.getRowStart(track); position < matrix.getRowStart(track) + matrix.getRowLength(track); position++) {
+                int neighbor = matrix.getNeighbor(position);
+                int both = coOccurrences[track][neighbor];
+                assertEquals(both, matrix.getCoOccurrence(position));
+                assertEquals(both / Math.sqrt((double) counts[track] * counts[neighbor]), matrix.getScore(position), 1e-6);
+                assertTrue(matrix.getScore(position) <= last, "row is sorted by descending similarity");
+                last = matrix.getScore(position);
+            }
+            entries += matrix.getRowLength(track);
+        }
+        assertEquals(entries, matrix.getEntryCount());
+    }
+
+    @Test
+    void prunedRowsKeepTheBestPairsAboveTheMinimumCoOccurrence() throws IOException {
+        properties.getItemSimilarity().setMaxNeighbors(3);
+        properties.getItemSimilarity().setMinCoOccurrence(2);
+        ItemSimilarityMatrix matrix = build();
+        int[][] coOccurrences = coOccurrences(snapshot);
+        int[] counts = playlistCounts(snapshot);
+
+        assertEquals(3, matrix.getMaxNeighbors());
+        for (int track = 0; track < snapshot.getTrackCount(); track++) {
+            List<Float> expected = new ArrayList<>();
+            for (int other = 0; other < snapshot.getTrackCount(); other++) {
+                if (other != track && coOccurrences[track][other] >= 2) {
+                    expected.add((float) (coOccurrences[track][other] / Math.sqrt((double) counts[track] * counts[other])));
+                }
+            }
+            expected.sort(Comparator.reverseOrder());
+            List<Float> best = expected.subList(0, Math.min(3, expected.size()));
+            assertEquals(best.size(), matrix.getRowLength(track));
+            for (int rank = 0; rank < best.size(); rank++) {
+                long position = matrix.getRowStart(track) + rank;
+                assertTrue(matrix.getCoOccurrence(position) >= 2);
+                assertEquals(best.get(rank), matrix.getScore(position), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void foldingUnprunedMatricesRewritesTheChangedRowsAsAFullBuildWould() throws IOException {
+        List<MPDPlaylist> playlists = MPDTestData.clustered(120, 4, 12, 7);
+        Path baseDirectory = Files.createDirectories(directory.resolve("base"));
+        MPDSnapshot base = MPDTestData.write(baseDirectory, playlists.subList(0, 90));
+        List<MPDPlaylist> appended = new ArrayList<>(playlists.subList(90, 120));
+        appended.add(MPDTestData.playlist(1000, "new1", "new2", "c0t1"));
+        MPDSnapshot next = MPDTestData.append(base, appended, directory.resolve("appended.bin"));
+        builder.build(base, directory.resolve("base.bin"));
+        ItemSimilarityMatrix matrix = ItemSimilarityMatrix.open(directory.resolve("base.bin"));
+
+        Path deltaPath = directory.resolve("folded.bin");
+        builder.fold(matrix, base, next, deltaPath);
+        ItemSimilarityMatrix folded = ItemSimilarityMatrix.openAppended(matrix, deltaPath);
+        Path rebuiltPath = directory.resolve("rebuilt.bin");
+        builder.build(next, rebuiltPath);
+        ItemSimilarityMatrix rebuilt = ItemSimilarityMatrix.open(rebuiltPath);
+
+        Set<Integer> changed = new HashSet<>();
+        for (int playlist = base.getPlaylistCount(); playlist < next.getPlaylistCount(); playlist++) {
+            Arrays.stream(next.getPlaylistTracks(playlist)).forEach(changed::add);
+        }
+        assertTrue(folded.isCompatibleWith(next));
+        assertEquals(appended.size(), folded.getFoldedPlaylistCount());
+        assertEquals(0, rebuilt.getFoldedPlaylistCount());
+        assertEquals(changed.size(), folded.getSegmentRowCount(1), "only the changed rows are written");
+        long entries = 0;
+        for (int track = 0; track < next.getTrackCount(); track++) {
+            assertEquals(rebuilt.getTrackPlaylistCount(track), folded.getTrackPlaylistCount(track));
+            if (changed.contains(track)) {
+                assertEquals(row(rebuilt, track), row(folded, track), "row " + track);
+            } else {
+                assertEquals(row(matrix, track), row(folded, track), "row " + track + " keeps its stored entries");
+            }
+            entries += folded.getRowLength(track);
+        }
+        assertEquals(entries, folded.getEntryCount());
+    }
+
+    @Test
+    void mergingDeltasKeepsEveryRow() throws IOException {
+        List<MPDPlaylist> playlists = MPDTestData.clustered(120, 4, 12, 3);
+        MPDSnapshot snapshot = MPDTestData.write(Files.createDirectories(directory.resolve("base")), playlists.subList(0, 60));
+        builder.build(snapshot, directory.resolve("matrix.0"));
+        ItemSimilarityMatrix matrix = ItemSimilarityMatrix.open(directory.resolve("matrix.0"));
+        for (int chunk = 1; chunk <= 3; chunk++) {
+            MPDSnapshot next = MPDTestData.append(snapshot, playlists.subList(40 + 20 * chunk, 60 + 20 * chunk),
+                directory.resolve("snapshot." + chunk));
+            builder.fold(matrix, snapshot, next, directory.resolve("matrix." + chunk));
+            matrix = ItemSimilarityMatrix.openAppended(matrix, directory.resolve("matrix." + chunk));
+            snapshot = next;
+        }
+
+        builder.merge(matrix, 1, directory.resolve("tail.bin"));
+        ItemSimilarityMatrix tail = ItemSimilarityMatrix.openAppended(matrix.firstSegments(1), directory.resolve("tail.bin"));
+        builder.merge(matrix, 0, directory.resolve("whole.bin"));
+        ItemSimilarityMatrix whole = ItemSimilarityMatrix.open(directory.resolve("whole.bin"));
+
+        assertEquals(4, matrix.getSegmentCount());
+        assertEquals(2, tail.getSegmentCount());
+        for (ItemSimilarityMatrix merged : List.of(tail, whole)) {
+            assertTrue(merged.isCompatibleWith(snapshot));
+            assertEquals(matrix.getCreatedAt(), merged.getCreatedAt());
+            assertEquals(matrix.getEntryCount(), merged.getEntryCount());
+            assertEquals(matrix.getFoldedPlaylistCount(), merged.getFoldedPlaylistCount());
+            for (int track = 0; track < snapshot.getTrackCount(); track++) {
+                assertEquals(matrix.getTrackPlaylistCount(track), merged.getTrackPlaylistCount(track));
+                assertEquals(row(matrix, track), row(merged, track), "row " + track);
+            }
+        }
+        assertThrows(RecommendationException.class,
+            () -> ItemSimilarityMatrix.openAppended(tail, directory.resolve("matrix.1")), "a delta only opens on its parent");
+    }
+
+    @Test
+    void openRejectsFilesThatAreNotMatrices() throws IOException {
+        Path file = directory.resolve("garbage.bin");
+        Files.write(file, new byte[128]);
+
+        assertThrows(RecommendationException.class, () -> ItemSimilarityMatrix.open(file));
+    }
+
+    private ItemSimilarityMatrix build() throws IOException {
+        Path target = directory.resolve("item-similarity.bin");
+        builder.build(snapshot, target);
+        return ItemSimilarityMatrix.open(target);
+    }
+
+    /**
+     * The row's entries as "neighbor:co-occurrence:score" sorted by neighbor, so rows compare regardless of tie order.
+     */
+    private static List<String> row(ItemSimilarityMatrix matrix, int track) {
+        List<String> entries = new ArrayList<>();
+        for (long position = matrix.getRowStart(track); position < matrix.getRowStart(track) + matrix.getRowLength(track); position++) {
+            entries.add(String.format("%06d:%d:%.5f", matrix.getNeighbor(position), matrix.getCoOccurrence(position),
+                matrix.getScore(position)));
+        }
+        entries.sort(null);
+        return entries;
+    }
+
+    static int[][] coOccurrences(MPDSnapshot snapshot) {
+        int[][] counts = new int[snapshot.getTrackCount()][snapshot.getTrackCount()];
+        for (int playlist = 0; playlist < snapshot.getPlaylistCount(); playlist++) {
+            int[] tracks = Arrays.stream(snapshot.getPlaylistTracks(playlist)).distinct().toArray();
+            for (int a : tracks) {
+                for (int b : tracks) {
+                    counts[a][b]++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    static int[] playlistCounts(MPDSnapshot snapshot) {
+        int[] counts = new int[snapshot.getTrackCount()];
+        for (int playlist = 0; playlist < snapshot.getPlaylistCount(); playlist++) {
+            for (int track : Arrays.stream(snapshot.getPlaylistTracks(playlist)).distinct().toArray()) {
+                counts[track]++;
+            }
+        }
+        return counts;
+    }
+}
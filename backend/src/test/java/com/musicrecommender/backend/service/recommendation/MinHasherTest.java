@@ -0,0 +1,73 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MinHasherTest {
+    private final MinHasher hasher = new MinHasher(32, 8, 42);
+
+    @Test
+    void signatureIgnoresOrderAndDuplicates() {
+        assertArrayEquals(signature(hasher, 5, 1, 9, 3), signature(hasher, 9, 3, 3, 1, 5, 9));
+    }
+
+    @Test
+    void sameSeedGivesTheSameFunctions() {
+        MinHasher again = new MinHasher(32, 8, 42);
+        MinHasher other = new MinHasher(32, 8, 43);
+        int[] tracks = {4, 8, 15, 16, 23, 42};
+
+        assertArrayEquals(signature(hasher, tracks), signature(again, tracks));
+        assertFalse(Arrays.equals(signature(hasher, tracks), signature(other, tracks)));
+    }
+
+    @Test
+    void agreeingRowsEstimateJaccardSimilarity() {
+        // 200 shared of 400 distinct tracks
+        int[] a = IntStream.range(0, 300).toArray();
+        int[] b = IntStream.range(100, 400).toArray();
+        int[] signatureA = signature(hasher, a);
+        int[] signatureB = signature(hasher, b);
+
+        int agreeing = 0;
+        for (int i = 0; i < signatureA.length; i++) {
+            if (signatureA[i] == signatureB[i]) {
+                agreeing++;
+            }
+        }
+        assertEquals(0.5, (double) agreeing / signatureA.length, 0.1);
+    }
+
+    @Test
+    void bandKeysMatchExactlyWhenTheBandRowsDo() {
+        int[] signature = signature(hasher, 1, 2, 3);
+        int[] copy = signature.clone();
+        copy[8] ^= 1;
+
+        assertEquals(hasher.bandKey(signature, 0), hasher.bandKey(copy, 0));
+        assertNotEquals(hasher.bandKey(signature, 1), hasher.bandKey(copy, 1));
+        // The band is part of the key, so equal rows in different bands do not collide
+        int[] uniform = new int[signature.length];
+        assertNotEquals(hasher.bandKey(uniform, 0), hasher.bandKey(uniform, 1));
+    }
+
+    @Test
+    void rejectsEmptyShapes() {
+        assertThrows(IllegalArgumentException.class, () -> new MinHasher(0, 4, 1));
+        assertThrows(IllegalArgumentException.class, () -> new MinHasher(4, 0, 1));
+    }
+
+    private static int[] signature(MinHasher hasher, int... tracks) {
+        int[] signature = new int[hasher.getBands() * hasher.getRowsPerBand()];
+        hasher.signature(tracks, signature);
+        return signature;
+    }
+}
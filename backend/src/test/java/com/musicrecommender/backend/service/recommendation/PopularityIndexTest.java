@@ -0,0 +1,110 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.mpd.MPDTestData;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PopularityIndexTest {
+    @TempDir
+    Path directory;
+
+    private final ForkJoinPool pool = new ForkJoinPool(3);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void countsEveryPlaylistOfATrackOnce() throws IOException {
+        MPDSnapshot snapshot = MPDTestData.write(directory, MPDTestData.clustered(150, 5, 20, 8));
+        PopularityIndex index = PopularityIndex.build(snapshot, 3, 10, pool);
+
+        assertArrayEquals(playlistCounts(snapshot), IntStream.range(0, snapshot.getTrackCount()).map(index::getPlaylistCount).toArray());
+    }
+
+    @Test
+    void topListsRankByPlaylistCountThenOrdinal() throws IOException {
+        MPDSnapshot snapshot = MPDTestData.write(directory, MPDTestData.clustered(150, 5, 20, 8));
+        PopularityIndex index = PopularityIndex.build(snapshot, 3, 10, pool);
+        int[] counts = playlistCounts(snapshot);
+
+        assertArrayEquals(expectedTop(counts, track -> 0, 0, 10), tracks(index.getGlobalTopTracks(10)));
+        for (int artist = 0; artist < snapshot.getArtistCount(); artist++) {
+            assertArrayEquals(expectedTop(counts, snapshot::getArtistOrdinal, artist, 3),
+                tracks(index.getArtistTopTracks(artist, 10)));
+        }
+        for (int album = 0; album < snapshot.getAlbumCount(); album++) {
+            assertArrayEquals(expectedTop(counts, snapshot::getAlbumOrdinal, album, 3),
+                tracks(index.getAlbumTopTracks(album, 10)));
+        }
+        RankedTracks top = index.getGlobalTopTracks(2);
+        assertEquals(2, top.size());
+        assertEquals(counts[top.getTrack(0)], top.getScore(0));
+    }
+
+    @Test
+    void foldMatchesARebuildOfTheAppendedSnapshot() throws IOException {
+        List<MPDPlaylist> playlists = MPDTestData.clustered(180, 5, 20, 8);
+        MPDSnapshot base = MPDTestData.write(directory, playlists.subList(0, 120));
+        List<MPDPlaylist> appended = new ArrayList<>(playlists.subList(120, 180));
+        appended.add(MPDTestData.playlist(1000, "new1", "new2", "c0t1"));
+        MPDSnapshot next = MPDTestData.append(base, appended, directory.resolve("appended.bin"));
+
+        PopularityIndex folded = PopularityIndex.fold(PopularityIndex.build(base, 3, 10, pool), next);
+        PopularityIndex rebuilt = PopularityIndex.build(next, 3, 10, pool);
+
+        assertEquals(next, folded.getSnapshot());
+        for (int track = 0; track < next.getTrackCount(); track++) {
+            assertEquals(rebuilt.getPlaylistCount(track), folded.getPlaylistCount(track));
+        }
+        assertArrayEquals(rebuilt.globalTracks(), folded.globalTracks());
+        assertArrayEquals(rebuilt.artistTracks(), folded.artistTracks());
+        assertArrayEquals(rebuilt.albumTracks(), folded.albumTracks());
+        for (int artist = 0; artist < next.getArtistCount(); artist++) {
+            assertEquals(rebuilt.artistStart(artist), folded.artistStart(artist));
+        }
+        for (int album = 0; album < next.getAlbumCount(); album++) {
+            assertEquals(rebuilt.albumStart(album), folded.albumStart(album));
+        }
+    }
+
+    static int[] playlistCounts(MPDSnapshot snapshot) {
+        int[] counts = new int[snapshot.getTrackCount()];
+        for (int playlist = 0; playlist < snapshot.getPlaylistCount(); playlist++) {
+            Arrays.stream(snapshot.getPlaylistTracks(playlist)).distinct().forEach(track -> counts[track]++);
+        }
+        return counts;
+    }
+
+    static int[] expectedTop(int[] counts, IntUnaryOperator keyOf, int key, int n) {
+        return IntStream.range(0, counts.length)
+            .filter(track -> keyOf.applyAsInt(track) == key)
+            .boxed()
+            .sorted(Comparator.<Integer>comparingInt(track -> -counts[track]).thenComparingInt(track -> track))
+            .limit(n)
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    static int[] tracks(RankedTracks ranked) {
+        return IntStream.range(0, ranked.size()).map(ranked::getTrack).toArray();
+    }
+}
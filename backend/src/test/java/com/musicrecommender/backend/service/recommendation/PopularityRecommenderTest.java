@@ -0,0 +1,91 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.mpd.MPDTestData;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PopularityRecommenderTest {
+    @TempDir
+    Path directory;
+
+    private MPDSnapshot base;
+    private MPDSnapshot next;
+    private PopularityRecommender recommender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        List<MPDPlaylist> playlists = MPDTestData.clustered(80, 4, 12, 7);
+        base = MPDTestData.write(directory, playlists.subList(0, 60));
+        next = MPDTestData.append(base, playlists.subList(60, 80), directory.resolve("appended.bin"));
+        recommender = new PopularityRecommender();
+        ReflectionTestUtils.setField(recommender, "recommendationProperties", new RecommendationProperties());
+        recommender.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recommender.shutdown();
+    }
+
+    @Test
+    void indexFoldedBeforePublishingServesTheFirstRequestForTheAppendedSnapshot() {
+        recommender.recommend(base, new int[] {0}, 5);
+        PopularityIndex counted = currentIndex();
+
+        recommender.fold(base, next);
+        recommender.recommend(base, new int[] {0}, 5);
+        assertSame(counted, currentIndex(), "the base keeps its index until the appended snapshot is requested");
+
+        PopularityIndex folded = (PopularityIndex) ReflectionTestUtils.getField(recommender, "folded");
+        recommender.recommend(next, new int[] {0}, 5);
+        assertSame(folded, currentIndex());
+
+        recommender.publishFolded(next);
+        assertSame(folded, currentIndex());
+        assertSame(next, currentIndex().getSnapshot());
+    }
+
+    @Test
+    void publishingSwitchesToTheFoldedIndexWithoutARequest() {
+        recommender.recommend(base, new int[] {0}, 5);
+
+        recommender.fold(base, next);
+        recommender.publishFolded(next);
+
+        assertSame(next, currentIndex().getSnapshot());
+        assertNull(ReflectionTestUtils.getField(recommender, "folded"));
+    }
+
+    @Test
+    void discardedFoldIsNotServed() {
+        recommender.recommend(base, new int[] {0}, 5);
+        recommender.fold(base, next);
+        PopularityIndex folded = (PopularityIndex) ReflectionTestUtils.getField(recommender, "folded");
+
+        recommender.discardFolded(next);
+        recommender.recommend(next, new int[] {0}, 5);
+
+        assertNotSame(folded, currentIndex());
+        assertSame(next, currentIndex().getSnapshot());
+    }
+
+    private PopularityIndex currentIndex() {
+        return (PopularityIndex) ReflectionTestUtils.getField(recommender, "index");
+    }
+}
@@ -0,0 +1,169 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+import com.musicrecommender.backend.entity.mpd.MPDPlaylist;
+import com.musicrecommender.backend.service.mpd.MPDSnapshot;
+import com.musicrecommender.backend.service.mpd.MPDTestData;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RandomWalkRecommenderTest {
+    @TempDir
+    Path directory;
+
+    private final List<RandomWalkRecommender> recommenders = new ArrayList<>();
+    private MPDSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        List<MPDPlaylist> playlists = new ArrayList<>(MPDTestData.clustered(300, 6, 20, 4));
+        playlists.add(MPDTestData.playlist(1000, "island1", "island2", "island3"));
+        snapshot = MPDTestData.write(directory, playlists);
+    }
+
+    @AfterEach
+    void tearDown() {
+        recommenders.forEach(RandomWalkRecommender::shutdown);
+    }
+
+    @Test
+    void walksStayMostlyWithinTheSeedsCluster() {
+        RandomWalkRecommender recommender = recommender(2);
+        int[] seeds = {snapshot.getTrackOrdinal("c2t0"), snapshot.getTrackOrdinal("c2t1"), snapshot.getTrackOrdinal("c2t2")};
+
+        RankedTracks ranked = recommender.recommend(snapshot, seeds, 10);
+
+        assertEquals(10, ranked.size());
+        int inCluster = 0;
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            for (int seed : seeds) {
+                assertTrue(ranked.getTrack(rank) != seed, "seeds are not recommended");
+            }
+            if (snapshot.getTrackId(ranked.getTrack(rank)).startsWith("c2t")) {
+                inCluster++;
+            }
+            if (rank > 0) {
+                assertTrue(ranked.getScore(rank) <= ranked.getScore(rank - 1));
+            }
+        }
+        assertTrue(inCluster >= 8, inCluster + " of 10 from the seeds' cluster");
+    }
+
+    @Test
+    void onlyTracksConnectedToTheSeedsAreReached() {
+        RankedTracks ranked = recommender(2).recommend(snapshot, new int[] {snapshot.getTrackOrdinal("island1")}, 10);
+
+        assertEquals(2, ranked.size());
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            assertTrue(snapshot.getTrackId(ranked.getTrack(rank)).startsWith("island"));
+        }
+    }
+
+    @Test
+    void resultsDoNotDependOnParallelism() {
+        int[] seeds = {snapshot.getTrackOrdinal("c0t3"), snapshot.getTrackOrdinal("c4t5"), snapshot.getTrackOrdinal("c1t7")};
+
+        RankedTracks serial = recommender(1).recommend(snapshot, seeds, 20);
+        RankedTracks parallel = recommender(3).recommend(snapshot, seeds, 20);
+
+        assertEquals(serial.size(), parallel.size());
+        int[] serialTracks = new int[serial.size()];
+        int[] parallelTracks = new int[parallel.size()];
+        for (int rank = 0; rank < serial.size(); rank++) {
+            serialTracks[rank] = serial.getTrack(rank);
+            parallelTracks[rank] = parallel.getTrack(rank);
+        }
+        assertArrayEquals(serialTracks, parallelTracks);
+    }
+
+    @Test
+    void graphOfTheBaseServesAnAppendedSnapshotUntilItsOwnIsBuilt() throws Exception {
+        RandomWalkRecommender recommender = recommender(2);
+        int[] seeds = {snapshot.getTrackOrdinal("c2t0")};
+        recommender.recommend(snapshot, seeds, 10);
+        MPDSnapshot appended = MPDTestData.append(snapshot, List.of(MPDTestData.playlist(2000, "c2t0", "fresh1", "fresh2")),
+            directory.resolve("appended.bin"));
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService builder = (ExecutorService) ReflectionTestUtils.getField(recommender, "builder");
+        builder.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        RankedTracks served = recommender.recommend(appended, seeds, 10);
+        assertEquals(snapshot.getCreatedAt().toEpochMilli(), recommender.modelVersion(appended), "served by the base graph");
+        for (int rank = 0; rank < served.size(); rank++) {
+            assertTrue(served.getTrack(rank) < snapshot.getTrackCount());
+        }
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (recommender.modelVersion(appended) != appended.getCreatedAt().toEpochMilli() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(appended.getCreatedAt().toEpochMilli(), recommender.modelVersion(appended));
+        assertEquals(appended.getCreatedAt().toEpochMilli(), recommender.modelVersion(snapshot),
+            "the appended graph serves requests still holding the base");
+    }
+
+    @Test
+    void idleScratchesAreBoundedByTheParallelism() throws Exception {
+        RandomWalkRecommender recommender = recommender(2);
+        int[] seeds = {snapshot.getTrackOrdinal("c0t3"), snapshot.getTrackOrdinal("c4t5"), snapshot.getTrackOrdinal("c1t7")};
+        recommender.recommend(snapshot, seeds, 10);
+        ExecutorService requests = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<RankedTracks>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(requests.submit(() -> recommender.recommend(snapshot, seeds, 10)));
+            }
+            for (Future<RankedTracks> result : results) {
+                assertEquals(10, result.get(10, TimeUnit.SECONDS).size());
+            }
+        } finally {
+            requests.shutdownNow();
+        }
+
+        ScratchPool<?> scratches = (ScratchPool<?>) ReflectionTestUtils.getField(recommender, "scratches");
+        assertTrue(scratches.idleCount() <= 2, scratches.idleCount() + " idle scratches");
+    }
+
+    @Test
+    void unknownSeedsGiveNothing() {
+        assertEquals(0, recommender(2).recommend(snapshot, new int[] {-1, snapshot.getTrackCount()}, 10).size());
+        assertEquals(0, recommender(2).recommend(snapshot, new int[] {0}, 0).size());
+    }
+
+    private RandomWalkRecommender recommender(int parallelism) {
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.getRandomWalk().setTotalSteps(20000);
+        properties.getRandomWalk().setParallelism(parallelism);
+        RandomWalkRecommender recommender = new RandomWalkRecommender();
+        ReflectionTestUtils.setField(recommender, "recommendationProperties", properties);
+        recommender.start();
+        recommenders.add(recommender);
+        return recommender;
+    }
+}
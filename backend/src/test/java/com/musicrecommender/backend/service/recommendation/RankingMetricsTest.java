@@ -0,0 +1,65 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RankingMetricsTest {
+    @Test
+    void rPrecisionCountsHitsAmongTheFirstTruthSizeTracks() {
+        RankedTracks ranked = ranked(5, 1, 9, 2, 7, 3);
+
+        assertEquals(0.5, RankingMetrics.rPrecision(ranked, new int[] {1, 2, 3}, 4));
+        assertEquals(1 / 3.0, RankingMetrics.rPrecision(ranked, new int[] {1, 2, 3}, 3), 1e-12);
+        assertEquals(0.0, RankingMetrics.rPrecision(ranked, new int[] {}, 0));
+    }
+
+    @Test
+    void rPrecisionOfAShortListOnlyCountsWhatItHolds() {
+        assertEquals(0.25, RankingMetrics.rPrecision(ranked(4), new int[] {4, 6}, 4));
+    }
+
+    @Test
+    void ndcgDiscountsHitsByTheLogOfTheirRank() {
+        // Hits at ranks 2 and 4: (1 / log2(2) + 1 / log2(4)) / (1 + 1 / log2(2))
+        assertEquals(0.75, RankingMetrics.ndcg(ranked(5, 1, 9, 2), new int[] {1, 2}), 1e-12);
+        // Hit at rank 3 alone: (1 / log2(3)) / 1
+        assertEquals(1 / (Math.log(3) / Math.log(2)), RankingMetrics.ndcg(ranked(5, 9, 1), new int[] {1}), 1e-12);
+    }
+
+    @Test
+    void ndcgIsOneForHitsAtTheTopAndZeroWithoutHits() {
+        assertEquals(1.0, RankingMetrics.ndcg(ranked(2, 1, 8, 9), new int[] {1, 2, 3}), 1e-12);
+        assertEquals(0.0, RankingMetrics.ndcg(ranked(7, 8, 9), new int[] {1, 2}));
+    }
+
+    @Test
+    void clicksCountTheRefreshesBeforeTheFirstHit() {
+        int[] tracks = new int[30];
+        for (int rank = 0; rank < tracks.length; rank++) {
+            tracks[rank] = 100 + rank;
+        }
+        RankedTracks ranked = ranked(tracks);
+
+        assertEquals(0, RankingMetrics.clicks(ranked, new int[] {109}, 500));
+        assertEquals(1, RankingMetrics.clicks(ranked, new int[] {110}, 500));
+        assertEquals(2, RankingMetrics.clicks(ranked, new int[] {123, 129}, 500));
+    }
+
+    @Test
+    void clicksWithoutAHitWithinTheCandidatesIsOneMoreThanThePages() {
+        RankedTracks ranked = ranked(1, 2, 3);
+
+        assertEquals(51, RankingMetrics.clicks(ranked, new int[] {4}, 500));
+        // The hit at rank 3 lies beyond a list cut to two candidates
+        assertEquals(1, RankingMetrics.clicks(ranked, new int[] {3}, 2));
+    }
+
+    private static RankedTracks ranked(int... tracks) {
+        float[] scores = new float[tracks.length];
+        for (int rank = 0; rank < tracks.length; rank++) {
+            scores[rank] = tracks.length - rank;
+        }
+        return new RankedTracks(tracks, scores);
+    }
+}
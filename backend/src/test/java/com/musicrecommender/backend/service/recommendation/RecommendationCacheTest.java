@@ -0,0 +1,123 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import com.musicrecommender.backend.config.RecommendationProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecommendationCacheTest {
+    private RecommendationProperties properties;
+    private MeterRegistry meterRegistry;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        properties = new RecommendationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void repeatedRequestsForTheSameSeedSetAreServedFromTheCache() {
+        RecommendationCache cache = cache();
+
+        RankedTracks first = cache.get("item-item", 1, new int[] {3, 1, 2}, 10, loader(10));
+        RankedTracks second = cache.get("item-item", 1, new int[] {2, 3, 1, 1}, 10, loader(10));
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void algorithmModelVersionAndSizeArePartOfTheKey() {
+        RecommendationCache cache = cache();
+        int[] seeds = {1, 2};
+
+        cache.get("item-item", 1, seeds, 10, loader(10));
+        cache.get("als", 1, seeds, 10, loader(10));
+        cache.get("item-item", 2, seeds, 10, loader(10));
+        cache.get("item-item", 1, seeds, 20, loader(20));
+        cache.get("item-item", 1, new int[] {1, 2, 3}, 10, loader(10));
+
+        assertEquals(5, loads.get());
+        assertEquals(5, cache.getEntryCount());
+    }
+
+    @Test
+    void invalidateAllDropsEveryEntry() {
+        RecommendationCache cache = cache();
+        cache.get("item-item", 1, new int[] {1}, 10, loader(10));
+        cache.get("item-item", 1, new int[] {2}, 10, loader(10));
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSizeBytes());
+        cache.get("item-item", 1, new int[] {1}, 10, loader(10));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvictedToStayWithinTheBudget() {
+        properties.setCacheMaxSizeMb(1);
+        RecommendationCache cache = cache();
+
+        // About 16 KB each, against 64 KB per segment
+        for (int playlist = 0; playlist < 500; playlist++) {
+            cache.get("item-item", 1, new int[] {playlist}, 2000, loader(2000));
+        }
+
+        assertTrue(cache.getEvictionCount() > 0);
+        assertTrue(cache.getSizeBytes() <= cache.getMaxSizeBytes());
+        assertEquals(500, cache.getEntryCount() + cache.getEvictionCount());
+    }
+
+    @Test
+    void zeroDurationDisablesTheCache() {
+        properties.setCacheDurationMinutes(0);
+        RecommendationCache cache = cache();
+
+        cache.get("item-item", 1, new int[] {1}, 10, loader(10));
+        cache.get("item-item", 1, new int[] {1}, 10, loader(10));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    private RecommendationCache cache() {
+        RecommendationCache cache = new RecommendationCache();
+        ReflectionTestUtils.setField(cache, "recommendationProperties", properties);
+        ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+        cache.start();
+        return cache;
+    }
+
+    private Supplier<RankedTracks> loader(int k) {
+        return () -> {
+            loads.incrementAndGet();
+            int[] tracks = new int[k];
+            float[] scores = new float[k];
+            for (int rank = 0; rank < k; rank++) {
+                tracks[rank] = rank;
+                scores[rank] = k - rank;
+            }
+            return new RankedTracks(tracks, scores);
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScratchPoolTest {
+    private final ScratchPool<int[]> pool = new ScratchPool<>(2, int[]::new, array -> array.length);
+
+    @Test
+    void releasedInstancesAreReusedForSizesTheyCover() {
+        int[] scratch = pool.borrow(100);
+
+        assertTrue(scratch.length >= 100);
+        pool.release(scratch);
+        assertSame(scratch, pool.borrow(90));
+    }
+
+    @Test
+    void instancesTooSmallForTheRequestAreDropped() {
+        int[] small = pool.borrow(100);
+        pool.release(small);
+
+        int[] large = pool.borrow(1000);
+
+        assertNotSame(small, large);
+        assertTrue(large.length >= 1000);
+        assertEquals(0, pool.idleCount());
+    }
+
+    @Test
+    void atMostCapacityInstancesAreKeptIdle() {
+        int[][] borrowed = new int[5][];
+        for (int i = 0; i < borrowed.length; i++) {
+            borrowed[i] = pool.borrow(10);
+        }
+        for (int[] scratch : borrowed) {
+            pool.release(scratch);
+        }
+
+        assertEquals(2, pool.idleCount());
+    }
+}
@@ -0,0 +1,70 @@
+package com.musicrecommender.backend.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopKHeapTest {
+    @Test
+    void drainsTheBestTracksBestFirst() {
+        SplittableRandom random = new SplittableRandom(3);
+        float[] scores = new float[1000];
+        TopKHeap heap = new TopKHeap(10);
+        for (int track = 0; track < scores.length; track++) {
+            scores[track] = random.nextInt(200) / 10f;
+            heap.offer(track, scores[track]);
+        }
+
+        int[] expected = IntStream.range(0, scores.length).boxed()
+            .sorted(Comparator.<Integer>comparingDouble(track -> -scores[track]).thenComparingInt(track -> track))
+            .limit(10)
+            .mapToInt(Integer::intValue)
+            .toArray();
+        RankedTracks ranked = heap.drain();
+        assertEquals(10, ranked.size());
+        for (int rank = 0; rank < expected.length; rank++) {
+            assertEquals(expected[rank], ranked.getTrack(rank));
+            assertEquals(scores[expected[rank]], ranked.getScore(rank));
+        }
+        assertEquals(0, heap.size());
+    }
+
+    @Test
+    void equalScoresPreferTheLowerOrdinal() {
+        TopKHeap heap = new TopKHeap(3);
+        for (int track : new int[] {9, 4, 7, 1, 8}) {
+            heap.offer(track, 1f);
+        }
+
+        int[] tracks = new int[3];
+        float[] scores = new float[3];
+        assertEquals(3, heap.drain(tracks, scores));
+        assertArrayEquals(new int[] {1, 4, 7}, tracks);
+    }
+
+    @Test
+    void holdsFewerThanKWhenFewerWereOffered() {
+        TopKHeap heap = new TopKHeap(5);
+        heap.offer(2, 0.5f);
+        heap.offer(3, 0.9f);
+
+        RankedTracks ranked = heap.drain();
+        assertEquals(2, ranked.size());
+        assertEquals(3, ranked.getTrack(0));
+        assertEquals(2, ranked.getTrack(1));
+    }
+
+    @Test
+    void zeroCapacityKeepsNothing() {
+        TopKHeap heap = new TopKHeap(0);
+        heap.offer(1, 1f);
+
+        assertEquals(0, heap.size());
+        assertEquals(0, heap.drain().size());
+    }
+}
@@ -0,0 +1,78 @@
+package com.musicrecommender.backend.service.spotify;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchLoaderTest {
+    private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void keysAreSplitIntoBatchesOfTheMaximumSize() {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(20, Duration.ofMillis(50), keys -> {
+            batches.add(keys);
+            return Mono.just(keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)));
+        });
+
+        List<String> values = Flux.range(0, 45).flatMapSequential(loader::load).collectList().block(Duration.ofSeconds(5));
+
+        assertEquals(IntStream.range(0, 45).mapToObj(String::valueOf).toList(), values);
+        assertEquals(List.of(20, 20, 5), batches.stream().map(List::size).toList());
+        assertEquals(IntStream.range(0, 20).boxed().toList(), batches.get(0));
+    }
+
+    @Test
+    void keysWithinTheWindowShareOneBatch() {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(50, Duration.ofMillis(50), keys -> {
+            batches.add(keys);
+            return Mono.just(keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)));
+        });
+
+        List<String> values = Flux.just(1, 2, 1, 3).flatMapSequential(loader::load).collectList().block(Duration.ofSeconds(5));
+
+        assertEquals(List.of("1", "2", "1", "3"), values);
+        assertEquals(List.of(List.of(1, 2, 3)), batches, "a repeated key takes one slot");
+    }
+
+    @Test
+    void keyMissingFromTheBatchCompletesEmpty() {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(50, Duration.ofMillis(10), keys -> {
+            batches.add(keys);
+            return Mono.just(Map.of(1, "one"));
+        });
+
+        List<String> values = Flux.just(1, 2)
+            .flatMapSequential(key -> loader.load(key).defaultIfEmpty("missing"))
+            .collectList().block(Duration.ofSeconds(5));
+
+        assertEquals(List.of("one", "missing"), values);
+        assertEquals(List.of(List.of(1, 2)), batches);
+    }
+
+    @Test
+    void failedBatchFailsEveryKey() {
+        IllegalStateException error = new IllegalStateException("failed");
+        BatchLoader<Integer, String> loader = new BatchLoader<>(2, Duration.ofSeconds(10), keys -> Mono.error(error));
+
+        List<Mono<String>> loads = List.of(loader.load(1).cache(), loader.load(2).cache());
+        loads.forEach(load -> load.subscribe(value -> { }, e -> { }));
+
+        for (Mono<String> load : loads) {
+            assertSame(error, assertThrows(IllegalStateException.class, () -> load.block(Duration.ofSeconds(5))));
+        }
+    }
+}
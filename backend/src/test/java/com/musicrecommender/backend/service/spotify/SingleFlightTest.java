@@ -0,0 +1,80 @@
+package com.musicrecommender.backend.service.spotify;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Sinks.One<String> response = Sinks.one();
+
+    @Test
+    void concurrentCallsForAKeyShareOneCall() throws Exception {
+        List<CompletableFuture<String>> results = subscribe("album", 5);
+        CompletableFuture<String> other = flights.execute("artist", () -> Mono.just("other")).toFuture();
+
+        assertEquals(1, calls.get());
+        assertEquals(1, flights.size(), "the other key completed right away");
+        assertEquals("other", other.get(1, TimeUnit.SECONDS));
+        response.tryEmitValue("value");
+        for (CompletableFuture<String> result : results) {
+            assertSame("value", result.get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(0, flights.size());
+
+        subscribe("album", 1);
+        assertEquals(2, calls.get(), "a finished call is not cached");
+    }
+
+    @Test
+    void errorReachesEveryCaller() {
+        List<CompletableFuture<String>> results = subscribe("album", 3);
+        IllegalStateException error = new IllegalStateException("failed");
+
+        response.tryEmitError(error);
+
+        assertEquals(1, calls.get());
+        for (CompletableFuture<String> result : results) {
+            ExecutionException thrown = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+            assertSame(error, thrown.getCause());
+        }
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    void callKeepsRunningWhenItsFirstCallerCancels() throws Exception {
+        List<CompletableFuture<String>> results = subscribe("album", 2);
+
+        results.get(0).cancel(true);
+        response.tryEmitValue("value");
+
+        assertEquals("value", results.get(1).get(1, TimeUnit.SECONDS));
+        assertFalse(results.get(1).isCancelled());
+        assertEquals(1, calls.get());
+    }
+
+    private List<CompletableFuture<String>> subscribe(String key, int count) {
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            results.add(flights.execute(key, () -> {
+                calls.incrementAndGet();
+                return response.asMono();
+            }).toFuture());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,127 @@
+package com.musicrecommender.backend.service.spotify;
+
+import com.musicrecommender.backend.config.SpotifyProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpotifyRateLimiterTest {
+    private static final ClientRequest REQUEST =
+        ClientRequest.create(HttpMethod.GET, URI.create("https://api.spotify.com/v1/albums/1")).build();
+
+    private SpotifyProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private SpotifyRateLimiter rateLimiter;
+    private final Deque<ClientResponse> responses = new ArrayDeque<>();
+    private final List<Long> exchangedAt = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties = new SpotifyProperties();
+        properties.getRateLimit().setRequestsPerSecond(1000);
+        properties.getRateLimit().setInitialBackoffMs(1);
+        properties.getRateLimit().setMaxBackoffMs(2);
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = new SpotifyRateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "spotifyProperties", properties);
+        ReflectionTestUtils.setField(rateLimiter, "meterRegistry", meterRegistry);
+        rateLimiter.start();
+    }
+
+    @Test
+    void throttledRequestIsRetriedAfterRetryAfter() {
+        responses.add(throttled("1"));
+        responses.add(ClientResponse.create(HttpStatus.OK).build());
+
+        ClientResponse response = exchange();
+
+        assertEquals(HttpStatus.OK, response.statusCode());
+        assertEquals(2, exchangedAt.size());
+        assertTrue(exchangedAt.get(1) - exchangedAt.get(0) >= Duration.ofMillis(900).toNanos(),
+            "the retry waited for the Retry-After");
+        assertEquals(1, meterRegistry.get("spotify.rate-limit.throttled").functionCounter().count());
+        assertEquals(1, meterRegistry.get("spotify.rate-limit.retries").counter().count());
+    }
+
+    @Test
+    void retryAfterPausesEveryRequest() {
+        properties.getRateLimit().setMaxRetries(0);
+        responses.add(throttled("1"));
+        responses.add(ClientResponse.create(HttpStatus.OK).build());
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exchange().statusCode());
+        assertTrue(rateLimiter.getPausedSeconds() > 0);
+        assertEquals(HttpStatus.OK, exchange().statusCode());
+
+        assertTrue(exchangedAt.get(1) - exchangedAt.get(0) >= Duration.ofMillis(900).toNanos(),
+            "a request that was not throttled waited for the pause as well");
+    }
+
+    @Test
+    void lastResponseIsReturnedOnceTheRetriesAreUsedUp() {
+        properties.getRateLimit().setMaxRetries(2);
+        for (int i = 0; i < 4; i++) {
+            responses.add(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+
+        ClientResponse response = exchange();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.statusCode());
+        assertEquals(3, exchangedAt.size());
+        assertEquals(2, meterRegistry.get("spotify.rate-limit.retries").counter().count());
+        assertEquals(0, rateLimiter.getPausedSeconds(), "a 503 does not pause the other requests");
+    }
+
+    @Test
+    void throttledRequestGivesUpAfterTheRetryLimit() {
+        properties.getRateLimit().setMaxRetries(1);
+        for (int i = 0; i < 3; i++) {
+            responses.add(throttled("0"));
+        }
+
+        ClientResponse response = exchange();
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.statusCode());
+        assertEquals(2, exchangedAt.size());
+        assertEquals(2, meterRegistry.get("spotify.rate-limit.throttled").functionCounter().count());
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        responses.add(ClientResponse.create(HttpStatus.NOT_FOUND).build());
+
+        assertEquals(HttpStatus.NOT_FOUND, exchange().statusCode());
+        assertEquals(1, exchangedAt.size());
+    }
+
+    private ClientResponse exchange() {
+        return rateLimiter.filter(REQUEST, request -> Mono.fromSupplier(() -> {
+            exchangedAt.add(System.nanoTime());
+            return responses.remove();
+        })).block(Duration.ofSeconds(10));
+    }
+
+    private static ClientResponse throttled(String retryAfter) {
+        return ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, retryAfter).build();
+    }
+}